@@ -0,0 +1,220 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.arquillian.adapter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.wildfly.swarm.arquillian.daemon.protocol.WireProtocol;
+import org.wildfly.swarm.bootstrap.env.WildFlySwarmManifest;
+import org.wildfly.swarm.spi.api.SwarmProperties;
+import org.wildfly.swarm.tools.exec.SwarmProcess;
+
+/**
+ * A forked server kept running between test classes when {@link SwarmProperties#ARQUILLIAN_REUSE} is set.
+ *
+ * <p>Test classes whose uberjars resolve to the same {@link #key(WildFlySwarmManifest, Archive, String...) key} have
+ * their archives deployed into the running server through the daemon instead of booting a new one. Every
+ * forked server binds the same daemon and HTTP ports, so a single server is kept at a time; a test class
+ * with another key recycles it.</p>
+ */
+final class ReusableServer {
+
+    private static final Logger LOG = Logger.getLogger(ReusableServer.class.getName());
+
+    private static final Pattern PROJECT_CONFIGURATION = Pattern.compile("/(WEB-INF/classes/)?project-[^/]+\\.ya?ml");
+
+    private ReusableServer(String key, SwarmProcess process, InetSocketAddress daemonAddress) {
+        this.key = key;
+        this.process = process;
+        this.daemonAddress = daemonAddress;
+    }
+
+    /**
+     * Everything about a server that a deployment cannot change: its dependencies, bootstrap modules and
+     * artifacts, main class and properties, the project configuration the archive boots the server with,
+     * and the given launch settings. The rest of the test archive is left out.
+     */
+    static String key(WildFlySwarmManifest manifest, Archive<?> archive, String... settings) throws IOException {
+        StringBuilder key = new StringBuilder();
+        key.append(manifest.getMainClass()).append('\n');
+        new TreeSet<>(manifest.getDependencies()).forEach(e -> key.append("dep ").append(e).append('\n'));
+        new TreeSet<>(manifest.bootstrapModules()).forEach(e -> key.append("module ").append(e).append('\n'));
+        new TreeSet<>(manifest.bootstrapArtifacts()).forEach(e -> key.append("artifact ").append(e).append('\n'));
+        new TreeMap<>(manifest.getProperties()).forEach((k, v) -> key.append("property ").append(k).append('=').append(v).append('\n'));
+        for (Map.Entry<String, String> each : projectConfiguration(archive).entrySet()) {
+            key.append("config ").append(each.getKey()).append(' ').append(each.getValue()).append('\n');
+        }
+        for (String setting : settings) {
+            key.append("setting ").append(setting).append('\n');
+        }
+        return key.toString();
+    }
+
+    /**
+     * project-defaults.yml, project-stages.yml and the other project-*.yml files of the archive, by digest.
+     */
+    private static Map<String, String> projectConfiguration(Archive<?> archive) throws IOException {
+        Map<String, String> digests = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            String path = each.getKey().get();
+            Asset asset = each.getValue().getAsset();
+            if (asset == null || !PROJECT_CONFIGURATION.matcher(path).matches()) {
+                continue;
+            }
+            try (InputStream in = asset.openStream()) {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, n);
+                }
+                digests.put(path, String.format("%064x", new BigInteger(1, digest.digest())));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * @return the running server for the key, or {@code null} if a new one has to be started
+     */
+    static synchronized ReusableServer acquire(String key, String testClass) {
+        if (current == null) {
+            return null;
+        }
+        if (current.key.equals(key) && current.process.isAlive()) {
+            ++current.reuses;
+            log("Reusing server for " + testClass + " (reused " + current.reuses + " time(s))");
+            return current;
+        }
+        recycle(current.process.isAlive() ? "fractions or settings changed for " + testClass : "process exited");
+        return null;
+    }
+
+    static synchronized ReusableServer keep(String key, SwarmProcess process, InetSocketAddress daemonAddress, String testClass) {
+        if (current != null) {
+            recycle("replaced by server for " + testClass);
+        }
+        if (!hookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(ReusableServer::shutdown, "swarm-arquillian-reuse"));
+            hookInstalled = true;
+        }
+        current = new ReusableServer(key, process, daemonAddress);
+        log("Keeping server started for " + testClass + " for reuse");
+        return current;
+    }
+
+    /**
+     * Stop the server, if it is still the kept one, after it failed to deploy or undeploy.
+     */
+    static synchronized void discard(ReusableServer server, String reason) {
+        if (current == server) {
+            recycle(reason);
+        }
+    }
+
+    void deploy(File archive) throws IOException, DeploymentException {
+        send(WireProtocol.COMMAND_DEPLOY_PREFIX + archive.getAbsolutePath());
+    }
+
+    void undeploy(String name) throws IOException, DeploymentException {
+        send(WireProtocol.COMMAND_UNDEPLOY_PREFIX + name);
+    }
+
+    private void send(String command) throws IOException, DeploymentException {
+        try (Socket socket = new Socket()) {
+            socket.connect(this.daemonAddress, CONNECT_TIMEOUT);
+            socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(Integer.getInteger(SwarmProperties.DEPLOYMENT_TIMEOUT, 300)));
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), WireProtocol.CHARSET));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), WireProtocol.CHARSET));
+            writer.write(command);
+            writer.write(WireProtocol.COMMAND_EOF_DELIMITER);
+            writer.flush();
+
+            String response = reader.readLine();
+            if (response == null) {
+                throw new IOException("Server closed the connection while handling: " + command);
+            }
+            if (!response.startsWith(WireProtocol.RESPONSE_OK_PREFIX)) {
+                throw new DeploymentException(response.startsWith(WireProtocol.RESPONSE_ERROR_PREFIX)
+                                                      ? response.substring(WireProtocol.RESPONSE_ERROR_PREFIX.length())
+                                                      : response);
+            }
+        }
+    }
+
+    private static void recycle(String reason) {
+        log("Recycling server (" + reason + ") after " + current.reuses + " reuse(s)");
+        current.stopProcess();
+        current = null;
+    }
+
+    private static synchronized void shutdown() {
+        if (current != null) {
+            current.stopProcess();
+            current = null;
+        }
+    }
+
+    private void stopProcess() {
+        try {
+            this.process.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void log(String message) {
+        LOG.info(message);
+    }
+
+    private static final int CONNECT_TIMEOUT = 10000;
+
+    private static ReusableServer current;
+
+    private static boolean hookInstalled;
+
+    private final String key;
+
+    private final SwarmProcess process;
+
+    private final InetSocketAddress daemonAddress;
+
+    private int reuses;
+}
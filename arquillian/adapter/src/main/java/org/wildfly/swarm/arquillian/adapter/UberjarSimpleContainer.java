@@ -18,8 +18,10 @@ package org.wildfly.swarm.arquillian.adapter;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -51,6 +53,7 @@ import org.wildfly.swarm.Swarm;
 import org.wildfly.swarm.arquillian.CreateSwarm;
 import org.wildfly.swarm.arquillian.adapter.resources.ContextRoot;
 import org.wildfly.swarm.arquillian.resolver.ShrinkwrapArtifactResolvingHelper;
+import org.wildfly.swarm.bootstrap.env.WildFlySwarmManifest;
 import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
 import org.wildfly.swarm.internal.FileSystemLayout;
@@ -89,6 +92,14 @@ public class UberjarSimpleContainer implements SimpleContainer {
         return this;
     }
 
+    /**
+     * Address of the daemon of the forked server, used to deploy into a reused one.
+     */
+    public UberjarSimpleContainer daemonAddress(InetSocketAddress daemonAddress) {
+        this.daemonAddress = daemonAddress;
+        return this;
+    }
+
     @Override
     public void start(Archive<?> archive) throws Exception {
 
@@ -120,6 +131,8 @@ public class UberjarSimpleContainer implements SimpleContainer {
 
         boolean annotatedCreateSwarm = false;
 
+        boolean reusable = false;
+
         Method swarmMethod = getAnnotatedMethodWithAnnotation(this.testClass, CreateSwarm.class);
 
         List<Class<?>> types = determineTypes(this.testClass);
@@ -250,6 +263,8 @@ public class UberjarSimpleContainer implements SimpleContainer {
                 }
             }
             tool.mainClass(mainClassName.orElse(Swarm.class.getName()));
+            // a custom main may configure the server for this test class only
+            reusable = !mainClassName.isPresent();
         }
 
         if (this.testClass != null) {
@@ -264,6 +279,25 @@ public class UberjarSimpleContainer implements SimpleContainer {
             throw t;
         }
 
+        String reuseKey = null;
+        if (reusable && debug == null && this.daemonAddress != null
+                && BootstrapProperties.flagIsSet(SwarmProperties.ARQUILLIAN_REUSE)) {
+            try (InputStream in = wrapped.get(WildFlySwarmManifest.CLASSPATH_LOCATION).getAsset().openStream()) {
+                reuseKey = ReusableServer.key(new WildFlySwarmManifest(in),
+                                              archive,
+                                              this.javaVmArguments,
+                                              contextRoot == null ? null : contextRoot.context(),
+                                              additionalModules,
+                                              System.getProperty(SwarmProperties.PROJECT_STAGE),
+                                              System.getProperty(SwarmProperties.PROJECT_STAGE_FILE));
+            }
+            ReusableServer server = ReusableServer.acquire(reuseKey, this.testClass.getName());
+            if (server != null) {
+                deployInto(server, archive);
+                return;
+            }
+        }
+
         if (BootstrapProperties.flagIsSet(SwarmInternalProperties.EXPORT_UBERJAR)) {
             final File out = new File(wrapped.getName());
             System.err.println("Exporting swarm jar to " + out.getAbsolutePath());
@@ -286,11 +320,6 @@ public class UberjarSimpleContainer implements SimpleContainer {
 
         executor.withProperty("java.net.preferIPv4Stack", "true");
 
-        File processFile = File.createTempFile("mainprocessfile", null);
-        processFile.deleteOnExit();
-
-        executor.withProcessFile(processFile);
-
         executor.withJVMArguments(getJavaVmArgumentsList());
         executor.withExecutableJar(executable.toPath());
 
@@ -308,6 +337,34 @@ public class UberjarSimpleContainer implements SimpleContainer {
         if (this.process.getError() != null) {
             throw new DeploymentException("Error starting process", this.process.getError());
         }
+
+        if (reuseKey != null) {
+            this.server = ReusableServer.keep(reuseKey, this.process, this.daemonAddress, this.testClass.getName());
+            this.deploymentName = archive.getName();
+        }
+    }
+
+    private void deployInto(ReusableServer server, Archive<?> archive) throws Exception {
+        File exported = new File(TempFileManager.INSTANCE.newTempDirectory("arquillian", null), archive.getName());
+        archive.as(ZipExporter.class).exportTo(exported, true);
+        try {
+            server.deploy(exported);
+        } catch (Exception e) {
+            ReusableServer.discard(server, "deployment of " + archive.getName() + " failed");
+            throw e;
+        }
+        this.server = server;
+        this.deploymentName = archive.getName();
+    }
+
+    /**
+     * Stop a reused server whose deployment failed, so the next test class starts from a clean one.
+     */
+    public void deploymentFailed() {
+        if (this.server != null) {
+            ReusableServer.discard(this.server, "deployment of " + this.deploymentName + " failed");
+            this.server = null;
+        }
     }
 
     private <C extends LibraryContainer<?> & ManifestContainer<?>> void munge(C container, DeclaredDependencies declaredDependencies) {
@@ -355,6 +412,15 @@ public class UberjarSimpleContainer implements SimpleContainer {
 
     @Override
     public void stop() throws Exception {
+        if (this.server != null) {
+            try {
+                this.server.undeploy(this.deploymentName);
+            } catch (Exception e) {
+                ReusableServer.discard(this.server, "undeployment of " + this.deploymentName + " failed: " + e.getMessage());
+            }
+            this.server = null;
+            return;
+        }
         this.process.stop();
     }
 
@@ -391,6 +457,12 @@ public class UberjarSimpleContainer implements SimpleContainer {
 
     private SwarmProcess process;
 
+    private InetSocketAddress daemonAddress;
+
+    private ReusableServer server;
+
+    private String deploymentName;
+
     private Set<String> requestedMavenArtifacts = new HashSet<>();
 
     private String javaVmArguments;
@@ -74,6 +74,7 @@ public class WildFlySwarmContainer extends DaemonDeployableContainerBase<DaemonC
 
         try {
             this.delegateContainer
+                    .daemonAddress(getRemoteAddress())
                     .setJavaVmArguments(this.getJavaVmArguments())
                     .requestedMavenArtifacts(this.requestedMavenArtifacts)
                     .start(archive);
@@ -86,6 +87,7 @@ public class WildFlySwarmContainer extends DaemonDeployableContainerBase<DaemonC
 
             return metaData;
         } catch (Throwable e) {
+            this.delegateContainer.deploymentFailed();
             if (e instanceof LifecycleException) {
                 e = e.getCause();
             }
@@ -96,6 +98,8 @@ public class WildFlySwarmContainer extends DaemonDeployableContainerBase<DaemonC
     @Override
     public synchronized void undeploy(Archive<?> archive) throws DeploymentException {
         try {
+            // a reused server keeps running, so release this test class's connection to it
+            super.stop();
             this.delegateContainer.stop();
         } catch (Exception e) {
             throw new DeploymentException("Unable to stop process", e);
@@ -112,7 +116,7 @@ public class WildFlySwarmContainer extends DaemonDeployableContainerBase<DaemonC
 
     private Set<String> requestedMavenArtifacts = new HashSet<>();
 
-    private SimpleContainer delegateContainer;
+    private UberjarSimpleContainer delegateContainer;
 
     private Class<?> testClass;
 
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.arquillian.adapter;
+
+import java.util.Properties;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.env.WildFlySwarmManifest;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ReusableServerTest {
+
+    @Test
+    public void testKeyIgnoresOrder() throws Exception {
+        WildFlySwarmManifest first = manifest("org.wildfly.swarm:jaxrs:1.0", "org.wildfly.swarm:cdi:1.0");
+        WildFlySwarmManifest second = manifest("org.wildfly.swarm:cdi:1.0", "org.wildfly.swarm:jaxrs:1.0");
+
+        assertThat(ReusableServer.key(first, archive(), "-Xmx512m", "/")).isEqualTo(ReusableServer.key(second, archive(), "-Xmx512m", "/"));
+    }
+
+    @Test
+    public void testKeyFollowsFractionsAndSettings() throws Exception {
+        String key = ReusableServer.key(manifest("org.wildfly.swarm:jaxrs:1.0"), archive(), "-Xmx512m", "/");
+
+        assertThat(ReusableServer.key(manifest("org.wildfly.swarm:jaxrs:1.0", "org.wildfly.swarm:cdi:1.0"), archive(), "-Xmx512m", "/"))
+                .isNotEqualTo(key);
+        assertThat(ReusableServer.key(manifest("org.wildfly.swarm:jaxrs:1.0"), archive(), "-Xmx1g", "/"))
+                .isNotEqualTo(key);
+        assertThat(ReusableServer.key(manifest("org.wildfly.swarm:jaxrs:1.0"), archive(), "-Xmx512m", "/app"))
+                .isNotEqualTo(key);
+    }
+
+    @Test
+    public void testKeyFollowsManifestProperties() throws Exception {
+        WildFlySwarmManifest manifest = manifest("org.wildfly.swarm:jaxrs:1.0");
+        String key = ReusableServer.key(manifest, archive(), "-Xmx512m");
+
+        Properties properties = new Properties();
+        properties.setProperty("swarm.http.port", "8081");
+        manifest.setProperties(properties);
+
+        assertThat(ReusableServer.key(manifest, archive(), "-Xmx512m")).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testKeyFollowsProjectConfiguration() throws Exception {
+        WildFlySwarmManifest manifest = manifest("org.wildfly.swarm:jaxrs:1.0");
+        String key = ReusableServer.key(manifest, archive(), "-Xmx512m");
+
+        JavaArchive withDefaults = archive();
+        withDefaults.add(new StringAsset("swarm:\n  port:\n    offset: 1\n"), "project-defaults.yml");
+        String defaultsKey = ReusableServer.key(manifest, withDefaults, "-Xmx512m");
+        assertThat(defaultsKey).isNotEqualTo(key);
+
+        withDefaults.add(new StringAsset("swarm:\n  port:\n    offset: 2\n"), "project-defaults.yml");
+        assertThat(ReusableServer.key(manifest, withDefaults, "-Xmx512m")).isNotEqualTo(defaultsKey);
+
+        WebArchive withStages = ShrinkWrap.create(WebArchive.class);
+        withStages.add(new StringAsset("project:\n  stage: test\n"), "WEB-INF/classes/project-stages.yml");
+        assertThat(ReusableServer.key(manifest, withStages, "-Xmx512m")).isNotEqualTo(key);
+
+        // other resources are deployed into the running server and do not matter
+        JavaArchive withResource = archive();
+        withResource.add(new StringAsset("content"), "index.html");
+        assertThat(ReusableServer.key(manifest, withResource, "-Xmx512m")).isEqualTo(key);
+    }
+
+    private static JavaArchive archive() {
+        return ShrinkWrap.create(JavaArchive.class);
+    }
+
+    private static WildFlySwarmManifest manifest(String... dependencies) {
+        WildFlySwarmManifest manifest = new WildFlySwarmManifest();
+        manifest.setMainClass("org.wildfly.swarm.Swarm");
+        manifest.addBootstrapModule("org.wildfly.swarm.jaxrs");
+        for (String dependency : dependencies) {
+            manifest.addDependency(dependency);
+        }
+        return manifest;
+    }
+}
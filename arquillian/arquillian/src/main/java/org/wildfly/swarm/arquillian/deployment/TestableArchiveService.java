@@ -31,7 +31,8 @@ public class TestableArchiveService implements Service<Void> {
 
     @Override
     public void stop(StopContext stopContext) {
-
+        // undeployed from a reused server; the next deployment installs its own
+        this.serverInjector.getValue().setDeploymentUnit(null);
     }
 
     @Override
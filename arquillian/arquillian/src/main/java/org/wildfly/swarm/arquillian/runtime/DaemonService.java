@@ -33,6 +33,7 @@ public class DaemonService implements Service<Server> {
 
         try {
             this.server = Server.create("localhost", port);
+            this.server.setArchiveDeployer(new SwarmArchiveDeployer());
             this.server.start();
         } catch (Exception e) {
             // this shouldn't be possible per Java control flow rules, but there is a "sneaky throw" somewhere
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.arquillian.runtime;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+
+import org.jboss.modules.Module;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.importer.ZipImporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.wildfly.swarm.arquillian.daemon.server.ArchiveDeployer;
+
+/**
+ * Deploys test archives through the running {@code Swarm} instance, so they pass through the same
+ * deployment processors as the archive the server was started with, and removes them the same way.
+ */
+class SwarmArchiveDeployer implements ArchiveDeployer {
+
+    private static final String APPLICATION_MODULE_NAME = "swarm.application";
+
+    private static final String SWARM_CLASS_NAME = "org.wildfly.swarm.Swarm";
+
+    @Override
+    public void deploy(File file) throws Exception {
+        ClassLoader appCl = Module.getBootModuleLoader().loadModule(APPLICATION_MODULE_NAME).getClassLoader();
+        ClassLoader originalCl = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(appCl);
+            ZipImporter importer = ShrinkWrap.create(ZipImporter.class, file.getName()).importFrom(file);
+            Archive<?> archive = file.getName().endsWith(".war") ? importer.as(WebArchive.class) : importer.as(JavaArchive.class);
+
+            invoke(appCl, "deploy", Archive.class, archive);
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalCl);
+        }
+    }
+
+    /**
+     * Undeploys through the running {@code Swarm} instance too, which also removes any overlay it laid
+     * over the deployment.
+     */
+    @Override
+    public void undeploy(String name) throws Exception {
+        ClassLoader appCl = Module.getBootModuleLoader().loadModule(APPLICATION_MODULE_NAME).getClassLoader();
+        invoke(appCl, "undeploy", String.class, name);
+    }
+
+    private static void invoke(ClassLoader appCl, String method, Class<?> type, Object argument) throws Exception {
+        try {
+            Class<?> swarmClass = appCl.loadClass(SWARM_CLASS_NAME);
+            Object swarm = swarmClass.getField("INSTANCE").get(null);
+            if (swarm == null) {
+                throw new IllegalStateException("Swarm has not been started");
+            }
+            swarmClass.getMethod(method, type).invoke(swarm, argument);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+}
@@ -21,7 +21,8 @@ import java.nio.charset.Charset;
  * Defines the wire protocol for the Arquillian Server Daemon.
  *
  * To stop: <code>CMD stop<<EOF</code>  To execute tests:
- * <code>CMD test ${deploymentName} ${FQN test class} ${methodName}<<EOF</code>
+ * <code>CMD test ${deploymentName} ${FQN test class} ${methodName}<<EOF</code>  To deploy into and undeploy from
+ * a running server: <code>CMD deploy ${path to exported archive}<<EOF</code>, <code>CMD undeploy ${deploymentName}<<EOF</code>
  *
  * @author <a href="mailto:alr@jboss.org">Andrew Lee Rubinger</a>
  * @author Toby Crawley
@@ -45,6 +46,17 @@ public interface WireProtocol {
      */
     String COMMAND_TEST_PREFIX = PREFIX_STRING_COMMAND + "test ";
 
+    /**
+     * To be prepended to the absolute path of an exported archive; answered with {@link #RESPONSE_OK_PREFIX}
+     * once deployed, after which {@link #COMMAND_CHECK_DEPLOYMENT} reports its outcome.
+     */
+    String COMMAND_DEPLOY_PREFIX = PREFIX_STRING_COMMAND + "deploy ";
+
+    /**
+     * To be prepended to the name of a deployment
+     */
+    String COMMAND_UNDEPLOY_PREFIX = PREFIX_STRING_COMMAND + "undeploy ";
+
     /**
      * Marks the end of a command
      */
@@ -13,14 +13,23 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.wildfly.swarm.jaxrs.internal;
+package org.wildfly.swarm.arquillian.daemon.server;
+
+import java.io.File;
+
+import org.wildfly.swarm.arquillian.daemon.protocol.WireProtocol;
 
 /**
- * @author Bob McWhirter
+ * Deploys and undeploys test archives into an already running container, on behalf of
+ * the {@link WireProtocol#COMMAND_DEPLOY_PREFIX deploy} and
+ * {@link WireProtocol#COMMAND_UNDEPLOY_PREFIX undeploy} commands.
  */
-public class JAXRSAnnotationSeekingClassVisitor extends AnnotationSeekingClassVisitor {
+public interface ArchiveDeployer {
+
+    /**
+     * @param archive an exported archive, whose file name is used as the deployment name
+     */
+    void deploy(File archive) throws Exception;
 
-    public JAXRSAnnotationSeekingClassVisitor() {
-        super("javax/ws/rs/*");
-    }
+    void undeploy(String name) throws Exception;
 }
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.arquillian.daemon.server;
 
+import java.io.File;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
@@ -245,6 +246,29 @@ public class Server {
         this.error = error;
     }
 
+    public void setArchiveDeployer(ArchiveDeployer archiveDeployer) {
+        this.archiveDeployer = archiveDeployer;
+    }
+
+    protected void deploy(final File archive) throws Exception {
+        if (this.archiveDeployer == null) {
+            throw new UnsupportedOperationException("This server does not deploy archives");
+        }
+        // the outcome is reported by the next checkdeployment
+        this.deploymentUnit = null;
+        this.error = null;
+        this.archiveDeployer.deploy(archive);
+    }
+
+    protected void undeploy(final String name) throws Exception {
+        if (this.archiveDeployer == null) {
+            throw new UnsupportedOperationException("This server does not undeploy archives");
+        }
+        this.archiveDeployer.undeploy(name);
+        this.deploymentUnit = null;
+        this.error = null;
+    }
+
 
     protected final Serializable executeTest(final String testClassName, final String methodName) {
         return new TestRunner(deploymentUnit).executeTest(testClassName, methodName);
@@ -295,6 +319,8 @@ public class Server {
 
     private Throwable error;
 
+    private ArchiveDeployer archiveDeployer;
+
     /**
      * Handler for all {@link String}-based commands to the server as specified in {@link WireProtocol}
      *
@@ -346,6 +372,14 @@ public class Server {
                     // Set the response to tell the client OK
                     Server.sendResponse(ctx, WireProtocol.RESPONSE_OK_PREFIX + message)
                             .addListener(future -> Server.this.stopAsync());
+                } else if (message.startsWith(WireProtocol.COMMAND_DEPLOY_PREFIX)) {
+                    final String path = message.substring(WireProtocol.COMMAND_DEPLOY_PREFIX.length()).trim();
+                    Server.this.deploy(new File(path));
+                    Server.sendResponse(ctx, WireProtocol.RESPONSE_OK_PREFIX + message);
+                } else if (message.startsWith(WireProtocol.COMMAND_UNDEPLOY_PREFIX)) {
+                    final String name = message.substring(WireProtocol.COMMAND_UNDEPLOY_PREFIX.length()).trim();
+                    Server.this.undeploy(name);
+                    Server.sendResponse(ctx, WireProtocol.RESPONSE_OK_PREFIX + message);
                 } else if (message.startsWith(WireProtocol.COMMAND_TEST_PREFIX)) {
                     // Test
 
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Compares two JMH result files, written with {@code -rf json}, and prints a markdown table
+ * suitable for pasting into a review.
+ *
+ * <p>A benchmark is flagged as a regression when it got worse by more than the threshold
+ * and the difference is larger than the two error margins combined. Throughput benchmarks
+ * get worse when their score goes down, all other modes when it goes up.</p>
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.wildfly.swarm.benchmarks.BenchmarkReport baseline.json current.json [threshold-percent]
+ * </pre>
+ *
+ * <p>Exits with status 2 when at least one regression was found.</p>
+ */
+public class BenchmarkReport {
+
+    public static final double DEFAULT_THRESHOLD = 10.0;
+
+    private static final String THROUGHPUT = "thrpt";
+
+    private static final String SEPARATOR = " | ";
+
+    public BenchmarkReport(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        this.threshold = threshold;
+        for (Map.Entry<String, Result> each : current.entrySet()) {
+            this.rows.add(new Row(each.getKey(), baseline.get(each.getKey()), each.getValue(), threshold));
+        }
+        for (Map.Entry<String, Result> each : baseline.entrySet()) {
+            if (!current.containsKey(each.getKey())) {
+                this.rows.add(new Row(each.getKey(), each.getValue(), null, threshold));
+            }
+        }
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkReport <baseline.json> <current.json> [threshold-percent]");
+            System.exit(1);
+        }
+        double threshold = (args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD);
+        BenchmarkReport report = new BenchmarkReport(load(Paths.get(args[0])), load(Paths.get(args[1])), threshold);
+        report.print(System.out);
+        if (report.hasRegressions()) {
+            System.exit(2);
+        }
+    }
+
+    public static Map<String, Result> load(Path file) throws IOException {
+        return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param json the JMH JSON output
+     * @return the results keyed by benchmark name and parameters, in file order
+     */
+    public static Map<String, Result> parse(String json) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (ModelNode each : ModelNode.fromJSONString(json).asList()) {
+            ModelNode metric = each.get("primaryMetric");
+            Result result = new Result(
+                    each.get("mode").asString(),
+                    score(metric.get("score")),
+                    score(metric.get("scoreError")),
+                    metric.get("scoreUnit").asString());
+            results.put(key(each), result);
+        }
+        return results;
+    }
+
+    public List<Row> getRows() {
+        return this.rows;
+    }
+
+    public boolean hasRegressions() {
+        return this.rows.stream().anyMatch(Row::isRegression);
+    }
+
+    public void print(PrintStream out) {
+        out.println("| Benchmark | Mode | Baseline | Current | Change | |");
+        out.println("|---|---|---:|---:|---:|---|");
+        for (Row row : this.rows) {
+            Result any = (row.current != null ? row.current : row.baseline);
+            out.println("| " + row.name
+                                + SEPARATOR + any.mode
+                                + SEPARATOR + format(row.baseline)
+                                + SEPARATOR + format(row.current)
+                                + SEPARATOR + (row.baseline != null && row.current != null ? String.format("%+.1f%%", row.change) : "")
+                                + SEPARATOR + row.verdict() + " |");
+        }
+        long regressions = this.rows.stream().filter(Row::isRegression).count();
+        out.println();
+        out.println(regressions + " regression(s) beyond " + this.threshold + "%");
+    }
+
+    private static String key(ModelNode result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asString());
+        if (result.hasDefined("params")) {
+            // JMH keeps declaration order, but sort anyway so hand-edited baselines still match
+            Map<String, String> params = new TreeMap<>();
+            for (String name : result.get("params").keys()) {
+                params.put(name, result.get("params", name).asString());
+            }
+            key.append(params.toString());
+        }
+        return key.toString();
+    }
+
+    private static double score(ModelNode node) {
+        if (!node.isDefined()) {
+            return 0;
+        }
+        double value = node.asDouble();
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static String format(Result result) {
+        if (result == null) {
+            return "-";
+        }
+        return String.format("%.3f +- %.3f %s", result.score, result.error, result.unit);
+    }
+
+    private final double threshold;
+
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * The primary metric of one benchmark run.
+     */
+    public static class Result {
+
+        public Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        public String getMode() {
+            return this.mode;
+        }
+
+        public double getScore() {
+            return this.score;
+        }
+
+        public double getError() {
+            return this.error;
+        }
+
+        public String getUnit() {
+            return this.unit;
+        }
+
+        private final String mode;
+
+        private final double score;
+
+        private final double error;
+
+        private final String unit;
+    }
+
+    /**
+     * One benchmark compared across the two runs; either side may be missing.
+     */
+    public static class Row {
+
+        Row(String name, Result baseline, Result current, double threshold) {
+            this.name = name;
+            this.baseline = baseline;
+            this.current = current;
+            if (baseline == null || current == null || baseline.score == 0) {
+                this.change = 0;
+                this.regression = false;
+                this.improvement = false;
+                return;
+            }
+            this.change = (current.score - baseline.score) / baseline.score * 100;
+            double worse = (THROUGHPUT.equals(current.mode) ? -this.change : this.change);
+            boolean significant = Math.abs(current.score - baseline.score) > baseline.error + current.error;
+            this.regression = significant && worse > threshold;
+            this.improvement = significant && -worse > threshold;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the change of the score in percent, signed as reported by JMH
+         */
+        public double getChange() {
+            return this.change;
+        }
+
+        public boolean isRegression() {
+            return this.regression;
+        }
+
+        public boolean isImprovement() {
+            return this.improvement;
+        }
+
+        String verdict() {
+            if (this.baseline == null) {
+                return "new";
+            }
+            if (this.current == null) {
+                return "removed";
+            }
+            if (this.regression) {
+                return "**regression**";
+            }
+            if (this.improvement) {
+                return "improvement";
+            }
+            return "";
+        }
+
+        private final String name;
+
+        private final Result baseline;
+
+        private final Result current;
+
+        private final double change;
+
+        private final boolean regression;
+
+        private final boolean improvement;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.modules;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Module resolution as paid for by every module the container loads.
+ *
+ * <p>The nested-jar lookups run against a jar carrying both a module.xml and a resource,
+ * so they take the explosion path, warmed by the first call of the trial.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ModuleFinderBenchmark {
+
+    private static final String FIXTURE = "org.wildfly.swarm.benchmarks.fixture";
+
+    private static final String NESTED = "modules/org/wildfly/swarm/benchmarks/nested/main/";
+
+    @Setup
+    public void setup() throws IOException {
+        this.jar = File.createTempFile("nested-modules", ".jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(this.jar))) {
+            out.putNextEntry(new JarEntry(NESTED + "module.xml"));
+            out.write("<module xmlns=\"urn:jboss:module:1.3\" name=\"org.wildfly.swarm.benchmarks.nested\"/>".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new JarEntry(NESTED + "classes/placeholder.txt"));
+            out.write("placeholder".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        this.nestedBase = new URL("jar:" + this.jar.toURI().toURL().toExternalForm() + "!/" + NESTED);
+        NestedJarResourceLoader.explodedJar(this.nestedBase);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.jar.delete();
+    }
+
+    @Benchmark
+    public boolean requiresExplosion() throws IOException {
+        return NestedJarResourceLoader.requiresExplosion(this.nestedBase);
+    }
+
+    @Benchmark
+    public Object explodedJar() throws IOException {
+        return NestedJarResourceLoader.explodedJar(this.nestedBase);
+    }
+
+    @Benchmark
+    public ModuleSpec classpathFinder() throws Exception {
+        return this.classpathFinder.findModule(FIXTURE, null);
+    }
+
+    @Benchmark
+    public Module bootModuleLoader() throws Exception {
+        // a fresh loader each time, so every finder in the chain is consulted
+        return new BootModuleLoader().loadModule(FIXTURE);
+    }
+
+    private final ClasspathModuleFinder classpathFinder = new ClasspathModuleFinder();
+
+    private File jar;
+
+    private URL nestedBase;
+}
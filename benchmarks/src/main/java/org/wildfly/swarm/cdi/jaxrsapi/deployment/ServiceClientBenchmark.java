@@ -0,0 +1,128 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.cdi.jaxrsapi.deployment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A {@code @Service} client call against a local stub server, through the pooled client that generated
+ * clients now share and through a client and proxy built for the call, as generated clients used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(4)
+public class ServiceClientBenchmark {
+
+    private static final byte[] PONG = "pong".getBytes(StandardCharsets.UTF_8);
+
+    @Setup
+    public void setup() throws IOException {
+        this.executor = Executors.newFixedThreadPool(8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        this.server.createContext("/ping", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, PONG.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PONG);
+            }
+        });
+        this.server.setExecutor(this.executor);
+        this.server.start();
+
+        this.baseUrl = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        this.pooled = new PingClient(this.baseUrl);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pooled.close();
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    @Benchmark
+    public String pooledClient() {
+        return this.pooled.ping();
+    }
+
+    @Benchmark
+    public String clientPerCall() {
+        // the previous generated code never closed its client; closing here keeps the run from exhausting sockets
+        ResteasyClient client = new ResteasyClientBuilder().build();
+        try {
+            return ProxyBuilder.builder(Ping.class, client.target(this.baseUrl)).build().ping();
+        } finally {
+            client.close();
+        }
+    }
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private String baseUrl;
+
+    private PingClient pooled;
+
+    @Path("/ping")
+    public interface Ping {
+        @GET
+        @Produces("text/plain")
+        String ping();
+    }
+
+    public static class PingClient extends ServiceClientBase<Ping> implements Ping {
+        PingClient(String baseUrl) {
+            super(Ping.class, baseUrl);
+        }
+
+        @Override
+        public String ping() {
+            return client().ping();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.config;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.spi.api.config.ConfigKey;
+import org.wildfly.swarm.spi.api.config.SimpleKey;
+
+/**
+ * Configuration lookups against a view layered the way a booting container layers it:
+ * system properties over an active profile over the defaults.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ConfigViewBenchmark {
+
+    private static final String DATA_SOURCE = "swarm.datasources.data-sources.DS";
+
+    @Param({"10", "200"})
+    public int dataSources;
+
+    @Setup
+    public void setup() {
+        ConfigNode defaults = new ConfigNode();
+        ConfigNode profile = new ConfigNode();
+        Properties properties = new Properties();
+
+        defaults.recursiveChild("swarm.http.port", "8080");
+        defaults.recursiveChild("swarm.bind.address", "0.0.0.0");
+        defaults.recursiveChild("swarm.undertow.servers.default-server.host", "${swarm.bind.address}");
+        for (int i = 0; i < this.dataSources; ++i) {
+            defaults.recursiveChild(DATA_SOURCE + i + ".driver-name", "h2");
+            defaults.recursiveChild(DATA_SOURCE + i + ".min-pool-size", "5");
+            profile.recursiveChild(DATA_SOURCE + i + ".connection-url", "jdbc:h2:mem:ds" + i);
+            if (i % 2 == 0) {
+                properties.setProperty(DATA_SOURCE + i + ".max-pool-size", "20");
+            }
+        }
+        properties.setProperty("swarm.http.port", "8081");
+
+        ConfigViewImpl view = new ConfigViewImpl()
+                .withDefaults(defaults)
+                .withProperties(properties);
+        view.register("production", profile);
+        view.withProfile("production");
+        view.activate();
+        this.view = view;
+
+        int middle = this.dataSources / 2;
+        this.propertyKey = ConfigKey.parse("swarm.http.port");
+        this.profileKey = ConfigKey.parse(DATA_SOURCE + middle + ".connection-url");
+        this.defaultKey = ConfigKey.parse(DATA_SOURCE + middle + ".min-pool-size");
+        this.expressionKey = ConfigKey.parse("swarm.undertow.servers.default-server.host");
+        this.missingKey = ConfigKey.parse(DATA_SOURCE + middle + ".jndi-name");
+        this.dataSourcesKey = ConfigKey.parse("swarm.datasources.data-sources");
+    }
+
+    @Benchmark
+    public Object valueOfProperty() {
+        return this.view.valueOf(this.propertyKey);
+    }
+
+    @Benchmark
+    public Object valueOfProfile() {
+        return this.view.valueOf(this.profileKey);
+    }
+
+    @Benchmark
+    public Object valueOfDefault() {
+        return this.view.valueOf(this.defaultKey);
+    }
+
+    @Benchmark
+    public Object valueOfMissing() {
+        return this.view.valueOf(this.missingKey);
+    }
+
+    @Benchmark
+    public Integer resolveAsInteger() {
+        return this.view.resolve(this.defaultKey).as(Integer.class).getValue();
+    }
+
+    @Benchmark
+    public String resolveExpression() {
+        return this.view.resolve(this.expressionKey).getValue();
+    }
+
+    @Benchmark
+    public List<SimpleKey> simpleSubkeys() {
+        return this.view.simpleSubkeys(this.dataSourcesKey);
+    }
+
+    @Benchmark
+    public boolean hasKeyOrSubkeys() {
+        return this.view.hasKeyOrSubkeys(this.dataSourcesKey);
+    }
+
+    private ConfigViewImpl view;
+
+    private ConfigKey propertyKey;
+
+    private ConfigKey profileKey;
+
+    private ConfigKey defaultKey;
+
+    private ConfigKey expressionKey;
+
+    private ConfigKey missingKey;
+
+    private ConfigKey dataSourcesKey;
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.marshal;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.dmr.ModelNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.container.Interface;
+import org.wildfly.swarm.container.config.ConfigViewImpl;
+import org.wildfly.swarm.io.IOFraction;
+import org.wildfly.swarm.logging.LoggingFraction;
+import org.wildfly.swarm.spi.api.Fraction;
+import org.wildfly.swarm.spi.api.SocketBinding;
+import org.wildfly.swarm.spi.api.SocketBindingGroup;
+
+/**
+ * Marshalling of the boot model, from fractions to the list of DMR operations.
+ *
+ * <p>The marshallers are wired by hand rather than by Weld, so the numbers cover
+ * marshalling alone and not bean resolution.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DMRMarshallerBenchmark {
+
+    @Setup
+    public void setup() throws Exception {
+        FixedInstance<Fraction> fractions = new FixedInstance<>(
+                new LoggingFraction().applyDefaults(),
+                new IOFraction().applyDefaults());
+
+        SocketBindingGroup sockets = new SocketBindingGroup("standard-sockets", "public", "0")
+                .socketBinding(new SocketBinding("http").port(8080))
+                .socketBinding(new SocketBinding("https").port(8443))
+                .socketBinding(new SocketBinding("management-http").port(9990));
+
+        ConfigViewImpl configView = new ConfigViewImpl()
+                .withProperty("swarm.http.port", "8080")
+                .withProperty("swarm.bind.address", "0.0.0.0");
+        configView.activate();
+
+        XMLMarshaller xml = new XMLMarshaller();
+        inject(xml, "xmlConfig", new FixedInstance<>());
+
+        ConfigViewPropertyMarshaller properties = new ConfigViewPropertyMarshaller();
+        inject(properties, "configView", configView);
+
+        ExtensionMarshaller extensions = new ExtensionMarshaller();
+        inject(extensions, "fractions", fractions);
+
+        this.subsystems = new SubsystemMarshaller();
+        inject(this.subsystems, "fractions", fractions);
+
+        InterfaceMarshaller interfaces = new InterfaceMarshaller();
+        inject(interfaces, "interfaces", new FixedInstance<>(new Interface("public", "0.0.0.0")));
+
+        SocketBindingGroupMarshaller socketBindings = new SocketBindingGroupMarshaller();
+        inject(socketBindings, "socketBindingGroups", new FixedInstance<>(sockets));
+
+        this.marshaller = new DMRMarshaller();
+        inject(this.marshaller, "xmlMarshaller", xml);
+        inject(this.marshaller, "configViewPropertyMarshaller", properties);
+        inject(this.marshaller, "extensionMarshaller", extensions);
+        inject(this.marshaller, "subsystemMarshaller", this.subsystems);
+        inject(this.marshaller, "customMarshallers", new FixedInstance<>());
+        inject(this.marshaller, "interfaceMarshaller", interfaces);
+        inject(this.marshaller, "socketBindingGroupMarshaller", socketBindings);
+    }
+
+    @Benchmark
+    public List<ModelNode> marshal() {
+        List<ModelNode> list = new ArrayList<>();
+        this.marshaller.marshal(list);
+        return list;
+    }
+
+    @Benchmark
+    public List<ModelNode> marshalSubsystems() {
+        List<ModelNode> list = new ArrayList<>();
+        this.subsystems.marshal(list);
+        return list;
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private DMRMarshaller marshaller;
+
+    private SubsystemMarshaller subsystems;
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.runtime.marshal;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.enterprise.inject.Instance;
+import javax.enterprise.util.TypeLiteral;
+
+/**
+ * Fixed set of beans standing in for a CDI {@link Instance}.
+ */
+class FixedInstance<T> implements Instance<T> {
+
+    @SafeVarargs
+    FixedInstance(T... instances) {
+        this.instances = Arrays.asList(instances);
+    }
+
+    @Override
+    public Instance<T> select(Annotation... annotations) {
+        throw new UnsupportedOperationException("operation not supported by fixed instance");
+    }
+
+    @Override
+    public <U extends T> Instance<U> select(Class<U> aClass, Annotation... annotations) {
+        throw new UnsupportedOperationException("operation not supported by fixed instance");
+    }
+
+    @Override
+    public <U extends T> Instance<U> select(TypeLiteral<U> typeLiteral, Annotation... annotations) {
+        throw new UnsupportedOperationException("operation not supported by fixed instance");
+    }
+
+    @Override
+    public boolean isUnsatisfied() {
+        return this.instances.isEmpty();
+    }
+
+    @Override
+    public boolean isAmbiguous() {
+        return this.instances.size() > 1;
+    }
+
+    @Override
+    public void destroy(T instance) {
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.instances.iterator();
+    }
+
+    @Override
+    public T get() {
+        return this.instances.get(0);
+    }
+
+    private final List<T> instances;
+}
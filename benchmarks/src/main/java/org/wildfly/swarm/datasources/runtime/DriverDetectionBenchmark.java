@@ -0,0 +1,113 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.runtime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.bootstrap.env.JDBCDriverManifest;
+import org.wildfly.swarm.datasources.DatasourcesFraction;
+import org.wildfly.swarm.datasources.runtime.drivers.DB2DriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.DerbyDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.EnterpriseDBDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.H2DriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.Hive2DriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.MariaDBDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.MySQLDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.OracleDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.PostgreSQLDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.PrestoDBDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.SQLServerDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.SybaseDriverInfo;
+import org.wildfly.swarm.datasources.runtime.drivers.TeiidDriverInfo;
+
+/**
+ * JDBC driver installation at boot for an application with only H2, probing for every known
+ * driver as without a driver manifest, and installing the drivers the manifest records from
+ * their artifacts.
+ *
+ * <p>Each invocation starts from a fresh fraction, as a boot does. Drivers with a protected
+ * constructor are created as anonymous subclasses.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(5)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class DriverDetectionBenchmark {
+
+    @Setup
+    public void setup() {
+        this.packaged = new JDBCDriverManifest();
+        for (DriverInfo each : this.drivers) {
+            this.packaged.absent(each.name());
+        }
+        this.packaged.packaged("h2", "org.h2.Driver", "org.h2.jdbcx.JdbcDataSource", "com.h2database:h2:1.4.187", Collections.emptySet());
+    }
+
+    @Benchmark
+    public DatasourcesFraction probeAll() {
+        DatasourcesFraction fraction = new DatasourcesFraction();
+        for (DriverInfo each : this.drivers) {
+            each.detect(fraction);
+        }
+        return fraction;
+    }
+
+    @Benchmark
+    public DatasourcesFraction fromManifest() {
+        DatasourcesFraction fraction = new DatasourcesFraction();
+        for (DriverInfo each : this.drivers) {
+            if (this.packaged.isPackaged(each.name())) {
+                each.install(fraction, this.packaged);
+            } else if (!this.packaged.covers(each.name())) {
+                each.detect(fraction);
+            }
+        }
+        return fraction;
+    }
+
+    private final List<DriverInfo> drivers = Arrays.asList(
+            new DB2DriverInfo(),
+            new DerbyDriverInfo() { },
+            new EnterpriseDBDriverInfo(),
+            new H2DriverInfo(),
+            new Hive2DriverInfo() { },
+            new MariaDBDriverInfo() { },
+            new MySQLDriverInfo(),
+            new OracleDriverInfo(),
+            new PostgreSQLDriverInfo(),
+            new PrestoDBDriverInfo() { },
+            new SQLServerDriverInfo(),
+            new SybaseDriverInfo(),
+            new TeiidDriverInfo() { }
+    );
+
+    private JDBCDriverManifest packaged;
+}
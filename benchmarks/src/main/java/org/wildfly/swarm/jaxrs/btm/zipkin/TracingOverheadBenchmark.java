@@ -0,0 +1,143 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.ServerTracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import zipkin.Span;
+import zipkin.reporter.Reporter;
+
+/**
+ * Server-side tracing cost of one request, following the steps of {@link ServerRequestInterceptor}
+ * and {@link ServerResponseInterceptor}: not traced at all, sampled at 1%, and traced every time,
+ * with spans handed to a {@link BatchingSpanReporter} or encoded on the request thread as the
+ * former logging default did.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TracingOverheadBenchmark {
+
+    private static final String PATH = "/api/orders/42";
+
+    @Setup
+    public void setup() {
+        this.sampledReporter = new BatchingSpanReporter("sampled", span -> this.last = span).start();
+        this.sampled = brave(this.sampledReporter, PathSampler.of(PathSampler.PROBABILISTIC, 0.01f, 0, null));
+
+        this.fullReporter = new BatchingSpanReporter("full", span -> this.last = span).start();
+        this.full = brave(this.fullReporter, PathSampler.of(PathSampler.PROBABILISTIC, 1.0f, 0, null));
+
+        this.fullSynchronous = brave(span -> this.encoded = span.toString(), PathSampler.of(PathSampler.PROBABILISTIC, 1.0f, 0, null));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.sampledReporter.close();
+        this.fullReporter.close();
+    }
+
+    @Benchmark
+    public String off() {
+        return PATH;
+    }
+
+    @Benchmark
+    public boolean sampled() {
+        return request(this.sampled);
+    }
+
+    @Benchmark
+    public boolean full() {
+        return request(this.full);
+    }
+
+    @Benchmark
+    public boolean fullSynchronous() {
+        return request(this.fullSynchronous);
+    }
+
+    private static boolean request(Tracing tracing) {
+        ServerTracer tracer = tracing.brave.serverTracer();
+        tracer.clearCurrentSpan();
+        if (!tracing.sampler.isSampled(PATH)) {
+            tracer.setStateNoTracing();
+            return false;
+        }
+
+        PathSampler.decided(Boolean.TRUE);
+        try {
+            tracer.setStateUnknown("get");
+        } finally {
+            PathSampler.decided(null);
+        }
+        tracer.setServerReceived();
+        tracer.submitBinaryAnnotation("http.url", PATH);
+        tracer.submitBinaryAnnotation("http.status_code", "200");
+        tracer.setServerSend();
+        return true;
+    }
+
+    private static Tracing brave(Reporter<Span> reporter, PathSampler sampler) {
+        Brave brave = new Brave.Builder("benchmark")
+                .reporter(reporter)
+                .traceSampler(sampler)
+                .build();
+        return new Tracing(brave, sampler);
+    }
+
+    private BatchingSpanReporter sampledReporter;
+
+    private BatchingSpanReporter fullReporter;
+
+    private Tracing sampled;
+
+    private Tracing full;
+
+    private Tracing fullSynchronous;
+
+    private volatile Span last;
+
+    private volatile String encoded;
+
+    private static final class Tracing {
+
+        Tracing(Brave brave, PathSampler sampler) {
+            this.brave = brave;
+            this.sampler = sampler;
+        }
+
+        private final Brave brave;
+
+        private final PathSampler sampler;
+    }
+}
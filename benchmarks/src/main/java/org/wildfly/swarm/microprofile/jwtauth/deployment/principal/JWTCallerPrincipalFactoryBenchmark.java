@@ -0,0 +1,96 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.microprofile.jwtauth.deployment.auth.KeyUtils;
+
+/**
+ * Verification of a bearer token on every secured request, with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JWTCallerPrincipalFactoryBenchmark {
+
+    private static final String ISSUER = "https://server.example.com";
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPair keyPair = KeyUtils.generateKeyPair(2048);
+
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(ISSUER);
+        claims.setSubject("24400320");
+        claims.setClaim("upn", "jdoe@example.com");
+        claims.setClaim("groups", Arrays.asList("Echoer", "Tester", "group1"));
+        claims.setIssuedAtToNow();
+        claims.setExpirationTimeMinutesInTheFuture(60);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(keyPair.getPrivate());
+        jws.setKeyIdHeaderValue("benchmark");
+        jws.setHeader("typ", "JWT");
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        this.token = jws.getCompactSerialization();
+
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        this.cached = new JWTAuthContextInfo(publicKey, ISSUER);
+        this.cached.setExpGracePeriodSecs(60);
+        this.cached.setTokenCacheSize(1000);
+        this.uncached = new JWTAuthContextInfo(this.cached);
+        this.uncached.setTokenCacheSize(0);
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal parseCached() throws ParseException {
+        return this.factory.parse(this.token, this.cached);
+    }
+
+    @Benchmark
+    public JWTCallerPrincipal parseUncached() throws ParseException {
+        return this.factory.parse(this.token, this.uncached);
+    }
+
+    private final DefaultJWTCallerPrincipalFactory factory = new DefaultJWTCallerPrincipalFactory();
+
+    private String token;
+
+    private JWTAuthContextInfo cached;
+
+    private JWTAuthContextInfo uncached;
+}
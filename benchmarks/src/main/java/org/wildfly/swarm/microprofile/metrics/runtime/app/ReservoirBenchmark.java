@@ -0,0 +1,82 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.app;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Snapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recording into histograms and timers from several request threads at once,
+ * and taking the snapshots an export reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(4)
+public class ReservoirBenchmark {
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 10_000; ++i) {
+            this.snapshotReservoir.update(ThreadLocalRandom.current().nextLong(1_000_000));
+        }
+    }
+
+    @Benchmark
+    public void reservoirUpdate() {
+        this.reservoir.update(ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+
+    @Benchmark
+    public void histogramUpdate() {
+        this.histogram.update(ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+
+    @Benchmark
+    public void timerUpdate() {
+        this.timer.update(ThreadLocalRandom.current().nextLong(1_000_000), TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Snapshot snapshot() {
+        return this.snapshotReservoir.getSnapshot();
+    }
+
+    private final ExponentiallyDecayingReservoir reservoir = new ExponentiallyDecayingReservoir();
+
+    private final ExponentiallyDecayingReservoir snapshotReservoir = new ExponentiallyDecayingReservoir();
+
+    private final HistogramImpl histogram = new HistogramImpl(new ExponentiallyDecayingReservoir());
+
+    private final TimerImpl timer = new TimerImpl(new ExponentiallyDecayingReservoir());
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime.exporters;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricFilter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.swarm.microprofile.metrics.runtime.MetricRegistryFactory;
+
+/**
+ * A scrape of the {@code /metrics} endpoint in Prometheus format.
+ *
+ * <p>The application registry is filled with an even mix of counters, meters, histograms and timers,
+ * each histogram and timer holding a full reservoir.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PrometheusExporterBenchmark {
+
+    @Param({"20", "400"})
+    public int metrics;
+
+    @Setup
+    public void setup() {
+        MetricRegistry registry = MetricRegistryFactory.getApplicationRegistry();
+        for (int i = 0; i < this.metrics; ++i) {
+            switch (i % 4) {
+                case 0:
+                    registry.counter("requests" + i).inc(i);
+                    break;
+                case 1:
+                    registry.meter("hits" + i).mark(i);
+                    break;
+                case 2:
+                    Histogram histogram = registry.histogram(new Metadata("payload" + i, MetricType.HISTOGRAM, MetricUnits.BYTES));
+                    for (int j = 0; j < 1028; ++j) {
+                        histogram.update(j * 16);
+                    }
+                    break;
+                default:
+                    Timer timer = registry.timer("latency" + i);
+                    for (int j = 0; j < 1028; ++j) {
+                        timer.update(j, TimeUnit.MILLISECONDS);
+                    }
+                    break;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        MetricRegistryFactory.getApplicationRegistry().removeMatching(MetricFilter.ALL);
+    }
+
+    @Benchmark
+    public StringBuilder exportAllScopes() {
+        return this.exporter.exportAllScopes();
+    }
+
+    @Benchmark
+    public StringBuilder exportOneMetric() {
+        return this.exporter.exportOneMetric(MetricRegistry.Type.APPLICATION, "latency3");
+    }
+
+    private final PrometheusExporter exporter = new PrometheusExporter();
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Registration churn and lookups against a populated topology.
+ *
+ * <p>Each benchmark call registers and unregisters one instance, which is what a connector
+ * does when a service comes and goes. With a batch window of zero every change is dispatched
+ * to the listeners; otherwise the pair nets out inside the window.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TopologyManagerBenchmark {
+
+    @Param({"100", "1000"})
+    public int registrations;
+
+    @Param({"1", "10"})
+    public int listeners;
+
+    @Param({"0", "50"})
+    public long batchWindow;
+
+    @Setup
+    public void setup() {
+        this.manager = new TopologyManager();
+        this.manager.setBatching(this.batchWindow, this.batchWindow * 4);
+        for (int i = 0; i < this.listeners; ++i) {
+            this.manager.addListener(topology -> this.notifications.incrementAndGet());
+        }
+        for (int i = 0; i < this.registrations; ++i) {
+            this.manager.register(new Registration("consul", "service" + (i % 20), "10.0.0." + (i / 20), 8080 + i, "http"));
+        }
+        this.manager.flush();
+        this.churn = new Registration("consul", "service7", "10.0.1.1", 9090, "http");
+    }
+
+    @Benchmark
+    public TopologyManager registerAndUnregister() {
+        this.manager.register(this.churn);
+        this.manager.unregister(this.churn);
+        return this.manager;
+    }
+
+    @Benchmark
+    public Set<Registration> registrationsForService() {
+        return this.manager.registrationsForService("service7", "http");
+    }
+
+    @Benchmark
+    public Object asMap() {
+        return this.manager.asMap();
+    }
+
+    private final AtomicLong notifications = new AtomicLong();
+
+    private TopologyManager manager;
+
+    private Registration churn;
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BenchmarkReportTest {
+
+    @Test
+    public void testParsesParamsIntoKey() {
+        Map<String, BenchmarkReport.Result> results = BenchmarkReport.parse(
+                "[" + result("a.B.marshal", "avgt", 12.5, 0.5, "{\"size\":\"10\",\"mode\":\"x\"}") + "]");
+
+        assertThat(results).hasSize(1);
+        BenchmarkReport.Result result = results.get("a.B.marshal{mode=x, size=10}");
+        assertThat(result).isNotNull();
+        assertThat(result.getMode()).isEqualTo("avgt");
+        assertThat(result.getScore()).isEqualTo(12.5);
+        assertThat(result.getError()).isEqualTo(0.5);
+        assertThat(result.getUnit()).isEqualTo("us/op");
+    }
+
+    @Test
+    public void testSlowerAverageTimeIsRegression() {
+        BenchmarkReport report = report(
+                result("a.B.slower", "avgt", 10.0, 0.1, null) + "," + result("a.B.noisy", "avgt", 10.0, 3.0, null),
+                result("a.B.slower", "avgt", 12.0, 0.1, null) + "," + result("a.B.noisy", "avgt", 12.0, 3.0, null));
+
+        assertThat(report.hasRegressions()).isTrue();
+        assertThat(report.getRows().get(0).isRegression()).isTrue();
+        assertThat(report.getRows().get(0).getChange()).isEqualTo(20.0);
+        // within the error margins
+        assertThat(report.getRows().get(1).isRegression()).isFalse();
+    }
+
+    @Test
+    public void testLowerThroughputIsRegression() {
+        BenchmarkReport report = report(
+                result("a.B.update", "thrpt", 100.0, 1.0, null),
+                result("a.B.update", "thrpt", 80.0, 1.0, null));
+
+        assertThat(report.getRows().get(0).isRegression()).isTrue();
+
+        report = report(
+                result("a.B.update", "thrpt", 100.0, 1.0, null),
+                result("a.B.update", "thrpt", 130.0, 1.0, null));
+
+        assertThat(report.hasRegressions()).isFalse();
+        assertThat(report.getRows().get(0).isImprovement()).isTrue();
+    }
+
+    @Test
+    public void testNewAndRemovedBenchmarks() {
+        BenchmarkReport report = report(
+                result("a.B.old", "avgt", 1.0, 0.0, null),
+                result("a.B.new", "avgt", 1.0, 0.0, null));
+
+        assertThat(report.hasRegressions()).isFalse();
+        assertThat(report.getRows()).hasSize(2);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.print(new PrintStream(out, true));
+        String table = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(table).contains("| a.B.new | avgt | - |");
+        assertThat(table).contains("removed");
+        assertThat(table).contains("0 regression(s)");
+    }
+
+    private static BenchmarkReport report(String baseline, String current) {
+        return new BenchmarkReport(
+                BenchmarkReport.parse("[" + baseline + "]"),
+                BenchmarkReport.parse("[" + current + "]"),
+                BenchmarkReport.DEFAULT_THRESHOLD);
+    }
+
+    private static String result(String benchmark, String mode, double score, double error, String params) {
+        return "{\"benchmark\":\"" + benchmark + "\",\"mode\":\"" + mode + "\","
+                + (params != null ? "\"params\":" + params + "," : "")
+                + "\"primaryMetric\":{\"score\":" + score + ",\"scoreError\":" + error + ",\"scoreUnit\":\"us/op\"}}";
+    }
+}
@@ -34,6 +34,7 @@ import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
 import org.wildfly.swarm.bootstrap.modules.BootModuleLoader;
 import org.wildfly.swarm.bootstrap.performance.Performance;
 import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
 
 /**
  * @author Bob McWhirter
@@ -82,9 +83,20 @@ public class Main {
                 );
             }
 
+            try {
+                ControlChannel.open(() -> {
+                    if (mainInvoker != null) {
+                        mainInvoker.stop();
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("Unable to open the control channel: " + e.getMessage());
+            }
+
             new Main(args).run();
         } catch (Throwable t) {
             t.printStackTrace();
+            ControlChannel.failed(t);
             throw t;
         }
     }
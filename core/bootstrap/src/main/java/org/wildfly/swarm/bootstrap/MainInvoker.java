@@ -27,6 +27,7 @@ import java.util.List;
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleLoadException;
 import org.wildfly.swarm.bootstrap.modules.BootModuleLoader;
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
 
 /**
  * @author Bob McWhirter
@@ -52,6 +53,7 @@ public class MainInvoker {
     public void invoke() throws Exception {
         this.mainMethod.invoke(null, new Object[]{this.args});
         emitReady();
+        ControlChannel.ready();
     }
 
     public void stop() throws Exception {
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.env;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The detectable JDBC drivers packaged with the application, recorded in the uberjar at build time.
+ *
+ * <p>The datasources fraction lists the drivers it can detect in {@value #DETECTABLE_LOCATION}, each with
+ * the candidate classes of its {@value #DRIVER_CLASS}, {@value #XA_DATASOURCE_CLASS} and
+ * {@value #OPTIONAL_CLASS} properties, in order of preference. The build writes {@value #LOCATION} in the
+ * same format, with the classes it found and, for drivers coming from a dependency, the {@value #ARTIFACT}
+ * and {@value #OPTIONAL_ARTIFACTS} holding them. A driver recorded with an empty {@value #DRIVER_CLASS} is
+ * not packaged; drivers the manifest does not mention are not covered by it.</p>
+ */
+public class JDBCDriverManifest {
+
+    public static final String LOCATION = "META-INF/wildfly-swarm-jdbc-drivers.properties";
+
+    public static final String DETECTABLE_LOCATION = "META-INF/wildfly-swarm-jdbc-detectable-drivers.properties";
+
+    public static final String DRIVER_CLASS = "driver-class";
+
+    public static final String XA_DATASOURCE_CLASS = "xa-datasource-class";
+
+    public static final String OPTIONAL_CLASS = "optional-class";
+
+    public static final String ARTIFACT = "artifact";
+
+    public static final String OPTIONAL_ARTIFACTS = "optional-artifacts";
+
+    public JDBCDriverManifest() {
+
+    }
+
+    public JDBCDriverManifest(InputStream in) throws IOException {
+        read(in);
+    }
+
+    /**
+     * @return The manifest of the running uberjar, or {@code null} when not running from one built with
+     * it, or when anything else is on the class path, since the build could not see it.
+     */
+    public static JDBCDriverManifest load() {
+        String classPath = System.getProperty("java.class.path", "");
+        if (classPath.contains(File.pathSeparator)) {
+            return null;
+        }
+        URL url = ClassLoader.getSystemClassLoader().getResource(LOCATION);
+        if (url == null) {
+            return null;
+        }
+        try (InputStream in = url.openStream()) {
+            return new JDBCDriverManifest(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void read(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (dot > 0) {
+                this.drivers.computeIfAbsent(key.substring(0, dot), name -> new TreeMap<>())
+                        .put(key.substring(dot + 1), properties.getProperty(key).trim());
+            }
+        }
+    }
+
+    /**
+     * @return The names of the drivers the manifest covers.
+     */
+    public Set<String> drivers() {
+        return Collections.unmodifiableSet(this.drivers.keySet());
+    }
+
+    /**
+     * @return Whether the build recorded if the driver is packaged.
+     */
+    public boolean covers(String driverName) {
+        return this.drivers.containsKey(driverName);
+    }
+
+    /**
+     * @return Whether the build found the driver; {@code false} as well for drivers not {@link #covers covered}.
+     */
+    public boolean isPackaged(String driverName) {
+        return driverClassName(driverName) != null;
+    }
+
+    public String driverClassName(String driverName) {
+        return get(driverName, DRIVER_CLASS);
+    }
+
+    public String xaDatasourceClassName(String driverName) {
+        return get(driverName, XA_DATASOURCE_CLASS);
+    }
+
+    /**
+     * @return The artifact holding the driver, or {@code null} if it is packaged in the application itself.
+     */
+    public String artifact(String driverName) {
+        return get(driverName, ARTIFACT);
+    }
+
+    public List<String> optionalArtifacts(String driverName) {
+        return list(get(driverName, OPTIONAL_ARTIFACTS));
+    }
+
+    /**
+     * Candidate classes of a detectable driver, in order of preference.
+     *
+     * @param property One of {@value #DRIVER_CLASS}, {@value #XA_DATASOURCE_CLASS} and {@value #OPTIONAL_CLASS}.
+     */
+    public List<String> candidates(String driverName, String property) {
+        return list(get(driverName, property));
+    }
+
+    /**
+     * Record a driver as not packaged.
+     */
+    public JDBCDriverManifest absent(String driverName) {
+        Map<String, String> driver = new TreeMap<>();
+        driver.put(DRIVER_CLASS, "");
+        this.drivers.put(driverName, driver);
+        return this;
+    }
+
+    /**
+     * Record a packaged driver.
+     *
+     * @param xaDatasourceClassName The XA datasource class, or {@code null} if none was found.
+     * @param artifact The artifact holding the driver, or {@code null} if it is packaged in the application itself.
+     * @param optionalArtifacts Other artifacts holding optional classes of the driver.
+     */
+    public JDBCDriverManifest packaged(String driverName, String driverClassName, String xaDatasourceClassName,
+                                       String artifact, Set<String> optionalArtifacts) {
+        Map<String, String> driver = new TreeMap<>();
+        driver.put(DRIVER_CLASS, driverClassName);
+        if (xaDatasourceClassName != null) {
+            driver.put(XA_DATASOURCE_CLASS, xaDatasourceClassName);
+        }
+        if (artifact != null) {
+            driver.put(ARTIFACT, artifact);
+        }
+        if (!optionalArtifacts.isEmpty()) {
+            driver.put(OPTIONAL_ARTIFACTS, String.join(",", new TreeSet<>(optionalArtifacts)));
+        }
+        this.drivers.put(driverName, driver);
+        return this;
+    }
+
+    /**
+     * Sorted, without the timestamp {@link Properties#store} would add, so an unchanged
+     * set of drivers gives the same bytes from one build to the next.
+     */
+    public byte[] toBytes() {
+        StringBuilder str = new StringBuilder();
+        for (Map.Entry<String, Map<String, String>> driver : this.drivers.entrySet()) {
+            for (Map.Entry<String, String> each : driver.getValue().entrySet()) {
+                str.append(driver.getKey()).append('.').append(each.getKey()).append('=').append(each.getValue()).append('\n');
+            }
+        }
+        return str.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private String get(String driverName, String property) {
+        Map<String, String> driver = this.drivers.get(driverName);
+        String value = driver == null ? null : driver.get(property);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static List<String> list(String value) {
+        List<String> list = new ArrayList<>();
+        if (value != null) {
+            for (String each : value.split(",")) {
+                if (!each.trim().isEmpty()) {
+                    list.add(each.trim());
+                }
+            }
+        }
+        return list;
+    }
+
+    private final Map<String, Map<String, String>> drivers = new TreeMap<>();
+}
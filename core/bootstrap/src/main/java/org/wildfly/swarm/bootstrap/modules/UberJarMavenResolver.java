@@ -18,6 +18,8 @@ package org.wildfly.swarm.bootstrap.modules;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.Map;
@@ -27,6 +29,7 @@ import java.util.regex.Pattern;
 
 import org.jboss.modules.maven.ArtifactCoordinates;
 import org.jboss.modules.maven.MavenResolver;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
 
 /**
@@ -38,6 +41,8 @@ public class UberJarMavenResolver implements MavenResolver {
 
     private static final String DOT = ".";
 
+    private static final String FILE_PROTOCOL = "file";
+
     private Map<ArtifactCoordinates, File> resolutionCache = new ConcurrentHashMap<>();
 
     public static File copyTempJar(String artifactId, InputStream in, String packaging) throws IOException {
@@ -60,10 +65,21 @@ public class UberJarMavenResolver implements MavenResolver {
 
             String jarPath = artifactRelativePath + classifier + DOT + packaging;
 
-            InputStream stream = UberJarMavenResolver.class.getClassLoader().getResourceAsStream(jarPath);
-
-            if (stream != null) {
-                resolved = copyTempJar(coordinates.getArtifactId() + HYPHEN + coordinates.getVersion(), stream, packaging);
+            URL url = UberJarMavenResolver.class.getClassLoader().getResource(jarPath);
+
+            if (url != null) {
+                if (BootstrapProperties.flagIsSet(BootstrapProperties.IS_LAYERED) && FILE_PROTOCOL.equals(url.getProtocol())) {
+                    // layered packaging puts the repository on the class path as a plain directory
+                    try {
+                        resolved = new File(url.toURI());
+                    } catch (URISyntaxException e) {
+                        throw new IOException(e);
+                    }
+                } else {
+                    try (InputStream stream = url.openStream()) {
+                        resolved = copyTempJar(coordinates.getArtifactId() + HYPHEN + coordinates.getVersion(), stream, packaging);
+                    }
+                }
                 this.resolutionCache.put(coordinates, resolved);
             }
         }
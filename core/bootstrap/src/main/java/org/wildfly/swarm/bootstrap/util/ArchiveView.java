@@ -0,0 +1,273 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Read-only, random-access view of an archive, backed by its zip central directory.
+ *
+ * <p>Views are shared: asking twice for the same URL returns the same view. An archive nested in
+ * another one, such as the application inside the uberjar, is copied to a temporary file once,
+ * since only a file of its own can be read at random.</p>
+ */
+public final class ArchiveView {
+
+    private static final String COMPLETE_MARKER = ".extracted";
+
+    private static final Map<String, ArchiveView> VIEWS = new ConcurrentHashMap<>();
+
+    private ArchiveView(ZipFile zip) {
+        this.zip = zip;
+    }
+
+    /**
+     * @param url The archive, either a file or an entry of another archive.
+     * @return The shared view of the archive.
+     */
+    public static ArchiveView of(URL url) throws IOException {
+        String key = url.toExternalForm();
+        ArchiveView view = VIEWS.get(key);
+        if (view == null) {
+            synchronized (VIEWS) {
+                view = VIEWS.get(key);
+                if (view == null) {
+                    view = open(url);
+                    VIEWS.put(key, view);
+                }
+            }
+        }
+        return view;
+    }
+
+    public boolean contains(String name) {
+        return this.zip.getEntry(normalize(name)) != null;
+    }
+
+    /**
+     * @param name The entry, with or without a leading slash.
+     * @return The content of the entry, or {@code null} if the archive has no such file.
+     */
+    public InputStream open(String name) throws IOException {
+        ZipEntry entry = this.zip.getEntry(normalize(name));
+        if (entry == null || entry.isDirectory()) {
+            return null;
+        }
+        return this.zip.getInputStream(entry);
+    }
+
+    public List<String> names() {
+        List<String> names = new ArrayList<>(this.zip.size());
+        Enumeration<? extends ZipEntry> entries = this.zip.entries();
+        while (entries.hasMoreElements()) {
+            names.add(entries.nextElement().getName());
+        }
+        return names;
+    }
+
+    /**
+     * Identity of the content, computed from the names, sizes and CRCs in the central directory
+     * without reading any entry.
+     */
+    public long fingerprint() {
+        long fingerprint = this.fingerprint;
+        if (fingerprint == 0) {
+            fingerprint = 17;
+            Enumeration<? extends ZipEntry> entries = this.zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry each = entries.nextElement();
+                fingerprint = 31 * fingerprint + each.getName().hashCode();
+                fingerprint = 31 * fingerprint + each.getSize();
+                fingerprint = 31 * fingerprint + each.getCrc();
+            }
+            this.fingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Write the files of the archive into a directory.
+     *
+     * @param target An existing directory.
+     */
+    public void extract(Path target) throws IOException {
+        Path root = target.toAbsolutePath().normalize();
+        Enumeration<? extends ZipEntry> entries = this.zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry each = entries.nextElement();
+            Path path = root.resolve(each.getName()).normalize();
+            if (!path.startsWith(root)) {
+                throw new IOException("Entry outside of the archive: " + each.getName());
+            }
+            if (each.isDirectory()) {
+                Files.createDirectories(path);
+                continue;
+            }
+            Files.createDirectories(path.getParent());
+            try (InputStream in = this.zip.getInputStream(each)) {
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Extract the archive once into a directory kept between runs, named after its {@link #fingerprint()}.
+     *
+     * <p>Later runs, and other processes of the same user, reuse the directory as long as the
+     * archive content is the same and the directory is complete: a marker written after the last
+     * file is present, and so is every file of the archive, at its size. A directory owned by
+     * someone else is never reused.</p>
+     *
+     * @param name Prefix of the directory name.
+     * @return The directory holding the files of the archive.
+     */
+    public Path extractCached(String name) throws IOException {
+        Path base = Paths.get(System.getProperty(TempFileManager.TMPDIR_PROPERTY, System.getProperty("java.io.tmpdir")));
+        Files.createDirectories(base);
+        Path cached = base.resolve(name + "-" + Long.toHexString(fingerprint()));
+
+        Path staging = Files.createTempDirectory(base, name);
+        try {
+            UserPrincipal owner = Files.getOwner(staging);
+            if (isComplete(cached, owner)) {
+                return cached;
+            }
+            extract(staging);
+            // written last, so that an interrupted extraction is never taken for a complete one
+            Files.createFile(staging.resolve(COMPLETE_MARKER));
+
+            if (Files.exists(cached) && ownedBy(cached, owner)) {
+                // ours but incomplete, e.g. a crashed run or a tmp cleaner removing old files
+                delete(cached);
+            }
+            if (!Files.exists(cached)) {
+                try {
+                    Files.move(staging, cached, StandardCopyOption.ATOMIC_MOVE);
+                    staging = null;
+                    return cached;
+                } catch (FileAlreadyExistsException | DirectoryNotEmptyException | AtomicMoveNotSupportedException e) {
+                    // another process got there first, or moves are not atomic here
+                }
+                if (isComplete(cached, owner)) {
+                    return cached;
+                }
+            }
+
+            // someone else's, or not usable; keep this extraction for this run only
+            Path result = staging;
+            staging = null;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    delete(result);
+                } catch (IOException e) {
+                    // left behind
+                }
+            }));
+            return result;
+        } finally {
+            if (staging != null) {
+                delete(staging);
+            }
+        }
+    }
+
+    private boolean isComplete(Path dir, UserPrincipal owner) {
+        if (!Files.isDirectory(dir) || !ownedBy(dir, owner) || !Files.exists(dir.resolve(COMPLETE_MARKER))) {
+            return false;
+        }
+        Enumeration<? extends ZipEntry> entries = this.zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry each = entries.nextElement();
+            if (each.isDirectory()) {
+                continue;
+            }
+            try {
+                Path path = dir.resolve(each.getName());
+                if (each.getSize() >= 0 ? Files.size(path) != each.getSize() : !Files.isRegularFile(path)) {
+                    return false;
+                }
+            } catch (IOException | InvalidPathException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ownedBy(Path path, UserPrincipal owner) {
+        try {
+            return owner.equals(Files.getOwner(path));
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            List<Path> all = new ArrayList<>();
+            paths.forEach(all::add);
+            Collections.sort(all, Comparator.reverseOrder());
+            for (Path each : all) {
+                Files.deleteIfExists(each);
+            }
+        }
+    }
+
+    private static ArchiveView open(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return new ArchiveView(new ZipFile(new File(url.toURI())));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        File spooled = TempFileManager.INSTANCE.newTempFile("archive-view", ".jar");
+        try (InputStream in = url.openStream()) {
+            Files.copy(in, spooled.toPath());
+        }
+        return new ArchiveView(new ZipFile(spooled));
+    }
+
+    private static String normalize(String name) {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+
+    private final ZipFile zip;
+
+    private volatile long fingerprint;
+}
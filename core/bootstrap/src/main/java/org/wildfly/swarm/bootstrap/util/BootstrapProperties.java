@@ -29,6 +29,8 @@ public class BootstrapProperties {
 
     public static final String IS_UBERJAR = "swarm.isuberjar";
 
+    public static final String IS_LAYERED = "swarm.islayered";
+
     private BootstrapProperties() {
     }
 
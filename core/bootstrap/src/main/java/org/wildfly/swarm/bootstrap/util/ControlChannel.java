@@ -0,0 +1,248 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Line-based channel between a forked Swarm process and the tool that launched it.
+ *
+ * <p>The launcher listens on a loopback port and passes it as {@link #CONTROL_PORT}. The process
+ * connects early in {@code Main}, and reports either {@link #READY} with its boot time, bound ports
+ * and deployment status, or {@link #FAILED}. The launcher may then send {@link #SHUTDOWN}; the process
+ * stops the container, answers {@link #STOPPED} and exits.</p>
+ *
+ * <pre>
+ * READY boot=2345 ports=http:8080,management-http:9990 deployments=app.war:OK
+ * FAILED message=...
+ * </pre>
+ */
+public final class ControlChannel {
+
+    public static final String CONTROL_PORT = "org.wildfly.swarm.controlPort";
+
+    public static final String READY = "READY";
+
+    public static final String FAILED = "FAILED";
+
+    public static final String SHUTDOWN = "SHUTDOWN";
+
+    public static final String STOPPED = "STOPPED";
+
+    public static final String BOOT_TIME = "boot";
+
+    public static final String PORTS = "ports";
+
+    public static final String DEPLOYMENTS = "deployments";
+
+    public static final String MESSAGE = "message";
+
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    private ControlChannel(Socket socket) throws IOException {
+        this.socket = socket;
+        this.writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Connect to the launcher, if it asked for a control channel.
+     *
+     * @param onShutdown invoked on the reader thread when the launcher requests a shutdown
+     */
+    public static synchronized void open(ShutdownHandler onShutdown) throws IOException {
+        String port = System.getProperty(CONTROL_PORT);
+        if (port == null || instance != null) {
+            return;
+        }
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(port)), CONNECT_TIMEOUT);
+        instance = new ControlChannel(socket);
+
+        Thread reader = new Thread(() -> instance.readCommands(onShutdown), "swarm-control-channel");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public static boolean isOpen() {
+        return instance != null;
+    }
+
+    /**
+     * Install the container's source of bound ports and deployment status, queried when readiness is reported.
+     */
+    public static void statusReporter(StatusReporter reporter) {
+        ControlChannel channel = instance;
+        if (channel != null) {
+            channel.reporter = reporter;
+        }
+    }
+
+    public static void ready() {
+        ControlChannel channel = instance;
+        if (channel == null) {
+            return;
+        }
+        long bootTime = ManagementFactory.getRuntimeMXBean().getUptime();
+        Map<String, Integer> ports = new LinkedHashMap<>();
+        Map<String, String> deployments = new LinkedHashMap<>();
+        StatusReporter reporter = channel.reporter;
+        if (reporter != null) {
+            try {
+                reporter.report(ports, deployments);
+            } catch (Exception e) {
+                System.err.println("Unable to determine bound ports and deployments: " + e.getMessage());
+            }
+        }
+        channel.send(READY
+                             + ' ' + BOOT_TIME + '=' + bootTime
+                             + ' ' + PORTS + '=' + join(ports)
+                             + ' ' + DEPLOYMENTS + '=' + join(deployments));
+    }
+
+    public static void failed(Throwable t) {
+        ControlChannel channel = instance;
+        if (channel != null) {
+            Throwable cause = t;
+            while (cause instanceof InvocationTargetException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            channel.send(FAILED + ' ' + MESSAGE + '=' + encode(cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+        }
+    }
+
+    /**
+     * Parse the {@code key=value} fields following the verb of a status line.
+     */
+    public static Map<String, String> fields(String line) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        String[] parts = line.split(" ");
+        for (int i = 1; i < parts.length; ++i) {
+            int eq = parts[i].indexOf('=');
+            if (eq > 0) {
+                fields.put(parts[i].substring(0, eq), parts[i].substring(eq + 1));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Parse a {@code name:value,...} field.
+     */
+    public static Map<String, String> entries(String field) {
+        if (field == null || field.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (String each : field.split(",")) {
+            int colon = each.lastIndexOf(':');
+            if (colon > 0) {
+                entries.put(decode(each.substring(0, colon)), decode(each.substring(colon + 1)));
+            }
+        }
+        return entries;
+    }
+
+    public static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String join(Map<String, ?> entries) {
+        StringBuilder joined = new StringBuilder();
+        for (Map.Entry<String, ?> each : entries.entrySet()) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(encode(each.getKey())).append(':').append(encode(String.valueOf(each.getValue())));
+        }
+        return joined.toString();
+    }
+
+    private void readCommands(ShutdownHandler onShutdown) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (SHUTDOWN.equals(line.trim())) {
+                    try {
+                        onShutdown.shutdown();
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                    }
+                    send(STOPPED);
+                    System.exit(0);
+                }
+            }
+        } catch (IOException e) {
+            // launcher went away; it may still stop us through the process file or a signal
+        }
+    }
+
+    private synchronized void send(String line) {
+        try {
+            this.writer.write(line);
+            this.writer.write('\n');
+            this.writer.flush();
+        } catch (IOException e) {
+            // launcher went away
+        }
+    }
+
+    private static volatile ControlChannel instance;
+
+    private final Socket socket;
+
+    private final Writer writer;
+
+    private volatile StatusReporter reporter;
+
+    public interface ShutdownHandler {
+        void shutdown() throws Exception;
+    }
+
+    /**
+     * Fills in the bound ports by socket-binding name, and the status of each deployment by name.
+     */
+    public interface StatusReporter {
+        void report(Map<String, Integer> ports, Map<String, String> deployments) throws Exception;
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.bootstrap.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ArchiveViewTest {
+
+    @Test
+    public void testLookup() throws Exception {
+        ArchiveView view = ArchiveView.of(archive("fish").toURI().toURL());
+
+        assertThat(view.contains("WEB-INF/keycloak.json")).isTrue();
+        assertThat(view.contains("/WEB-INF/keycloak.json")).isTrue();
+        assertThat(view.contains("keycloak.json")).isFalse();
+        assertThat(view.open("keycloak.json")).isNull();
+        assertThat(view.names()).contains("WEB-INF/keycloak.json", "theme/base/theme.properties");
+
+        try (InputStream in = view.open("WEB-INF/keycloak.json")) {
+            assertThat(read(in)).isEqualTo("{\"realm\":\"fish\"}");
+        }
+    }
+
+    @Test
+    public void testShared() throws Exception {
+        File file = archive("fish");
+        assertThat(ArchiveView.of(file.toURI().toURL())).isSameAs(ArchiveView.of(file.toURI().toURL()));
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        ArchiveView fish = ArchiveView.of(archive("fish").toURI().toURL());
+        ArchiveView sameFish = ArchiveView.of(archive("fish").toURI().toURL());
+        ArchiveView cheese = ArchiveView.of(archive("cheese").toURI().toURL());
+
+        assertThat(fish).isNotSameAs(sameFish);
+        assertThat(fish.fingerprint()).isEqualTo(sameFish.fingerprint());
+        assertThat(fish.fingerprint()).isNotEqualTo(cheese.fingerprint());
+    }
+
+    @Test
+    public void testExtractCached() throws Exception {
+        Path tmp = Files.createTempDirectory("archive-view");
+        String previous = System.setProperty(TempFileManager.TMPDIR_PROPERTY, tmp.toString());
+        try {
+            ArchiveView view = ArchiveView.of(archive("fish").toURI().toURL());
+
+            Path extracted = view.extractCached("themes");
+            assertThat(extracted.getParent().toString()).isEqualTo(tmp.toString());
+            assertThat(new String(Files.readAllBytes(extracted.resolve("theme/base/theme.properties")), StandardCharsets.UTF_8))
+                    .isEqualTo("parent=fish");
+
+            assertThat(view.extractCached("themes").toString()).isEqualTo(extracted.toString());
+            assertThat(tmp.toFile().list()).hasSize(1);
+        } finally {
+            if (previous == null) {
+                System.clearProperty(TempFileManager.TMPDIR_PROPERTY);
+            } else {
+                System.setProperty(TempFileManager.TMPDIR_PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    public void testExtractCachedRepairsIncompleteDirectory() throws Exception {
+        Path tmp = Files.createTempDirectory("archive-view");
+        String previous = System.setProperty(TempFileManager.TMPDIR_PROPERTY, tmp.toString());
+        try {
+            ArchiveView view = ArchiveView.of(archive("fish").toURI().toURL());
+
+            // left half way by an earlier run: no marker
+            Path cached = tmp.resolve("themes-" + Long.toHexString(view.fingerprint()));
+            Files.createDirectories(cached.resolve("WEB-INF"));
+            Files.write(cached.resolve("WEB-INF/keycloak.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+            Path extracted = view.extractCached("themes");
+            assertThat(extracted.toString()).isEqualTo(cached.toString());
+            assertThat(Files.exists(extracted.resolve("theme/base/theme.properties"))).isTrue();
+            assertThat(new String(Files.readAllBytes(extracted.resolve("WEB-INF/keycloak.json")), StandardCharsets.UTF_8))
+                    .isEqualTo("{\"realm\":\"fish\"}");
+
+            // complete once, then a file goes missing, e.g. removed by a tmp cleaner
+            Files.delete(extracted.resolve("theme/base/theme.properties"));
+            assertThat(view.extractCached("themes").toString()).isEqualTo(cached.toString());
+            assertThat(Files.exists(cached.resolve("theme/base/theme.properties"))).isTrue();
+            assertThat(tmp.toFile().list()).hasSize(1);
+        } finally {
+            if (previous == null) {
+                System.clearProperty(TempFileManager.TMPDIR_PROPERTY);
+            } else {
+                System.setProperty(TempFileManager.TMPDIR_PROPERTY, previous);
+            }
+        }
+    }
+
+    private static File archive(String name) throws IOException {
+        File file = File.createTempFile("archive-view", ".jar");
+        file.deleteOnExit();
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("WEB-INF/"));
+            out.putNextEntry(new ZipEntry("WEB-INF/keycloak.json"));
+            out.write(("{\"realm\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("theme/base/theme.properties"));
+            out.write(("parent=" + name).getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        byte[] buf = new byte[1024];
+        int len = in.read(buf);
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+}
@@ -491,6 +491,22 @@ public class Swarm {
         return this;
     }
 
+    /**
+     * Undeploy a deployment.
+     *
+     * @param name The name of the deployment.
+     * @return The container.
+     * @throws DeploymentException if an error occurs.
+     */
+    public Swarm undeploy(String name) throws Exception {
+        if (this.server == null) {
+            throw SwarmMessages.MESSAGES.containerNotStarted("undeploy(String)");
+        }
+
+        this.server.deployer().undeploy(name);
+        return this;
+    }
+
     /**
      * Retrieve the default ShrinkWrap deployment.
      *
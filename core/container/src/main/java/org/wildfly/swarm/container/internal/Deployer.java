@@ -31,5 +31,7 @@ public interface Deployer {
 
     void deploy(Collection<Path> paths) throws DeploymentException;
 
+    void undeploy(String name) throws DeploymentException;
+
     Archive<?> createDefaultDeployment();
 }
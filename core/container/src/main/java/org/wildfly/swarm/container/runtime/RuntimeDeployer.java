@@ -17,15 +17,19 @@ package org.wildfly.swarm.container.runtime;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 import javax.annotation.PreDestroy;
@@ -42,6 +46,7 @@ import org.jboss.shrinkwrap.api.Filters;
 import org.jboss.shrinkwrap.api.GenericArchive;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.importer.ExplodedImporter;
 import org.jboss.shrinkwrap.api.importer.ZipImporter;
@@ -57,6 +62,7 @@ import org.wildfly.swarm.container.runtime.cdi.DeploymentContext;
 import org.wildfly.swarm.container.runtime.deployments.DefaultDeploymentCreator;
 import org.wildfly.swarm.container.runtime.wildfly.SwarmContentRepository;
 import org.wildfly.swarm.internal.DeployerMessages;
+import org.wildfly.swarm.internal.DeploymentIndexer;
 import org.wildfly.swarm.internal.FileSystemLayout;
 import org.wildfly.swarm.internal.SwarmMessages;
 import org.wildfly.swarm.spi.api.ArtifactLookup;
@@ -64,18 +70,24 @@ import org.wildfly.swarm.spi.api.DependenciesContainer;
 import org.wildfly.swarm.spi.api.DeploymentProcessor;
 import org.wildfly.swarm.spi.api.JARArchive;
 import org.wildfly.swarm.spi.api.SwarmProperties;
+import org.wildfly.swarm.spi.api.internal.PackagedArtifact;
 import org.wildfly.swarm.spi.api.internal.SwarmInternalProperties;
 
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADD;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.BLOCKING_TIMEOUT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.COMPOSITE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CONTENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT_OVERLAY;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ENABLED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OPERATION_HEADERS;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.PERSISTENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REMOVE;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RUNTIME_NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STEPS;
 
 /**
  * @author Bob McWhirter
@@ -88,6 +100,8 @@ public class RuntimeDeployer implements Deployer {
 
     //private static Logger LOG = Logger.getLogger("org.wildfly.swarm.deployer");
 
+    private static final String OVERLAY_SUFFIX = ".overlay";
+
     private static final String ALL_DEPENDENCIES_ADDED_MARKER = DependenciesContainer.ALL_DEPENDENCIES_MARKER + ".added";
 
     void implicitDeploymentsComplete() {
@@ -235,6 +249,7 @@ public class RuntimeDeployer implements Deployer {
 
 
             this.deploymentContext.deactivate();
+            DeploymentIndexer.release(deployment);
 
             if (DeployerMessages.MESSAGES.isDebugEnabled()) {
                 DeployerMessages.MESSAGES.deploying(deployment.getName());
@@ -261,7 +276,8 @@ public class RuntimeDeployer implements Deployer {
                 }
             }
 
-            byte[] hash = this.contentRepository.addContent(deployment.as(ZipExporter.class).exportAsInputStream());
+            Map<String, byte[]> overlays = new TreeMap<>();
+            byte[] hash = addContent(deployment, overlays);
 
             final ModelNode deploymentAdd = new ModelNode();
 
@@ -277,18 +293,32 @@ public class RuntimeDeployer implements Deployer {
 
             final ModelNode opHeaders = new ModelNode();
             opHeaders.get(BLOCKING_TIMEOUT).set(deploymentTimeout);
-            deploymentAdd.get(OPERATION_HEADERS).set(opHeaders);
+
+            final ModelNode operation;
+            if (overlays.isEmpty()) {
+                operation = deploymentAdd;
+            } else {
+                operation = new ModelNode();
+                operation.get(OP).set(COMPOSITE);
+                ModelNode steps = operation.get(STEPS);
+                addOverlay(steps, deployment.getName(), overlays);
+                steps.add(deploymentAdd);
+            }
+            operation.get(OPERATION_HEADERS).set(opHeaders);
 
 
             BootstrapLogger.logger("org.wildfly.swarm.runtime.deployer")
                     .info("deploying " + deployment.getName());
             System.setProperty(SwarmInternalProperties.CURRENT_DEPLOYMENT, deployment.getName());
             try {
-                ModelNode result = client.execute(deploymentAdd);
+                ModelNode result = client.execute(operation);
 
                 ModelNode outcome = result.get("outcome");
 
                 if (outcome.asString().equals("success")) {
+                    if (!overlays.isEmpty()) {
+                        this.overlaid.put(deployment.getName(), overlays.keySet());
+                    }
                     return;
                 }
 
@@ -302,12 +332,122 @@ public class RuntimeDeployer implements Deployer {
         }
     }
 
+    /**
+     * Remove a deployment, together with the overlay laid over it when it was deployed.
+     */
+    @Override
+    public void undeploy(String name) throws DeploymentException {
+        final ModelNode deploymentRemove = new ModelNode();
+        deploymentRemove.get(OP).set(REMOVE);
+        deploymentRemove.get(OP_ADDR).set(DEPLOYMENT, name);
+
+        Set<String> overlaidPaths = this.overlaid.get(name);
+        final ModelNode operation;
+        if (overlaidPaths == null) {
+            operation = deploymentRemove;
+        } else {
+            operation = new ModelNode();
+            operation.get(OP).set(COMPOSITE);
+            ModelNode steps = operation.get(STEPS);
+            steps.add(deploymentRemove);
+            removeOverlay(steps, name, overlaidPaths);
+        }
+
+        try {
+            ModelNode result = client.execute(operation);
+            if (!result.get("outcome").asString().equals("success")) {
+                throw DeployerMessages.MESSAGES.undeploymentFailed(name, result.get("failure-description").asString());
+            }
+        } catch (IOException e) {
+            throw new DeploymentException(e);
+        }
+        this.overlaid.remove(name);
+    }
+
+    /**
+     * Hand the deployment content to the repository.
+     *
+     * <p>An application imported from the uberjar is passed through as the packaged file, whose digest
+     * is already known. Entries that processors added or replaced are added to the repository on their
+     * own and returned as overlays of the deployment; only when entries were removed is a copy of the
+     * packaged file rewritten. Anything else is exported through ShrinkWrap.</p>
+     *
+     * @param deployment The deployment.
+     * @param overlays   Receives the digests of the overlaid entries, by path.
+     * @return The digest of the deployment content.
+     */
+    private byte[] addContent(Archive<?> deployment, Map<String, byte[]> overlays) throws IOException {
+        PackagedArtifact packaged = PackagedArtifact.release(deployment);
+        if (packaged != null) {
+            if (!packaged.hasRemovals(deployment)) {
+                for (Map.Entry<String, Asset> each : packaged.changes(deployment).entrySet()) {
+                    try (InputStream in = each.getValue().openStream()) {
+                        overlays.put(each.getKey(), this.contentRepository.addContent(in));
+                    }
+                }
+                return this.contentRepository.addContent(packaged.getFile(), packaged.getHash());
+            }
+            try {
+                return this.contentRepository.addContent(packaged.overlay(deployment));
+            } catch (ProviderNotFoundException e) {
+                // no zip filesystem available, export the whole archive instead
+            } finally {
+                packaged.discard();
+            }
+        }
+        return this.contentRepository.addContent(deployment.as(ZipExporter.class).exportAsInputStream());
+    }
+
+    /**
+     * Add the steps laying entries over a deployment without changing its content.
+     */
+    private static void addOverlay(ModelNode steps, String runtimeName, Map<String, byte[]> overlays) {
+        final String name = runtimeName + OVERLAY_SUFFIX;
+
+        ModelNode overlayAdd = steps.add();
+        overlayAdd.get(OP).set(ADD);
+        overlayAdd.get(OP_ADDR).set(DEPLOYMENT_OVERLAY, name);
+
+        for (Map.Entry<String, byte[]> each : overlays.entrySet()) {
+            ModelNode contentAdd = steps.add();
+            contentAdd.get(OP).set(ADD);
+            contentAdd.get(OP_ADDR).add(DEPLOYMENT_OVERLAY, name).add(CONTENT, each.getKey());
+            contentAdd.get(CONTENT).get(HASH).set(each.getValue());
+        }
+
+        ModelNode linkAdd = steps.add();
+        linkAdd.get(OP).set(ADD);
+        linkAdd.get(OP_ADDR).add(DEPLOYMENT_OVERLAY, name).add(DEPLOYMENT, runtimeName);
+    }
+
+    /**
+     * Add the steps removing what {@link #addOverlay} added.
+     */
+    private static void removeOverlay(ModelNode steps, String runtimeName, Set<String> paths) {
+        final String name = runtimeName + OVERLAY_SUFFIX;
+
+        ModelNode linkRemove = steps.add();
+        linkRemove.get(OP).set(REMOVE);
+        linkRemove.get(OP_ADDR).add(DEPLOYMENT_OVERLAY, name).add(DEPLOYMENT, runtimeName);
+
+        for (String each : paths) {
+            ModelNode contentRemove = steps.add();
+            contentRemove.get(OP).set(REMOVE);
+            contentRemove.get(OP_ADDR).add(DEPLOYMENT_OVERLAY, name).add(CONTENT, each);
+        }
+
+        ModelNode overlayRemove = steps.add();
+        overlayRemove.get(OP).set(REMOVE);
+        overlayRemove.get(OP_ADDR).set(DEPLOYMENT_OVERLAY, name);
+    }
+
     @SuppressWarnings("unused")
     @PreDestroy
     void stop() {
     }
 
     public void removeAllContent() throws IOException {
+        PackagedArtifact.releaseAll();
         this.contentRepository.removeAllContent();
     }
 
@@ -335,6 +475,11 @@ public class RuntimeDeployer implements Deployer {
     @SuppressWarnings("unused")
     private boolean debug = false;
 
+    /**
+     * Overlaid paths, by the name of the deployment they are laid over.
+     */
+    private final Map<String, Set<String>> overlaid = new ConcurrentHashMap<>();
+
     @SuppressWarnings("unused")
     @Inject
     @Any
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
@@ -39,6 +40,7 @@ import org.jboss.as.server.Bootstrap;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.as.server.Services;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.jboss.msc.service.ServiceActivator;
 import org.jboss.msc.service.ServiceContainer;
 import org.jboss.msc.service.ServiceController;
@@ -48,6 +50,7 @@ import org.jboss.msc.service.ValueService;
 import org.jboss.msc.value.ImmediateValue;
 import org.jboss.shrinkwrap.api.Archive;
 import org.wildfly.swarm.bootstrap.performance.Performance;
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
 import org.wildfly.swarm.bootstrap.util.TempFileManager;
 import org.wildfly.swarm.container.internal.Deployer;
 import org.wildfly.swarm.container.internal.Server;
@@ -66,6 +69,17 @@ import org.wildfly.swarm.spi.api.UserSpaceExtensionFactory;
 import org.wildfly.swarm.spi.runtime.annotations.Post;
 import org.wildfly.swarm.spi.runtime.annotations.Pre;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ADDRESS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INCLUDE_RUNTIME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SOCKET_BINDING;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SOCKET_BINDING_GROUP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.STATUS;
+
 /**
  * @author Bob McWhirter
  * @author Ken Finnigan
@@ -239,6 +253,8 @@ public class RuntimeServer implements Server {
                 this.client = controller.createClient(executor);
             }
 
+            ControlChannel.statusReporter(this::reportStatus);
+
             RuntimeDeployer deployer = this.deployer.get();
 
             try (AutoCloseable installDeployer = Performance.time("Installing deployer")) {
@@ -275,7 +291,41 @@ public class RuntimeServer implements Server {
         });
     }
 
+    /**
+     * Bound ports by socket-binding name, and deployment status by name, for the launcher's control channel.
+     */
+    private void reportStatus(Map<String, Integer> ports, Map<String, String> deployments) throws IOException {
+        ModelNode bindings = new ModelNode();
+        bindings.get(OP).set(READ_RESOURCE_OPERATION);
+        bindings.get(OP_ADDR).add(SOCKET_BINDING_GROUP, "*");
+        bindings.get(OP_ADDR).add(SOCKET_BINDING, "*");
+        bindings.get(INCLUDE_RUNTIME).set(true);
+        for (ModelNode each : results(this.client.execute(bindings))) {
+            ModelNode binding = each.get(RESULT);
+            if (binding.hasDefined("bound-port")) {
+                String name = each.get(ADDRESS).asPropertyList().get(1).getValue().asString();
+                ports.put(name, binding.get("bound-port").asInt());
+            }
+        }
+
+        ModelNode deployment = new ModelNode();
+        deployment.get(OP).set(READ_RESOURCE_OPERATION);
+        deployment.get(OP_ADDR).add(DEPLOYMENT, "*");
+        deployment.get(INCLUDE_RUNTIME).set(true);
+        for (ModelNode each : results(this.client.execute(deployment))) {
+            String name = each.get(ADDRESS).asPropertyList().get(0).getValue().asString();
+            ModelNode status = each.get(RESULT, STATUS);
+            deployments.put(name, status.isDefined() ? status.asString() : "UNKNOWN");
+        }
+    }
+
+    private static List<ModelNode> results(ModelNode response) {
+        ModelNode result = response.get(RESULT);
+        return result.getType() == ModelType.LIST ? result.asList() : new ArrayList<>();
+    }
+
     public void stop() throws Exception {
+        ControlChannel.statusReporter(null);
         this.container.stop();
         awaitContainerTermination();
         this.containerStarted = false;
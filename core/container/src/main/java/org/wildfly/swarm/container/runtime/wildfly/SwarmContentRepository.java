@@ -110,6 +110,37 @@ public class SwarmContentRepository implements ContentRepository, Service<Conten
         }
     }
 
+    /**
+     * Take ownership of a file whose digest is already known, without copying it.
+     *
+     * <p>The file is deleted with the rest of the content.</p>
+     */
+    public byte[] addContent(Path content, byte[] sha1Bytes) {
+        this.index.put(toKey(sha1Bytes), content);
+        return sha1Bytes;
+    }
+
+    /**
+     * Take ownership of a file, computing its digest, without copying it.
+     *
+     * <p>The file is deleted with the rest of the content.</p>
+     */
+    public byte[] addContent(Path content) throws IOException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+            try (InputStream in = Files.newInputStream(content)) {
+                byte[] bytes = new byte[8192];
+                int read;
+                while ((read = in.read(bytes)) > -1) {
+                    messageDigest.update(bytes, 0, read);
+                }
+            }
+            return addContent(content, messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
     @Override
     public void addContentReference(ContentReference contentReference) {
     }
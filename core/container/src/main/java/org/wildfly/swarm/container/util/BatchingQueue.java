@@ -0,0 +1,342 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.enterprise.inject.Vetoed;
+
+/**
+ * Moves items off the threads producing them, such as log records or finished spans.
+ *
+ * <p>Items are placed into a bounded ring buffer, allocated once on {@link #start()}, and a single
+ * background flusher hands them to a {@link Sink} in batches of up to {@link #batchSize(int)} items.
+ * A batch is sent as soon as it is full, or once {@link #flushInterval(long)} has passed since the
+ * flusher woke up for the first item of the batch.</p>
+ *
+ * <p>When the buffer is full the {@link OverflowPolicy} decides whether the producer drops the item
+ * or waits for room.</p>
+ *
+ * @param <T> the item type
+ */
+@Vetoed
+public class BatchingQueue<T> {
+
+    private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * @param threadName the name of the flusher thread
+     * @param sink       the destination of the batches
+     */
+    public BatchingQueue(String threadName, Sink<T> sink) {
+        this.threadName = threadName;
+        this.sink = sink;
+    }
+
+    public BatchingQueue<T> capacity(int capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    public BatchingQueue<T> batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public BatchingQueue<T> flushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public BatchingQueue<T> overflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    public BatchingQueue<T> sampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    /**
+     * @return {@code false} if already started
+     */
+    public synchronized boolean start() {
+        if (this.flusher != null) {
+            return false;
+        }
+        if (this.capacity < 1 || this.batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batch size must be positive");
+        }
+        this.ring = new Object[this.capacity];
+        this.batchSize = Math.min(this.batchSize, this.capacity);
+        this.flusher = new Thread(this::flushLoop, this.threadName);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        return true;
+    }
+
+    /**
+     * Queue an item.
+     *
+     * @param item the item, which must not change after this call
+     * @return {@code false} if the item was dropped
+     */
+    public boolean offer(T item) {
+        this.lock.lock();
+        try {
+            if (this.ring == null || this.closed) {
+                this.dropped.incrementAndGet();
+                return false;
+            }
+            if (this.count == this.ring.length) {
+                if (this.overflowPolicy != OverflowPolicy.BLOCK || !awaitRoom()) {
+                    this.dropped.incrementAndGet();
+                    return false;
+                }
+            } else if (this.overflowPolicy == OverflowPolicy.SAMPLE && this.count >= this.ring.length / 2) {
+                if (this.sampled++ % Math.max(1, this.sampleRate) != 0) {
+                    this.dropped.incrementAndGet();
+                    return false;
+                }
+            }
+
+            this.ring[(this.head + this.count) % this.ring.length] = item;
+            ++this.count;
+            this.queued.incrementAndGet();
+            if (this.count == 1 || this.count >= this.batchSize) {
+                this.notEmpty.signal();
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting items, send what is buffered and close the sink.
+     *
+     * @return {@code false} if not started, or already closed
+     */
+    public boolean close() {
+        Thread flusher;
+        synchronized (this) {
+            flusher = this.flusher;
+            this.flusher = null;
+        }
+        if (flusher == null) {
+            return false;
+        }
+
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        try {
+            flusher.join(CLOSE_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.sink.close();
+        return true;
+    }
+
+    public long getQueuedCount() {
+        return this.queued.get();
+    }
+
+    public long getSentCount() {
+        return this.sent.get();
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    public int getPendingCount() {
+        this.lock.lock();
+        try {
+            return this.count;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    private boolean awaitRoom() {
+        try {
+            while (this.count == this.ring.length && !this.closed) {
+                this.notFull.await();
+            }
+            return !this.closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void flushLoop() {
+        List<T> batch = new ArrayList<>(this.batchSize);
+        while (true) {
+            if (!take(batch)) {
+                return;
+            }
+            try {
+                this.sink.send(batch);
+                this.sent.addAndGet(batch.size());
+            } catch (Exception e) {
+                this.dropped.addAndGet(batch.size());
+                this.sink.failed(batch, e);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Wait for a batch and move it out of the ring.
+     *
+     * @return {@code false} once closed and drained
+     */
+    @SuppressWarnings("unchecked")
+    private boolean take(List<T> batch) {
+        this.lock.lock();
+        try {
+            while (this.count == 0) {
+                if (this.closed) {
+                    return false;
+                }
+                this.notEmpty.await();
+            }
+            long remaining = TimeUnit.MILLISECONDS.toNanos(this.flushInterval);
+            while (this.count < this.batchSize && !this.closed && remaining > 0) {
+                remaining = this.notEmpty.awaitNanos(remaining);
+            }
+
+            int n = Math.min(this.count, this.batchSize);
+            for (int i = 0; i < n; ++i) {
+                batch.add((T) this.ring[this.head]);
+                this.ring[this.head] = null;
+                this.head = (this.head + 1) % this.ring.length;
+            }
+            this.count -= n;
+            this.notFull.signalAll();
+            return true;
+        } catch (InterruptedException e) {
+            // Nobody but close() stops the flusher
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private final String threadName;
+
+    private final Sink<T> sink;
+
+    private int capacity;
+
+    private int batchSize;
+
+    private long flushInterval;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    private int sampleRate = 1;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = this.lock.newCondition();
+
+    private final Condition notFull = this.lock.newCondition();
+
+    private Object[] ring;
+
+    private int head;
+
+    private int count;
+
+    private long sampled;
+
+    private boolean closed;
+
+    private Thread flusher;
+
+    private final AtomicLong queued = new AtomicLong();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * What to do with an item that arrives while the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the item.
+         */
+        DROP,
+        /**
+         * Wait on the producing thread until the flusher makes room.
+         */
+        BLOCK,
+        /**
+         * Once the buffer is half full, keep only one of every {@link BatchingQueue#sampleRate(int)} items;
+         * discard everything while it is full.
+         */
+        SAMPLE;
+
+        public static OverflowPolicy of(String name) {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    /**
+     * Destination of the batches, only ever called from the flusher thread.
+     *
+     * @param <T> the item type
+     */
+    public interface Sink<T> {
+
+        void send(List<T> batch) throws Exception;
+
+        /**
+         * Called when {@link #send(List)} fails; the batch is counted as dropped.
+         */
+        default void failed(List<T> batch, Exception e) {
+        }
+
+        default void close() {
+        }
+    }
+}
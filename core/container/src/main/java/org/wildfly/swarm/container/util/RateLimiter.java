@@ -0,0 +1,85 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.enterprise.inject.Vetoed;
+
+/**
+ * Admits at most a fixed number of events per second, at an even pace, allowing a burst of up to
+ * one second's worth after an idle period.
+ *
+ * <p>Admission is a single compare-and-set, so callers never block on it.</p>
+ */
+@Vetoed
+public class RateLimiter {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * @param perSecond the number of events admitted per second; nothing is admitted if not positive
+     */
+    public RateLimiter(double perSecond) {
+        this.perSecond = perSecond;
+        if (perSecond > 0) {
+            this.interval = Math.max(1, (long) (ONE_SECOND / perSecond));
+            this.tolerance = Math.max(0, ONE_SECOND - this.interval);
+        } else {
+            this.interval = -1;
+            this.tolerance = 0;
+        }
+        this.next = new AtomicLong(System.nanoTime() - this.tolerance);
+    }
+
+    /**
+     * @return {@code true} if the event is admitted
+     */
+    public boolean tryAcquire() {
+        if (this.interval < 0) {
+            return false;
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long next = this.next.get();
+            long base = next - now > 0 ? next : now;
+            if (base - now > this.tolerance) {
+                return false;
+            }
+            if (this.next.compareAndSet(next, base + this.interval)) {
+                return true;
+            }
+        }
+    }
+
+    public double getPerSecond() {
+        return this.perSecond;
+    }
+
+    @Override
+    public String toString() {
+        return this.perSecond + "/s";
+    }
+
+    private final double perSecond;
+
+    private final long interval;
+
+    private final long tolerance;
+
+    private final AtomicLong next;
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.enterprise.inject.Vetoed;
+
+/**
+ * A path sampling rule, as shared by the tracing fractions.
+ *
+ * <p>Rules are written as a comma-separated list of {@code <regex>=<rate>} entries, where the rate is
+ * either a probability, clamped between {@code 0} and {@code 1}, or a limit such as {@code 10/s}:</p>
+ *
+ * <pre>/health.*=0,/orders/.*=10/s,/admin/.*=1</pre>
+ *
+ * <p>The regex matches the whole path, and may itself contain {@code =}; the rate follows the last one.
+ * Each fraction turns a rule into a sampler of its own kind, the first matching rule deciding.</p>
+ */
+@Vetoed
+public final class SamplingRule {
+
+    private static final String PER_SECOND = "/s";
+
+    private SamplingRule(Pattern pattern, boolean rateLimited, double rate) {
+        this.pattern = pattern;
+        this.rateLimited = rateLimited;
+        this.rate = rate;
+    }
+
+    /**
+     * @param rules the rules, may be {@code null} or empty
+     * @return the rules, in order
+     * @throws IllegalArgumentException if an entry is not a {@code <regex>=<rate>} pair
+     */
+    public static List<SamplingRule> parse(String rules) {
+        List<SamplingRule> parsed = new ArrayList<>();
+        if (rules == null) {
+            return parsed;
+        }
+        for (String entry : rules.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                throw new IllegalArgumentException("Invalid sampling rule, expected <regex>=<rate>: " + entry);
+            }
+            Pattern pattern = Pattern.compile(entry.substring(0, eq).trim());
+            String rate = entry.substring(eq + 1).trim();
+            try {
+                if (rate.endsWith(PER_SECOND)) {
+                    double perSecond = Double.parseDouble(rate.substring(0, rate.length() - PER_SECOND.length()).trim());
+                    parsed.add(new SamplingRule(pattern, true, Math.max(0, perSecond)));
+                } else {
+                    parsed.add(new SamplingRule(pattern, false, Math.max(0, Math.min(1, Double.parseDouble(rate)))));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid sampling rate, expected a probability or <n>/s: " + entry, e);
+            }
+        }
+        return parsed;
+    }
+
+    public boolean matches(String path) {
+        return this.pattern.matcher(path).matches();
+    }
+
+    public Pattern getPattern() {
+        return this.pattern;
+    }
+
+    /**
+     * @return {@code true} if {@link #getRate()} is a number per second, rather than a probability
+     */
+    public boolean isRateLimited() {
+        return this.rateLimited;
+    }
+
+    public double getRate() {
+        return this.rate;
+    }
+
+    @Override
+    public String toString() {
+        return this.pattern.pattern() + "=" + this.rate + (this.rateLimited ? PER_SECOND : "");
+    }
+
+    private final Pattern pattern;
+
+    private final boolean rateLimited;
+
+    private final double rate;
+}
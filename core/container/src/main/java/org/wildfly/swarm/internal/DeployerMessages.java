@@ -52,5 +52,7 @@ public interface DeployerMessages extends BasicLogger {
     @Message(id = 6, value = "Unable to create default deployment of type .war, maybe missing the 'undertow' or 'jaxrs' fraction")
     DeploymentException unableToCreateDefaultDeploymentWar();
 
+    @Message(id = 7, value = "Undeploying %s failed: %s")
+    DeploymentException undeploymentFailed(String deploymentName, String failureMessage);
 
 }
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.jandex.CompositeIndex;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.Indexer;
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+
+/**
+ * Builds the annotation index of a deployment, including its nested library archives.
+ *
+ * <p>Classes are indexed in parallel. A {@code META-INF/jandex.idx} packaged in a library jar is used
+ * instead of re-reading the classes it covers, but only when the jar shows it is at least as recent as
+ * every class in it; the application's own classes are always read.</p>
+ *
+ * <p>The index of an archive is kept until its content changes or it is {@link #release(Archive) released},
+ * so the checks made while the deployment is created and the deployment processors all share one scan.
+ * A change is noticed by the identity of the assets at each path, which is cheap to compare; content is
+ * never read for it.</p>
+ */
+public class DeploymentIndexer {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String JAR_SUFFIX = ".jar";
+
+    private static final String JANDEX_IDX = "META-INF/jandex.idx";
+
+    /**
+     * Number of class files read by a single indexing task.
+     */
+    private static final int CHUNK_SIZE = 64;
+
+    private static final int MAX_CACHED = 8;
+
+    private static final Map<String, CachedIndex> CACHE = new LinkedHashMap<String, CachedIndex>(MAX_CACHED, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedIndex> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private DeploymentIndexer() {
+    }
+
+    /**
+     * Retrieve the index of an archive, building it if the archive is new or its content has changed.
+     *
+     * @param archive The archive to index.
+     * @return The index of the archive and its nested archives.
+     */
+    public static IndexView index(Archive<?> archive) {
+        return cached(archive).index();
+    }
+
+    /**
+     * Discard the cached index of an archive once it has been deployed.
+     *
+     * @param archive The archive.
+     */
+    public static void release(Archive<?> archive) {
+        synchronized (CACHE) {
+            CACHE.remove(archive.getName());
+        }
+    }
+
+    private static CachedIndex cached(Archive<?> archive) {
+        Map<ArchivePath, Node> content = archive.getContent();
+        long modification = modification(content);
+
+        synchronized (CACHE) {
+            CachedIndex cached = CACHE.get(archive.getName());
+            if (cached == null || cached.modification != modification) {
+                cached = new CachedIndex(modification, content);
+                CACHE.put(archive.getName(), cached);
+            }
+            return cached;
+        }
+    }
+
+    private static List<Supplier<IndexView>> applicationTasks(Map<ArchivePath, Node> content) {
+        List<Asset> classes = new ArrayList<>();
+        for (Map.Entry<ArchivePath, Node> each : content.entrySet()) {
+            Asset asset = each.getValue().getAsset();
+            if (asset != null && !(asset instanceof ArchiveAsset) && each.getKey().get().endsWith(CLASS_SUFFIX)) {
+                classes.add(asset);
+            }
+        }
+
+        List<Supplier<IndexView>> tasks = new ArrayList<>();
+        for (int i = 0; i < classes.size(); i += CHUNK_SIZE) {
+            List<Asset> chunk = classes.subList(i, Math.min(classes.size(), i + CHUNK_SIZE));
+            tasks.add(() -> indexClasses(chunk));
+        }
+        return tasks;
+    }
+
+    private static void collectLibraryTasks(Map<ArchivePath, Node> content, List<Supplier<IndexView>> tasks) {
+        for (Map.Entry<ArchivePath, Node> each : content.entrySet()) {
+            Asset asset = each.getValue().getAsset();
+            if (asset instanceof ArchiveAsset) {
+                Map<ArchivePath, Node> nested = ((ArchiveAsset) asset).getArchive().getContent();
+                tasks.addAll(applicationTasks(nested));
+                collectLibraryTasks(nested, tasks);
+            } else if (asset != null && each.getKey().get().endsWith(JAR_SUFFIX)) {
+                tasks.add(() -> indexJar(asset));
+            }
+        }
+    }
+
+    private static List<IndexView> run(List<Supplier<IndexView>> tasks) {
+        if (tasks.size() <= 1) {
+            return tasks.stream().map(Supplier::get).collect(Collectors.toList());
+        }
+        try {
+            return tasks.parallelStream()
+                    .map(Supplier::get)
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static IndexView combine(List<IndexView> indexes) {
+        if (indexes.isEmpty()) {
+            return new Indexer().complete();
+        }
+        return indexes.size() == 1 ? indexes.get(0) : CompositeIndex.create(indexes);
+    }
+
+    private static IndexView indexClasses(List<Asset> classes) {
+        Indexer indexer = new Indexer();
+        for (Asset each : classes) {
+            try (InputStream in = each.openStream()) {
+                indexer.index(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return indexer.complete();
+    }
+
+    private static IndexView indexJar(Asset asset) {
+        try {
+            if (asset instanceof FileAsset) {
+                return indexJar(((FileAsset) asset).getSource());
+            }
+            // Entries cannot be compared before they are read, so a packaged index is of no use here
+            Indexer indexer = new Indexer();
+            try (ZipInputStream in = new ZipInputStream(asset.openStream())) {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    if (entry.getName().endsWith(CLASS_SUFFIX)) {
+                        indexer.index(in);
+                    }
+                }
+            }
+            return indexer.complete();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static IndexView indexJar(File jar) throws IOException {
+        try (ZipFile zip = new ZipFile(jar)) {
+            ZipEntry packaged = zip.getEntry(JANDEX_IDX);
+            List<ZipEntry> classes = new ArrayList<>();
+            long newestClass = Long.MIN_VALUE;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(CLASS_SUFFIX)) {
+                    classes.add(entry);
+                    newestClass = Math.max(newestClass, entry.getTime());
+                }
+            }
+
+            // An index written before the latest class was compiled may miss its annotations
+            if (packaged != null && packaged.getTime() >= newestClass) {
+                try (InputStream in = zip.getInputStream(packaged)) {
+                    return new IndexReader(in).read();
+                } catch (IllegalArgumentException e) {
+                    // Unsupported index version; fall back to reading the classes
+                }
+            }
+
+            Indexer indexer = new Indexer();
+            for (ZipEntry each : classes) {
+                try (InputStream in = zip.getInputStream(each)) {
+                    indexer.index(in);
+                }
+            }
+            return indexer.complete();
+        }
+    }
+
+    /**
+     * A token which changes whenever an asset is added, removed or replaced, in the archive or in one of its
+     * nested archives, or a file backing an asset is modified. Entries are combined independently of their order.
+     */
+    private static long modification(Map<ArchivePath, Node> content) {
+        long modification = content.size();
+        for (Map.Entry<ArchivePath, Node> each : content.entrySet()) {
+            Asset asset = each.getValue().getAsset();
+            long value = System.identityHashCode(asset);
+            if (asset instanceof ArchiveAsset) {
+                value = value * 31 + modification(((ArchiveAsset) asset).getArchive().getContent());
+            } else if (asset instanceof FileAsset) {
+                File file = ((FileAsset) asset).getSource();
+                value = (value * 31 + file.length()) * 31 + file.lastModified();
+            }
+            modification += mix(each.getKey().get().hashCode() * 0x9E3779B97F4A7C15L + value);
+        }
+        return modification;
+    }
+
+    private static long mix(long value) {
+        long mixed = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return mixed ^ (mixed >>> 33);
+    }
+
+    private static final class CachedIndex {
+        CachedIndex(long modification, Map<ArchivePath, Node> content) {
+            this.modification = modification;
+            this.content = content;
+        }
+
+        synchronized IndexView index() {
+            if (this.index == null) {
+                List<Supplier<IndexView>> tasks = applicationTasks(this.content);
+                collectLibraryTasks(this.content, tasks);
+
+                // application classes and libraries are read together, in one parallel pass
+                this.index = combine(run(tasks));
+                this.content = null;
+            }
+            return this.index;
+        }
+
+        final long modification;
+
+        private Map<ArchivePath, Node> content;
+
+        private IndexView index;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.container.util;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class SamplingRuleTest {
+
+    @Test
+    public void testParse() {
+        List<SamplingRule> rules = SamplingRule.parse(" /health.*=0 , /orders/.*=10/s,,/admin/.*=1 ");
+        assertThat(rules).hasSize(3);
+
+        assertThat(rules.get(0).matches("/health/live")).isTrue();
+        assertThat(rules.get(0).isRateLimited()).isFalse();
+        assertThat(rules.get(0).getRate()).isEqualTo(0.0);
+
+        assertThat(rules.get(1).isRateLimited()).isTrue();
+        assertThat(rules.get(1).getRate()).isEqualTo(10.0);
+        assertThat(rules.get(1).toString()).isEqualTo("/orders/.*=10.0/s");
+
+        // rules match the whole path
+        assertThat(rules.get(2).matches("/admin/users")).isTrue();
+        assertThat(rules.get(2).matches("/v1/admin/users")).isFalse();
+
+        assertThat(SamplingRule.parse(null)).isEmpty();
+        assertThat(SamplingRule.parse("")).isEmpty();
+    }
+
+    @Test
+    public void testRatesAreClamped() {
+        List<SamplingRule> rules = SamplingRule.parse("/a=1.5,/b=-0.5,/c=-1/s");
+        assertThat(rules.get(0).getRate()).isEqualTo(1.0);
+        assertThat(rules.get(1).getRate()).isEqualTo(0.0);
+        assertThat(rules.get(2).getRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void testEqualsInRegex() {
+        List<SamplingRule> rules = SamplingRule.parse("/q\\?a=b.*=1");
+        assertThat(rules.get(0).matches("/q?a=bc")).isTrue();
+        assertThat(rules.get(0).getRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testInvalidRules() {
+        for (String each : new String[]{"/health", "=1", "/health=", "/health=often", "/health=x/s"}) {
+            try {
+                SamplingRule.parse(each);
+                fail("expected " + each + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage()).contains(each);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DeploymentIndexerTest {
+
+    @Test
+    public void testIndexesClassesInParallelChunks() {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "chunks.war");
+        archive.addPackages(true, "org.junit");
+
+        IndexView index = DeploymentIndexer.index(archive);
+
+        assertThat(index.getKnownClasses().size()).isGreaterThan(64);
+        assertThat(index.getClassByName(DotName.createSimple(Test.class.getName()))).isNotNull();
+        assertThat(index.getAnnotations(DotName.createSimple(Deprecated.class.getName()))).isNotEmpty();
+    }
+
+    @Test
+    public void testIndexesLibraries() {
+        JavaArchive lib = ShrinkWrap.create(JavaArchive.class, "lib.jar");
+        lib.addClass(Annotated.class);
+
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "libraries.war");
+        archive.addClass(Plain.class);
+        archive.addAsLibrary(lib);
+
+        IndexView index = DeploymentIndexer.index(archive);
+
+        assertThat(index.getClassByName(DotName.createSimple(Plain.class.getName()))).isNotNull();
+        assertThat(index.getAnnotations(DotName.createSimple(Deprecated.class.getName()))).hasSize(1);
+    }
+
+    @Test
+    public void testReusesUpToDatePackagedIndexOfLibraryJar() throws Exception {
+        // The packaged index names a class the library does not actually contain
+        File jar = jar(write(Annotated.class), BUILT + 10_000, Plain.class, BUILT);
+
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "packaged.war");
+        archive.add(new FileAsset(jar), "WEB-INF/lib/indexed.jar");
+
+        IndexView index = DeploymentIndexer.index(archive);
+
+        assertThat(index.getClassByName(DotName.createSimple(Annotated.class.getName()))).isNotNull();
+        assertThat(index.getClassByName(DotName.createSimple(Plain.class.getName()))).isNull();
+    }
+
+    @Test
+    public void testIgnoresStalePackagedIndexOfLibraryJar() throws Exception {
+        File jar = jar(write(Annotated.class), BUILT, Plain.class, BUILT + 10_000);
+
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "stale.war");
+        archive.add(new FileAsset(jar), "WEB-INF/lib/stale.jar");
+
+        IndexView index = DeploymentIndexer.index(archive);
+
+        assertThat(index.getClassByName(DotName.createSimple(Annotated.class.getName()))).isNull();
+        assertThat(index.getClassByName(DotName.createSimple(Plain.class.getName()))).isNotNull();
+    }
+
+    @Test
+    public void testApplicationClassesAreAlwaysRead() throws Exception {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "application.war");
+        archive.add(new ByteArrayAsset(write(Annotated.class)), "WEB-INF/classes/META-INF/jandex.idx");
+        archive.addClass(Plain.class);
+
+        IndexView index = DeploymentIndexer.index(archive);
+
+        assertThat(index.getClassByName(DotName.createSimple(Plain.class.getName()))).isNotNull();
+        assertThat(index.getClassByName(DotName.createSimple(Annotated.class.getName()))).isNull();
+    }
+
+    @Test
+    public void testChangedContentAtSamePathIsReindexed() throws Exception {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "changed.war");
+        archive.add(new ByteArrayAsset(bytes(Plain.class)), "WEB-INF/classes/Some.class");
+        IndexView first = DeploymentIndexer.index(archive);
+        assertThat(first.getClassByName(DotName.createSimple(Plain.class.getName()))).isNotNull();
+
+        archive.add(new ByteArrayAsset(bytes(Annotated.class)), "WEB-INF/classes/Some.class");
+        IndexView second = DeploymentIndexer.index(archive);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getClassByName(DotName.createSimple(Annotated.class.getName()))).isNotNull();
+
+        // content is not compared, so even an equal copy is indexed again
+        archive.add(new ByteArrayAsset(bytes(Annotated.class)), "WEB-INF/classes/Some.class");
+        IndexView third = DeploymentIndexer.index(archive);
+        assertThat(third).isNotSameAs(second);
+        assertThat(DeploymentIndexer.index(archive)).isSameAs(third);
+    }
+
+    @Test
+    public void testChangedNestedArchiveIsReindexed() {
+        JavaArchive lib = ShrinkWrap.create(JavaArchive.class, "nested.jar");
+        lib.addClass(Plain.class);
+
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "nested.war");
+        archive.addAsLibrary(lib);
+        IndexView first = DeploymentIndexer.index(archive);
+        assertThat(DeploymentIndexer.index(archive)).isSameAs(first);
+
+        lib.addClass(Annotated.class);
+        IndexView second = DeploymentIndexer.index(archive);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getAnnotations(DotName.createSimple(Deprecated.class.getName()))).hasSize(1);
+    }
+
+    @Test
+    public void testArchivesSharingANameAreIndexedSeparately() {
+        WebArchive one = ShrinkWrap.create(WebArchive.class, "same.war");
+        one.addClass(Plain.class);
+        WebArchive other = ShrinkWrap.create(WebArchive.class, "same.war");
+        other.addClass(Other.class);
+
+        assertThat(DeploymentIndexer.index(one).getClassByName(DotName.createSimple(Plain.class.getName()))).isNotNull();
+        assertThat(DeploymentIndexer.index(other).getClassByName(DotName.createSimple(Plain.class.getName()))).isNull();
+    }
+
+    @Test
+    public void testIndexIsSharedUntilContentChanges() {
+        WebArchive archive = ShrinkWrap.create(WebArchive.class, "shared.war");
+        archive.addClass(Plain.class);
+
+        IndexView first = DeploymentIndexer.index(archive);
+        assertThat(DeploymentIndexer.index(archive)).isSameAs(first);
+
+        archive.addClass(Other.class);
+        IndexView second = DeploymentIndexer.index(archive);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getClassByName(DotName.createSimple(Other.class.getName()))).isNotNull();
+
+        DeploymentIndexer.release(archive);
+        assertThat(DeploymentIndexer.index(archive)).isNotSameAs(second);
+    }
+
+    private File jar(byte[] index, long indexTime, Class<?> cls, long classTime) throws Exception {
+        File jar = this.folder.newFile();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            ZipEntry entry = new ZipEntry(cls.getName().replace('.', '/') + ".class");
+            entry.setTime(classTime);
+            out.putNextEntry(entry);
+            out.write(bytes(cls));
+            entry = new ZipEntry("META-INF/jandex.idx");
+            entry.setTime(indexTime);
+            out.putNextEntry(entry);
+            out.write(index);
+        }
+        return jar;
+    }
+
+    private static byte[] bytes(Class<?> cls) throws Exception {
+        try (InputStream in = cls.getResourceAsStream(cls.getName().substring(cls.getName().lastIndexOf('.') + 1) + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] write(Class<?> cls) throws Exception {
+        Indexer indexer = new Indexer();
+        indexer.index(new ByteArrayInputStream(bytes(cls)));
+        Index index = indexer.complete();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IndexWriter(out).write(index);
+        return out.toByteArray();
+    }
+
+    private static final long BUILT = 1_500_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public static class Plain {
+    }
+
+    public static class Other {
+    }
+
+    @Deprecated
+    public static class Annotated {
+    }
+}
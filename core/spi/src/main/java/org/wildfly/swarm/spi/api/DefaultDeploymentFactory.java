@@ -15,20 +15,33 @@
  */
 package org.wildfly.swarm.spi.api;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
 import org.jboss.shrinkwrap.api.importer.ZipImporter;
+import org.wildfly.swarm.spi.api.internal.PackagedArtifact;
 
 /** Abstract factory for creating default deployments automatically.
  *
@@ -114,19 +127,76 @@ public abstract class DefaultDeploymentFactory {
         return false;
     }
 
+    /**
+     * Import the application packaged in the uberjar.
+     *
+     * <p>The artifact is spooled to a temporary file once and imported lazily from there, so its
+     * entries are only read when used. The file is registered as a {@link PackagedArtifact}, together
+     * with the digest computed when it was packaged, so that it can be deployed as is if nothing
+     * changes the archive.</p>
+     */
     protected boolean setupUsingAppArtifact(Archive<?> archive) throws IOException {
         final String appArtifact = System.getProperty(APP_ARTIFACT);
 
         if (appArtifact != null) {
-            try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream("_bootstrap/" + appArtifact)) {
-                archive.as(ZipImporter.class)
-                        .importFrom(in);
+            final String resource = "_bootstrap/" + appArtifact;
+            byte[] hash = readDigest(resource + PackagedArtifact.DIGEST_SUFFIX);
+
+            final Path spooled = Files.createTempFile("swarm-app", "-" + appArtifact);
+            spooled.toFile().deleteOnExit();
+            try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream(resource)) {
+                if (hash != null) {
+                    Files.copy(in, spooled, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    MessageDigest digest = sha1();
+                    Files.copy(new DigestInputStream(in, digest), spooled, StandardCopyOption.REPLACE_EXISTING);
+                    hash = digest.digest();
+                }
+            }
+
+            List<String> entries = new ArrayList<>();
+            try (ZipFile zip = new ZipFile(spooled.toFile())) {
+                Enumeration<? extends ZipEntry> each = zip.entries();
+                while (each.hasMoreElements()) {
+                    entries.add(each.nextElement().getName());
+                }
             }
+            archive.as(ZipImporter.class)
+                    .importFrom(spooled.toFile());
+            PackagedArtifact.register(archive, spooled, hash, entries);
             return true;
         }
 
         return false;
     }
 
+    private static byte[] readDigest(String resource) throws IOException {
+        try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            String hex = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII)).readLine();
+            if (hex == null || hex.trim().length() != 40) {
+                return null;
+            }
+            hex = hex.trim();
+            byte[] hash = new byte[hex.length() / 2];
+            for (int i = 0; i < hash.length; ++i) {
+                hash[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+            }
+            return hash;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha1() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
     protected abstract boolean setupUsingMaven(Archive<?> archive) throws Exception;
 }
@@ -112,6 +112,12 @@ public interface SwarmProperties {
      */
     String ARQUILLIAN_DAEMON_PORT = "swarm.arquillian.daemon.port";
 
+    /**
+     * Keep the server forked by the Arquillian adapter running between test classes that need
+     * the same fractions, deploying each test archive into it instead of booting a new one. Defaults to false.
+     */
+    String ARQUILLIAN_REUSE = "swarm.arquillian.reuse";
+
     /**
      * Formats a property as ${property}
      *
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.spi.api.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * The packaged application artifact an archive was imported from.
+ *
+ * <p>The archive content is recorded when it is imported, so that the deployer can tell whether
+ * anything changed it since. The packaged file is deployed as is, with the added and replaced
+ * entries, if any, laid over it; only when entries were removed is a copy of it rewritten.</p>
+ *
+ * <p>An artifact is registered until its archive is deployed, or until the deployer is shut down,
+ * and owns its temporary file until then.</p>
+ */
+public final class PackagedArtifact {
+
+    /**
+     * Suffix of the entry holding the hex SHA-1 digest of a packaged artifact.
+     */
+    public static final String DIGEST_SUFFIX = ".sha1";
+
+    private static final Map<String, PackagedArtifact> REGISTRY = new HashMap<>();
+
+    private PackagedArtifact(Path file, byte[] hash, Map<String, Asset> imported) {
+        this.file = file;
+        this.hash = hash;
+        this.imported = imported;
+    }
+
+    /**
+     * Record that an archive was just imported from a packaged file.
+     *
+     * @param archive The archive, holding exactly the imported entries and those it held before.
+     * @param file    The packaged file.
+     * @param hash    The SHA-1 digest of the file.
+     * @param entries The names of the entries of the file.
+     */
+    public static void register(Archive<?> archive, Path file, byte[] hash, Iterable<String> entries) {
+        Map<String, Asset> imported = new HashMap<>();
+        for (String each : entries) {
+            Node node = archive.get(each);
+            if (node != null && node.getAsset() != null) {
+                imported.put(node.getPath().get(), node.getAsset());
+            }
+        }
+        PackagedArtifact previous;
+        synchronized (REGISTRY) {
+            previous = REGISTRY.put(archive.getName(), new PackagedArtifact(file, hash, imported));
+        }
+        if (previous != null && !previous.file.equals(file)) {
+            previous.discard();
+        }
+    }
+
+    /**
+     * Remove the packaged artifact of an archive from the registry.
+     *
+     * @param archive The archive.
+     * @return The artifact it was imported from, or {@code null} if it was built some other way.
+     */
+    public static PackagedArtifact release(Archive<?> archive) {
+        synchronized (REGISTRY) {
+            return REGISTRY.remove(archive.getName());
+        }
+    }
+
+    /**
+     * Discard the artifacts of archives that were never deployed, deleting their files.
+     */
+    public static void releaseAll() {
+        List<PackagedArtifact> released;
+        synchronized (REGISTRY) {
+            released = new ArrayList<>(REGISTRY.values());
+            REGISTRY.clear();
+        }
+        released.forEach(PackagedArtifact::discard);
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    public byte[] getHash() {
+        return this.hash;
+    }
+
+    /**
+     * @return Whether the archive holds exactly the entries imported from the file.
+     */
+    public boolean isUnchanged(Archive<?> archive) {
+        return changes(archive).isEmpty() && removals(archive).isEmpty();
+    }
+
+    /**
+     * @return Whether any of the entries imported from the file is no longer in the archive.
+     */
+    public boolean hasRemovals(Archive<?> archive) {
+        return !removals(archive).isEmpty();
+    }
+
+    /**
+     * Entries added since the import, or whose asset was replaced.
+     *
+     * @param archive The archive.
+     * @return The assets by path, without the leading {@code /}.
+     */
+    public Map<String, Asset> changes(Archive<?> archive) {
+        Map<String, Asset> changes = new HashMap<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            Asset asset = each.getValue().getAsset();
+            if (asset != null && this.imported.get(each.getKey().get()) != asset) {
+                changes.put(each.getKey().get().substring(1), asset);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Delete the packaged file, once it is known not to be deployed.
+     */
+    public void discard() {
+        try {
+            Files.deleteIfExists(this.file);
+        } catch (IOException e) {
+            // left to deleteOnExit
+        }
+    }
+
+    /**
+     * Write the archive as a copy of the packaged file with only the changed entries rewritten.
+     *
+     * <p>Unchanged entries are copied without being inflated.</p>
+     *
+     * @param archive The archive.
+     * @return A new temporary file; the caller owns it.
+     */
+    public Path overlay(Archive<?> archive) throws IOException {
+        Path target = Files.createTempFile("overlay", "-" + archive.getName());
+        Files.copy(this.file, target, StandardCopyOption.REPLACE_EXISTING);
+        try (FileSystem zip = FileSystems.newFileSystem(URI.create("jar:" + target.toUri()), Collections.<String, Object>emptyMap())) {
+            for (String each : removals(archive)) {
+                Files.deleteIfExists(zip.getPath(each));
+            }
+            for (Map.Entry<String, Asset> each : changes(archive).entrySet()) {
+                Path path = zip.getPath(each.getKey());
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (InputStream in = each.getValue().openStream()) {
+                    Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+
+    /**
+     * Imported entries no longer in the archive.
+     */
+    private Set<String> removals(Archive<?> archive) {
+        Map<String, Asset> removed = new HashMap<>(this.imported);
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            if (each.getValue().getAsset() != null) {
+                removed.remove(each.getKey().get());
+            }
+        }
+        return removed.keySet();
+    }
+
+    private final Path file;
+
+    private final byte[] hash;
+
+    private final Map<String, Asset> imported;
+}
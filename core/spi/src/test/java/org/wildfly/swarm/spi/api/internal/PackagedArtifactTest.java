@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.spi.api.internal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.importer.ZipImporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class PackagedArtifactTest {
+
+    @Before
+    public void setUp() throws Exception {
+        JavaArchive packaged = ShrinkWrap.create(JavaArchive.class, "app.jar");
+        packaged.add(new StringAsset("kept"), "kept.txt");
+        packaged.add(new StringAsset("replaced"), "replaced.txt");
+        packaged.add(new StringAsset("removed"), "removed.txt");
+        this.file = Files.createTempFile("packaged", ".jar");
+        packaged.as(ZipExporter.class).exportTo(this.file.toFile(), true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(this.file);
+        if (this.overlay != null) {
+            Files.deleteIfExists(this.overlay);
+        }
+    }
+
+    @Test
+    public void testUnchangedArchive() throws Exception {
+        JavaArchive archive = importPackaged();
+
+        PackagedArtifact packaged = PackagedArtifact.release(archive);
+        assertThat(packaged).isNotNull();
+        assertThat(packaged.getFile().toString()).isEqualTo(this.file.toString());
+        assertThat(packaged.isUnchanged(archive)).isTrue();
+        assertThat(PackagedArtifact.release(archive)).isNull();
+    }
+
+    @Test
+    public void testEntriesPresentBeforeImportAreChanges() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "app.jar");
+        archive.add(new StringAsset("generated"), "generated.txt");
+        archive.as(ZipImporter.class).importFrom(this.file.toFile());
+        PackagedArtifact.register(archive, this.file, new byte[20], entries());
+
+        assertThat(PackagedArtifact.release(archive).isUnchanged(archive)).isFalse();
+    }
+
+    @Test
+    public void testOverlayRewritesOnlyChanges() throws Exception {
+        JavaArchive archive = importPackaged();
+        archive.add(new StringAsset("added"), "nested/added.txt");
+        archive.add(new StringAsset("new content"), "replaced.txt");
+        archive.delete("removed.txt");
+
+        PackagedArtifact packaged = PackagedArtifact.release(archive);
+        assertThat(packaged.isUnchanged(archive)).isFalse();
+
+        this.overlay = packaged.overlay(archive);
+
+        JavaArchive written = ShrinkWrap.create(JavaArchive.class, "written.jar");
+        written.as(ZipImporter.class).importFrom(this.overlay.toFile());
+        assertThat(read(written, "kept.txt")).isEqualTo("kept");
+        assertThat(read(written, "replaced.txt")).isEqualTo("new content");
+        assertThat(read(written, "nested/added.txt")).isEqualTo("added");
+        assertThat(written.get("removed.txt")).isNull();
+
+        // the packaged file itself is left alone
+        assertThat(read(ShrinkWrap.create(JavaArchive.class).as(ZipImporter.class).importFrom(this.file.toFile()).as(JavaArchive.class), "removed.txt"))
+                .isEqualTo("removed");
+    }
+
+    @Test
+    public void testAdditionsAndReplacementsAreChanges() throws Exception {
+        JavaArchive archive = importPackaged();
+        archive.add(new StringAsset("added"), "nested/added.txt");
+        archive.add(new StringAsset("new content"), "replaced.txt");
+
+        PackagedArtifact packaged = PackagedArtifact.release(archive);
+        assertThat(packaged.hasRemovals(archive)).isFalse();
+        assertThat(packaged.changes(archive).keySet()).containsOnly("nested/added.txt", "replaced.txt");
+
+        archive.delete("removed.txt");
+        assertThat(packaged.hasRemovals(archive)).isTrue();
+    }
+
+    @Test
+    public void testReleaseAllDeletesUndeployedFiles() throws Exception {
+        JavaArchive archive = importPackaged();
+
+        PackagedArtifact.releaseAll();
+
+        assertThat(Files.exists(this.file)).isFalse();
+        assertThat(PackagedArtifact.release(archive)).isNull();
+    }
+
+    @Test
+    public void testRegisteringAgainDiscardsPreviousFile() throws Exception {
+        Path previous = Files.createTempFile("previous", ".jar");
+        Files.copy(this.file, previous, StandardCopyOption.REPLACE_EXISTING);
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "app.jar");
+        archive.as(ZipImporter.class).importFrom(previous.toFile());
+        PackagedArtifact.register(archive, previous, new byte[20], entries());
+
+        importPackaged();
+
+        assertThat(Files.exists(previous)).isFalse();
+        assertThat(PackagedArtifact.release(archive).getFile().toString()).isEqualTo(this.file.toString());
+    }
+
+    private JavaArchive importPackaged() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "app.jar");
+        archive.as(ZipImporter.class).importFrom(this.file.toFile());
+        PackagedArtifact.register(archive, this.file, new byte[20], entries());
+        return archive;
+    }
+
+    private List<String> entries() throws Exception {
+        try (ZipFile zip = new ZipFile(this.file.toFile())) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry each : Collections.list(zip.entries())) {
+                names.add(each.getName());
+            }
+            return names;
+        }
+    }
+
+    private static String read(JavaArchive archive, String path) throws Exception {
+        try (Scanner scanner = new Scanner(archive.get(path).getAsset().openStream(), "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    private Path file;
+
+    private Path overlay;
+}
@@ -15,12 +15,102 @@
  */
 package org.wildfly.swarm.cdi.jaxrsapi;
 
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 
+import static org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool.DEFAULT_CHECKOUT_TIMEOUT;
+import static org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool.DEFAULT_CONNECT_TIMEOUT;
+import static org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool.DEFAULT_IDLE_TIMEOUT;
+import static org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool.DEFAULT_MAX_CONNECTIONS;
+import static org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+import static org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool.DEFAULT_READ_TIMEOUT;
+import static org.wildfly.swarm.spi.api.Defaultable.integer;
+import static org.wildfly.swarm.spi.api.Defaultable.longInteger;
+
 /**
  * @author Ken Finnigan
  */
 @DeploymentModule(name = "org.wildfly.swarm.cdi.jaxrsapi", slot = "deployment", export = true)
 public class CDIJAXRSFraction implements Fraction<CDIJAXRSFraction> {
+
+    public CDIJAXRSFraction maxConnections(int maxConnections) {
+        this.maxConnections.set(maxConnections);
+        return this;
+    }
+
+    public int maxConnections() {
+        return this.maxConnections.get();
+    }
+
+    public CDIJAXRSFraction maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute.set(maxConnectionsPerRoute);
+        return this;
+    }
+
+    public int maxConnectionsPerRoute() {
+        return this.maxConnectionsPerRoute.get();
+    }
+
+    public CDIJAXRSFraction idleTimeout(long idleTimeout) {
+        this.idleTimeout.set(idleTimeout);
+        return this;
+    }
+
+    public long idleTimeout() {
+        return this.idleTimeout.get();
+    }
+
+    public CDIJAXRSFraction connectTimeout(long connectTimeout) {
+        this.connectTimeout.set(connectTimeout);
+        return this;
+    }
+
+    public long connectTimeout() {
+        return this.connectTimeout.get();
+    }
+
+    public CDIJAXRSFraction readTimeout(long readTimeout) {
+        this.readTimeout.set(readTimeout);
+        return this;
+    }
+
+    public long readTimeout() {
+        return this.readTimeout.get();
+    }
+
+    public CDIJAXRSFraction checkoutTimeout(long checkoutTimeout) {
+        this.checkoutTimeout.set(checkoutTimeout);
+        return this;
+    }
+
+    public long checkoutTimeout() {
+        return this.checkoutTimeout.get();
+    }
+
+    @AttributeDocumentation("Maximum number of open connections of each service client")
+    @Configurable("swarm.cdi-jaxrsapi.client.max-connections")
+    private Defaultable<Integer> maxConnections = integer(DEFAULT_MAX_CONNECTIONS);
+
+    @AttributeDocumentation("Maximum number of open connections of each service client to a single host")
+    @Configurable("swarm.cdi-jaxrsapi.client.max-connections-per-route")
+    private Defaultable<Integer> maxConnectionsPerRoute = integer(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+
+    @AttributeDocumentation("Milliseconds after which an unused pooled connection is closed")
+    @Configurable("swarm.cdi-jaxrsapi.client.idle-timeout")
+    private Defaultable<Long> idleTimeout = longInteger(DEFAULT_IDLE_TIMEOUT);
+
+    @AttributeDocumentation("Milliseconds allowed to establish a connection")
+    @Configurable("swarm.cdi-jaxrsapi.client.connect-timeout")
+    private Defaultable<Long> connectTimeout = longInteger(DEFAULT_CONNECT_TIMEOUT);
+
+    @AttributeDocumentation("Milliseconds allowed between two packets of a response")
+    @Configurable("swarm.cdi-jaxrsapi.client.read-timeout")
+    private Defaultable<Long> readTimeout = longInteger(DEFAULT_READ_TIMEOUT);
+
+    @AttributeDocumentation("Milliseconds a call waits for a pooled connection when all are in use")
+    @Configurable("swarm.cdi-jaxrsapi.client.checkout-timeout")
+    private Defaultable<Long> checkoutTimeout = longInteger(DEFAULT_CHECKOUT_TIMEOUT);
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.cdi.jaxrsapi.deployment;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Superclass of the implementations generated for {@code @Service} client interfaces.
+ *
+ * <p>The proxy and its {@link ServiceClientPool} are built on the first call and shared by all
+ * later ones, until the bean is destroyed.</p>
+ *
+ * @param <T> The client interface.
+ */
+public abstract class ServiceClientBase<T> {
+
+    protected ServiceClientBase(Class<T> iface, String baseUrl) {
+        this.iface = iface;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @return The proxy of the client interface, built on first use.
+     * @throws IllegalStateException If the client has been closed.
+     */
+    public T client() {
+        ServiceClientPool pool = this.pool;
+        T proxy = this.proxy;
+        if (pool == null || proxy == null) {
+            synchronized (this) {
+                if (this.closed) {
+                    throw new IllegalStateException("Service client " + this.iface.getName() + " is closed");
+                }
+                if (this.pool == null) {
+                    this.pool = new ServiceClientPool(this.iface.getName(), ServiceClientPool.settings(this.iface.getClassLoader()));
+                    this.proxy = ProxyBuilder.builder(this.iface, this.pool.target(this.baseUrl)).build();
+                }
+                pool = this.pool;
+                proxy = this.proxy;
+            }
+        }
+        pool.called();
+        return proxy;
+    }
+
+    /**
+     * @return The connection pool, or {@code null} before the first call and once closed.
+     */
+    public ServiceClientPool pool() {
+        return this.pool;
+    }
+
+    /**
+     * Close the pool; the client cannot be used afterwards.
+     *
+     * <p>Calls already in progress may fail, as the connections they use are closed.</p>
+     */
+    @PreDestroy
+    public void close() {
+        ServiceClientPool pool;
+        synchronized (this) {
+            this.closed = true;
+            pool = this.pool;
+            this.pool = null;
+            this.proxy = null;
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private final Class<T> iface;
+
+    private final String baseUrl;
+
+    private volatile T proxy;
+
+    private volatile ServiceClientPool pool;
+
+    private boolean closed;
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.cdi.jaxrsapi.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.ws.rs.client.WebTarget;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient4Engine;
+
+/**
+ * A RESTEasy client over its own pool of HTTP connections, shared by all calls of one service client.
+ *
+ * <p>Settings are read from {@value #SETTINGS_PATH} in the deployment, falling back to the defaults
+ * below for anything missing.</p>
+ *
+ * <p>The pool is registered as an MXBean named after the deployment and the client interface. If that
+ * name is already taken, the pool is left unregistered rather than replacing the other one.</p>
+ */
+public class ServiceClientPool implements ServiceClientPoolMXBean, AutoCloseable {
+
+    public static final String SETTINGS_PATH = "META-INF/swarm-service-clients.properties";
+
+    public static final String DEPLOYMENT = "deployment";
+
+    public static final String MAX_CONNECTIONS = "max-connections";
+
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "max-connections-per-route";
+
+    public static final String IDLE_TIMEOUT = "idle-timeout";
+
+    public static final String CONNECT_TIMEOUT = "connect-timeout";
+
+    public static final String READ_TIMEOUT = "read-timeout";
+
+    public static final String CHECKOUT_TIMEOUT = "checkout-timeout";
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+    public static final long DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    public static final long DEFAULT_READ_TIMEOUT = 30000;
+
+    public static final long DEFAULT_CHECKOUT_TIMEOUT = 5000;
+
+    public ServiceClientPool(String name, Properties settings) {
+        this.name = name;
+        this.deployment = settings.getProperty(DEPLOYMENT);
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(intValue(settings, MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS));
+        this.connectionManager.setDefaultMaxPerRoute(intValue(settings, MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS_PER_ROUTE));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) longValue(settings, CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT))
+                .setSocketTimeout((int) longValue(settings, READ_TIMEOUT, DEFAULT_READ_TIMEOUT))
+                .setConnectionRequestTimeout((int) longValue(settings, CHECKOUT_TIMEOUT, DEFAULT_CHECKOUT_TIMEOUT))
+                .build();
+
+        CloseableHttpClient httpClient = HttpClientBuilder.create()
+                .setConnectionManager(this.connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(longValue(settings, IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT), TimeUnit.MILLISECONDS)
+                .build();
+
+        this.client = new ResteasyClientBuilder()
+                .httpEngine(new ApacheHttpClient4Engine(httpClient, true))
+                .build();
+
+        register();
+    }
+
+    /**
+     * Read the settings packaged with a deployment.
+     *
+     * @param loader The class loader of the deployment.
+     * @return The settings, empty if none were packaged.
+     */
+    public static Properties settings(ClassLoader loader) {
+        Properties settings = new Properties();
+        if (loader == null) {
+            return settings;
+        }
+        try (InputStream in = loader.getResourceAsStream(SETTINGS_PATH)) {
+            if (in != null) {
+                settings.load(in);
+            }
+        } catch (IOException e) {
+            // defaults apply
+        }
+        return settings;
+    }
+
+    public WebTarget target(String baseUrl) {
+        return this.client.target(baseUrl);
+    }
+
+    /**
+     * Count a call made through the client.
+     */
+    public void called() {
+        this.requestCount.incrementAndGet();
+    }
+
+    @Override
+    public int getLeased() {
+        return stats().getLeased();
+    }
+
+    @Override
+    public int getAvailable() {
+        return stats().getAvailable();
+    }
+
+    @Override
+    public int getPending() {
+        return stats().getPending();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return this.connectionManager.getMaxTotal();
+    }
+
+    @Override
+    public int getMaxConnectionsPerRoute() {
+        return this.connectionManager.getDefaultMaxPerRoute();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return this.requestCount.get();
+    }
+
+    @Override
+    public void close() {
+        unregister();
+        // closes the engine, the HTTP client and its connections
+        this.client.close();
+    }
+
+    private PoolStats stats() {
+        return this.connectionManager.getTotalStats();
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName();
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+                this.registered = true;
+            }
+        } catch (Exception e) {
+            // the pool works without its metrics
+        }
+    }
+
+    private void unregister() {
+        if (!this.registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    private ObjectName objectName() throws Exception {
+        StringBuilder objectName = new StringBuilder("org.wildfly.swarm.cdi.jaxrsapi:type=ServiceClientPool");
+        if (this.deployment != null) {
+            objectName.append(",deployment=").append(ObjectName.quote(this.deployment));
+        }
+        objectName.append(",name=").append(ObjectName.quote(this.name));
+        return new ObjectName(objectName.toString());
+    }
+
+    private static int intValue(Properties settings, String key, int defaultValue) {
+        String value = settings.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long longValue(Properties settings, String key, long defaultValue) {
+        String value = settings.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private final String name;
+
+    private final String deployment;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final ResteasyClient client;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private volatile boolean registered;
+}
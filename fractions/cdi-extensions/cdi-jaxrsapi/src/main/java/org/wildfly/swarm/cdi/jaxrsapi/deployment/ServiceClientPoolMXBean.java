@@ -0,0 +1,47 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.cdi.jaxrsapi.deployment;
+
+/**
+ * Connection pool of a generated {@code @Service} client, registered as
+ * {@code org.wildfly.swarm.cdi.jaxrsapi:type=ServiceClientPool,deployment=<deployment>,name=<interface>}.
+ */
+public interface ServiceClientPoolMXBean {
+
+    /**
+     * @return connections currently in use
+     */
+    int getLeased();
+
+    /**
+     * @return idle connections kept open for reuse
+     */
+    int getAvailable();
+
+    /**
+     * @return calls waiting for a connection
+     */
+    int getPending();
+
+    int getMaxConnections();
+
+    int getMaxConnectionsPerRoute();
+
+    /**
+     * @return calls made through the client
+     */
+    long getRequestCount();
+}
@@ -15,20 +15,29 @@ import org.objectweb.asm.Type;
 
 class ClientServiceFactory implements Opcodes {
 
+    private static final String BASE_CLASS = "org/wildfly/swarm/cdi/jaxrsapi/deployment/ServiceClientBase";
+
     private ClientServiceFactory() {
     }
 
-
+    /**
+     * Generate an {@code @ApplicationScoped} implementation of a client interface.
+     *
+     * <p>It extends {@code ServiceClientBase}, which builds the client and its proxy once, and
+     * delegates every method to that proxy.</p>
+     */
     static byte[] createImpl(String implName, ClassInfo classInfo) {
         ClassWriter cw = new ClassWriter(0);
         MethodVisitor mv;
         AnnotationVisitor av0;
 
+        String clientInterfaceName = classInfo.name().toString();
+
         cw.visit(V1_8, ACC_PUBLIC + ACC_SUPER,
                  implName.replace('.', '/'),
-                 null,
-                 "java/lang/Object",
-                 new String[]{classInfo.name().toString().replace('.', '/')}
+                 "L" + BASE_CLASS + "<" + buildTypeDef(clientInterfaceName) + ">;" + buildTypeDef(clientInterfaceName),
+                 BASE_CLASS,
+                 new String[]{clientInterfaceName.replace('.', '/')}
         );
 
         int lastDot = implName.lastIndexOf('.');
@@ -39,7 +48,9 @@ class ClientServiceFactory implements Opcodes {
             av0 = cw.visitAnnotation("Ljavax/enterprise/context/ApplicationScoped;", true);
             av0.visitEnd();
         }
-        cw.visitInnerClass("javax/ws/rs/client/Invocation$Builder", "javax/ws/rs/client/Invocation", "Builder", ACC_PUBLIC + ACC_STATIC + ACC_ABSTRACT + ACC_INTERFACE);
+
+        List<AnnotationInstance> annotations = classInfo.annotations().get(DotName.createSimple("org.wildfly.swarm.client.jaxrs.Service"));
+        String baseUrl = (String) annotations.get(0).value("baseUrl").value();
 
         {
             mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
@@ -48,7 +59,9 @@ class ClientServiceFactory implements Opcodes {
             mv.visitLabel(l0);
             mv.visitLineNumber(14, l0);
             mv.visitVarInsn(ALOAD, 0);
-            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            mv.visitLdcInsn(Type.getType(buildTypeDef(clientInterfaceName)));
+            mv.visitLdcInsn(baseUrl);
+            mv.visitMethodInsn(INVOKESPECIAL, BASE_CLASS, "<init>", "(Ljava/lang/Class;Ljava/lang/String;)V", false);
             Label l1 = new Label();
             mv.visitLabel(l1);
             mv.visitLineNumber(15, l1);
@@ -61,25 +74,23 @@ class ClientServiceFactory implements Opcodes {
                                   l0,
                                   l2,
                                   0);
-            mv.visitMaxs(1, 1);
+            mv.visitMaxs(3, 1);
             mv.visitEnd();
         }
 
-        List<AnnotationInstance> annotations = classInfo.annotations().get(DotName.createSimple("org.wildfly.swarm.client.jaxrs.Service"));
-        String baseUrl = (String) annotations.get(0).value("baseUrl").value();
         int lineNum = 18;
 
         classInfo.asClass().methods()
                 .stream()
                 .forEachOrdered(method -> {
-                    createMethod(cw, implName, classInfo.name().toString(), method, lineNum, baseUrl);
+                    createMethod(cw, implName, clientInterfaceName, method, lineNum);
                 });
         cw.visitEnd();
 
         return cw.toByteArray();
     }
 
-    static void createMethod(ClassWriter cw, String implName, String clientInterfaceName, MethodInfo method, int lineNum, String baseUrl) {
+    static void createMethod(ClassWriter cw, String implName, String clientInterfaceName, MethodInfo method, int lineNum) {
         MethodVisitor mv;
 
         {
@@ -88,54 +99,34 @@ class ClientServiceFactory implements Opcodes {
             Label l0 = new Label();
             mv.visitLabel(l0);
             mv.visitLineNumber(lineNum++, l0);
-            mv.visitLdcInsn(Type.getType(buildTypeDef(clientInterfaceName)));
-            mv.visitTypeInsn(NEW, "org/jboss/resteasy/client/jaxrs/ResteasyClientBuilder");
-            mv.visitInsn(DUP);
-            mv.visitMethodInsn(INVOKESPECIAL, "org/jboss/resteasy/client/jaxrs/ResteasyClientBuilder", "<init>", "()V", false);
-            mv.visitMethodInsn(INVOKEVIRTUAL, "org/jboss/resteasy/client/jaxrs/ResteasyClientBuilder", "build", "()Lorg/jboss/resteasy/client/jaxrs/ResteasyClient;", false);
-            mv.visitLdcInsn(baseUrl);
-            Label l1 = new Label();
-            mv.visitLabel(l1);
-            mv.visitLineNumber(lineNum++, l1);
-            mv.visitMethodInsn(INVOKEVIRTUAL, "org/jboss/resteasy/client/jaxrs/ResteasyClient", "target", "(Ljava/lang/String;)Lorg/jboss/resteasy/client/jaxrs/ResteasyWebTarget;", false);
-            Label l2 = new Label();
-            mv.visitLabel(l2);
-            mv.visitLineNumber(lineNum - 2, l2);
-            mv.visitMethodInsn(INVOKESTATIC, "org/wildfly/swarm/cdi/jaxrsapi/deployment/ProxyBuilder", "builder", "(Ljava/lang/Class;Ljavax/ws/rs/client/WebTarget;)Lorg/wildfly/swarm/cdi/jaxrsapi/deployment/ProxyBuilder;", false);
-            Label l3 = new Label();
-            mv.visitLabel(l3);
-            mv.visitLineNumber(lineNum++, l3);
-            mv.visitMethodInsn(INVOKEVIRTUAL, "org/wildfly/swarm/cdi/jaxrsapi/deployment/ProxyBuilder", "build", "()Ljava/lang/Object;", false);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKEVIRTUAL, BASE_CLASS, "client", "()Ljava/lang/Object;", false);
             mv.visitTypeInsn(CHECKCAST, clientInterfaceName.replace('.', '/'));
             for (int i = 1; i <= method.parameters().size(); i++) {
                 mv.visitVarInsn(ALOAD, i);
             }
-            Label l4 = new Label();
-            mv.visitLabel(l4);
-            mv.visitLineNumber(lineNum++, l4);
+            Label l1 = new Label();
+            mv.visitLabel(l1);
+            mv.visitLineNumber(lineNum++, l1);
             mv.visitMethodInsn(INVOKEINTERFACE, clientInterfaceName.replace('.', '/'), method.name(), buildMethodDef(method), true);
-            Label l5 = new Label();
-            mv.visitLabel(l5);
             if (method.returnType().kind().equals(org.jboss.jandex.Type.Kind.VOID)) {
-                mv.visitLineNumber(lineNum++, l5);
                 mv.visitInsn(RETURN);
             } else {
-                mv.visitLineNumber(lineNum - 4, l5);
                 mv.visitInsn(ARETURN);
             }
-            Label l6 = new Label();
-            mv.visitLabel(l6);
+            Label l2 = new Label();
+            mv.visitLabel(l2);
             int methodParams = 0;
-            mv.visitLocalVariable("this", buildTypeDef(implName), null, l0, l6, methodParams++);
+            mv.visitLocalVariable("this", buildTypeDef(implName), null, l0, l2, methodParams++);
             for (AnnotationInstance anno : method.annotations()) {
                 if (anno.name().toString().contains("QueryParam") || anno.name().toString().contains("PathParam")) {
                     short position = anno.target().asMethodParameter().position();
                     org.jboss.jandex.Type parameterType = anno.target().asMethodParameter().method().parameters().get(position);
-                    mv.visitLocalVariable(String.valueOf(anno.value().value()), buildTypeDef(parameterType.name().toString()), null, l0, l6, methodParams++);
+                    mv.visitLocalVariable(String.valueOf(anno.value().value()), buildTypeDef(parameterType.name().toString()), null, l0, l2, position + 1);
                 }
             }
-            mv.visitMaxs(3, methodParams);
-            lineNum += 4;
+            int slots = 1 + method.parameters().size();
+            mv.visitMaxs(slots, slots);
             mv.visitEnd();
         }
     }
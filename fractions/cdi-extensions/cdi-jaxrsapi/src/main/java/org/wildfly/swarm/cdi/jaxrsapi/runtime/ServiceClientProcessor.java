@@ -15,7 +15,11 @@
  */
 package org.wildfly.swarm.cdi.jaxrsapi.runtime;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.Properties;
 
 import javax.inject.Inject;
 
@@ -23,7 +27,10 @@ import org.jboss.jandex.ClassInfo;
 import org.jboss.jandex.DotName;
 import org.jboss.jandex.IndexView;
 import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.wildfly.swarm.cdi.jaxrsapi.CDIJAXRSFraction;
+import org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool;
 import org.wildfly.swarm.client.jaxrs.ServiceClient;
 import org.wildfly.swarm.jaxrs.JAXRSArchive;
 import org.wildfly.swarm.spi.api.DeploymentProcessor;
@@ -35,6 +42,12 @@ import org.wildfly.swarm.spi.runtime.annotations.DeploymentScoped;
 @DeploymentScoped
 public class ServiceClientProcessor implements DeploymentProcessor {
 
+    // Same as ServiceClientPool.SETTINGS_PATH, under the deployment classes
+    static final String SETTINGS_PATH = "WEB-INF/classes/META-INF/swarm-service-clients.properties";
+
+    @Inject
+    CDIJAXRSFraction fraction;
+
     @Inject
     public ServiceClientProcessor(Archive archive, IndexView index) {
         this.archive = archive;
@@ -50,6 +63,32 @@ public class ServiceClientProcessor implements DeploymentProcessor {
             String path = "WEB-INF/classes/" + name.replace('.', '/') + ".class";
             archive.as(JAXRSArchive.class).add(new ByteArrayAsset(ClientServiceFactory.createImpl(name, info)), path);
         });
+
+        if (!serviceClients.isEmpty()) {
+            archive.as(JAXRSArchive.class).add(settings(), SETTINGS_PATH);
+        }
+    }
+
+    /**
+     * Connection pool settings read by {@link ServiceClientPool} in the deployment.
+     */
+    Asset settings() {
+        Properties settings = new Properties();
+        settings.setProperty(ServiceClientPool.DEPLOYMENT, this.archive.getName());
+        settings.setProperty(ServiceClientPool.MAX_CONNECTIONS, String.valueOf(this.fraction.maxConnections()));
+        settings.setProperty(ServiceClientPool.MAX_CONNECTIONS_PER_ROUTE, String.valueOf(this.fraction.maxConnectionsPerRoute()));
+        settings.setProperty(ServiceClientPool.IDLE_TIMEOUT, String.valueOf(this.fraction.idleTimeout()));
+        settings.setProperty(ServiceClientPool.CONNECT_TIMEOUT, String.valueOf(this.fraction.connectTimeout()));
+        settings.setProperty(ServiceClientPool.READ_TIMEOUT, String.valueOf(this.fraction.readTimeout()));
+        settings.setProperty(ServiceClientPool.CHECKOUT_TIMEOUT, String.valueOf(this.fraction.checkoutTimeout()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            settings.store(out, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ByteArrayAsset(out.toByteArray());
     }
 
     private final Archive<?> archive;
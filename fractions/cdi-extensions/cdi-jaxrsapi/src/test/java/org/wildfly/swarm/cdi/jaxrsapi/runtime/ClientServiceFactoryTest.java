@@ -0,0 +1,191 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.cdi.jaxrsapi.runtime;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Indexer;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientBase;
+import org.wildfly.swarm.cdi.jaxrsapi.deployment.ServiceClientPool;
+import org.wildfly.swarm.client.jaxrs.Service;
+import org.wildfly.swarm.client.jaxrs.ServiceClient;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class ClientServiceFactoryTest {
+
+    static final int PORT = 18787;
+
+    @Before
+    public void setUp() throws Exception {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+        } catch (BindException e) {
+            Assume.assumeNoException(e);
+        }
+        this.server.createContext("/greeting", exchange -> {
+            this.clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "hello".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        this.server.start();
+
+        String name = GreetingClient.class.getName() + "_generated";
+        Class<?> impl = new GeneratedClassLoader(getClass().getClassLoader())
+                .define(name, ClientServiceFactory.createImpl(name, classInfo(GreetingClient.class)));
+        this.client = (GreetingClient) impl.newInstance();
+    }
+
+    @After
+    public void tearDown() {
+        if (this.client != null) {
+            ((ServiceClientBase<?>) this.client).close();
+        }
+        if (this.server != null) {
+            this.server.stop(0);
+        }
+    }
+
+    @Test
+    public void testCallsShareOnePool() throws Exception {
+        ServiceClientBase<?> base = (ServiceClientBase<?>) this.client;
+        assertThat(base.pool()).isNull();
+
+        assertThat(this.client.greet()).isEqualTo("hello");
+        ServiceClientPool pool = base.pool();
+        assertThat(pool).isNotNull();
+
+        assertThat(this.client.greet()).isEqualTo("hello");
+        assertThat(this.client.greet()).isEqualTo("hello");
+
+        assertThat(base.pool()).isSameAs(pool);
+        assertThat(pool.getRequestCount()).isEqualTo(3);
+        assertThat(pool.getLeased()).isEqualTo(0);
+        assertThat(pool.getAvailable()).isEqualTo(1);
+        // every call went over the same pooled connection
+        assertThat(this.clientPorts).hasSize(3);
+        assertThat(this.clientPorts.get(1)).isEqualTo(this.clientPorts.get(0));
+        assertThat(this.clientPorts.get(2)).isEqualTo(this.clientPorts.get(0));
+    }
+
+    @Test
+    public void testCloseReleasesPool() throws Exception {
+        ServiceClientBase<?> base = (ServiceClientBase<?>) this.client;
+        this.client.greet();
+        ObjectName objectName = new ObjectName("org.wildfly.swarm.cdi.jaxrsapi:type=ServiceClientPool,name="
+                                                       + ObjectName.quote(GreetingClient.class.getName()));
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isTrue();
+
+        base.close();
+
+        assertThat(base.pool()).isNull();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isFalse();
+        try {
+            this.client.greet();
+            fail("closed client should not build a new pool");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains(GreetingClient.class.getName());
+        }
+        assertThat(base.pool()).isNull();
+
+        // closing again is harmless
+        base.close();
+    }
+
+    @Test
+    public void testPoolsOfDeploymentsAreRegisteredApart() throws Exception {
+        String name = GreetingClient.class.getName();
+        Properties first = new Properties();
+        first.setProperty(ServiceClientPool.DEPLOYMENT, "first.war");
+        Properties second = new Properties();
+        second.setProperty(ServiceClientPool.DEPLOYMENT, "second.war");
+        ObjectName firstName = new ObjectName("org.wildfly.swarm.cdi.jaxrsapi:type=ServiceClientPool,deployment="
+                                                      + ObjectName.quote("first.war") + ",name=" + ObjectName.quote(name));
+        ObjectName secondName = new ObjectName("org.wildfly.swarm.cdi.jaxrsapi:type=ServiceClientPool,deployment="
+                                                       + ObjectName.quote("second.war") + ",name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try (ServiceClientPool firstPool = new ServiceClientPool(name, first)) {
+            try (ServiceClientPool secondPool = new ServiceClientPool(name, second);
+                 ServiceClientPool duplicate = new ServiceClientPool(name, first)) {
+                firstPool.called();
+                assertThat(server.getAttribute(firstName, "RequestCount")).isEqualTo(1L);
+                assertThat(server.getAttribute(secondName, "RequestCount")).isEqualTo(0L);
+            }
+            // closing the duplicate left the first pool registered
+            assertThat(server.isRegistered(firstName)).isTrue();
+            assertThat(server.isRegistered(secondName)).isFalse();
+        }
+        assertThat(server.isRegistered(firstName)).isFalse();
+    }
+
+    private static ClassInfo classInfo(Class<?> type) throws Exception {
+        Indexer indexer = new Indexer();
+        try (InputStream in = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            indexer.index(in);
+        }
+        return indexer.complete().getKnownClasses().iterator().next();
+    }
+
+    private HttpServer server;
+
+    private GreetingClient client;
+
+    private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+
+    @Service(baseUrl = "http://localhost:" + PORT)
+    @Path("/greeting")
+    public interface GreetingClient extends ServiceClient<GreetingClient> {
+        @GET
+        @Produces("text/plain")
+        String greet();
+    }
+
+    private static class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
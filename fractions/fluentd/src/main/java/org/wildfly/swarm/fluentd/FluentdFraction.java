@@ -17,16 +17,30 @@ package org.wildfly.swarm.fluentd;
 
 import org.wildfly.swarm.config.logging.Level;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
+
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_BATCH_SIZE;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_FLUSH_INTERVAL;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_HOSTNAME;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_MODE;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_OVERFLOW_POLICY;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_PORT;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_QUEUE_LENGTH;
+import static org.wildfly.swarm.fluentd.FluentdProperties.DEFAULT_SAMPLE_RATE;
+import static org.wildfly.swarm.spi.api.Defaultable.bool;
+import static org.wildfly.swarm.spi.api.Defaultable.integer;
+import static org.wildfly.swarm.spi.api.Defaultable.longInteger;
+import static org.wildfly.swarm.spi.api.Defaultable.string;
 
 /**
  * @author Heiko Braun
  */
+@Configurable("swarm.fluentd")
 public class FluentdFraction implements Fraction<FluentdFraction> {
 
     public FluentdFraction() {
-        this.hostname = "localhost";
-        this.port = 24224;
         this.level = Level.INFO;
     }
 
@@ -44,21 +58,93 @@ public class FluentdFraction implements Fraction<FluentdFraction> {
     }
 
     public FluentdFraction hostname(String hostname) {
-        this.hostname = hostname;
+        this.hostname.set(hostname);
         return this;
     }
 
     public String hostname() {
-        return this.hostname;
+        return this.hostname.get();
     }
 
     public FluentdFraction port(int port) {
-        this.port = port;
+        this.port.set(port);
         return this;
     }
 
     public int port() {
-        return this.port;
+        return this.port.get();
+    }
+
+    /**
+     * Ship records from a background flusher in batches, instead of on the logging thread.
+     */
+    public FluentdFraction async(boolean async) {
+        this.async.set(async);
+        return this;
+    }
+
+    public boolean async() {
+        return this.async.get();
+    }
+
+    public FluentdFraction queueLength(int queueLength) {
+        this.queueLength.set(queueLength);
+        return this;
+    }
+
+    public int queueLength() {
+        return this.queueLength.get();
+    }
+
+    public FluentdFraction batchSize(int batchSize) {
+        this.batchSize.set(batchSize);
+        return this;
+    }
+
+    public int batchSize() {
+        return this.batchSize.get();
+    }
+
+    public FluentdFraction flushInterval(long flushInterval) {
+        this.flushInterval.set(flushInterval);
+        return this;
+    }
+
+    public long flushInterval() {
+        return this.flushInterval.get();
+    }
+
+    public FluentdFraction overflowPolicy(String overflowPolicy) {
+        this.overflowPolicy.set(overflowPolicy);
+        return this;
+    }
+
+    public String overflowPolicy() {
+        return this.overflowPolicy.get();
+    }
+
+    /**
+     * With the {@code sample} overflow policy, keep one of every {@code sampleRate} records once the buffer is half full.
+     */
+    public FluentdFraction sampleRate(int sampleRate) {
+        this.sampleRate.set(sampleRate);
+        return this;
+    }
+
+    public int sampleRate() {
+        return this.sampleRate.get();
+    }
+
+    /**
+     * Frame batches as {@code forward} or {@code packed-forward} messages in asynchronous mode.
+     */
+    public FluentdFraction mode(String mode) {
+        this.mode.set(mode);
+        return this;
+    }
+
+    public String mode() {
+        return this.mode.get();
     }
 
     public String getTag() {
@@ -66,10 +152,10 @@ public class FluentdFraction implements Fraction<FluentdFraction> {
     }
 
     @AttributeDocumentation("Host name of the fluentd server")
-    private String hostname;
+    private Defaultable<String> hostname = string(DEFAULT_HOSTNAME);
 
     @AttributeDocumentation("Port of the fluentd server")
-    private int port;
+    private Defaultable<Integer> port = integer(DEFAULT_PORT);
 
     @AttributeDocumentation("Logging level")
     private Level level;
@@ -77,4 +163,25 @@ public class FluentdFraction implements Fraction<FluentdFraction> {
     @AttributeDocumentation("Logging tag")
     private String tag = "local";
 
+    @AttributeDocumentation("Ship log records asynchronously in batches")
+    private Defaultable<Boolean> async = bool(false);
+
+    @AttributeDocumentation("Number of records buffered in asynchronous mode")
+    private Defaultable<Integer> queueLength = integer(DEFAULT_QUEUE_LENGTH);
+
+    @AttributeDocumentation("Maximum number of records per batch in asynchronous mode")
+    private Defaultable<Integer> batchSize = integer(DEFAULT_BATCH_SIZE);
+
+    @AttributeDocumentation("Milliseconds to wait for a batch to fill up in asynchronous mode")
+    private Defaultable<Long> flushInterval = longInteger(DEFAULT_FLUSH_INTERVAL);
+
+    @AttributeDocumentation("What to do when the buffer is full: drop, block or sample")
+    private Defaultable<String> overflowPolicy = string(DEFAULT_OVERFLOW_POLICY);
+
+    @AttributeDocumentation("Keep one of every sample-rate records once the buffer is half full, with the sample overflow policy")
+    private Defaultable<Integer> sampleRate = integer(DEFAULT_SAMPLE_RATE);
+
+    @AttributeDocumentation("Framing of batches in asynchronous mode: forward or packed-forward")
+    private Defaultable<String> mode = string(DEFAULT_MODE);
+
 }
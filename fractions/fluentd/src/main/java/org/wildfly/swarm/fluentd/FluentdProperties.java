@@ -15,11 +15,50 @@
  */
 package org.wildfly.swarm.fluentd;
 
+import org.wildfly.swarm.logging.BatchingLogShipper;
+
 public interface FluentdProperties {
+    String DEFAULT_HOSTNAME = "localhost";
+
+    int DEFAULT_PORT = 24224;
+
+    int DEFAULT_QUEUE_LENGTH = BatchingLogShipper.DEFAULT_CAPACITY;
+
+    int DEFAULT_BATCH_SIZE = BatchingLogShipper.DEFAULT_BATCH_SIZE;
+
+    long DEFAULT_FLUSH_INTERVAL = BatchingLogShipper.DEFAULT_FLUSH_INTERVAL;
+
+    String DEFAULT_OVERFLOW_POLICY = "drop";
+
+    int DEFAULT_SAMPLE_RATE = BatchingLogShipper.DEFAULT_SAMPLE_RATE;
+
+    String DEFAULT_MODE = "packed-forward";
+
     //public
     String HOSTNAME = "swarm.fluentd.hostname";
 
     //public
     String PORT = "swarm.fluentd.port";
 
+    //public
+    String ASYNC = "swarm.fluentd.async";
+
+    //public
+    String QUEUE_LENGTH = "swarm.fluentd.queue-length";
+
+    //public
+    String BATCH_SIZE = "swarm.fluentd.batch-size";
+
+    //public
+    String FLUSH_INTERVAL = "swarm.fluentd.flush-interval";
+
+    //public
+    String OVERFLOW_POLICY = "swarm.fluentd.overflow-policy";
+
+    //public
+    String SAMPLE_RATE = "swarm.fluentd.sample-rate";
+
+    //public
+    String MODE = "swarm.fluentd.mode";
+
 }
@@ -15,7 +15,6 @@
  */
 package org.wildfly.swarm.fluentd.runtime;
 
-import java.util.Optional;
 import java.util.Properties;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -25,10 +24,8 @@ import javax.inject.Inject;
 import org.wildfly.swarm.config.logging.CustomHandler;
 import org.wildfly.swarm.config.logging.Level;
 import org.wildfly.swarm.fluentd.FluentdFraction;
-import org.wildfly.swarm.fluentd.FluentdProperties;
 import org.wildfly.swarm.logging.LoggingFraction;
 import org.wildfly.swarm.spi.api.Customizer;
-import org.wildfly.swarm.spi.runtime.annotations.ConfigurationValue;
 import org.wildfly.swarm.spi.runtime.annotations.Post;
 
 /**
@@ -46,18 +43,10 @@ public class FluentdCustomizer implements Customizer {
     @Any
     private LoggingFraction loggingFraction;
 
-    @Inject
-    @ConfigurationValue(FluentdProperties.HOSTNAME)
-    private Optional<String> hostname;
-
-    @Inject
-    @ConfigurationValue(FluentdProperties.PORT)
-    private Optional<Integer> port;
-
     @Override
     public void customize() {
-        String hostname = this.hostname.orElse(this.fluentdFraction.hostname());
-        int port = this.port.orElse(this.fluentdFraction.port());
+        String hostname = this.fluentdFraction.hostname();
+        int port = this.fluentdFraction.port();
 
         if (hostname != null) {
             Properties handlerProps = new Properties();
@@ -66,6 +55,16 @@ public class FluentdCustomizer implements Customizer {
             handlerProps.put("port", "" + port);
             handlerProps.put("tag", this.fluentdFraction.getTag());
 
+            if (this.fluentdFraction.async()) {
+                handlerProps.put("async", "true");
+                handlerProps.put("queueLength", "" + this.fluentdFraction.queueLength());
+                handlerProps.put("batchSize", "" + this.fluentdFraction.batchSize());
+                handlerProps.put("flushInterval", "" + this.fluentdFraction.flushInterval());
+                handlerProps.put("overflowPolicy", this.fluentdFraction.overflowPolicy());
+                handlerProps.put("sampleRate", "" + this.fluentdFraction.sampleRate());
+                handlerProps.put("mode", this.fluentdFraction.mode());
+            }
+
             final CustomHandler<?> fluentd = new CustomHandler<>("fluentd-handler")
                     .module("org.wildfly.swarm.fluentd:runtime")
                     .attributeClass(FluentdHandler.class.getName())
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.logmanager.ExtLogRecord;
+import org.msgpack.MessagePack;
+import org.msgpack.packer.Packer;
+import org.wildfly.swarm.container.util.BatchingQueue;
+
+/**
+ * Ships batches of records to fluentd as a single Forward or PackedForward frame.
+ *
+ * <p>Records are written straight into the frame, without building an intermediate map per record.
+ * The connection is opened lazily and dropped after a failed write, so the next batch reconnects.</p>
+ */
+class FluentdForwardSender implements BatchingQueue.Sink<ExtLogRecord> {
+
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    enum Mode {
+        /**
+         * {@code [tag, [[time, record], ...]]}
+         */
+        FORWARD,
+        /**
+         * {@code [tag, <msgpack stream of [time, record]>]}
+         */
+        PACKED_FORWARD;
+
+        static Mode of(String name) {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    FluentdForwardSender(String hostname, int port, String tag, Mode mode, FluentdHandler handler) {
+        this.hostname = hostname;
+        this.port = port;
+        this.tag = tag;
+        this.mode = mode;
+        this.handler = handler;
+    }
+
+    @Override
+    public void send(List<ExtLogRecord> batch) throws IOException {
+        byte[] frame = frame(batch);
+        try {
+            OutputStream out = connection();
+            out.write(frame);
+            out.flush();
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public void failed(List<ExtLogRecord> batch, Exception e) {
+        this.handler.shippingFailed(batch.size(), e);
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+
+    byte[] frame(List<ExtLogRecord> batch) throws IOException {
+        this.buffer.reset();
+        Packer packer = this.msgpack.createPacker(this.buffer);
+        packer.writeArrayBegin(2);
+        packer.write(this.tag);
+        if (this.mode == Mode.PACKED_FORWARD) {
+            ByteArrayOutputStream entries = new ByteArrayOutputStream(256 * batch.size());
+            Packer entryPacker = this.msgpack.createPacker(entries);
+            for (ExtLogRecord record : batch) {
+                writeEntry(entryPacker, record);
+            }
+            entryPacker.flush();
+            packer.write(entries.toByteArray());
+        } else {
+            packer.writeArrayBegin(batch.size());
+            for (ExtLogRecord record : batch) {
+                writeEntry(packer, record);
+            }
+            packer.writeArrayEnd();
+        }
+        packer.writeArrayEnd();
+        packer.flush();
+        return this.buffer.toByteArray();
+    }
+
+    private static void writeEntry(Packer packer, ExtLogRecord record) throws IOException {
+        packer.writeArrayBegin(2);
+        packer.write(record.getMillis() / 1000);
+
+        packer.writeMapBegin(7);
+        packer.write(FluentdHandler.Key.SEQUENCE.getKey());
+        packer.write(record.getSequenceNumber());
+        packer.write(FluentdHandler.Key.LEVEL.getKey());
+        writeString(packer, record.getLevel().getName());
+        packer.write(FluentdHandler.Key.THREAD_NAME.getKey());
+        writeString(packer, record.getThreadName());
+        packer.write(FluentdHandler.Key.MESSAGE.getKey());
+        writeString(packer, record.getFormattedMessage());
+        packer.write(FluentdHandler.Key.THREAD_ID.getKey());
+        packer.write(record.getThreadID());
+        packer.write(FluentdHandler.Key.MDC.getKey());
+        Map<String, String> mdc = record.getMdcCopy();
+        packer.writeMapBegin(mdc.size());
+        for (Map.Entry<String, String> entry : mdc.entrySet()) {
+            packer.write(entry.getKey());
+            writeString(packer, entry.getValue());
+        }
+        packer.writeMapEnd();
+        packer.write(FluentdHandler.Key.NDC.getKey());
+        writeString(packer, record.getNdc());
+        packer.writeMapEnd();
+
+        packer.writeArrayEnd();
+    }
+
+    private static void writeString(Packer packer, String value) throws IOException {
+        if (value == null) {
+            packer.writeNil();
+        } else {
+            packer.write(value);
+        }
+    }
+
+    private OutputStream connection() throws IOException {
+        if (this.socket == null) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(this.hostname, this.port), CONNECT_TIMEOUT);
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+        return this.out;
+    }
+
+    private void disconnect() {
+        if (this.socket != null) {
+            try {
+                this.socket.close();
+            } catch (IOException ignored) {
+            }
+            this.socket = null;
+            this.out = null;
+        }
+    }
+
+    private final String hostname;
+
+    private final int port;
+
+    private final String tag;
+
+    private final Mode mode;
+
+    private final FluentdHandler handler;
+
+    private final MessagePack msgpack = new MessagePack();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    private Socket socket;
+
+    private OutputStream out;
+}
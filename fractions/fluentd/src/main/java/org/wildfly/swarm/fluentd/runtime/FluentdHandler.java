@@ -8,6 +8,8 @@ import java.util.logging.Logger;
 import org.fluentd.logger.sender.RawSocketSender;
 import org.jboss.logmanager.ExtHandler;
 import org.jboss.logmanager.ExtLogRecord;
+import org.wildfly.swarm.container.util.BatchingQueue;
+import org.wildfly.swarm.logging.BatchingLogShipper;
 
 /**
  * @author Heiko Braun
@@ -61,6 +63,58 @@ public class FluentdHandler extends ExtHandler {
         this.tag = tag;
     }
 
+    /**
+     * Ship records from a background flusher instead of the logging thread.
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public void setQueueLength(int queueLength) {
+        this.queueLength = queueLength;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * One of {@code drop}, {@code block} or {@code sample}.
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = BatchingQueue.OverflowPolicy.of(overflowPolicy);
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Either {@code forward} or {@code packed-forward}; only used in asynchronous mode.
+     */
+    public void setMode(String mode) {
+        this.mode = FluentdForwardSender.Mode.of(mode);
+    }
+
+    public long getQueuedCount() {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        return shipper == null ? 0 : shipper.getQueuedCount();
+    }
+
+    public long getSentCount() {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        return shipper == null ? 0 : shipper.getSentCount();
+    }
+
+    public long getDroppedCount() {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        return shipper == null ? 0 : shipper.getDroppedCount();
+    }
+
     @Override
     protected void doPublish(ExtLogRecord record) {
 
@@ -75,7 +129,11 @@ public class FluentdHandler extends ExtHandler {
             }
         }
 
-        if (initialized) {
+        if (initialized && this.async) {
+            // The flusher renders the record later, so capture the formatted message and MDC now
+            record.copyAll();
+            this.shipper.offer(record);
+        } else if (initialized) {
             Map<String, Object> entries = new HashMap<>();
 
             entries.put(Key.SEQUENCE.getKey(), record.getSequenceNumber());
@@ -92,6 +150,17 @@ public class FluentdHandler extends ExtHandler {
     }
 
     private void initialize() {
+        if (this.async) {
+            this.shipper = new BatchingLogShipper<>("fluentd", new FluentdForwardSender(hostname, port, tag, mode, this))
+                    .capacity(this.queueLength)
+                    .batchSize(this.batchSize)
+                    .flushInterval(this.flushInterval)
+                    .overflowPolicy(this.overflowPolicy)
+                    .sampleRate(this.sampleRate)
+                    .start();
+            this.initialized = true;
+            return;
+        }
         try {
             this.sender = new RawSocketSender(hostname, port);
             this.initialized = true;
@@ -111,12 +180,20 @@ public class FluentdHandler extends ExtHandler {
         super.close();
         log.info("Disconnect from fluentd daemon ...");
         synchronized (this) {
+            if (this.shipper != null) {
+                // keep the shipper around so its counters remain readable
+                this.shipper.close();
+            }
             safeClose(this.sender);
             this.sender = null;
             this.initialized = false;
         }
     }
 
+    void shippingFailed(int records, Exception e) {
+        reportError("Failed to ship " + records + " records to fluentd", e, ErrorManager.WRITE_FAILURE);
+    }
+
     private void safeClose(RawSocketSender c) {
         try {
             if (c != null) {
@@ -140,4 +217,20 @@ public class FluentdHandler extends ExtHandler {
 
     private String tag;
 
+    private boolean async;
+
+    private int queueLength = BatchingLogShipper.DEFAULT_CAPACITY;
+
+    private int batchSize = BatchingLogShipper.DEFAULT_BATCH_SIZE;
+
+    private long flushInterval = BatchingLogShipper.DEFAULT_FLUSH_INTERVAL;
+
+    private BatchingQueue.OverflowPolicy overflowPolicy = BatchingQueue.OverflowPolicy.DROP;
+
+    private int sampleRate = BatchingLogShipper.DEFAULT_SAMPLE_RATE;
+
+    private FluentdForwardSender.Mode mode = FluentdForwardSender.Mode.PACKED_FORWARD;
+
+    private volatile BatchingLogShipper<ExtLogRecord> shipper;
+
 }
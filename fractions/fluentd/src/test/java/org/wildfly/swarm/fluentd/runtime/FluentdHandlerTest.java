@@ -0,0 +1,119 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fluentd.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+
+import org.jboss.logmanager.ExtLogRecord;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class FluentdHandlerTest {
+
+    @Test
+    public void testAsyncShipsBatchedFrames() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<byte[]> received = receive(server);
+
+            FluentdHandler handler = handler(server.getLocalPort(), "forward");
+            for (int i = 0; i < 20; ++i) {
+                handler.publish(new ExtLogRecord(Level.INFO, "message-" + i, FluentdHandlerTest.class.getName()));
+            }
+            handler.close();
+
+            String frames = new String(received.get(5, TimeUnit.SECONDS), StandardCharsets.ISO_8859_1);
+            assertThat(frames).contains("swarm.test");
+            assertThat(frames).contains("message-0");
+            assertThat(frames).contains("message-19");
+            assertThat(handler.getSentCount()).isEqualTo(20);
+            assertThat(handler.getDroppedCount()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testPackedForwardFrame() throws Exception {
+        FluentdForwardSender sender = new FluentdForwardSender("localhost", 0, "swarm.test", FluentdForwardSender.Mode.PACKED_FORWARD, null);
+        ExtLogRecord record = new ExtLogRecord(Level.INFO, "packed", FluentdHandlerTest.class.getName());
+        record.copyAll();
+
+        byte[] frame = sender.frame(Collections.singletonList(record));
+
+        // fixarray of two: the tag, then the entries as a single raw value
+        assertThat(frame[0] & 0xff).isEqualTo(0x92);
+        assertThat(new String(frame, StandardCharsets.ISO_8859_1)).contains("swarm.test");
+        assertThat(new String(frame, StandardCharsets.ISO_8859_1)).contains("packed");
+    }
+
+    @Test
+    public void testCountsDroppedRecordsWhenCollectorIsDown() throws Exception {
+        int port;
+        try (ServerSocket server = new ServerSocket(0)) {
+            port = server.getLocalPort();
+        }
+
+        FluentdHandler handler = handler(port, "packed-forward");
+        handler.setErrorManager(new ErrorManager() {
+            @Override
+            public synchronized void error(String msg, Exception ex, int code) {
+            }
+        });
+        for (int i = 0; i < 5; ++i) {
+            handler.publish(new ExtLogRecord(Level.INFO, "lost-" + i, FluentdHandlerTest.class.getName()));
+        }
+        handler.close();
+
+        assertThat(handler.getQueuedCount()).isEqualTo(5);
+        assertThat(handler.getDroppedCount()).isEqualTo(5);
+    }
+
+    private static FluentdHandler handler(int port, String mode) {
+        FluentdHandler handler = new FluentdHandler();
+        handler.setHostname("localhost");
+        handler.setPort(port);
+        handler.setTag("swarm.test");
+        handler.setAsync(true);
+        handler.setBatchSize(8);
+        handler.setFlushInterval(50);
+        handler.setMode(mode);
+        return handler;
+    }
+
+    private static CompletableFuture<byte[]> receive(ServerSocket server) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                int len;
+                while ((len = in.read(buf)) >= 0) {
+                    out.write(buf, 0, len);
+                }
+                return out.toByteArray();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+}
@@ -52,6 +52,10 @@ public class DSXmlAsset implements Asset {
                     .attr("use-java-context", "true")
                     .attr("pool-name", this.ds.getKey());
 
+            if (this.ds.statisticsEnabled() != null) {
+                datasource.attr("statistics-enabled", this.ds.statisticsEnabled().toString());
+            }
+
             datasource.element("connection-url")
                     .content(this.ds.connectionUrl())
                     .end();
@@ -60,6 +64,26 @@ public class DSXmlAsset implements Asset {
                     .content(this.ds.driverName())
                     .end();
 
+            if (this.ds.minPoolSize() != null || this.ds.maxPoolSize() != null || this.ds.poolPrefill() != null) {
+                XmlWriter.Element pool = datasource.element("pool");
+                if (this.ds.minPoolSize() != null) {
+                    pool.element("min-pool-size")
+                            .content(this.ds.minPoolSize().toString())
+                            .end();
+                }
+                if (this.ds.maxPoolSize() != null) {
+                    pool.element("max-pool-size")
+                            .content(this.ds.maxPoolSize().toString())
+                            .end();
+                }
+                if (this.ds.poolPrefill() != null) {
+                    pool.element("prefill")
+                            .content(this.ds.poolPrefill().toString())
+                            .end();
+                }
+                pool.end();
+            }
+
             XmlWriter.Element security = datasource.element("security");
 
             if (this.ds.userName() != null) {
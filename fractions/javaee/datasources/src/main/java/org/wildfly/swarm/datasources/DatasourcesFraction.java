@@ -16,13 +16,18 @@
 package org.wildfly.swarm.datasources;
 
 import org.wildfly.swarm.config.Datasources;
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
 import org.wildfly.swarm.config.datasources.DataSource;
 import org.wildfly.swarm.config.datasources.JDBCDriverConsumer;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 import org.wildfly.swarm.spi.api.annotations.MarshalDMR;
 import org.wildfly.swarm.spi.api.annotations.WildFlyExtension;
 
+import static org.wildfly.swarm.spi.api.Defaultable.bool;
+import static org.wildfly.swarm.spi.api.Defaultable.integer;
+
 /**
  * @author Bob McWhirter
  */
@@ -48,4 +53,40 @@ public class DatasourcesFraction extends Datasources<DatasourcesFraction> implem
         });
     }
 
+    public DatasourcesFraction statisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled.set(statisticsEnabled);
+        return this;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return this.statisticsEnabled.get();
+    }
+
+    public DatasourcesFraction prefill(boolean prefill) {
+        this.prefill.set(prefill);
+        return this;
+    }
+
+    public boolean isPrefill() {
+        return this.prefill.get();
+    }
+
+    public DatasourcesFraction prefillTimeout(int prefillTimeout) {
+        this.prefillTimeout.set(prefillTimeout);
+        return this;
+    }
+
+    public int prefillTimeout() {
+        return this.prefillTimeout.get();
+    }
+
+    @AttributeDocumentation("Keep pool statistics for every datasource not setting statistics-enabled itself, as the pool metrics need")
+    private Defaultable<Boolean> statisticsEnabled = bool(false);
+
+    @AttributeDocumentation("Fill the pool of every datasource, and validate its connections, before the server reports ready")
+    private Defaultable<Boolean> prefill = bool(false);
+
+    @AttributeDocumentation("Seconds boot waits for the datasources to prefill, and for each connection to validate")
+    private Defaultable<Integer> prefillTimeout = integer(5);
+
 }
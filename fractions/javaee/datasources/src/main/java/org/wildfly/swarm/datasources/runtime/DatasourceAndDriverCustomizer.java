@@ -27,6 +27,7 @@ import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.Produces;
 import javax.inject.Inject;
 
+import org.wildfly.swarm.bootstrap.env.JDBCDriverManifest;
 import org.wildfly.swarm.config.datasources.DataSource;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
 import org.wildfly.swarm.datasources.DatasourcesFraction;
@@ -79,7 +80,25 @@ public class DatasourceAndDriverCustomizer implements Customizer {
     }
 
     protected void customizeJDBCDrivers() {
-        this.allDrivers.forEach(this::attemptInstallation);
+        JDBCDriverManifest packaged = JDBCDriverManifest.load();
+        if (packaged == null) {
+            this.allDrivers.forEach(this::attemptInstallation);
+            return;
+        }
+
+        // the uberjar records which drivers it packages, and where; those it records as absent are not
+        // looked for, unless asked for by name
+        for (DriverInfo each : this.allDrivers) {
+            if (packaged.isPackaged(each.name())) {
+                if (each.install(this.fraction, packaged)) {
+                    DatasourcesMessages.MESSAGES.autodetectedJdbcDriver(each.name());
+                }
+            } else if (!packaged.covers(each.name())
+                    || each.name().equals(this.driverName)
+                    || this.fraction.subresources().jdbcDriver(each.name()) != null) {
+                attemptInstallation(each);
+            }
+        }
     }
 
     protected void customizeDefaultDatasource() {
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.runtime;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.wildfly.swarm.config.datasources.DataSource;
+import org.wildfly.swarm.config.datasources.XADataSource;
+import org.wildfly.swarm.datasources.DatasourcesFraction;
+import org.wildfly.swarm.spi.api.Customizer;
+import org.wildfly.swarm.spi.runtime.annotations.Post;
+
+/**
+ * Applies the fraction-wide pool settings to every datasource not setting them itself.
+ */
+@Post
+@ApplicationScoped
+public class DatasourcePoolCustomizer implements Customizer {
+
+    @Inject
+    DatasourcesFraction fraction;
+
+    @Override
+    public void customize() {
+        for (DataSource each : this.fraction.subresources().dataSources()) {
+            if (this.fraction.isStatisticsEnabled() && each.statisticsEnabled() == null) {
+                each.statisticsEnabled(true);
+            }
+            if (this.fraction.isPrefill() && each.poolPrefill() == null) {
+                each.poolPrefill(true);
+            }
+        }
+        for (XADataSource each : this.fraction.subresources().xaDataSources()) {
+            if (this.fraction.isStatisticsEnabled() && each.statisticsEnabled() == null) {
+                each.statisticsEnabled(true);
+            }
+            if (this.fraction.isPrefill() && each.poolPrefill() == null) {
+                each.poolPrefill(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.runtime;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.jboss.as.controller.ModelController;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.as.server.Services;
+import org.jboss.msc.service.ServiceActivator;
+import org.jboss.msc.service.ServiceActivatorContext;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceRegistryException;
+import org.wildfly.swarm.config.datasources.DataSource;
+import org.wildfly.swarm.config.datasources.XADataSource;
+import org.wildfly.swarm.datasources.DatasourcesFraction;
+
+/**
+ * Installs the {@link DatasourceWarmupService} for every enabled datasource, when prefilling is asked for.
+ *
+ * <p>The bindings are optional dependencies, so a datasource which fails to deploy does not keep the
+ * warm-up, and with it the boot, from completing. The datasources of deployments are known only once
+ * deployed, so the service looks them up then.</p>
+ */
+@ApplicationScoped
+public class DatasourceWarmupActivator implements ServiceActivator {
+
+    @Inject
+    DatasourcesFraction fraction;
+
+    @Override
+    public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
+        if (!this.fraction.isPrefill()) {
+            return;
+        }
+
+        DatasourceWarmupService service = new DatasourceWarmupService(this.fraction.prefillTimeout());
+        ServiceBuilder<Void> builder = context.getServiceTarget().addService(DatasourceWarmupService.SERVICE_NAME, service);
+
+        for (DataSource each : this.fraction.subresources().dataSources()) {
+            if (!Boolean.FALSE.equals(each.enabled())) {
+                builder.addDependency(ServiceBuilder.DependencyType.OPTIONAL,
+                                      DatasourceWarmupService.binderServiceName(each.getKey(), each.jndiName()), ManagedReferenceFactory.class,
+                                      service.datasource(each.getKey(), DatasourceWarmupService.connections(each.minPoolSize())));
+            }
+        }
+        for (XADataSource each : this.fraction.subresources().xaDataSources()) {
+            if (!Boolean.FALSE.equals(each.enabled())) {
+                builder.addDependency(ServiceBuilder.DependencyType.OPTIONAL,
+                                      DatasourceWarmupService.binderServiceName(each.getKey(), each.jndiName()), ManagedReferenceFactory.class,
+                                      service.datasource(each.getKey(), DatasourceWarmupService.connections(each.minPoolSize())));
+            }
+        }
+
+        builder.addDependency(Services.JBOSS_SERVER_CONTROLLER, ModelController.class, service.getModelControllerInjector());
+
+        builder.setInitialMode(ServiceController.Mode.ACTIVE)
+                .install();
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.runtime;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.sql.DataSource;
+
+import org.jboss.as.controller.ModelController;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.notification.Notification;
+import org.jboss.as.controller.notification.NotificationFilter;
+import org.jboss.as.controller.notification.NotificationHandler;
+import org.jboss.as.naming.ManagedReferenceFactory;
+import org.jboss.as.naming.deployment.ContextNames;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.msc.inject.Injector;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT_DEPLOYED_NOTIFICATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+/**
+ * Opens and validates connections of each datasource while the server boots.
+ *
+ * <p>Boot waits for this service to start, so the first requests after the server reports ready
+ * find connections already established. Connections are returned to the pool, which keeps them
+ * as long as its {@code min-pool-size} and idle timeout allow. A datasource which cannot be reached
+ * is logged, and does not fail the boot.</p>
+ *
+ * <p>Datasources are warmed up in parallel, on threads of their own. Boot waits at most the timeout
+ * for them; a datasource still connecting by then carries on in the background. A datasource which
+ * is not bound is skipped.</p>
+ *
+ * <p>The datasources a deployment defines are warmed up in the background once the deployment is
+ * deployed, as a deployment is only deployed after boot.</p>
+ */
+public class DatasourceWarmupService implements Service<Void> {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.of("swarm", "datasources", "warmup");
+
+    private static final String[] DATASOURCE_TYPES = {"data-source", "xa-data-source"};
+
+    private static final PathAddress DEPLOYMENTS = PathAddress.pathAddress(PathElement.pathElement(DEPLOYMENT));
+
+    private static final NotificationFilter DEPLOYED = (notification) -> DEPLOYMENT_DEPLOYED_NOTIFICATION.equals(notification.getType());
+
+    public DatasourceWarmupService(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param name The datasource.
+     * @param connections How many connections to open at once.
+     * @return The injector for the datasource's JNDI binding.
+     */
+    public Injector<ManagedReferenceFactory> datasource(String name, int connections) {
+        Target target = new Target(name, Math.max(1, connections));
+        this.targets.add(target);
+        return target.factory;
+    }
+
+    public Injector<ModelController> getModelControllerInjector() {
+        return this.modelControllerValue;
+    }
+
+    @Override
+    public void start(StartContext context) throws StartException {
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "datasource-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Target each : this.targets) {
+            each.warmup = this.executor.submit(() -> warmUp(each));
+        }
+
+        ServiceRegistry registry = context.getController().getServiceContainer();
+        this.deploymentHandler = (notification) -> warmUpDeployment(registry, notification);
+        this.modelControllerValue.getValue().getNotificationRegistry()
+                .registerNotificationHandler(DEPLOYMENTS, this.deploymentHandler, DEPLOYED);
+
+        context.asynchronous();
+        context.execute(() -> {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.timeout);
+                for (Target each : this.targets) {
+                    await(each, deadline);
+                }
+            } finally {
+                context.complete();
+            }
+        });
+    }
+
+    static ServiceName binderServiceName(String name, String jndiName) {
+        if (jndiName == null) {
+            jndiName = "java:jboss/datasources/" + name;
+        }
+        return ContextNames.bindInfoFor(jndiName).getBinderServiceName();
+    }
+
+    static int connections(Integer minPoolSize) {
+        return minPoolSize == null ? 1 : minPoolSize;
+    }
+
+    private void warmUpDeployment(ServiceRegistry registry, Notification notification) {
+        String deployment = notification.getSource().getLastElement().getValue();
+        for (String type : DATASOURCE_TYPES) {
+            ModelNode datasources = readDatasources(deployment, type);
+            if (datasources == null || !datasources.isDefined()) {
+                continue;
+            }
+            for (Property each : datasources.asPropertyList()) {
+                ModelNode datasource = each.getValue();
+                ModelNode enabled = resolve(datasource.get("enabled"));
+                if (enabled.isDefined() && !enabled.asBoolean()) {
+                    continue;
+                }
+                ModelNode jndiName = resolve(datasource.get("jndi-name"));
+                ModelNode minPoolSize = resolve(datasource.get("min-pool-size"));
+                Target target = new Target(each.getName(), Math.max(1, connections(minPoolSize.isDefined() ? minPoolSize.asInt() : null)));
+
+                ServiceController<?> binder = registry.getService(binderServiceName(each.getName(), jndiName.isDefined() ? jndiName.asString() : null));
+                if (binder != null && binder.getState() == ServiceController.State.UP) {
+                    target.factory.inject((ManagedReferenceFactory) binder.getValue());
+                }
+                this.executor.submit(() -> warmUp(target));
+            }
+        }
+    }
+
+    private ModelNode readDatasources(String deployment, String type) {
+        ModelNode op = new ModelNode();
+        op.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
+        op.get(OP_ADDR).add(DEPLOYMENT, deployment).add(SUBSYSTEM, "datasources");
+        op.get(CHILD_TYPE).set(type);
+
+        //noinspection deprecation
+        try (ModelControllerClient client = this.modelControllerValue.getValue().createClient(Runnable::run)) {
+            ModelNode response = client.execute(op);
+            return SUCCESS.equals(response.get(OUTCOME).asString()) ? response.get(RESULT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static ModelNode resolve(ModelNode node) {
+        return node.getType() == ModelType.EXPRESSION ? node.resolve() : node;
+    }
+
+    private void await(Target target, long deadline) {
+        try {
+            target.warmup.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            DatasourcesMessages.MESSAGES.prefillingInBackground(target.name, this.timeout);
+        } catch (ExecutionException e) {
+            DatasourcesMessages.MESSAGES.errorPrefillingDatasource(target.name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void warmUp(Target target) {
+        ManagedReferenceFactory factory = target.factory.getOptionalValue();
+        if (factory == null) {
+            DatasourcesMessages.MESSAGES.notPrefillingUnboundDatasource(target.name);
+            return;
+        }
+        long start = System.nanoTime();
+        List<Connection> connections = new ArrayList<>(target.connections);
+        int invalid = 0;
+        try {
+            DataSource ds = (DataSource) factory.getReference().getInstance();
+            for (int i = 0; i < target.connections; ++i) {
+                Connection connection = ds.getConnection();
+                connections.add(connection);
+                if (!connection.isValid(this.timeout)) {
+                    ++invalid;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            DatasourcesMessages.MESSAGES.errorPrefillingDatasource(target.name, e);
+        } finally {
+            for (Connection each : connections) {
+                try {
+                    each.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+            }
+        }
+        if (!connections.isEmpty()) {
+            DatasourcesMessages.MESSAGES.prefilledDatasource(target.name, connections.size(),
+                                                             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), invalid);
+        }
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        if (this.deploymentHandler != null) {
+            this.modelControllerValue.getValue().getNotificationRegistry()
+                    .unregisterNotificationHandler(DEPLOYMENTS, this.deploymentHandler, DEPLOYED);
+            this.deploymentHandler = null;
+        }
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    @Override
+    public Void getValue() throws IllegalStateException, IllegalArgumentException {
+        return null;
+    }
+
+    private final int timeout;
+
+    private final List<Target> targets = new ArrayList<>();
+
+    private final InjectedValue<ModelController> modelControllerValue = new InjectedValue<>();
+
+    private ExecutorService executor;
+
+    private volatile NotificationHandler deploymentHandler;
+
+    private static class Target {
+        Target(String name, int connections) {
+            this.name = name;
+            this.connections = connections;
+        }
+
+        final String name;
+
+        final int connections;
+
+        final InjectedValue<ManagedReferenceFactory> factory = new InjectedValue<>();
+
+        Future<?> warmup;
+    }
+}
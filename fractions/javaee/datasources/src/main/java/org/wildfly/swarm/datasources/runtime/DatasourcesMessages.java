@@ -60,5 +60,25 @@ public interface DatasourcesMessages extends BasicLogger {
     @Message(id = OFFSET + 7, value = "Not creating a default datasource due to ambigous of JDBC drivers: %s")
     void notCreatingDatasourceAmbiguousDrivers(String driverList);
 
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = OFFSET + 8, value = "Prefilled datasource %s with %d connections in %dms, %d failed validation")
+    void prefilledDatasource(String dsName, int connections, long millis, int invalid);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = OFFSET + 9, value = "Unable to prefill datasource %s")
+    void errorPrefillingDatasource(String dsName, @Cause Throwable t);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = OFFSET + 10, value = "Datasource %s is not prefilled after %ds, continuing boot while it is")
+    void prefillingInBackground(String dsName, int seconds);
+
+    @LogMessage(level = Logger.Level.DEBUG)
+    @Message(id = OFFSET + 11, value = "Not prefilling datasource %s, as it is not bound")
+    void notPrefillingUnboundDatasource(String dsName);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = OFFSET + 12, value = "Unable to find artifact %s of JDBC driver %s, looking for the driver instead")
+    void jdbcDriverArtifactNotFound(String artifact, String driverName);
+
 
 }
@@ -20,7 +20,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.jar.JarFile;
 
@@ -31,7 +33,10 @@ import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleSpec;
 import org.jboss.modules.ResourceLoaderSpec;
 import org.jboss.modules.ResourceLoaders;
+import org.jboss.modules.maven.ArtifactCoordinates;
+import org.wildfly.swarm.bootstrap.env.JDBCDriverManifest;
 import org.wildfly.swarm.bootstrap.modules.DynamicModuleFinder;
+import org.wildfly.swarm.bootstrap.modules.MavenResolvers;
 import org.wildfly.swarm.config.datasources.DataSource;
 import org.wildfly.swarm.config.datasources.DataSourceConsumer;
 import org.wildfly.swarm.config.datasources.JDBCDriver;
@@ -103,42 +108,86 @@ public abstract class DriverInfo {
 
             optionalJars.add(primaryJar);
 
-            fraction.jdbcDriver(this.name, (driver) -> {
-                //noinspection deprecation
-                ModuleIdentifier identifier = ModuleIdentifier.fromString(this.moduleIdentifier);
-                driver.driverModuleName(identifier.getName());
-                driver.moduleSlot(identifier.getSlot());
-                this.configureDriver(driver);
-            });
-
-            DynamicModuleFinder.register(this.moduleIdentifier, (id, loader) -> {
-                ModuleSpec.Builder builder = ModuleSpec.build(id);
-
-                for (File eachJar : optionalJars) {
-
-                    try {
-                        JarFile jar = new JarFile(eachJar);
-                        builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(
-                                ResourceLoaders.createIterableJarResourceLoader(jar.getName(), jar)
-                        ));
-                    } catch (IOException e) {
-                        DatasourcesMessages.MESSAGES.errorLoadingAutodetectedJdbcDriver(this.name, e);
-                        return null;
-                    }
-                }
+            register(fraction, optionalJars, null, null);
+        }
 
-                builder.addDependency(DependencySpec.createModuleDependencySpec("javax.api"));
-                builder.addDependency(DependencySpec.createModuleDependencySpec("javax.transactions.api", false, true));
-                builder.addDependency(DependencySpec.createLocalDependencySpec());
-                addModuleDependencies(builder);
+        return this.installed;
+    }
 
-                return builder.create();
-            });
+    /**
+     * Install the driver as recorded in the manifest of the uberjar, from the artifacts the build found
+     * it in, without looking for its classes.
+     *
+     * <p>A driver packaged in the application itself has no artifact, and is {@link #detect detected}.</p>
+     */
+    public boolean install(DatasourcesFraction fraction, JDBCDriverManifest manifest) {
+        String artifact = manifest.artifact(this.name);
+        if (artifact == null || fraction.subresources().jdbcDriver(this.name) != null) {
+            return detect(fraction);
+        }
 
-            this.installed = true;
+        Set<File> jars = new HashSet<>();
+        List<String> artifacts = new ArrayList<>();
+        artifacts.add(artifact);
+        artifacts.addAll(manifest.optionalArtifacts(this.name));
+        for (String each : artifacts) {
+            try {
+                File jar = MavenResolvers.get().resolveJarArtifact(ArtifactCoordinates.fromString(each));
+                if (jar == null) {
+                    DatasourcesMessages.MESSAGES.jdbcDriverArtifactNotFound(each, this.name);
+                    return detect(fraction);
+                }
+                jars.add(jar);
+            } catch (IOException | IllegalArgumentException e) {
+                DatasourcesMessages.MESSAGES.errorLoadingAutodetectedJdbcDriver(this.name, e);
+                return false;
+            }
         }
 
-        return this.installed;
+        register(fraction, jars, manifest.driverClassName(this.name), manifest.xaDatasourceClassName(this.name));
+        return true;
+    }
+
+    private void register(DatasourcesFraction fraction, Set<File> jars, String driverClassName, String xaDatasourceClassName) {
+        fraction.jdbcDriver(this.name, (driver) -> {
+            //noinspection deprecation
+            ModuleIdentifier identifier = ModuleIdentifier.fromString(this.moduleIdentifier);
+            driver.driverModuleName(identifier.getName());
+            driver.moduleSlot(identifier.getSlot());
+            this.configureDriver(driver);
+            if (driverClassName != null) {
+                driver.driverClassName(driverClassName);
+            }
+            if (xaDatasourceClassName != null) {
+                driver.driverXaDatasourceClassName(xaDatasourceClassName);
+            }
+        });
+
+        DynamicModuleFinder.register(this.moduleIdentifier, (id, loader) -> {
+            ModuleSpec.Builder builder = ModuleSpec.build(id);
+
+            for (File eachJar : jars) {
+
+                try {
+                    JarFile jar = new JarFile(eachJar);
+                    builder.addResourceRoot(ResourceLoaderSpec.createResourceLoaderSpec(
+                            ResourceLoaders.createIterableJarResourceLoader(jar.getName(), jar)
+                    ));
+                } catch (IOException e) {
+                    DatasourcesMessages.MESSAGES.errorLoadingAutodetectedJdbcDriver(this.name, e);
+                    return null;
+                }
+            }
+
+            builder.addDependency(DependencySpec.createModuleDependencySpec("javax.api"));
+            builder.addDependency(DependencySpec.createModuleDependencySpec("javax.transactions.api", false, true));
+            builder.addDependency(DependencySpec.createLocalDependencySpec());
+            addModuleDependencies(builder);
+
+            return builder.create();
+        });
+
+        this.installed = true;
     }
 
     private File attemptDetection() {
@@ -16,19 +16,21 @@
 package org.wildfly.swarm.jaxrs.internal;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.ArchivePaths;
-import org.jboss.shrinkwrap.api.Node;
-import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
-import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.impl.base.container.WebContainerBase;
 import org.jboss.shrinkwrap.impl.base.spec.WebArchiveImpl;
-import org.objectweb.asm.ClassReader;
+import org.wildfly.swarm.internal.DeploymentIndexer;
 import org.wildfly.swarm.jaxrs.JAXRSArchive;
 
 /**
@@ -89,36 +91,26 @@ public class JAXRSArchiveImpl extends WebContainerBase<JAXRSArchive> implements
     }
 
     public static boolean isJAXRS(Archive<?> archive) {
-        Map<ArchivePath, Node> content = archive.getContent();
-        for (Map.Entry<ArchivePath, Node> entry : content.entrySet()) {
-            Node node = entry.getValue();
-            Asset asset = node.getAsset();
-            if (isJAXRS(node.getPath(), asset)) {
-                return true;
-            }
-        }
-
-        return false;
+        return isJAXRS(DeploymentIndexer.index(archive));
     }
 
-    private static boolean isJAXRS(ArchivePath path, Asset asset) {
-        if (asset == null) {
-            return false;
-        }
-
-        if (asset instanceof ArchiveAsset) {
-            return isJAXRS(((ArchiveAsset) asset).getArchive());
-        }
-
-        if (!path.get().endsWith(".class")) {
-            return false;
-        }
-        try (InputStream in = asset.openStream()) {
-            ClassReader reader = new ClassReader(in);
-            JAXRSAnnotationSeekingClassVisitor visitor = new JAXRSAnnotationSeekingClassVisitor();
-            reader.accept(visitor, 0);
-            return visitor.isFound();
-        } catch (IOException ignored) {
+    /**
+     * @param index The deployment index.
+     * @return <code>true</code> if any class or method carries a <code>javax.ws.rs</code> annotation.
+     */
+    public static boolean isJAXRS(IndexView index) {
+        for (ClassInfo classInfo : index.getKnownClasses()) {
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : classInfo.annotations().entrySet()) {
+                if (!entry.getKey().toString().startsWith(JAXRS_PACKAGE)) {
+                    continue;
+                }
+                for (AnnotationInstance annotation : entry.getValue()) {
+                    AnnotationTarget.Kind kind = annotation.target().kind();
+                    if (kind == AnnotationTarget.Kind.CLASS || kind == AnnotationTarget.Kind.METHOD) {
+                        return true;
+                    }
+                }
+            }
         }
         return false;
     }
@@ -167,6 +159,8 @@ public class JAXRSArchiveImpl extends WebContainerBase<JAXRSArchive> implements
     // Required Implementations -----------------------------------------------------------||
     // -------------------------------------------------------------------------------------||
 
+    private static final String JAXRS_PACKAGE = "javax.ws.rs.";
+
     @SuppressWarnings("unused")
     private static final Logger log = Logger.getLogger(WebArchiveImpl.class.getName());
 
@@ -15,9 +15,16 @@
  */
 package org.wildfly.swarm.jaxrs.runtime;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 import org.jboss.shrinkwrap.api.ArchiveEvent;
 import org.jboss.shrinkwrap.api.ArchiveEventHandler;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
 import org.jboss.shrinkwrap.api.asset.Asset;
+import org.objectweb.asm.ClassReader;
 import org.wildfly.swarm.jaxrs.JAXRSArchive;
 
 /**
@@ -34,11 +41,40 @@ public class ApplicationHandler implements ArchiveEventHandler {
     public void handle(ArchiveEvent event) {
         Asset asset = event.getAsset();
         if ((DefaultApplicationDeploymentProcessor.PATH_WEB_XML.equals(event.getPath()) && DefaultApplicationDeploymentProcessor.hasApplicationServletMapping(asset))
-                || DefaultApplicationDeploymentProcessor.hasApplicationPathAnnotation(event.getPath(), asset)) {
+                || hasApplicationPathAnnotation(event.getPath(), asset)) {
             this.archive.delete(this.path);
         }
     }
 
+    private static boolean hasApplicationPathAnnotation(ArchivePath path, Asset asset) {
+        if (asset == null) {
+            return false;
+        }
+
+        if (asset instanceof ArchiveAsset) {
+            for (Node node : ((ArchiveAsset) asset).getArchive().getContent().values()) {
+                if (hasApplicationPathAnnotation(node.getPath(), node.getAsset())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (!path.get().endsWith(".class")) {
+            return false;
+        }
+
+        try (InputStream in = asset.openStream()) {
+            ClassReader reader = new ClassReader(in);
+            ApplicationPathAnnotationSeekingClassVisitor visitor = new ApplicationPathAnnotationSeekingClassVisitor();
+            reader.accept(visitor, 0);
+            return visitor.isFound();
+        } catch (IOException ignored) {
+        }
+
+        return false;
+    }
+
     private final JAXRSArchive archive;
 
     private final String path;
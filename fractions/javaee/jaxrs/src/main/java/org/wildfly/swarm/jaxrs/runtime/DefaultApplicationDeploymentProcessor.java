@@ -16,22 +16,24 @@
 package org.wildfly.swarm.jaxrs.runtime;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.Map;
 
 import javax.inject.Inject;
+import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.ArchivePaths;
 import org.jboss.shrinkwrap.api.Node;
-import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
-import org.objectweb.asm.ClassReader;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
 import org.wildfly.swarm.container.runtime.cdi.DeploymentContext;
+import org.wildfly.swarm.internal.DeploymentIndexer;
 import org.wildfly.swarm.jaxrs.JAXRSArchive;
 import org.wildfly.swarm.jaxrs.JAXRSMessages;
 import org.wildfly.swarm.spi.api.Defaultable;
@@ -48,18 +50,27 @@ public class DefaultApplicationDeploymentProcessor implements DeploymentProcesso
      */
     static final ArchivePath PATH_WEB_XML = ArchivePaths.create(ArchivePaths.create("WEB-INF"), "web.xml");
 
+    private static final DotName APPLICATION_PATH = DotName.createSimple(ApplicationPath.class.getName());
+
     @AttributeDocumentation("Set the JAX-RS application path, if the JAX-RS application class is autogenerated by Swarm")
     @Configurable("swarm.deployment.*.jaxrs.application-path")
     Defaultable<String> applicationPath = Defaultable.string("/");
 
     private final Archive archive;
 
+    private final IndexView index;
+
     @Inject
     DeploymentContext deploymentContext;
 
-    @Inject
     public DefaultApplicationDeploymentProcessor(Archive archive) {
+        this(archive, DeploymentIndexer.index(archive));
+    }
+
+    @Inject
+    public DefaultApplicationDeploymentProcessor(Archive archive, IndexView index) {
         this.archive = archive;
+        this.index = index;
     }
 
     @Override
@@ -93,41 +104,12 @@ public class DefaultApplicationDeploymentProcessor implements DeploymentProcesso
         }
     }
 
-    private static boolean hasApplicationPathAnnotation(Archive<?> archive) {
-        Map<ArchivePath, Node> content = archive.getContent();
-        for (Map.Entry<ArchivePath, Node> entry : content.entrySet()) {
-            Node node = entry.getValue();
-            Asset asset = node.getAsset();
-            if (hasApplicationPathAnnotation(node.getPath(), asset)) {
+    private static boolean hasApplicationPathAnnotation(IndexView index) {
+        for (AnnotationInstance annotation : index.getAnnotations(APPLICATION_PATH)) {
+            if (annotation.target().kind() == AnnotationTarget.Kind.CLASS) {
                 return true;
             }
         }
-
-        return false;
-    }
-
-
-    static boolean hasApplicationPathAnnotation(ArchivePath path, Asset asset) {
-        if (asset == null) {
-            return false;
-        }
-
-        if (asset instanceof ArchiveAsset) {
-            return hasApplicationPathAnnotation(((ArchiveAsset) asset).getArchive());
-        }
-
-        if (!path.get().endsWith(".class")) {
-            return false;
-        }
-
-        try (InputStream in = asset.openStream()) {
-            ClassReader reader = new ClassReader(in);
-            ApplicationPathAnnotationSeekingClassVisitor visitor = new ApplicationPathAnnotationSeekingClassVisitor();
-            reader.accept(visitor, 0);
-            return visitor.isFound();
-        } catch (IOException ignored) {
-        }
-
         return false;
     }
 
@@ -165,7 +147,7 @@ public class DefaultApplicationDeploymentProcessor implements DeploymentProcesso
      * mapping for <code>javax.ws.rs.core.Application</code> servlet, <code>false</code> otherwise
      */
     private boolean hasApplicationPathOrServletMapping(Archive<?> archive) {
-        return hasApplicationServletMapping(archive) || hasApplicationPathAnnotation(archive);
+        return hasApplicationServletMapping(archive) || hasApplicationPathAnnotation(this.index);
     }
 
 }
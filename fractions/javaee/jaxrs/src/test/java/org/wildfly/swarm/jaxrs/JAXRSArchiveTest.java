@@ -16,6 +16,7 @@
 package org.wildfly.swarm.jaxrs;
 
 import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.junit.Test;
 import org.wildfly.swarm.undertow.WARArchive;
 
@@ -47,4 +48,14 @@ public class JAXRSArchiveTest {
         assertThat( JAXRSArchive.isJAXRS( archive )).isTrue();
     }
 
+    @Test
+    public void testDetectJAXRSness_inLibraries() {
+        JavaArchive lib = ShrinkWrap.create( JavaArchive.class );
+        lib.addClass( MyResource.class );
+        WARArchive archive = ShrinkWrap.create( WARArchive.class );
+        archive.addClass( MyRandomClass.class );
+        archive.addAsLibrary( lib );
+        assertThat( JAXRSArchive.isJAXRS( archive )).isTrue();
+    }
+
 }
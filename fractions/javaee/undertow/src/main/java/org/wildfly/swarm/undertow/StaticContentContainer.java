@@ -15,12 +15,26 @@
  */
 package org.wildfly.swarm.undertow;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
@@ -28,8 +42,10 @@ import org.jboss.shrinkwrap.api.Filter;
 import org.jboss.shrinkwrap.api.Filters;
 import org.jboss.shrinkwrap.api.Node;
 import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
 import org.jboss.shrinkwrap.impl.base.path.BasicPath;
 import org.wildfly.swarm.undertow.internal.DefaultWarDeploymentFactory;
+import org.wildfly.swarm.undertow.internal.StaticContentCacheAsset;
 import org.wildfly.swarm.undertow.internal.UndertowExternalMountsAsset;
 
 /** Archive mix-in supporting static content serving for .war files.
@@ -42,6 +58,21 @@ public interface StaticContentContainer<T extends Archive<T>> extends Archive<T>
 
     String EXTERNAL_MOUNT_PATH = "WEB-INF/undertow-external-mounts.conf";
 
+    String STATIC_CONTENT_CACHE_PATH = "WEB-INF/undertow-static-content.conf";
+
+    String STATIC_CONTENT_EXTENSION_NAME = "org.wildfly.swarm.undertow.deployment.StaticContentServletExtension";
+
+    String SERVLET_EXTENSION_NAME = "io.undertow.servlet.ServletExtension";
+
+    String SERVLET_EXTENSION_SERVICES_PATH = "WEB-INF/classes/META-INF/services/" + SERVLET_EXTENSION_NAME;
+
+    /** Extensions of static content worth compressing ahead of time. */
+    Set<String> COMPRESSIBLE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "html", "htm", "css", "js", "mjs", "json", "map", "svg", "xml", "txt", "ttf", "otf", "eot"));
+
+    /** Files smaller than this gain nothing from being compressed. */
+    int PRECOMPRESS_MIN_SIZE = 1024;
+
     /** Enable static content to be served from the root of the classpath.
      *
      * @return This archive.
@@ -104,6 +135,123 @@ public interface StaticContentContainer<T extends Archive<T>> extends Archive<T>
         return (T) this;
     }
 
+    /** Serve static content from an in-memory cache with default settings.
+     *
+     * @return This archive.
+     * @see #staticContentCache(long, long, String)
+     */
+    default T staticContentCache() {
+        return staticContentCache(StaticContentCacheAsset.DEFAULT_CACHE_SIZE, StaticContentCacheAsset.DEFAULT_MAX_ENTRY_SIZE, null);
+    }
+
+    /** Serve static content in place of the default servlet, from an in-memory cache.
+     *
+     * <p>Files of the archive and of its external mounts are answered with strong {@code ETag}s,
+     * {@code Last-Modified} and conditional {@code 304} responses. A {@code .gz} or {@code .br}
+     * sibling is sent instead of a file when the client accepts that encoding.</p>
+     *
+     * @param cacheSize Total bytes of content held in memory.
+     * @param maxEntrySize Largest file held in memory; larger files are sent straight from disk.
+     * @param cacheControl Value of the {@code Cache-Control} header, or {@code null} for none.
+     * @return This archive.
+     */
+    @SuppressWarnings("unchecked")
+    default T staticContentCache(long cacheSize, long maxEntrySize, String cacheControl) {
+        Node node = get(STATIC_CONTENT_CACHE_PATH);
+        StaticContentCacheAsset asset;
+        if (node == null) {
+            asset = new StaticContentCacheAsset();
+            add(asset, STATIC_CONTENT_CACHE_PATH);
+            as(WARArchive.class).addModule("org.wildfly.swarm.undertow", "deployment");
+
+            // Keep the extensions already registered, such as the favicon handler
+            List<String> extensions = new ArrayList<>();
+            Node services = get(SERVLET_EXTENSION_SERVICES_PATH);
+            if (services != null && services.getAsset() != null) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(services.getAsset().openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.trim().isEmpty()) {
+                            extensions.add(line.trim());
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading " + SERVLET_EXTENSION_SERVICES_PATH, e);
+                }
+            }
+            extensions.add(STATIC_CONTENT_EXTENSION_NAME);
+            as(WARArchive.class).addAsServiceProvider(SERVLET_EXTENSION_NAME, extensions.toArray(new String[extensions.size()]));
+        } else {
+            Asset tempAsset = node.getAsset();
+            if (!(tempAsset instanceof StaticContentCacheAsset)) {
+                asset = new StaticContentCacheAsset(tempAsset.openStream());
+                add(asset, STATIC_CONTENT_CACHE_PATH);
+            } else {
+                asset = (StaticContentCacheAsset) tempAsset;
+            }
+        }
+
+        asset.cacheSize(cacheSize)
+                .maxEntrySize(maxEntrySize)
+                .cacheControl(cacheControl);
+
+        return (T) this;
+    }
+
+    /** Add a gzipped {@code .gz} sibling next to each compressible static file.
+     *
+     * <p>Only text-like files of at least {@link #PRECOMPRESS_MIN_SIZE} bytes outside of
+     * {@code WEB-INF} and {@code META-INF} are considered, and a sibling is only kept when it
+     * saves at least a tenth of the size. Existing siblings are left alone.</p>
+     *
+     * @return This archive.
+     */
+    @SuppressWarnings("unchecked")
+    default T precompressStaticContent() {
+        Map<ArchivePath, Asset> compressed = new HashMap<>();
+        for (Map.Entry<ArchivePath, Node> entry : getContent().entrySet()) {
+            String path = entry.getKey().get();
+            Asset asset = entry.getValue().getAsset();
+            if (asset == null || path.startsWith("/WEB-INF/") || path.startsWith("/META-INF/")) {
+                continue;
+            }
+            int dot = path.lastIndexOf('.');
+            if (dot < path.lastIndexOf('/') + 1
+                    || !COMPRESSIBLE_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ENGLISH))) {
+                continue;
+            }
+            ArchivePath gzPath = new BasicPath(path + ".gz");
+            if (contains(gzPath)) {
+                continue;
+            }
+            try (InputStream in = asset.openStream()) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = in.read(chunk)) > -1) {
+                    buffer.write(chunk, 0, read);
+                }
+                byte[] content = buffer.toByteArray();
+                if (content.length < PRECOMPRESS_MIN_SIZE) {
+                    continue;
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(content);
+                }
+                if (out.size() < content.length * 0.9) {
+                    compressed.put(gzPath, new ByteArrayAsset(out.toByteArray()));
+                }
+            } catch (IOException e) {
+                log.log(Level.WARNING, "Error compressing static resource " + path, e);
+            }
+        }
+        for (Map.Entry<ArchivePath, Asset> entry : compressed.entrySet()) {
+            add(entry.getValue(), entry.getKey());
+        }
+        return (T) this;
+    }
+
     @SuppressWarnings("unchecked")
     default T mergeIgnoringDuplicates(Archive<?> source, String base, Filter<ArchivePath> filter) {
         if (!base.startsWith("/")) {
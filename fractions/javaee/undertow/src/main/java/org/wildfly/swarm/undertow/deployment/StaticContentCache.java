@@ -0,0 +1,133 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.deployment;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.util.ETag;
+
+/**
+ * Least-recently-used cache of static file contents, bounded by the total number of bytes held.
+ *
+ * <p>Next to the contents it remembers how each requested path resolved, with its precompressed
+ * siblings, so a request for a known file does not look the variants up again.</p>
+ */
+class StaticContentCache {
+
+    StaticContentCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    synchronized Entry get(String key) {
+        return this.entries.get(key);
+    }
+
+    /**
+     * Cache an entry, evicting the least recently used ones until it fits.
+     *
+     * @return {@code false} if the entry is larger than the whole cache and was not kept
+     */
+    synchronized boolean put(String key, Entry entry) {
+        if (entry.content.length > this.maxSize) {
+            return false;
+        }
+        remove(key);
+        Iterator<Entry> eldest = this.entries.values().iterator();
+        while (this.size + entry.content.length > this.maxSize && eldest.hasNext()) {
+            this.size -= eldest.next().content.length;
+            eldest.remove();
+        }
+        this.entries.put(key, entry);
+        this.size += entry.content.length;
+        return true;
+    }
+
+    synchronized void remove(String key) {
+        Entry removed = this.entries.remove(key);
+        if (removed != null) {
+            this.size -= removed.content.length;
+        }
+    }
+
+    synchronized Resolution resolution(String path) {
+        return this.resolutions.get(path);
+    }
+
+    synchronized void resolved(String path, Resolution resolution) {
+        if (resolution == null) {
+            this.resolutions.remove(path);
+        } else {
+            this.resolutions.put(path, resolution);
+        }
+    }
+
+    synchronized long size() {
+        return this.size;
+    }
+
+    synchronized int count() {
+        return this.entries.size();
+    }
+
+    private final long maxSize;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final Map<String, Resolution> resolutions = new HashMap<>();
+
+    private long size;
+
+    static class Entry {
+
+        Entry(byte[] content, ETag etag, Date lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        final byte[] content;
+
+        final ETag etag;
+
+        final Date lastModified;
+    }
+
+    /**
+     * A requested path with its {@code .br} and {@code .gz} siblings, either of which may be {@code null}.
+     */
+    static class Resolution {
+
+        Resolution(Resource resource, Resource brotli, Resource gzip, Date lastModified) {
+            this.resource = resource;
+            this.brotli = brotli;
+            this.gzip = gzip;
+            this.lastModified = lastModified;
+        }
+
+        final Resource resource;
+
+        final Resource brotli;
+
+        final Resource gzip;
+
+        final Date lastModified;
+    }
+}
@@ -0,0 +1,399 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.deployment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import javax.servlet.DispatcherType;
+
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.servlet.core.ManagedFilter;
+import io.undertow.servlet.handlers.DefaultServlet;
+import io.undertow.servlet.handlers.ServletPathMatch;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.DateUtils;
+import io.undertow.util.ETag;
+import io.undertow.util.ETagUtils;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.MimeMappings;
+import io.undertow.util.StatusCodes;
+
+/**
+ * Serves static files of a deployment in place of the default servlet.
+ *
+ * <p>Files up to {@code maxEntrySize} bytes are kept in a {@link StaticContentCache} and answered
+ * from memory with a strong ETag computed from their content. Larger files are transferred from
+ * disk, with {@code sendfile} where the resource is backed by a file. When the client accepts it,
+ * a {@code .br} or {@code .gz} sibling of the requested file is sent in its place.</p>
+ *
+ * <p>Only requests that the deployment maps to Undertow's {@link DefaultServlet} with no
+ * request filters in front of it are answered here; everything else, including JSPs, other
+ * methods, range requests, directories and anything under {@code WEB-INF} or {@code META-INF},
+ * goes on to the servlets unchanged. It runs as an inner handler, after the security handlers,
+ * so security constraints apply as they would for the default servlet.</p>
+ */
+public class StaticContentHandler implements HttpHandler {
+
+    private static final String BROTLI = "br";
+
+    private static final String GZIP = "gzip";
+
+    public StaticContentHandler(HttpHandler next, ResourceManager resourceManager, MimeMappings mimeMappings,
+                                long cacheSize, long maxEntrySize, String cacheControl) {
+        this.next = next;
+        this.resourceManager = resourceManager;
+        this.mimeMappings = mimeMappings;
+        this.cache = new StaticContentCache(cacheSize);
+        this.maxEntrySize = maxEntrySize;
+        this.cacheControl = cacheControl;
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (!isCandidate(exchange)) {
+            this.next.handleRequest(exchange);
+            return;
+        }
+        if (exchange.isInIoThread()) {
+            // resolving and loading files blocks
+            exchange.dispatch(this);
+            return;
+        }
+
+        String path = exchange.getRelativePath();
+        StaticContentCache.Resolution resolution = resolve(path);
+        if (resolution == null) {
+            this.next.handleRequest(exchange);
+            return;
+        }
+
+        Resource resource = resolution.resource;
+        String encoding = null;
+        String key = path;
+        HeaderMap responseHeaders = exchange.getResponseHeaders();
+        Resource brotli = resolution.brotli;
+        Resource gzip = resolution.gzip;
+        if (brotli != null || gzip != null) {
+            responseHeaders.put(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+            String accepted = exchange.getRequestHeaders().getFirst(Headers.ACCEPT_ENCODING);
+            if (brotli != null && accepts(accepted, BROTLI)) {
+                resource = brotli;
+                encoding = BROTLI;
+                key = path + ".br";
+            } else if (gzip != null && accepts(accepted, GZIP)) {
+                resource = gzip;
+                encoding = GZIP;
+                key = path + ".gz";
+            }
+        }
+
+        Date lastModified = resource.getLastModified();
+        Long length = resource.getContentLength();
+        StaticContentCache.Entry entry = cached(key, resource, lastModified, length);
+
+        ETag etag;
+        if (entry != null) {
+            etag = entry.etag;
+            length = (long) entry.content.length;
+        } else {
+            etag = new ETag(false, Long.toHexString(length == null ? -1 : length) + "-"
+                    + Long.toHexString(lastModified == null ? 0 : lastModified.getTime()));
+        }
+
+        responseHeaders.put(Headers.ETAG, etag.toString());
+        if (lastModified != null) {
+            responseHeaders.put(Headers.LAST_MODIFIED, DateUtils.toDateString(lastModified));
+        }
+        if (this.cacheControl != null) {
+            responseHeaders.put(Headers.CACHE_CONTROL, this.cacheControl);
+        }
+
+        if (notModified(exchange, etag, lastModified)) {
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            exchange.endExchange();
+            return;
+        }
+
+        String contentType = contentType(path);
+        if (contentType != null) {
+            responseHeaders.put(Headers.CONTENT_TYPE, contentType);
+        }
+        if (encoding != null) {
+            responseHeaders.put(Headers.CONTENT_ENCODING, encoding);
+        }
+        if (length != null) {
+            responseHeaders.put(Headers.CONTENT_LENGTH, length);
+        }
+
+        if (Methods.HEAD.equals(exchange.getRequestMethod())) {
+            exchange.endExchange();
+            return;
+        }
+
+        if (entry != null) {
+            exchange.getResponseSender().send(ByteBuffer.wrap(entry.content));
+            return;
+        }
+
+        Path file = resource.getFilePath();
+        if (file != null) {
+            transfer(exchange.getResponseSender(), file);
+        } else {
+            resource.serve(exchange.getResponseSender(), exchange, IoCallback.END_EXCHANGE);
+        }
+    }
+
+    StaticContentCache cache() {
+        return this.cache;
+    }
+
+    private boolean isCandidate(HttpServerExchange exchange) {
+        if (!Methods.GET.equals(exchange.getRequestMethod()) && !Methods.HEAD.equals(exchange.getRequestMethod())) {
+            return false;
+        }
+        if (exchange.getRequestHeaders().contains(Headers.RANGE)) {
+            return false;
+        }
+        ServletRequestContext context = exchange.getAttachment(ServletRequestContext.ATTACHMENT_KEY);
+        if (context == null || !isDefaultServlet(context.getOriginalServletPathMatch())) {
+            return false;
+        }
+        return isStaticPath(exchange.getRelativePath());
+    }
+
+    /**
+     * @return whether the request is mapped to the default servlet with no filters to run first
+     */
+    static boolean isDefaultServlet(ServletPathMatch match) {
+        if (match == null || match.getType() != ServletPathMatch.Type.NORMAL) {
+            return false;
+        }
+        if (match.getManagedServlet() == null
+                || !DefaultServlet.class.equals(match.getManagedServlet().getServletInfo().getServletClass())) {
+            return false;
+        }
+        List<ManagedFilter> filters = match.getFilters().get(DispatcherType.REQUEST);
+        return filters == null || filters.isEmpty();
+    }
+
+    /**
+     * @return whether a deployment relative path may be served as a static file
+     */
+    static boolean isStaticPath(String path) {
+        if (path == null || !path.startsWith("/") || path.endsWith("/")) {
+            return false;
+        }
+        if (path.indexOf('\\') >= 0 || path.indexOf(';') >= 0) {
+            return false;
+        }
+        String[] segments = path.substring(1).split("/");
+        for (String segment : segments) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                return false;
+            }
+        }
+        String first = segments[0].toUpperCase(Locale.ENGLISH);
+        if (first.equals("WEB-INF") || first.equals("META-INF")) {
+            return false;
+        }
+        String name = segments[segments.length - 1].toLowerCase(Locale.ENGLISH);
+        return !name.endsWith(".jsp") && !name.endsWith(".jspx");
+    }
+
+    /**
+     * Resolves a path and its precompressed siblings, reusing the last resolution while the file is unchanged.
+     *
+     * @return {@code null} if the path is not a file
+     */
+    StaticContentCache.Resolution resolve(String path) throws IOException {
+        StaticContentCache.Resolution resolution = this.cache.resolution(path);
+        if (resolution != null && sameTime(resolution.lastModified, resolution.resource.getLastModified())) {
+            return resolution;
+        }
+        Resource resource = this.resourceManager.getResource(path);
+        if (resource == null || resource.isDirectory()) {
+            this.cache.resolved(path, null);
+            return null;
+        }
+        resolution = new StaticContentCache.Resolution(resource, sibling(path, ".br"), sibling(path, ".gz"),
+                                                       resource.getLastModified());
+        this.cache.resolved(path, resolution);
+        return resolution;
+    }
+
+    private Resource sibling(String path, String suffix) throws IOException {
+        Resource resource = this.resourceManager.getResource(path + suffix);
+        if (resource == null || resource.isDirectory()) {
+            return null;
+        }
+        return resource;
+    }
+
+    private StaticContentCache.Entry cached(String key, Resource resource, Date lastModified, Long length) throws IOException {
+        StaticContentCache.Entry entry = this.cache.get(key);
+        if (entry != null) {
+            if (sameTime(entry.lastModified, lastModified)) {
+                return entry;
+            }
+            // changed on disk, e.g. an external mount during development
+            this.cache.remove(key);
+        }
+        if (length == null || length > this.maxEntrySize) {
+            return null;
+        }
+        byte[] content = read(resource);
+        entry = new StaticContentCache.Entry(content, new ETag(false, digest(content)), lastModified);
+        this.cache.put(key, entry);
+        return entry;
+    }
+
+    private String contentType(String path) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash) {
+            return null;
+        }
+        return this.mimeMappings.getMimeType(path.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    static boolean notModified(HttpServerExchange exchange, ETag etag, Date lastModified) {
+        // If-None-Match wins over If-Modified-Since when both are sent
+        if (exchange.getRequestHeaders().contains(Headers.IF_NONE_MATCH)) {
+            return !ETagUtils.handleIfNoneMatch(exchange, etag, true);
+        }
+        return lastModified != null && !DateUtils.handleIfModifiedSince(exchange, lastModified);
+    }
+
+    /**
+     * @return whether an {@code Accept-Encoding} header value allows the given coding
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String each : acceptEncoding.split(",")) {
+            String[] parts = each.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase(coding) && !name.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; ++i) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean sameTime(Date cached, Date current) {
+        if (cached == null || current == null) {
+            return cached == current;
+        }
+        return cached.getTime() == current.getTime();
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        Path file = resource.getFilePath();
+        if (file != null) {
+            return Files.readAllBytes(file);
+        }
+        try (InputStream in = resource.getUrl().openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(content);
+            StringBuilder str = new StringBuilder(hash.length * 2);
+            for (byte each : hash) {
+                str.append(Character.forDigit((each >> 4) & 0xF, 16));
+                str.append(Character.forDigit(each & 0xF, 16));
+            }
+            return str.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void transfer(Sender sender, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        sender.transferFrom(channel, new IoCallback() {
+            @Override
+            public void onComplete(HttpServerExchange exchange, Sender sender) {
+                close(channel);
+                IoCallback.END_EXCHANGE.onComplete(exchange, sender);
+            }
+
+            @Override
+            public void onException(HttpServerExchange exchange, Sender sender, IOException exception) {
+                close(channel);
+                IoCallback.END_EXCHANGE.onException(exchange, sender, exception);
+            }
+        });
+    }
+
+    private static void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private final HttpHandler next;
+
+    private final ResourceManager resourceManager;
+
+    private final MimeMappings mimeMappings;
+
+    private final StaticContentCache cache;
+
+    private final long maxEntrySize;
+
+    private final String cacheControl;
+}
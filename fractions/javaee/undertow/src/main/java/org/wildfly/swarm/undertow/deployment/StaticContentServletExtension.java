@@ -0,0 +1,85 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import javax.servlet.ServletContext;
+
+import io.undertow.servlet.ServletExtension;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.MimeMapping;
+import io.undertow.util.MimeMappings;
+
+/**
+ * Installs the {@link StaticContentHandler} for deployments carrying
+ * {@code WEB-INF/undertow-static-content.conf}.
+ */
+@SuppressWarnings("unused")
+public class StaticContentServletExtension implements ServletExtension {
+
+    static final String CONFIG_PATH = "/WEB-INF/undertow-static-content.conf";
+
+    static final String CACHE_SIZE = "cache-size";
+
+    static final String MAX_ENTRY_SIZE = "max-entry-size";
+
+    static final String CACHE_CONTROL = "cache-control";
+
+    static final long DEFAULT_CACHE_SIZE = 32 * 1024 * 1024;
+
+    static final long DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    @Override
+    public void handleDeployment(DeploymentInfo info, ServletContext context) {
+        Properties config = new Properties();
+        try (InputStream in = context.getResourceAsStream(CONFIG_PATH)) {
+            if (in == null) {
+                return;
+            }
+            config.load(in);
+        } catch (IOException e) {
+            context.log("Error reading " + CONFIG_PATH + ", static content cache disabled", e);
+            return;
+        }
+
+        long cacheSize = longValue(config, CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        long maxEntrySize = longValue(config, MAX_ENTRY_SIZE, DEFAULT_MAX_ENTRY_SIZE);
+        String cacheControl = config.getProperty(CACHE_CONTROL);
+
+        MimeMappings.Builder mimeMappings = MimeMappings.builder(true);
+        for (MimeMapping each : info.getMimeMappings()) {
+            mimeMappings.addMapping(each.getExtension(), each.getMimeType());
+        }
+
+        info.addInnerHandlerChainWrapper(next -> new StaticContentHandler(next,
+                                                                          info.getResourceManager(),
+                                                                          mimeMappings.build(),
+                                                                          cacheSize,
+                                                                          maxEntrySize,
+                                                                          cacheControl));
+    }
+
+    private static long longValue(Properties config, String key, long defaultValue) {
+        String value = config.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Long.parseLong(value.trim());
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.jboss.shrinkwrap.api.asset.Asset;
+
+/**
+ * Settings of the cached static content handler, stored in the deployment as a properties file.
+ */
+public class StaticContentCacheAsset implements Asset {
+
+    public static final long DEFAULT_CACHE_SIZE = 32 * 1024 * 1024;
+
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    public static final String CACHE_SIZE = "cache-size";
+
+    public static final String MAX_ENTRY_SIZE = "max-entry-size";
+
+    public static final String CACHE_CONTROL = "cache-control";
+
+    public StaticContentCacheAsset() {
+    }
+
+    public StaticContentCacheAsset(InputStream inputStream) {
+        try {
+            this.properties.load(inputStream);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error reading static content cache conf", ex);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException ignore) {
+
+            }
+        }
+    }
+
+    /**
+     * @param cacheSize Total bytes of content held in memory.
+     */
+    public StaticContentCacheAsset cacheSize(long cacheSize) {
+        this.properties.setProperty(CACHE_SIZE, String.valueOf(cacheSize));
+        return this;
+    }
+
+    /**
+     * @param maxEntrySize Largest file held in memory; larger files are sent straight from disk.
+     */
+    public StaticContentCacheAsset maxEntrySize(long maxEntrySize) {
+        this.properties.setProperty(MAX_ENTRY_SIZE, String.valueOf(maxEntrySize));
+        return this;
+    }
+
+    /**
+     * @param cacheControl Value of the {@code Cache-Control} header sent with static content, or {@code null} for none.
+     */
+    public StaticContentCacheAsset cacheControl(String cacheControl) {
+        if (cacheControl == null) {
+            this.properties.remove(CACHE_CONTROL);
+        } else {
+            this.properties.setProperty(CACHE_CONTROL, cacheControl);
+        }
+        return this;
+    }
+
+    public long getCacheSize() {
+        return Long.parseLong(this.properties.getProperty(CACHE_SIZE, String.valueOf(DEFAULT_CACHE_SIZE)));
+    }
+
+    public long getMaxEntrySize() {
+        return Long.parseLong(this.properties.getProperty(MAX_ENTRY_SIZE, String.valueOf(DEFAULT_MAX_ENTRY_SIZE)));
+    }
+
+    public String getCacheControl() {
+        return this.properties.getProperty(CACHE_CONTROL);
+    }
+
+    @Override
+    public InputStream openStream() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            this.properties.store(out, null);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error writing static content cache conf", ex);
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    private final Properties properties = new Properties();
+}
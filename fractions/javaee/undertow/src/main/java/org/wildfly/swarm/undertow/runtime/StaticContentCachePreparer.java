@@ -0,0 +1,79 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.runtime;
+
+import javax.inject.Inject;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
+import org.wildfly.swarm.spi.api.DeploymentProcessor;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
+import org.wildfly.swarm.spi.runtime.annotations.DeploymentScoped;
+import org.wildfly.swarm.undertow.WARArchive;
+import org.wildfly.swarm.undertow.internal.StaticContentCacheAsset;
+
+/**
+ * Turns on the cached static content handler for a .war deployment when configured.
+ */
+@DeploymentScoped
+public class StaticContentCachePreparer implements DeploymentProcessor {
+
+    @AttributeDocumentation("Serve static content from an in-memory cache, with ETags and precompressed variants")
+    @Configurable("swarm.deployment.*.static-content.cached")
+    @Configurable("swarm.static-content.cached")
+    Defaultable<Boolean> cached = Defaultable.bool(false);
+
+    @AttributeDocumentation("Total bytes of static content held in memory")
+    @Configurable("swarm.deployment.*.static-content.cache-size")
+    @Configurable("swarm.static-content.cache-size")
+    Defaultable<Long> cacheSize = Defaultable.longInteger(StaticContentCacheAsset.DEFAULT_CACHE_SIZE);
+
+    @AttributeDocumentation("Largest static file held in memory; larger files are sent from disk")
+    @Configurable("swarm.deployment.*.static-content.max-entry-size")
+    @Configurable("swarm.static-content.max-entry-size")
+    Defaultable<Long> maxEntrySize = Defaultable.longInteger(StaticContentCacheAsset.DEFAULT_MAX_ENTRY_SIZE);
+
+    @AttributeDocumentation("Cache-Control header sent with static content")
+    @Configurable("swarm.deployment.*.static-content.cache-control")
+    @Configurable("swarm.static-content.cache-control")
+    String cacheControl;
+
+    @AttributeDocumentation("Add gzipped variants of compressible static files to the deployment while it boots")
+    @Configurable("swarm.deployment.*.static-content.precompress")
+    @Configurable("swarm.static-content.precompress")
+    Defaultable<Boolean> precompress = Defaultable.bool(false);
+
+    private final Archive archive;
+
+    @Inject
+    public StaticContentCachePreparer(Archive archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public void process() {
+        if (!this.cached.get() || !this.archive.getName().endsWith(".war")) {
+            return;
+        }
+
+        WARArchive warArchive = this.archive.as(WARArchive.class);
+        if (this.precompress.get()) {
+            warArchive.precompressStaticContent();
+        }
+        warArchive.staticContentCache(this.cacheSize.get(), this.maxEntrySize.get(), this.cacheControl);
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.deployment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.undertow.server.handlers.resource.PathResourceManager;
+import io.undertow.server.handlers.resource.Resource;
+import io.undertow.server.handlers.resource.ResourceChangeListener;
+import io.undertow.server.handlers.resource.ResourceManager;
+import io.undertow.util.ETag;
+import io.undertow.util.MimeMappings;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StaticContentCacheTest {
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        StaticContentCache cache = new StaticContentCache(30);
+        cache.put("/a", entry(10));
+        cache.put("/b", entry(10));
+        cache.put("/c", entry(10));
+
+        // touch /a so /b becomes the eldest
+        assertThat(cache.get("/a")).isNotNull();
+
+        cache.put("/d", entry(10));
+
+        assertThat(cache.get("/b")).isNull();
+        assertThat(cache.get("/a")).isNotNull();
+        assertThat(cache.get("/c")).isNotNull();
+        assertThat(cache.get("/d")).isNotNull();
+        assertThat(cache.size()).isEqualTo(30);
+        assertThat(cache.count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testEvictsAsManyAsNeeded() {
+        StaticContentCache cache = new StaticContentCache(30);
+        cache.put("/a", entry(10));
+        cache.put("/b", entry(10));
+        cache.put("/c", entry(10));
+
+        cache.put("/d", entry(25));
+
+        assertThat(cache.count()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(25);
+        assertThat(cache.get("/d")).isNotNull();
+    }
+
+    @Test
+    public void testRejectsEntryLargerThanCache() {
+        StaticContentCache cache = new StaticContentCache(30);
+        cache.put("/a", entry(10));
+
+        assertThat(cache.put("/big", entry(31))).isFalse();
+
+        assertThat(cache.get("/big")).isNull();
+        assertThat(cache.get("/a")).isNotNull();
+        assertThat(cache.size()).isEqualTo(10);
+    }
+
+    @Test
+    public void testReplaceAndRemoveKeepSizeAccurate() {
+        StaticContentCache cache = new StaticContentCache(30);
+        cache.put("/a", entry(10));
+        cache.put("/a", entry(20));
+
+        assertThat(cache.count()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(20);
+
+        cache.remove("/a");
+        cache.remove("/missing");
+
+        assertThat(cache.count()).isEqualTo(0);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testResolutionIsReusedWhileUnchanged() throws Exception {
+        Path dir = Files.createTempDirectory("static-content");
+        Path index = dir.resolve("index.html");
+        Files.write(index, "index".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("index.html.gz"), "gzipped".getBytes(StandardCharsets.UTF_8));
+
+        AtomicInteger lookups = new AtomicInteger();
+        PathResourceManager files = new PathResourceManager(dir, 1024);
+        ResourceManager counting = new ResourceManager() {
+            @Override
+            public Resource getResource(String path) throws IOException {
+                lookups.incrementAndGet();
+                return files.getResource(path);
+            }
+
+            @Override
+            public boolean isResourceChangeListenerSupported() {
+                return false;
+            }
+
+            @Override
+            public void registerResourceChangeListener(ResourceChangeListener listener) {
+            }
+
+            @Override
+            public void removeResourceChangeListener(ResourceChangeListener listener) {
+            }
+
+            @Override
+            public void close() throws IOException {
+                files.close();
+            }
+        };
+        StaticContentHandler handler = new StaticContentHandler(null, counting, MimeMappings.DEFAULT, 1024, 1024, null);
+
+        StaticContentCache.Resolution resolution = handler.resolve("/index.html");
+        assertThat(resolution.gzip).isNotNull();
+        assertThat(resolution.brotli).isNull();
+        assertThat(lookups.get()).isEqualTo(3);
+
+        assertThat(handler.resolve("/index.html")).isSameAs(resolution);
+        assertThat(lookups.get()).isEqualTo(3);
+
+        // a changed file is looked up again, with its siblings
+        Files.setLastModifiedTime(index, FileTime.fromMillis(resolution.lastModified.getTime() + 60000));
+        assertThat(handler.resolve("/index.html")).isNotSameAs(resolution);
+        assertThat(lookups.get()).isEqualTo(6);
+
+        assertThat(handler.resolve("/missing.html")).isNull();
+    }
+
+    @Test
+    public void testAcceptsEncoding() {
+        assertThat(StaticContentHandler.accepts("gzip, deflate, br", "br")).isTrue();
+        assertThat(StaticContentHandler.accepts("gzip;q=0.5", "gzip")).isTrue();
+        assertThat(StaticContentHandler.accepts("gzip;q=0", "gzip")).isFalse();
+        assertThat(StaticContentHandler.accepts("*", "gzip")).isTrue();
+        assertThat(StaticContentHandler.accepts("deflate", "gzip")).isFalse();
+        assertThat(StaticContentHandler.accepts(null, "gzip")).isFalse();
+    }
+
+    @Test
+    public void testStaticPath() {
+        assertThat(StaticContentHandler.isStaticPath("/index.html")).isTrue();
+        assertThat(StaticContentHandler.isStaticPath("/css/site.css")).isTrue();
+        assertThat(StaticContentHandler.isStaticPath("/index.jsp")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/admin/page.JSPX")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/WEB-INF/web.xml")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/web-inf/classes/Secret.class")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/META-INF/MANIFEST.MF")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("//WEB-INF/web.xml")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/css/../WEB-INF/web.xml")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/index.jsp;x=1")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("/css/")).isFalse();
+        assertThat(StaticContentHandler.isStaticPath("")).isFalse();
+    }
+
+    private static StaticContentCache.Entry entry(int size) {
+        return new StaticContentCache.Entry(new byte[size], new ETag(false, String.valueOf(size)), new Date(0));
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.undertow.runtime;
+
+import java.util.Arrays;
+import java.util.Scanner;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.junit.Test;
+import org.wildfly.swarm.undertow.WARArchive;
+import org.wildfly.swarm.undertow.internal.FaviconServletExtension;
+import org.wildfly.swarm.undertow.internal.StaticContentCacheAsset;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class StaticContentCachePreparerTest {
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        WARArchive archive = ShrinkWrap.create(WARArchive.class, "app.war");
+        archive.add(new ByteArrayAsset(compressible()), "index.html");
+
+        new StaticContentCachePreparer(archive).process();
+
+        assertThat(archive.get(WARArchive.STATIC_CONTENT_CACHE_PATH)).isNull();
+        assertThat(archive.get("index.html.gz")).isNull();
+    }
+
+    @Test
+    public void testEnabled() throws Exception {
+        WARArchive archive = ShrinkWrap.create(WARArchive.class, "app.war");
+        archive.add(new ByteArrayAsset(compressible()), "index.html");
+        archive.add(new StringAsset("tiny"), "small.css");
+        archive.add(new ByteArrayAsset(compressible()), "image.png");
+        archive.add(new ByteArrayAsset(compressible()), "WEB-INF/secret.xml");
+
+        StaticContentCachePreparer preparer = new StaticContentCachePreparer(archive);
+        preparer.cached.set(true);
+        preparer.cacheSize.set(1024L);
+        preparer.cacheControl = "max-age=60";
+        preparer.precompress.set(true);
+        preparer.process();
+
+        StaticContentCacheAsset asset = new StaticContentCacheAsset(
+                archive.get(WARArchive.STATIC_CONTENT_CACHE_PATH).getAsset().openStream());
+        assertThat(asset.getCacheSize()).isEqualTo(1024L);
+        assertThat(asset.getMaxEntrySize()).isEqualTo(StaticContentCacheAsset.DEFAULT_MAX_ENTRY_SIZE);
+        assertThat(asset.getCacheControl()).isEqualTo("max-age=60");
+
+        String extensions = new Scanner(archive.get(WARArchive.SERVLET_EXTENSION_SERVICES_PATH).getAsset().openStream(), "UTF-8")
+                .useDelimiter("\\A").next();
+        assertThat(extensions).contains(WARArchive.STATIC_CONTENT_EXTENSION_NAME);
+        assertThat(extensions).contains(FaviconServletExtension.EXTENSION_NAME);
+
+        assertThat(archive.get("index.html.gz")).isNotNull();
+        assertThat(archive.get("small.css.gz")).isNull();
+        assertThat(archive.get("image.png.gz")).isNull();
+        assertThat(archive.get("WEB-INF/secret.xml.gz")).isNull();
+    }
+
+    @Test
+    public void testPrecompressDisabledByDefault() throws Exception {
+        WARArchive archive = ShrinkWrap.create(WARArchive.class, "app.war");
+        archive.add(new ByteArrayAsset(compressible()), "index.html");
+
+        StaticContentCachePreparer preparer = new StaticContentCachePreparer(archive);
+        preparer.cached.set(true);
+        preparer.process();
+
+        assertThat(archive.get(WARArchive.STATIC_CONTENT_CACHE_PATH)).isNotNull();
+        assertThat(archive.get("index.html.gz")).isNull();
+    }
+
+    private static byte[] compressible() {
+        byte[] content = new byte[4096];
+        Arrays.fill(content, (byte) 'a');
+        return content;
+    }
+}
@@ -18,19 +18,16 @@ package org.wildfly.swarm.keycloak.server.runtime;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleLoadException;
-import org.jboss.shrinkwrap.api.ShrinkWrap;
-import org.jboss.shrinkwrap.api.exporter.ExplodedExporter;
-import org.jboss.shrinkwrap.api.importer.ZipImporter;
-import org.wildfly.swarm.bootstrap.util.TempFileManager;
+import org.wildfly.swarm.bootstrap.util.ArchiveView;
 import org.wildfly.swarm.keycloak.server.KeycloakServerFraction;
 import org.wildfly.swarm.spi.api.Customizer;
-import org.wildfly.swarm.spi.api.JARArchive;
 import org.wildfly.swarm.spi.runtime.annotations.Post;
 
 /**
@@ -53,12 +50,9 @@ public class KeycloakThemesCustomizer implements Customizer {
         Module module = Module.getBootModuleLoader().loadModule("org.keycloak.keycloak-themes");
         URL resource = module.getExportedResource("keycloak-themes.jar");
 
-        JARArchive themesArtifact = ShrinkWrap.create(JARArchive.class);
-        themesArtifact.as(ZipImporter.class).importFrom(resource.openStream());
-
-        File root = TempFileManager.INSTANCE.newTempDirectory("keycloak-themes", ".d");
-        File exportedDir = themesArtifact.as(ExplodedExporter.class).exportExplodedInto(root);
-        File themeDir = new File(exportedDir, "theme");
+        // the theme provider needs a directory; extract once and reuse it for as long as the jar is unchanged
+        Path exportedDir = ArchiveView.of(resource).extractCached("keycloak-themes");
+        File themeDir = exportedDir.resolve("theme").toFile();
 
         this.keycloakServer.theme("defaults", (theme) -> {
             theme.dir(themeDir.getAbsolutePath());
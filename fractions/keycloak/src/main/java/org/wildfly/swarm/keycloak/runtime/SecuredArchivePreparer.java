@@ -27,14 +27,10 @@ import javax.inject.Inject;
 import org.jboss.logging.Logger;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.Node;
-import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.Asset;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
-import org.jboss.shrinkwrap.api.importer.ZipImporter;
-import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
 import org.wildfly.swarm.spi.api.DeploymentProcessor;
-import org.wildfly.swarm.spi.api.JARArchive;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.runtime.annotations.DeploymentScoped;
 
@@ -82,24 +78,13 @@ public class SecuredArchivePreparer implements DeploymentProcessor {
     private InputStream getKeycloakJson() {
         InputStream keycloakJson = Thread.currentThread().getContextClassLoader().getResourceAsStream("keycloak.json");
         if (keycloakJson == null) {
+            Node jsonNode = archive.get("keycloak.json");
+            if (jsonNode == null) {
+                jsonNode = archive.get("WEB-INF/keycloak.json");
+            }
 
-            String appArtifact = System.getProperty(BootstrapProperties.APP_ARTIFACT);
-
-            if (appArtifact != null) {
-                try (InputStream in = ClassLoader.getSystemClassLoader().getResourceAsStream("_bootstrap/" + appArtifact)) {
-                    Archive tmpArchive = ShrinkWrap.create(JARArchive.class);
-                    tmpArchive.as(ZipImporter.class).importFrom(in);
-                    Node jsonNode = tmpArchive.get("keycloak.json");
-                    if (jsonNode == null) {
-                        jsonNode = tmpArchive.get("WEB-INF/keycloak.json");
-                    }
-
-                    if (jsonNode != null && jsonNode.getAsset() != null) {
-                        keycloakJson = jsonNode.getAsset().openStream();
-                    }
-                } catch (IOException e) {
-                    // ignore
-                }
+            if (jsonNode != null && jsonNode.getAsset() != null) {
+                keycloakJson = jsonNode.getAsset().openStream();
             }
         }
         return keycloakJson;
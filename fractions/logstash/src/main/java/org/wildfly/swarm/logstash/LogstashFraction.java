@@ -23,10 +23,17 @@ import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
 
+import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_BATCH_SIZE;
+import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_FLUSH_INTERVAL;
 import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_HOSTNAME;
+import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_OVERFLOW_POLICY;
 import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_PORT;
+import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_QUEUE_LENGTH;
+import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_SAMPLE_RATE;
+import static org.wildfly.swarm.spi.api.Defaultable.bool;
 import static org.wildfly.swarm.spi.api.Defaultable.ifAnyExplicitlySet;
 import static org.wildfly.swarm.spi.api.Defaultable.integer;
+import static org.wildfly.swarm.spi.api.Defaultable.longInteger;
 import static org.wildfly.swarm.spi.api.Defaultable.string;
 
 
@@ -93,6 +100,66 @@ public class LogstashFraction implements Fraction<LogstashFraction> {
         return this.enabled.get();
     }
 
+    /**
+     * Ship records from a background flusher in batches, instead of on the logging thread.
+     */
+    public LogstashFraction async(boolean async) {
+        this.async.set(async);
+        return this;
+    }
+
+    public boolean async() {
+        return this.async.get();
+    }
+
+    public LogstashFraction queueLength(int queueLength) {
+        this.queueLength.set(queueLength);
+        return this;
+    }
+
+    public int queueLength() {
+        return this.queueLength.get();
+    }
+
+    public LogstashFraction batchSize(int batchSize) {
+        this.batchSize.set(batchSize);
+        return this;
+    }
+
+    public int batchSize() {
+        return this.batchSize.get();
+    }
+
+    public LogstashFraction flushInterval(long flushInterval) {
+        this.flushInterval.set(flushInterval);
+        return this;
+    }
+
+    public long flushInterval() {
+        return this.flushInterval.get();
+    }
+
+    public LogstashFraction overflowPolicy(String overflowPolicy) {
+        this.overflowPolicy.set(overflowPolicy);
+        return this;
+    }
+
+    public String overflowPolicy() {
+        return this.overflowPolicy.get();
+    }
+
+    /**
+     * With the {@code sample} overflow policy, keep one of every {@code sampleRate} records once the buffer is half full.
+     */
+    public LogstashFraction sampleRate(int sampleRate) {
+        this.sampleRate.set(sampleRate);
+        return this;
+    }
+
+    public int sampleRate() {
+        return this.sampleRate.get();
+    }
+
     @AttributeDocumentation("Host name of the Logstash server")
     private Defaultable<String> hostname = string(DEFAULT_HOSTNAME);
 
@@ -102,6 +169,24 @@ public class LogstashFraction implements Fraction<LogstashFraction> {
     @AttributeDocumentation("Flag to enable Logstash logging")
     private Defaultable<Boolean> enabled = ifAnyExplicitlySet(hostname, port);
 
+    @AttributeDocumentation("Ship log records asynchronously in batches")
+    private Defaultable<Boolean> async = bool(false);
+
+    @AttributeDocumentation("Number of records buffered in asynchronous mode")
+    private Defaultable<Integer> queueLength = integer(DEFAULT_QUEUE_LENGTH);
+
+    @AttributeDocumentation("Maximum number of records per batch in asynchronous mode")
+    private Defaultable<Integer> batchSize = integer(DEFAULT_BATCH_SIZE);
+
+    @AttributeDocumentation("Milliseconds to wait for a batch to fill up in asynchronous mode")
+    private Defaultable<Long> flushInterval = longInteger(DEFAULT_FLUSH_INTERVAL);
+
+    @AttributeDocumentation("What to do when the buffer is full: drop, block or sample")
+    private Defaultable<String> overflowPolicy = string(DEFAULT_OVERFLOW_POLICY);
+
+    @AttributeDocumentation("Keep one of every sample-rate records once the buffer is half full, with the sample overflow policy")
+    private Defaultable<Integer> sampleRate = integer(DEFAULT_SAMPLE_RATE);
+
     @AttributeDocumentation("Logstash formatter properties")
     private Properties formatterProperties = new Properties();
 
@@ -15,7 +15,14 @@
  */
 package org.wildfly.swarm.logstash;
 
+import org.wildfly.swarm.logging.BatchingLogShipper;
+
 public interface LogstashProperties {
     String DEFAULT_HOSTNAME = "localhost";
     int DEFAULT_PORT = 9300;
+    int DEFAULT_QUEUE_LENGTH = BatchingLogShipper.DEFAULT_CAPACITY;
+    int DEFAULT_BATCH_SIZE = BatchingLogShipper.DEFAULT_BATCH_SIZE;
+    long DEFAULT_FLUSH_INTERVAL = BatchingLogShipper.DEFAULT_FLUSH_INTERVAL;
+    String DEFAULT_OVERFLOW_POLICY = "drop";
+    int DEFAULT_SAMPLE_RATE = BatchingLogShipper.DEFAULT_SAMPLE_RATE;
 }
@@ -48,9 +48,22 @@ public class LogstashCustomizer implements Customizer {
             handlerProps.put("hostname", this.logstash.hostname());
             handlerProps.put("port", "" + this.logstash.port());
 
-            final CustomHandler<?> logstashHandler = new CustomHandler<>("logstash-handler")
-                    .module("org.jboss.logmanager.ext")
-                    .attributeClass("org.jboss.logmanager.ext.handlers.SocketHandler")
+            final CustomHandler<?> logstashHandler = new CustomHandler<>("logstash-handler");
+            if (this.logstash.async()) {
+                handlerProps.put("queueLength", "" + this.logstash.queueLength());
+                handlerProps.put("batchSize", "" + this.logstash.batchSize());
+                handlerProps.put("flushInterval", "" + this.logstash.flushInterval());
+                handlerProps.put("overflowPolicy", this.logstash.overflowPolicy());
+                handlerProps.put("sampleRate", "" + this.logstash.sampleRate());
+                logstashHandler
+                        .module("org.wildfly.swarm.logstash:runtime")
+                        .attributeClass(LogstashHandler.class.getName());
+            } else {
+                logstashHandler
+                        .module("org.jboss.logmanager.ext")
+                        .attributeClass("org.jboss.logmanager.ext.handlers.SocketHandler");
+            }
+            logstashHandler
                     .namedFormatter("logstash")
                     .properties(handlerProps)
                     .level(this.logstash.level());
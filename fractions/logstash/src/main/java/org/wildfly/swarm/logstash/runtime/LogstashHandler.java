@@ -0,0 +1,202 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.logstash.runtime;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+
+import org.jboss.logmanager.ExtHandler;
+import org.jboss.logmanager.ExtLogRecord;
+import org.wildfly.swarm.container.util.BatchingQueue;
+import org.wildfly.swarm.logging.BatchingLogShipper;
+
+/**
+ * Asynchronous alternative to the logmanager-ext {@code SocketHandler}.
+ *
+ * <p>Records are buffered and written by a background flusher, one formatted JSON line per record
+ * and one socket write per batch.</p>
+ */
+public class LogstashHandler extends ExtHandler implements BatchingQueue.Sink<ExtLogRecord> {
+
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    public LogstashHandler() {
+        setAutoFlush(false);
+    }
+
+    public void setHostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setQueueLength(int queueLength) {
+        this.queueLength = queueLength;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * One of {@code drop}, {@code block} or {@code sample}.
+     */
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = BatchingQueue.OverflowPolicy.of(overflowPolicy);
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public long getQueuedCount() {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        return shipper == null ? 0 : shipper.getQueuedCount();
+    }
+
+    public long getSentCount() {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        return shipper == null ? 0 : shipper.getSentCount();
+    }
+
+    public long getDroppedCount() {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        return shipper == null ? 0 : shipper.getDroppedCount();
+    }
+
+    @Override
+    protected void doPublish(ExtLogRecord record) {
+        BatchingLogShipper<ExtLogRecord> shipper = this.shipper;
+        if (shipper == null) {
+            synchronized (this) {
+                if (this.shipper == null) {
+                    this.shipper = new BatchingLogShipper<>("logstash", this)
+                            .capacity(this.queueLength)
+                            .batchSize(this.batchSize)
+                            .flushInterval(this.flushInterval)
+                            .overflowPolicy(this.overflowPolicy)
+                            .sampleRate(this.sampleRate)
+                            .start();
+                }
+                shipper = this.shipper;
+            }
+        }
+        // The formatter runs later on the flusher, so capture the formatted message and MDC now
+        record.copyAll();
+        shipper.offer(record);
+    }
+
+    @Override
+    public void send(List<ExtLogRecord> batch) throws IOException {
+        Formatter formatter = getFormatter();
+        this.buffer.reset();
+        for (ExtLogRecord record : batch) {
+            String line = formatter == null ? record.getFormattedMessage() : formatter.format(record);
+            this.buffer.write(line.getBytes(StandardCharsets.UTF_8));
+            if (!line.endsWith("\n")) {
+                this.buffer.write('\n');
+            }
+        }
+
+        try {
+            OutputStream out = connection();
+            this.buffer.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public void failed(List<ExtLogRecord> batch, Exception e) {
+        reportError("Failed to ship " + batch.size() + " records to logstash", e, ErrorManager.WRITE_FAILURE);
+    }
+
+    @Override
+    public void flush() {
+        // batches are flushed by the shipper
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        synchronized (this) {
+            if (this.shipper != null) {
+                // keep the shipper around so its counters remain readable
+                this.shipper.close();
+            }
+        }
+        disconnect();
+    }
+
+    private OutputStream connection() throws IOException {
+        if (this.socket == null) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(this.hostname, this.port), CONNECT_TIMEOUT);
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+        return this.out;
+    }
+
+    private void disconnect() {
+        if (this.socket != null) {
+            try {
+                this.socket.close();
+            } catch (IOException ignored) {
+            }
+            this.socket = null;
+            this.out = null;
+        }
+    }
+
+    private String hostname;
+
+    private int port;
+
+    private int queueLength = BatchingLogShipper.DEFAULT_CAPACITY;
+
+    private int batchSize = BatchingLogShipper.DEFAULT_BATCH_SIZE;
+
+    private long flushInterval = BatchingLogShipper.DEFAULT_FLUSH_INTERVAL;
+
+    private BatchingQueue.OverflowPolicy overflowPolicy = BatchingQueue.OverflowPolicy.DROP;
+
+    private int sampleRate = BatchingLogShipper.DEFAULT_SAMPLE_RATE;
+
+    private volatile BatchingLogShipper<ExtLogRecord> shipper;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    private Socket socket;
+
+    private OutputStream out;
+}
@@ -13,6 +13,7 @@ import org.wildfly.swarm.logstash.LogstashFraction;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_HOSTNAME;
 import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_PORT;
+import static org.wildfly.swarm.logstash.LogstashProperties.DEFAULT_SAMPLE_RATE;
 
 /**
  * @author Bob McWhirter
@@ -145,4 +146,21 @@ public class LogstashCustomizerTest {
                 .isEqualTo(Level.WARN);
     }
 
+    @Test
+    public void testAsyncUsesBatchingHandler() {
+        this.customizer.logstash.enabled(true);
+        this.customizer.logstash.async(true);
+        this.customizer.logstash.batchSize(64);
+        this.customizer.customize();
+
+        CustomHandler handler = this.customizer.logging.subresources().customHandler("logstash-handler");
+        assertThat(handler.module()).isEqualTo("org.wildfly.swarm.logstash:runtime");
+        assertThat(handler.attributeClass()).isEqualTo(LogstashHandler.class.getName());
+
+        Map props = handler.properties();
+        assertThat(props.get("batchSize")).isEqualTo("64");
+        assertThat(props.get("overflowPolicy")).isEqualTo("drop");
+        assertThat(props.get("sampleRate")).isEqualTo("" + DEFAULT_SAMPLE_RATE);
+    }
+
 }
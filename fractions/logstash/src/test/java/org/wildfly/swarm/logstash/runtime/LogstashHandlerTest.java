@@ -0,0 +1,71 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.logstash.runtime;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import org.jboss.logmanager.ExtLogRecord;
+import org.jboss.logmanager.formatters.PatternFormatter;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LogstashHandlerTest {
+
+    @Test
+    public void testShipsOneLinePerRecord() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<List<String>> received = CompletableFuture.supplyAsync(() -> {
+                try (Socket socket = server.accept();
+                     BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                    return reader.lines().collect(Collectors.toList());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            LogstashHandler handler = new LogstashHandler();
+            handler.setHostname("localhost");
+            handler.setPort(server.getLocalPort());
+            handler.setBatchSize(16);
+            handler.setFlushInterval(50);
+            handler.setOverflowPolicy("block");
+            handler.setFormatter(new PatternFormatter("{\"message\":\"%s\"}"));
+
+            for (int i = 0; i < 50; ++i) {
+                handler.publish(new ExtLogRecord(Level.INFO, "message-" + i, LogstashHandlerTest.class.getName()));
+            }
+            handler.close();
+
+            List<String> lines = received.get(5, TimeUnit.SECONDS);
+            assertThat(lines).hasSize(50);
+            assertThat(lines.get(0)).isEqualTo("{\"message\":\"message-0\"}");
+            assertThat(lines.get(49)).isEqualTo("{\"message\":\"message-49\"}");
+            assertThat(handler.getQueuedCount()).isEqualTo(50);
+            assertThat(handler.getSentCount()).isEqualTo(50);
+            assertThat(handler.getDroppedCount()).isEqualTo(0);
+        }
+    }
+}
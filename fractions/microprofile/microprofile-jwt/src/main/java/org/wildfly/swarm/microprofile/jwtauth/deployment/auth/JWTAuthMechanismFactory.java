@@ -33,6 +33,7 @@ import javax.enterprise.inject.spi.CDI;
 import io.undertow.security.api.AuthenticationMechanism;
 import io.undertow.security.api.AuthenticationMechanismFactory;
 import io.undertow.server.handlers.form.FormParserFactory;
+import org.wildfly.swarm.microprofile.jwtauth.deployment.principal.JWKSKeyResolver;
 import org.wildfly.swarm.microprofile.jwtauth.deployment.principal.JWTAuthContextInfo;
 import org.jboss.logging.Logger;
 
@@ -43,6 +44,8 @@ import org.jboss.logging.Logger;
 public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
     private static Logger log = Logger.getLogger(JWTAuthMechanismFactory.class);
 
+    private static final int DEFAULT_JWKS_REFRESH_INTERVAL = 600;
+
 
     @PostConstruct
     public void init() {
@@ -57,7 +60,8 @@ public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
      * @param mechanismName     - the login-config/auth-method, which will be MP-JWT for JWTAuthMechanism
      * @param formParserFactory - unused form type of authentication factory
      * @param properties        - the query parameters from the web.xml/login-config/auth-method value. We look for an issuedBy
-     *                          and signerPubKey property to use for token validation.
+     *                          and signerPubKey (or jwksUri and jwksRefreshInterval) property to use for token
+     *                          validation, and an optional tokenCacheSize.
      * @return the JWTAuthMechanism
      * @see JWTAuthContextInfo
      *
@@ -92,24 +96,43 @@ public class JWTAuthMechanismFactory implements AuthenticationMechanismFactory {
                 }
                 issuedBy = issuedBy.trim();
             }
-            String publicKeyPemEnc = properties.get("signerPubKey");
-            if (publicKeyPemEnc == null) {
-                // Try the /META-INF/MP-JWT-SIGNER content
-                URL pkURL = loader.getResource("/META-INF/MP-JWT-SIGNER");
-                if (pkURL == null) {
-                    throw new IllegalStateException("No signerPubKey parameter was found");
+            contextInfo.setIssuedBy(issuedBy);
+            String tokenCacheSize = properties.get("tokenCacheSize");
+            if (tokenCacheSize != null) {
+                contextInfo.setTokenCacheSize(Integer.parseInt(tokenCacheSize.trim()));
+            }
+
+            String jwksUri = properties.get("jwksUri");
+            if (jwksUri == null) {
+                // Try the /META-INF/MP-JWT-JWKS content
+                URL jwksURL = loader.getResource("/META-INF/MP-JWT-JWKS");
+                if (jwksURL != null) {
+                    jwksUri = readURLContent(jwksURL).trim();
                 }
-                publicKeyPemEnc = readURLContent(pkURL);
             }
+            if (jwksUri != null) {
+                String refresh = properties.get("jwksRefreshInterval");
+                int refreshInterval = refresh != null ? Integer.parseInt(refresh.trim()) : DEFAULT_JWKS_REFRESH_INTERVAL;
+                contextInfo.setKeyResolver(JWKSKeyResolver.forLocation(jwksUri, refreshInterval));
+            } else {
+                String publicKeyPemEnc = properties.get("signerPubKey");
+                if (publicKeyPemEnc == null) {
+                    // Try the /META-INF/MP-JWT-SIGNER content
+                    URL pkURL = loader.getResource("/META-INF/MP-JWT-SIGNER");
+                    if (pkURL == null) {
+                        throw new IllegalStateException("No signerPubKey parameter was found");
+                    }
+                    publicKeyPemEnc = readURLContent(pkURL);
+                }
 
-            // Workaround the double decode issue; https://issues.jboss.org/browse/WFLY-9135
-            String publicKeyPem = publicKeyPemEnc.replace(' ', '+');
-            contextInfo.setIssuedBy(issuedBy);
-            try {
-                RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPem);
-                contextInfo.setSignerKey(pk);
-            } catch (Exception e) {
-                throw new IllegalStateException(e);
+                // Workaround the double decode issue; https://issues.jboss.org/browse/WFLY-9135
+                String publicKeyPem = publicKeyPemEnc.replace(' ', '+');
+                try {
+                    RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPem);
+                    contextInfo.setSignerKey(pk);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
             }
         } else {
             contextInfo = optContextInfo.get();
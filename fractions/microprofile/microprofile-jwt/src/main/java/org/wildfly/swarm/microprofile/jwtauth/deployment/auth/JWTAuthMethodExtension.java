@@ -17,16 +17,22 @@
 package org.wildfly.swarm.microprofile.jwtauth.deployment.auth;
 
 import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
 
 import io.undertow.servlet.ServletExtension;
 import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.ListenerInfo;
+import io.undertow.servlet.util.ImmediateInstanceFactory;
+import org.wildfly.swarm.microprofile.jwtauth.deployment.principal.JWKSKeyResolver;
 
 /**
  * An extension that add support for the MP-JWT custom authentication mechanism
  */
 public class JWTAuthMethodExtension implements ServletExtension {
     /**
-     * This registers the JWTAuthMechanismFactory under the "MP-JWT" mechanism name
+     * This registers the JWTAuthMechanismFactory under the "MP-JWT" mechanism name, and releases any JWKS key
+     * resolvers the deployment obtained once it is undeployed
      *
      * @param deploymentInfo - the deployment to augment
      * @param servletContext - the ServletContext for the deployment
@@ -34,5 +40,24 @@ public class JWTAuthMethodExtension implements ServletExtension {
     @Override
     public void handleDeployment(DeploymentInfo deploymentInfo, ServletContext servletContext) {
         deploymentInfo.addAuthenticationMechanism("MP-JWT", new JWTAuthMechanismFactory());
+        ReleaseKeyResolvers release = new ReleaseKeyResolvers(deploymentInfo.getClassLoader());
+        deploymentInfo.addListener(new ListenerInfo(ReleaseKeyResolvers.class, new ImmediateInstanceFactory<>(release)));
+    }
+
+    private static class ReleaseKeyResolvers implements ServletContextListener {
+        ReleaseKeyResolvers(ClassLoader deploymentClassLoader) {
+            this.deploymentClassLoader = deploymentClassLoader;
+        }
+
+        @Override
+        public void contextInitialized(ServletContextEvent sce) {
+        }
+
+        @Override
+        public void contextDestroyed(ServletContextEvent sce) {
+            JWKSKeyResolver.release(this.deploymentClassLoader);
+        }
+
+        private final ClassLoader deploymentClassLoader;
     }
 }
@@ -28,6 +28,7 @@ import javax.enterprise.inject.spi.DeploymentException;
 import javax.inject.Inject;
 
 import org.wildfly.swarm.microprofile.jwtauth.deployment.auth.KeyUtils;
+import org.wildfly.swarm.microprofile.jwtauth.deployment.principal.JWKSKeyResolver;
 import org.wildfly.swarm.microprofile.jwtauth.deployment.principal.JWTAuthContextInfo;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
@@ -45,6 +46,21 @@ public class JWTAuthContextInfoProvider {
     @Inject
     @ConfigProperty(name = "mpjwt.expGracePeriodSecs", defaultValue = "60")
     private Optional<Integer> expGracePeriodSecs;
+    /**
+     * The maximum number of verified tokens remembered until their expiry, 0 disables the cache
+     */
+    @Inject
+    @ConfigProperty(name = "mpjwt.tokenCacheSize")
+    private Optional<Integer> tokenCacheSize;
+    /**
+     * A file path or file:, http: or https: URL of a JSON Web Key Set used instead of mpjwt.signerPublicKey
+     */
+    @Inject
+    @ConfigProperty(name = "mpjwt.jwksUri")
+    private Optional<String> jwksUri;
+    @Inject
+    @ConfigProperty(name = "mpjwt.jwksRefreshInterval", defaultValue = "600")
+    private int jwksRefreshInterval;
 
     @PostConstruct
     void init() {
@@ -52,15 +68,20 @@ public class JWTAuthContextInfoProvider {
 
     @Produces
     Optional<JWTAuthContextInfo> getOptionalContextInfo() {
-        if (!publicKeyPemEnc.isPresent()) {
+        if (!publicKeyPemEnc.isPresent() && !jwksUri.isPresent()) {
             return Optional.empty();
         }
         JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
-        try {
-            RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPemEnc.get());
-            contextInfo.setSignerKey(pk);
-        } catch (Exception e) {
-            throw new DeploymentException(e);
+        if (jwksUri.isPresent()) {
+            // Loads the key set now, at deployment, and keeps refreshing it in the background
+            contextInfo.setKeyResolver(JWKSKeyResolver.forLocation(jwksUri.get(), jwksRefreshInterval));
+        } else {
+            try {
+                RSAPublicKey pk = (RSAPublicKey) KeyUtils.decodePublicKey(publicKeyPemEnc.get());
+                contextInfo.setSignerKey(pk);
+            } catch (Exception e) {
+                throw new DeploymentException(e);
+            }
         }
         if (issuedBy != null && !issuedBy.equals("NONE")) {
             contextInfo.setIssuedBy(issuedBy);
@@ -68,6 +89,9 @@ public class JWTAuthContextInfoProvider {
         if (expGracePeriodSecs.isPresent()) {
             contextInfo.setExpGracePeriodSecs(expGracePeriodSecs.get());
         }
+        if (tokenCacheSize.isPresent()) {
+            contextInfo.setTokenCacheSize(tokenCacheSize.get());
+        }
         return Optional.of(contextInfo);
     }
     @Produces
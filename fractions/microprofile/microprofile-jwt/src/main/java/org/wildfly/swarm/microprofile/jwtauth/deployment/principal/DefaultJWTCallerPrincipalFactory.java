@@ -16,6 +16,12 @@
  */
 package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
 
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
 import org.eclipse.microprofile.jwt.Claims;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jws.AlgorithmIdentifiers;
@@ -26,9 +32,13 @@ import org.jose4j.jwt.consumer.InvalidJwtException;
 import org.jose4j.jwt.consumer.JwtConsumer;
 import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.jose4j.jwt.consumer.JwtContext;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
 
 /**
  * A default implementation of the abstract JWTCallerPrincipalFactory that uses the Keycloak token parsing classes.
+ *
+ * The JwtConsumer is built once per JWTAuthContextInfo and reused. When the context enables it, tokens which
+ * have already been verified against that JWTAuthContextInfo are served from a bounded cache until they expire.
  */
 public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory {
 
@@ -40,25 +50,25 @@ public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory
 
     @Override
     public JWTCallerPrincipal parse(final String token, final JWTAuthContextInfo authContextInfo) throws ParseException {
-        JWTCallerPrincipal principal = null;
+        Verifier verifier = verifier(authContextInfo);
 
-        try {
-            JwtConsumerBuilder builder = new JwtConsumerBuilder()
-                    .setRequireExpirationTime()
-                    .setRequireSubject()
-                    .setSkipDefaultAudienceValidation()
-                    .setExpectedIssuer(authContextInfo.getIssuedBy())
-                    .setVerificationKey(authContextInfo.getSignerKey())
-                    .setJwsAlgorithmConstraints(
-                            new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.WHITELIST,
-                                    AlgorithmIdentifiers.RSA_USING_SHA256));
-            if (authContextInfo.getExpGracePeriodSecs() > 0) {
-                builder.setAllowedClockSkewInSeconds(authContextInfo.getExpGracePeriodSecs());
-            } else {
-                builder.setEvaluationTime(NumericDate.fromSeconds(0));
+        String key = null;
+        if (verifier.cache != null) {
+            key = verifier.cacheKey(token);
+            VerifiedTokenCache.VerifiedToken cached = verifier.cache.get(key);
+            if (cached != null) {
+                try {
+                    return new DefaultJWTCallerPrincipal(token, cached.type, JwtClaims.parse(cached.claims), cached.name);
+                } catch (InvalidJwtException e) {
+                    throw new ParseException("Failed to read cached token claims", e);
+                }
             }
+        }
+
+        JWTCallerPrincipal principal = null;
 
-            JwtConsumer jwtConsumer = builder.build();
+        try {
+            JwtConsumer jwtConsumer = verifier.consumer;
             JwtContext jwtContext = jwtConsumer.process(token);
             String type = jwtContext.getJoseObjects().get(0).getHeader("typ");
             //  Validate the JWT and process it to the Claims
@@ -74,6 +84,12 @@ public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory
                 }
             }
             claimsSet.setClaim(Claims.raw_token.name(), token);
+
+            if (verifier.cache != null) {
+                // taken before the principal converts the claim values in place
+                verifier.cache.put(key, new VerifiedTokenCache.VerifiedToken(type, claimsSet.toJson(), principalName,
+                                                                             claimsSet.getExpirationTime().getValueInMillis()));
+            }
             principal = new DefaultJWTCallerPrincipal(token, type, claimsSet, principalName);
         } catch (InvalidJwtException e) {
             throw new ParseException("Failed to verify token", e);
@@ -83,4 +99,88 @@ public class DefaultJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory
 
         return principal;
     }
+
+    /**
+     * Obtain the reusable verifier for the given context, building a new one if the context is new or
+     * its verification settings have changed since the verifier was built.
+     */
+    Verifier verifier(JWTAuthContextInfo authContextInfo) {
+        Verifier verifier = this.verifiers.get(authContextInfo);
+        if (verifier == null || !verifier.matches(authContextInfo)) {
+            verifier = new Verifier(authContextInfo);
+            this.verifiers.put(authContextInfo, verifier);
+        }
+        return verifier;
+    }
+
+    private static JwtConsumer buildConsumer(JWTAuthContextInfo authContextInfo) {
+        JwtConsumerBuilder builder = new JwtConsumerBuilder()
+                .setRequireExpirationTime()
+                .setRequireSubject()
+                .setSkipDefaultAudienceValidation()
+                .setExpectedIssuer(authContextInfo.getIssuedBy())
+                .setJwsAlgorithmConstraints(
+                        new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.WHITELIST,
+                                AlgorithmIdentifiers.RSA_USING_SHA256));
+        if (authContextInfo.getKeyResolver() != null) {
+            builder.setVerificationKeyResolver(authContextInfo.getKeyResolver());
+        } else {
+            builder.setVerificationKey(authContextInfo.getSignerKey());
+        }
+        if (authContextInfo.getExpGracePeriodSecs() > 0) {
+            builder.setAllowedClockSkewInSeconds(authContextInfo.getExpGracePeriodSecs());
+        } else {
+            builder.setEvaluationTime(NumericDate.fromSeconds(0));
+        }
+        return builder.build();
+    }
+
+    // Keyed by identity; entries go away with the deployment's JWTAuthContextInfo
+    private final Map<JWTAuthContextInfo, Verifier> verifiers = Collections.synchronizedMap(new WeakHashMap<>());
+
+    static class Verifier {
+        Verifier(JWTAuthContextInfo authContextInfo) {
+            this.signerKey = authContextInfo.getSignerKey();
+            this.keyResolver = authContextInfo.getKeyResolver();
+            this.issuedBy = authContextInfo.getIssuedBy();
+            this.expGracePeriodSecs = authContextInfo.getExpGracePeriodSecs();
+            this.tokenCacheSize = authContextInfo.getTokenCacheSize();
+            this.consumer = buildConsumer(authContextInfo);
+            this.cache = (this.tokenCacheSize > 0 ? new VerifiedTokenCache(this.tokenCacheSize) : null);
+        }
+
+        /**
+         * Tokens verified against a JWKS key set are cached per version of that key set, so that nothing verified
+         * against a key which has since been removed is served once the key set is refreshed.
+         */
+        String cacheKey(String token) {
+            String key = this.cache.key(token);
+            if (this.keyResolver instanceof JWKSKeyResolver) {
+                key = ((JWKSKeyResolver) this.keyResolver).getVersion() + ":" + key;
+            }
+            return key;
+        }
+
+        boolean matches(JWTAuthContextInfo authContextInfo) {
+            return this.signerKey == authContextInfo.getSignerKey()
+                    && this.keyResolver == authContextInfo.getKeyResolver()
+                    && Objects.equals(this.issuedBy, authContextInfo.getIssuedBy())
+                    && this.expGracePeriodSecs == authContextInfo.getExpGracePeriodSecs()
+                    && this.tokenCacheSize == authContextInfo.getTokenCacheSize();
+        }
+
+        private final RSAPublicKey signerKey;
+
+        private final VerificationKeyResolver keyResolver;
+
+        private final String issuedBy;
+
+        private final int expGracePeriodSecs;
+
+        private final int tokenCacheSize;
+
+        final JwtConsumer consumer;
+
+        final VerifiedTokenCache cache;
+    }
 }
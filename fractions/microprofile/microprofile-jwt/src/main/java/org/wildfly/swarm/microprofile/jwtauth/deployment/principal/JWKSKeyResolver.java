@@ -0,0 +1,290 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jboss.logging.Logger;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.PublicJsonWebKey;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.jose4j.lang.UnresolvableKeyException;
+
+/**
+ * A VerificationKeyResolver backed by a JSON Web Key Set read from a file or an HTTP(S) URL.
+ *
+ * Keys are selected by the kid header of the token. The key set is refreshed in the background at a jittered
+ * interval, and early when a token names an unknown kid, but request threads only ever read the last loaded
+ * key set and are never blocked on a fetch.
+ *
+ * Resolvers are shared between the deployments using the same location, and stop refreshing once the last of
+ * them has been undeployed, see {@link #release(ClassLoader)}.
+ */
+public class JWKSKeyResolver implements VerificationKeyResolver {
+    private static Logger log = Logger.getLogger(JWKSKeyResolver.class);
+
+    /**
+     * Minimum time between two refreshes triggered by unknown key ids
+     */
+    private static final long MIN_FORCED_REFRESH_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mpjwt-jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, JWKSKeyResolver> RESOLVERS = new HashMap<>();
+
+    /**
+     * Obtain the resolver shared by every context using the given key set location, on behalf of the deployment
+     * whose class loader is the thread context class loader. The first call for a location performs the initial load
+     * on the calling thread, so it should happen at deployment rather than request time.
+     *
+     * @param location - a file path, or a file:, http: or https: URL of the JWKS document
+     * @param refreshIntervalSecs - the nominal number of seconds between refreshes
+     * @return the shared resolver
+     */
+    public static JWKSKeyResolver forLocation(String location, int refreshIntervalSecs) {
+        ClassLoader owner = Thread.currentThread().getContextClassLoader();
+        synchronized (RESOLVERS) {
+            JWKSKeyResolver resolver = RESOLVERS.computeIfAbsent(location + "#" + refreshIntervalSecs, k -> {
+                JWKSKeyResolver created = new JWKSKeyResolver(location, refreshIntervalSecs);
+                created.start();
+                return created;
+            });
+            resolver.owners.put(owner, Boolean.TRUE);
+            return resolver;
+        }
+    }
+
+    /**
+     * Release the resolvers obtained on behalf of a deployment, stopping and forgetting those no other
+     * deployment still uses.
+     *
+     * @param owner - the class loader of the deployment going away
+     */
+    public static void release(ClassLoader owner) {
+        synchronized (RESOLVERS) {
+            RESOLVERS.values().removeIf(resolver -> {
+                resolver.owners.remove(owner);
+                if (resolver.owners.isEmpty()) {
+                    resolver.stop();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    JWKSKeyResolver(String location, int refreshIntervalSecs) {
+        this.url = toURL(location);
+        this.refreshIntervalMillis = TimeUnit.SECONDS.toMillis(Math.max(1, refreshIntervalSecs));
+    }
+
+    /**
+     * Perform the initial load and schedule the background refreshes.
+     */
+    void start() {
+        refresh();
+        scheduleRefresh(jitter(this.refreshIntervalMillis));
+    }
+
+    /**
+     * Cancel the background refreshes.
+     */
+    void stop() {
+        this.stopped = true;
+        ScheduledFuture<?> next = this.nextRefresh;
+        if (next != null) {
+            next.cancel(false);
+        }
+    }
+
+    boolean isStopped() {
+        return this.stopped;
+    }
+
+    @Override
+    public Key resolveKey(JsonWebSignature jws, List<JsonWebStructure> nestingContext) throws UnresolvableKeyException {
+        Map<String, PublicKey> current = this.keys;
+        String kid = jws.getKeyIdHeaderValue();
+
+        PublicKey key = null;
+        if (kid != null) {
+            key = current.get(kid);
+        } else if (current.size() == 1) {
+            key = current.values().iterator().next();
+        }
+        if (key == null) {
+            // Possibly a newly rotated key; fetch in the background and fail this token
+            requestRefresh();
+            throw new UnresolvableKeyException("No JWKS key found for kid: " + kid + " in " + this.url);
+        }
+        return key;
+    }
+
+    /**
+     * @return the key ids of the currently loaded key set
+     */
+    public Set<String> getKeyIds() {
+        return this.keys.keySet();
+    }
+
+    /**
+     * @return a number which changes whenever a refresh loads a key set different from the previous one, so that
+     * anything derived from a verification can tell which keys it was made against
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Load the key set now, keeping the previous keys if the load fails.
+     *
+     * @return true if the key set was loaded
+     */
+    boolean refresh() {
+        try {
+            JsonWebKeySet jwks = new JsonWebKeySet(read(this.url));
+            Map<String, PublicKey> loaded = new HashMap<>();
+            int anonymous = 0;
+            for (JsonWebKey jwk : jwks.getJsonWebKeys()) {
+                if (!(jwk instanceof PublicJsonWebKey)) {
+                    continue;
+                }
+                String kid = jwk.getKeyId();
+                loaded.put(kid != null ? kid : "#" + anonymous++, ((PublicJsonWebKey) jwk).getPublicKey());
+            }
+            if (!loaded.equals(this.keys)) {
+                this.keys = Collections.unmodifiableMap(loaded);
+                ++this.version;
+            }
+            log.debugf("Loaded JWKS keys %s from %s", loaded.keySet(), this.url);
+            return true;
+        } catch (IOException | JoseException | RuntimeException e) {
+            log.warnf(e, "Failed to load JWKS from %s", this.url);
+            return false;
+        }
+    }
+
+    private void requestRefresh() {
+        if (System.currentTimeMillis() - this.lastForcedRefresh < MIN_FORCED_REFRESH_MILLIS) {
+            return;
+        }
+        if (!this.stopped && this.forcedRefreshPending.compareAndSet(false, true)) {
+            this.lastForcedRefresh = System.currentTimeMillis();
+            REFRESHER.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    this.forcedRefreshPending.set(false);
+                }
+            });
+        }
+    }
+
+    private void scheduleRefresh(long delayMillis) {
+        if (this.stopped) {
+            return;
+        }
+        this.nextRefresh = REFRESHER.schedule(() -> {
+            boolean loaded = refresh();
+            // Retry sooner after a failed load, but never more often than the configured interval
+            long next = loaded ? this.refreshIntervalMillis : Math.min(this.refreshIntervalMillis, MIN_FORCED_REFRESH_MILLIS * 3);
+            scheduleRefresh(jitter(next));
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Spread refreshes over +/- 10% of the interval so that instances do not hit the key server in lockstep.
+     */
+    private static long jitter(long intervalMillis) {
+        long spread = intervalMillis / 10;
+        return intervalMillis - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1);
+    }
+
+    private static URL toURL(String location) {
+        try {
+            if (location.startsWith("http:") || location.startsWith("https:") || location.startsWith("file:")) {
+                return new URL(location);
+            }
+            return new File(location).toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid JWKS location: " + location, e);
+        }
+    }
+
+    private static String read(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(5000);
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, len);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private final URL url;
+
+    private final long refreshIntervalMillis;
+
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+    private volatile long lastForcedRefresh;
+
+    private final AtomicBoolean forcedRefreshPending = new AtomicBoolean();
+
+    private volatile long version;
+
+    private volatile boolean stopped;
+
+    private volatile ScheduledFuture<?> nextRefresh;
+
+    // Guarded by RESOLVERS; weak so that a deployment which is never released does not stay reachable from here
+    private final Map<ClassLoader, Boolean> owners = new WeakHashMap<>();
+}
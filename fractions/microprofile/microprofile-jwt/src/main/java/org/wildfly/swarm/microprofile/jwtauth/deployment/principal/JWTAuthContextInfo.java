@@ -18,16 +18,28 @@ package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
 
 import java.security.interfaces.RSAPublicKey;
 
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+
 /**
- * The public key and expected issuer needed to validate a token.
+ * The public key and expected issuer needed to validate a token. When a key resolver, such as a
+ * {@link JWKSKeyResolver}, is set it takes precedence over the single signer key.
  */
 public class JWTAuthContextInfo {
+    /**
+     * The default maximum number of verified tokens remembered per context; 0, the cache is off unless configured
+     */
+    public static final int DEFAULT_TOKEN_CACHE_SIZE = 0;
+
     private RSAPublicKey signerKey;
 
     private String issuedBy;
 
     private int expGracePeriodSecs = 60;
 
+    private int tokenCacheSize = DEFAULT_TOKEN_CACHE_SIZE;
+
+    private VerificationKeyResolver keyResolver;
+
     public JWTAuthContextInfo() {
     }
 
@@ -40,6 +52,8 @@ public class JWTAuthContextInfo {
         this.signerKey = orig.signerKey;
         this.issuedBy = orig.issuedBy;
         this.expGracePeriodSecs = orig.expGracePeriodSecs;
+        this.tokenCacheSize = orig.tokenCacheSize;
+        this.keyResolver = orig.keyResolver;
     }
 
     public RSAPublicKey getSignerKey() {
@@ -65,4 +79,20 @@ public class JWTAuthContextInfo {
     public void setExpGracePeriodSecs(int expGracePeriodSecs) {
         this.expGracePeriodSecs = expGracePeriodSecs;
     }
+
+    public int getTokenCacheSize() {
+        return tokenCacheSize;
+    }
+
+    public void setTokenCacheSize(int tokenCacheSize) {
+        this.tokenCacheSize = tokenCacheSize;
+    }
+
+    public VerificationKeyResolver getKeyResolver() {
+        return keyResolver;
+    }
+
+    public void setKeyResolver(VerificationKeyResolver keyResolver) {
+        this.keyResolver = keyResolver;
+    }
 }
@@ -0,0 +1,136 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, least-recently-used cache of already verified tokens, keyed by a SHA-256 hash of the raw token
+ * so that the token itself is not retained. Entries are evicted once the token reaches its exp time.
+ *
+ * Only the immutable result of the verification is kept, each hit builds a principal of its own so that no
+ * claims object is shared between requests.
+ */
+class VerifiedTokenCache {
+
+    VerifiedTokenCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    VerifiedTokenCache(int maxSize, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Look up a previously verified token.
+     *
+     * @param key - the key of the raw token, see {@link #key(String)}
+     * @return the verified token, or null if absent or expired
+     */
+    synchronized VerifiedToken get(String key) {
+        VerifiedToken entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= this.clock.getAsLong()) {
+            this.entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    synchronized void put(String key, VerifiedToken token) {
+        if (token.expiresAt <= this.clock.getAsLong()) {
+            return;
+        }
+        this.entries.put(key, token);
+        if (++this.puts % PURGE_INTERVAL == 0) {
+            purgeExpired();
+        }
+    }
+
+    synchronized void clear() {
+        this.entries.clear();
+    }
+
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    String key(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void purgeExpired() {
+        long now = this.clock.getAsLong();
+        Iterator<VerifiedToken> iter = this.entries.values().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().expiresAt <= now) {
+                iter.remove();
+            }
+        }
+    }
+
+    private static final int PURGE_INTERVAL = 256;
+
+    private final int maxSize;
+
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, VerifiedToken> entries;
+
+    private long puts;
+
+    /**
+     * What was learnt from verifying a token: its header type, its claims as JSON and the principal name.
+     */
+    static final class VerifiedToken {
+        VerifiedToken(String type, String claims, String name, long expiresAt) {
+            this.type = type;
+            this.claims = claims;
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+
+        final String type;
+
+        final String claims;
+
+        final String name;
+
+        final long expiresAt;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.jwtauth.deployment.auth.KeyUtils;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DefaultJWTCallerPrincipalFactoryTest {
+
+    @Before
+    public void setUp() throws Exception {
+        this.keyPair = KeyUtils.generateKeyPair(2048);
+
+        JwtClaims claims = new JwtClaims();
+        claims.setIssuer(ISSUER);
+        claims.setSubject("24400320");
+        claims.setClaim("upn", "jdoe@example.com");
+        claims.setClaim("groups", Arrays.asList("Echoer", "Tester"));
+        claims.setIssuedAtToNow();
+        claims.setExpirationTimeMinutesInTheFuture(5);
+
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(this.keyPair.getPrivate());
+        jws.setHeader("typ", "JWT");
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        this.token = jws.getCompactSerialization();
+    }
+
+    @Test
+    public void testCacheIsOffByDefault() throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo((RSAPublicKey) this.keyPair.getPublic(), ISSUER);
+
+        assertThat(contextInfo.getTokenCacheSize()).isEqualTo(0);
+        assertThat(this.factory.verifier(contextInfo).cache).isNull();
+        assertThat(this.factory.parse(this.token, contextInfo).getName()).isEqualTo("jdoe@example.com");
+    }
+
+    @Test
+    public void testConsumerIsReused() throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo((RSAPublicKey) this.keyPair.getPublic(), ISSUER);
+        this.factory.parse(this.token, contextInfo);
+        DefaultJWTCallerPrincipalFactory.Verifier verifier = this.factory.verifier(contextInfo);
+
+        this.factory.parse(this.token, contextInfo);
+        assertThat(this.factory.verifier(contextInfo)).isSameAs(verifier);
+        assertThat(this.factory.verifier(contextInfo).consumer).isSameAs(verifier.consumer);
+
+        // changing a verification setting of the context rebuilds the consumer
+        contextInfo.setExpGracePeriodSecs(30);
+        assertThat(this.factory.verifier(contextInfo)).isNotSameAs(verifier);
+    }
+
+    @Test
+    public void testCachedPrincipalsAreNotShared() throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo((RSAPublicKey) this.keyPair.getPublic(), ISSUER);
+        contextInfo.setTokenCacheSize(10);
+
+        JWTCallerPrincipal first = this.factory.parse(this.token, contextInfo);
+        JWTCallerPrincipal second = this.factory.parse(this.token, contextInfo);
+
+        assertThat(this.factory.verifier(contextInfo).cache.size()).isEqualTo(1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo(first.getName());
+        assertThat(second.getGroups()).isEqualTo(first.getGroups());
+        assertThat(second.getRawToken()).isEqualTo(this.token);
+        assertThat(second.getExpirationTime()).isEqualTo(first.getExpirationTime());
+    }
+
+    @Test(expected = ParseException.class)
+    public void testCacheIsNotConsultedForOtherKeys() throws Exception {
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo((RSAPublicKey) this.keyPair.getPublic(), ISSUER);
+        contextInfo.setTokenCacheSize(10);
+        this.factory.parse(this.token, contextInfo);
+
+        JWTAuthContextInfo otherKey = new JWTAuthContextInfo((RSAPublicKey) KeyUtils.generateKeyPair(2048).getPublic(), ISSUER);
+        otherKey.setTokenCacheSize(10);
+        this.factory.parse(this.token, otherKey);
+    }
+
+    private static final String ISSUER = "https://server.example.com";
+
+    private final DefaultJWTCallerPrincipalFactory factory = new DefaultJWTCallerPrincipalFactory();
+
+    private KeyPair keyPair;
+
+    private String token;
+}
@@ -0,0 +1,233 @@
+/**
+ *
+ *   Copyright 2017 Red Hat, Inc, and individual contributors.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import org.jose4j.jwk.JsonWebKey;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.lang.UnresolvableKeyException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.jwtauth.deployment.auth.KeyUtils;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Exercises the JWKS resolver against a local HTTP stand-in for the key server.
+ */
+public class JWKSKeyResolverTest {
+
+    @Before
+    public void startKeyServer() throws Exception {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/jwks", exchange -> {
+            this.requests.incrementAndGet();
+            byte[] body = this.jwks.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        this.server.start();
+    }
+
+    @After
+    public void stopKeyServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testSelectsKeyByKid() throws Exception {
+        KeyPair first = KeyUtils.generateKeyPair(2048);
+        KeyPair second = KeyUtils.generateKeyPair(2048);
+        serve(jwk("first", first), jwk("second", second));
+
+        JWKSKeyResolver resolver = new JWKSKeyResolver(location(), 600);
+        resolver.start();
+
+        assertThat(resolver.getKeyIds()).containsOnly("first", "second");
+        assertThat(resolver.resolveKey(jws("second"), Collections.emptyList())).isEqualTo(second.getPublic());
+        assertThat(resolver.resolveKey(jws("first"), Collections.emptyList())).isEqualTo(first.getPublic());
+    }
+
+    @Test
+    public void testPicksUpRotatedKeys() throws Exception {
+        KeyPair old = KeyUtils.generateKeyPair(2048);
+        KeyPair rotated = KeyUtils.generateKeyPair(2048);
+        serve(jwk("old", old));
+
+        JWKSKeyResolver resolver = new JWKSKeyResolver(location(), 600);
+        resolver.start();
+        assertThat(resolver.getKeyIds()).containsOnly("old");
+
+        serve(jwk("rotated", rotated));
+        assertThat(resolver.refresh()).isTrue();
+
+        assertThat(resolver.getKeyIds()).containsOnly("rotated");
+        assertThat(resolver.resolveKey(jws("rotated"), Collections.emptyList())).isEqualTo(rotated.getPublic());
+    }
+
+    @Test
+    public void testUnknownKidFailsWithoutFetchingOnCaller() throws Exception {
+        KeyPair known = KeyUtils.generateKeyPair(2048);
+        serve(jwk("known", known));
+
+        JWKSKeyResolver resolver = new JWKSKeyResolver(location(), 600);
+        resolver.start();
+        int loads = this.requests.get();
+
+        // The refresh triggered by the miss runs in the background; the caller fails straight away
+        long start = System.currentTimeMillis();
+        try {
+            resolver.resolveKey(jws("unknown"), Collections.emptyList());
+            fail("Expected an unresolvable key");
+        } catch (UnresolvableKeyException e) {
+            // expected
+        }
+        assertThat(System.currentTimeMillis() - start).isLessThan(1000);
+
+        // A second miss straight after is rate limited and does not trigger another fetch
+        try {
+            resolver.resolveKey(jws("unknown"), Collections.emptyList());
+            fail("Expected an unresolvable key");
+        } catch (UnresolvableKeyException e) {
+            // expected
+        }
+        Thread.sleep(500);
+        assertThat(this.requests.get() - loads).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    public void testKeepsPreviousKeysWhenLoadFails() throws Exception {
+        KeyPair known = KeyUtils.generateKeyPair(2048);
+        serve(jwk("known", known));
+
+        JWKSKeyResolver resolver = new JWKSKeyResolver(location(), 600);
+        resolver.start();
+
+        this.jwks = "not json";
+        assertThat(resolver.refresh()).isFalse();
+        assertThat(resolver.resolveKey(jws("known"), Collections.emptyList())).isEqualTo(known.getPublic());
+    }
+
+    @Test
+    public void testVersionChangesOnlyWithKeySet() throws Exception {
+        KeyPair known = KeyUtils.generateKeyPair(2048);
+        serve(jwk("known", known));
+
+        JWKSKeyResolver resolver = new JWKSKeyResolver(location(), 600);
+        resolver.start();
+        long version = resolver.getVersion();
+
+        assertThat(resolver.refresh()).isTrue();
+        assertThat(resolver.getVersion()).isEqualTo(version);
+
+        serve(jwk("known", known), jwk("added", KeyUtils.generateKeyPair(2048)));
+        assertThat(resolver.refresh()).isTrue();
+        assertThat(resolver.getVersion()).isNotEqualTo(version);
+    }
+
+    @Test
+    public void testCachedTokensAreKeyedByKeySetVersion() throws Exception {
+        serve(jwk("known", KeyUtils.generateKeyPair(2048)));
+
+        JWKSKeyResolver resolver = new JWKSKeyResolver(location(), 600);
+        resolver.start();
+        JWTAuthContextInfo contextInfo = new JWTAuthContextInfo();
+        contextInfo.setKeyResolver(resolver);
+        contextInfo.setTokenCacheSize(10);
+        DefaultJWTCallerPrincipalFactory.Verifier verifier = new DefaultJWTCallerPrincipalFactory().verifier(contextInfo);
+        String key = verifier.cacheKey("token");
+
+        serve(jwk("rotated", KeyUtils.generateKeyPair(2048)));
+        resolver.refresh();
+
+        assertThat(verifier.cacheKey("token")).isNotEqualTo(key);
+    }
+
+    @Test
+    public void testReleaseStopsResolversNoLongerUsed() throws Exception {
+        serve(jwk("known", KeyUtils.generateKeyPair(2048)));
+        ClassLoader first = new ClassLoader() { };
+        ClassLoader second = new ClassLoader() { };
+
+        JWKSKeyResolver resolver = forLocation(first);
+        assertThat(forLocation(second)).isSameAs(resolver);
+
+        JWKSKeyResolver.release(first);
+        assertThat(resolver.isStopped()).isFalse();
+        assertThat(forLocation(second)).isSameAs(resolver);
+
+        JWKSKeyResolver.release(second);
+        assertThat(resolver.isStopped()).isTrue();
+        JWKSKeyResolver replacement = forLocation(first);
+        assertThat(replacement).isNotSameAs(resolver);
+        JWKSKeyResolver.release(first);
+    }
+
+    private JWKSKeyResolver forLocation(ClassLoader owner) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(owner);
+        try {
+            return JWKSKeyResolver.forLocation(location(), 600);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private String location() {
+        return "http://localhost:" + this.server.getAddress().getPort() + "/jwks";
+    }
+
+    private void serve(JsonWebKey... keys) {
+        this.jwks = new JsonWebKeySet(keys).toJson();
+    }
+
+    private static JsonWebKey jwk(String kid, KeyPair keyPair) {
+        RsaJsonWebKey jwk = new RsaJsonWebKey((RSAPublicKey) keyPair.getPublic());
+        jwk.setKeyId(kid);
+        return jwk;
+    }
+
+    private static JsonWebSignature jws(String kid) {
+        JsonWebSignature jws = new JsonWebSignature();
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        jws.setKeyIdHeaderValue(kid);
+        return jws;
+    }
+
+    private HttpServer server;
+
+    private volatile String jwks;
+
+    private final AtomicInteger requests = new AtomicInteger();
+}
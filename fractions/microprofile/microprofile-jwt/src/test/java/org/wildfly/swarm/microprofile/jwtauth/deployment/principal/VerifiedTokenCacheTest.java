@@ -0,0 +1,96 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.jwtauth.deployment.principal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class VerifiedTokenCacheTest {
+
+    @Test
+    public void testHit() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, this.clock::get);
+        String key = cache.key("token");
+        cache.put(key, token("jdoe", 2000));
+
+        assertThat(cache.get(key).name).isEqualTo("jdoe");
+        assertThat(cache.get(cache.key("other"))).isNull();
+    }
+
+    @Test
+    public void testKeyDoesNotRetainToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, this.clock::get);
+
+        assertThat(cache.key("token")).isEqualTo(cache.key("token"));
+        assertThat(cache.key("token")).excludes("token");
+    }
+
+    @Test
+    public void testExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, this.clock::get);
+        String key = cache.key("token");
+        cache.put(key, token("jdoe", 2000));
+
+        this.clock.set(1999);
+        assertThat(cache.get(key)).isNotNull();
+
+        this.clock.set(2000);
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, this.clock::get);
+        cache.put(cache.key("token"), token("jdoe", 1000));
+
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, this.clock::get);
+        cache.put(cache.key("a"), token("a", 2000));
+        cache.put(cache.key("b"), token("b", 2000));
+
+        // touching a leaves b as the eldest entry
+        assertThat(cache.get(cache.key("a"))).isNotNull();
+        cache.put(cache.key("c"), token("c", 2000));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(cache.key("a"))).isNotNull();
+        assertThat(cache.get(cache.key("b"))).isNull();
+        assertThat(cache.get(cache.key("c"))).isNotNull();
+    }
+
+    @Test
+    public void testClear() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, this.clock::get);
+        cache.put(cache.key("a"), token("a", 2000));
+        cache.clear();
+
+        assertThat(cache.get(cache.key("a"))).isNull();
+    }
+
+    private static VerifiedTokenCache.VerifiedToken token(String name, long expiresAt) {
+        return new VerifiedTokenCache.VerifiedToken("JWT", "{}", name, expiresAt);
+    }
+
+    private final AtomicLong clock = new AtomicLong(1000);
+}
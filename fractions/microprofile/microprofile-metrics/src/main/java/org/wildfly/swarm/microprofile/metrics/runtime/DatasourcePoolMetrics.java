@@ -0,0 +1,301 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile.metrics.runtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metric;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.logging.Logger;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INCLUDE_RUNTIME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_NAMES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+/**
+ * Connection pool statistics of the datasources, read from the management model and published as
+ * vendor metrics named {@code datasource.<name>.<statistic>}.
+ *
+ * <p>Both the datasources of the subsystem and those of the deployments are published, as long as
+ * they have {@code statistics-enabled}; pools keep no statistics otherwise. Registering again picks up
+ * the datasources added since, such as those of a new deployment. One read of a pool's statistics
+ * serves all of its metrics for up to a second, so a scrape costs one management operation per
+ * datasource.</p>
+ */
+public class DatasourcePoolMetrics {
+
+    private static Logger LOG = Logger.getLogger("org.wildfly.swarm.microprofile.metrics");
+
+    static final String[] DATASOURCE_TYPES = {"data-source", "xa-data-source"};
+
+    static final long MAX_AGE_MILLIS = 1000;
+
+    /**
+     * @param executor Executes a management operation, returning its result, or {@code null} if it failed.
+     */
+    public DatasourcePoolMetrics(Function<ModelNode, ModelNode> executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Publish the pools not published yet, of the subsystem and of every deployment.
+     */
+    public synchronized void register(MetricRegistry registry, List<Tag> globalTags) {
+        register(registry, globalTags, null);
+
+        ModelNode op = new ModelNode();
+        op.get(OP).set(READ_CHILDREN_NAMES_OPERATION);
+        op.get(OP_ADDR).setEmptyList();
+        op.get(CHILD_TYPE).set(DEPLOYMENT);
+
+        ModelNode deployments = this.executor.apply(op);
+        if (deployments != null && deployments.isDefined()) {
+            for (ModelNode each : deployments.asList()) {
+                register(registry, globalTags, each.asString());
+            }
+        }
+    }
+
+    /**
+     * Stop publishing the pools of a deployment.
+     */
+    public synchronized void unregister(MetricRegistry registry, String deployment) {
+        Iterator<PoolStatistics> pools = this.pools.values().iterator();
+        while (pools.hasNext()) {
+            PoolStatistics each = pools.next();
+            if (deployment.equals(each.deployment)) {
+                each.metricNames.forEach(registry::remove);
+                pools.remove();
+            }
+        }
+    }
+
+    private void register(MetricRegistry registry, List<Tag> globalTags, String deployment) {
+        for (String type : DATASOURCE_TYPES) {
+            ModelNode op = new ModelNode();
+            op.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
+            op.get(OP_ADDR).set(address(deployment));
+            op.get(CHILD_TYPE).set(type);
+
+            ModelNode datasources = this.executor.apply(op);
+            if (datasources == null || !datasources.isDefined()) {
+                continue;
+            }
+
+            for (Property each : datasources.asPropertyList()) {
+                if (!isStatisticsEnabled(each.getValue().get("statistics-enabled"))) {
+                    LOG.debug("Not publishing pool metrics of datasource " + each.getName() + " without statistics-enabled");
+                    continue;
+                }
+                PoolStatistics pool = new PoolStatistics(deployment, type, each.getName());
+                if (this.pools.containsKey(pool.key())) {
+                    continue;
+                }
+                if (registry.getNames().contains(metricName(each.getName(), Statistic.ACTIVE))) {
+                    LOG.debug("Not publishing pool metrics of datasource " + each.getName() + ", another one of that name is published");
+                    continue;
+                }
+                for (Statistic statistic : Statistic.values()) {
+                    ExtendedMetadata em = new ExtendedMetadata(metricName(each.getName(), statistic),
+                                                               each.getName() + " " + statistic.displayName,
+                                                               statistic.description,
+                                                               statistic.type,
+                                                               statistic.unit);
+                    em.processTags(globalTags);
+                    registry.register(em.getName(), metric(pool, statistic), em);
+                    pool.metricNames.add(em.getName());
+                }
+                this.pools.put(pool.key(), pool);
+            }
+        }
+    }
+
+    private static String metricName(String datasource, Statistic statistic) {
+        return "datasource." + datasource + "." + statistic.metric;
+    }
+
+    private static ModelNode address(String deployment) {
+        ModelNode address = new ModelNode();
+        if (deployment != null) {
+            address.add(DEPLOYMENT, deployment);
+        }
+        address.add(SUBSYSTEM, "datasources");
+        return address;
+    }
+
+    private static boolean isStatisticsEnabled(ModelNode node) {
+        if (node.getType() == ModelType.EXPRESSION) {
+            node = node.resolve();
+        }
+        return node.isDefined() && node.asBoolean();
+    }
+
+    private static Metric metric(PoolStatistics pool, Statistic statistic) {
+        if (statistic.type == MetricType.COUNTER) {
+            return new PoolCounter(pool, statistic.attribute);
+        }
+        return (Gauge<Long>) () -> pool.get(statistic.attribute);
+    }
+
+    private final Function<ModelNode, ModelNode> executor;
+
+    private final Map<String, PoolStatistics> pools = new HashMap<>();
+
+    private enum Statistic {
+        ACTIVE("ActiveCount", "activeCount", "Active Connections",
+               "The number of open connections, in use or available in the pool", MetricType.GAUGE, MetricUnits.NONE),
+        AVAILABLE("AvailableCount", "availableCount", "Available Connections",
+                  "The number of connections the pool can still hand out", MetricType.GAUGE, MetricUnits.NONE),
+        IDLE("IdleCount", "idleCount", "Idle Connections",
+             "The number of open connections not in use", MetricType.GAUGE, MetricUnits.NONE),
+        IN_USE("InUseCount", "inUseCount", "Connections In Use",
+               "The number of connections in use by the application", MetricType.GAUGE, MetricUnits.NONE),
+        AVERAGE_WAIT("AverageBlockingTime", "averageWaitTime", "Average Wait Time",
+                     "The average time spent waiting for a connection", MetricType.GAUGE, MetricUnits.MILLISECONDS),
+        MAX_WAIT("MaxWaitTime", "maxWaitTime", "Maximum Wait Time",
+                 "The longest time spent waiting for a connection", MetricType.GAUGE, MetricUnits.MILLISECONDS),
+        AVERAGE_CREATION("AverageCreationTime", "averageCreationTime", "Average Creation Time",
+                         "The average time spent opening a connection", MetricType.GAUGE, MetricUnits.MILLISECONDS),
+        MAX_CREATION("MaxCreationTime", "maxCreationTime", "Maximum Creation Time",
+                     "The longest time spent opening a connection", MetricType.GAUGE, MetricUnits.MILLISECONDS),
+        WAITS("WaitCount", "waitCount", "Waits",
+              "The number of requests that had to wait for a connection", MetricType.COUNTER, MetricUnits.NONE),
+        BLOCKING_FAILURES("BlockingFailureCount", "blockingFailureCount", "Blocking Failures",
+                          "The number of requests that failed to get a connection in time", MetricType.COUNTER, MetricUnits.NONE),
+        TIMEOUTS("TimedOut", "timedOut", "Idle Timeouts",
+                 "The number of connections closed after their idle timeout", MetricType.COUNTER, MetricUnits.NONE),
+        CREATED("CreatedCount", "createdCount", "Connections Created",
+                "The number of connections opened", MetricType.COUNTER, MetricUnits.NONE),
+        DESTROYED("DestroyedCount", "destroyedCount", "Connections Destroyed",
+                  "The number of connections closed", MetricType.COUNTER, MetricUnits.NONE);
+
+        Statistic(String attribute, String metric, String displayName, String description, MetricType type, String unit) {
+            this.attribute = attribute;
+            this.metric = metric;
+            this.displayName = displayName;
+            this.description = description;
+            this.type = type;
+            this.unit = unit;
+        }
+
+        private final String attribute;
+
+        private final String metric;
+
+        private final String displayName;
+
+        private final String description;
+
+        private final MetricType type;
+
+        private final String unit;
+    }
+
+    private class PoolStatistics {
+
+        PoolStatistics(String deployment, String type, String name) {
+            this.deployment = deployment;
+            this.op = new ModelNode();
+            this.op.get(OP).set(READ_RESOURCE_OPERATION);
+            this.op.get(OP_ADDR).set(address(deployment).add(type, name).add("statistics", "pool"));
+            this.op.get(INCLUDE_RUNTIME).set(true);
+        }
+
+        String key() {
+            return this.op.get(OP_ADDR).asString();
+        }
+
+        synchronized long get(String attribute) {
+            long now = System.currentTimeMillis();
+            if (this.statistics == null || now - this.readAt > MAX_AGE_MILLIS) {
+                this.statistics = executor.apply(this.op);
+                this.readAt = now;
+            }
+            if (this.statistics == null) {
+                return 0;
+            }
+            ModelNode value = this.statistics.get(attribute);
+            return value.isDefined() ? value.asLong() : 0;
+        }
+
+        private final String deployment;
+
+        private final ModelNode op;
+
+        private final List<String> metricNames = new ArrayList<>();
+
+        private ModelNode statistics;
+
+        private long readAt;
+    }
+
+    private static class PoolCounter implements Counter {
+
+        private static final String MUST_NOT_BE_CALLED = "Must not be called";
+
+        PoolCounter(PoolStatistics pool, String attribute) {
+            this.pool = pool;
+            this.attribute = attribute;
+        }
+
+        @Override
+        public void inc() {
+            throw new IllegalStateException(MUST_NOT_BE_CALLED);
+        }
+
+        @Override
+        public void inc(long n) {
+            throw new IllegalStateException(MUST_NOT_BE_CALLED);
+        }
+
+        @Override
+        public void dec() {
+            throw new IllegalStateException(MUST_NOT_BE_CALLED);
+        }
+
+        @Override
+        public void dec(long n) {
+            throw new IllegalStateException(MUST_NOT_BE_CALLED);
+        }
+
+        @Override
+        public long getCount() {
+            return this.pool.get(this.attribute);
+        }
+
+        private final PoolStatistics pool;
+
+        private final String attribute;
+    }
+}
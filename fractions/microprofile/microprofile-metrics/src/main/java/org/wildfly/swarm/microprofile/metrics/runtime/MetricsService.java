@@ -17,8 +17,15 @@
 package org.wildfly.swarm.microprofile.metrics.runtime;
 
 import org.eclipse.microprofile.metrics.Metric;
+import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.jboss.as.controller.ModelController;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.as.controller.notification.NotificationFilter;
+import org.jboss.as.controller.notification.NotificationHandler;
 import org.jboss.as.server.ServerEnvironment;
+import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.Service;
@@ -30,10 +37,18 @@ import org.jboss.msc.value.InjectedValue;
 import org.wildfly.swarm.microprofile.metrics.runtime.mbean.MGaugeImpl;
 import org.wildfly.swarm.microprofile.metrics.runtime.mbean.MCounterImpl;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT_DEPLOYED_NOTIFICATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT_UNDEPLOYED_NOTIFICATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.RESULT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
 /**
  * @author Heiko W. Rupp
  */
@@ -43,15 +58,63 @@ public class MetricsService implements Service<MetricsService> {
 
     public static final ServiceName SERVICE_NAME = ServiceName.of("swarm", "mp-metrics");
 
+    private static final PathAddress DEPLOYMENTS = PathAddress.pathAddress(PathElement.pathElement(DEPLOYMENT));
+
+    private static final NotificationFilter DEPLOYMENT_NOTIFICATIONS = (notification) ->
+            DEPLOYMENT_DEPLOYED_NOTIFICATION.equals(notification.getType())
+                    || DEPLOYMENT_UNDEPLOYED_NOTIFICATION.equals(notification.getType());
+
     private final InjectedValue<ServerEnvironment> serverEnvironmentValue = new InjectedValue<ServerEnvironment>();
     private final InjectedValue<ModelController> modelControllerValue = new InjectedValue<ModelController>();
 
+    private volatile NotificationHandler deploymentHandler;
+
 
     @Override
     public void start(StartContext context) throws StartException {
         initBaseAndVendorConfiguration();
 
-        LOG.info("MicroProfile-Metrics started");
+        // reading the model is kept off the MSC thread
+        context.asynchronous();
+        context.execute(() -> {
+            try {
+                registerDatasourcePools();
+                LOG.info("MicroProfile-Metrics started");
+            } finally {
+                context.complete();
+            }
+        });
+    }
+
+    /**
+     * Publish the connection pool statistics of the datasources as vendor metrics, following the
+     * deployments as they come and go.
+     */
+    private void registerDatasourcePools() {
+        //noinspection deprecation
+        ModelControllerClient client = this.modelControllerValue.getValue().createClient(Runnable::run);
+        List<Tag> globalTags = convertToTags(System.getenv("MP_METRICS_TAGS"));
+        MetricRegistry registry = MetricRegistryFactory.getVendorRegistry();
+
+        DatasourcePoolMetrics pools = new DatasourcePoolMetrics((op) -> {
+            try {
+                ModelNode response = client.execute(op);
+                return SUCCESS.equals(response.get(OUTCOME).asString()) ? response.get(RESULT) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        });
+        pools.register(registry, globalTags);
+
+        this.deploymentHandler = (notification) -> {
+            if (DEPLOYMENT_DEPLOYED_NOTIFICATION.equals(notification.getType())) {
+                pools.register(registry, globalTags);
+            } else {
+                pools.unregister(registry, notification.getSource().getLastElement().getValue());
+            }
+        };
+        this.modelControllerValue.getValue().getNotificationRegistry()
+                .registerNotificationHandler(DEPLOYMENTS, this.deploymentHandler, DEPLOYMENT_NOTIFICATIONS);
     }
 
     /**
@@ -116,6 +179,11 @@ public class MetricsService implements Service<MetricsService> {
 
     @Override
     public void stop(StopContext context) {
+        if (this.deploymentHandler != null) {
+            this.modelControllerValue.getValue().getNotificationRegistry()
+                    .unregisterNotificationHandler(DEPLOYMENTS, this.deploymentHandler, DEPLOYMENT_NOTIFICATIONS);
+            this.deploymentHandler = null;
+        }
     }
 
     @Override
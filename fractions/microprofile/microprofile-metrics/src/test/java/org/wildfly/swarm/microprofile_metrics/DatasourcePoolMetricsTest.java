@@ -0,0 +1,123 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.microprofile_metrics;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.wildfly.swarm.microprofile.metrics.runtime.DatasourcePoolMetrics;
+import org.wildfly.swarm.microprofile.metrics.runtime.MetricsRegistryImpl;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DatasourcePoolMetricsTest {
+
+    @Test
+    public void testRegisterAndRead() {
+        AtomicInteger statisticsReads = new AtomicInteger();
+
+        DatasourcePoolMetrics metrics = new DatasourcePoolMetrics((op) -> {
+            String name = op.get("operation").asString();
+            if (name.equals("read-children-names")) {
+                return new ModelNode().setEmptyList();
+            }
+            if (name.equals("read-children-resources")) {
+                if (!op.get("child-type").asString().equals("data-source")) {
+                    return null;
+                }
+                ModelNode result = new ModelNode();
+                result.get("ExampleDS", "statistics-enabled").set(true);
+                result.get("QuietDS", "statistics-enabled").set(false);
+                return result;
+            }
+            statisticsReads.incrementAndGet();
+            ModelNode result = new ModelNode();
+            result.get("ActiveCount").set(3);
+            result.get("MaxWaitTime").set(12L);
+            result.get("TimedOut").set(2);
+            return result;
+        });
+
+        MetricRegistry registry = new MetricsRegistryImpl();
+        metrics.register(registry, Collections.emptyList());
+
+        assertThat(registry.getNames()).contains("datasource.ExampleDS.activeCount", "datasource.ExampleDS.timedOut");
+        assertThat(registry.getNames()).excludes("datasource.QuietDS.activeCount");
+
+        assertThat(((Gauge<?>) registry.getMetrics().get("datasource.ExampleDS.activeCount")).getValue()).isEqualTo(3L);
+        assertThat(((Gauge<?>) registry.getMetrics().get("datasource.ExampleDS.maxWaitTime")).getValue()).isEqualTo(12L);
+        assertThat(((Gauge<?>) registry.getMetrics().get("datasource.ExampleDS.idleCount")).getValue()).isEqualTo(0L);
+        assertThat(((Counter) registry.getMetrics().get("datasource.ExampleDS.timedOut")).getCount()).isEqualTo(2L);
+
+        // one read serves every metric of the pool
+        assertThat(statisticsReads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeploymentDatasources() {
+        ModelNode deployments = new ModelNode().setEmptyList();
+
+        DatasourcePoolMetrics metrics = new DatasourcePoolMetrics((op) -> {
+            String name = op.get("operation").asString();
+            if (name.equals("read-children-names")) {
+                return deployments;
+            }
+            if (name.equals("read-children-resources")) {
+                if (!op.get("child-type").asString().equals("data-source")) {
+                    return null;
+                }
+                ModelNode result = new ModelNode();
+                if (op.get("address").asList().size() == 1) {
+                    result.get("ExampleDS", "statistics-enabled").set(true);
+                } else {
+                    result.get("AppDS", "statistics-enabled").set(true);
+                }
+                return result;
+            }
+            ModelNode result = new ModelNode();
+            result.get("ActiveCount").set(op.get("address").asList().size() == 3 ? 1 : 5);
+            return result;
+        });
+
+        MetricRegistry registry = new MetricsRegistryImpl();
+        metrics.register(registry, Collections.emptyList());
+        assertThat(registry.getNames()).contains("datasource.ExampleDS.activeCount");
+        assertThat(registry.getNames()).excludes("datasource.AppDS.activeCount");
+
+        deployments.add("app.war");
+        metrics.register(registry, Collections.emptyList());
+        assertThat(registry.getNames()).contains("datasource.ExampleDS.activeCount", "datasource.AppDS.activeCount");
+        assertThat(((Gauge<?>) registry.getMetrics().get("datasource.ExampleDS.activeCount")).getValue()).isEqualTo(1L);
+        assertThat(((Gauge<?>) registry.getMetrics().get("datasource.AppDS.activeCount")).getValue()).isEqualTo(5L);
+
+        metrics.unregister(registry, "app.war");
+        assertThat(registry.getNames()).contains("datasource.ExampleDS.activeCount");
+        assertThat(registry.getNames()).excludes("datasource.AppDS.activeCount");
+    }
+
+    @Test
+    public void testWithoutDatasources() {
+        MetricRegistry registry = new MetricsRegistryImpl();
+        new DatasourcePoolMetrics((op) -> null).register(registry, Collections.emptyList());
+
+        assertThat(registry.getNames()).isEmpty();
+    }
+}
@@ -15,10 +15,21 @@
  */
 package org.wildfly.swarm.netflix.ribbon;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModules;
 
+import static org.wildfly.swarm.spi.api.Defaultable.bool;
+import static org.wildfly.swarm.spi.api.Defaultable.floating;
+import static org.wildfly.swarm.spi.api.Defaultable.integer;
+import static org.wildfly.swarm.spi.api.Defaultable.string;
+
 /**
  * @author Bob McWhirter
  */
@@ -30,10 +41,122 @@ import org.wildfly.swarm.spi.api.annotations.DeploymentModules;
         @DeploymentModule(name = "io.reactivex.rxnetty"),
         @DeploymentModule(name = "io.netty")
 })
+@Configurable("swarm.ribbon")
 public class RibbonFraction implements Fraction<RibbonFraction> {
 
+    public static final String LOCALITY_AWARE_RULE = "org.wildfly.swarm.netflix.ribbon.runtime.LocalityAwareRule";
+
     public RibbonFraction() {
         System.setProperty("ribbon.NIWSServerListClassName", "org.wildfly.swarm.netflix.ribbon.runtime.TopologyServerList");
         System.setProperty("ribbon.NFLoadBalancerRuleClassName", "com.netflix.loadbalancer.RoundRobinRule");
     }
+
+    /**
+     * Prefer servers on the same node, then rack, then zone as this instance, instead of
+     * spreading calls round-robin over all of them.
+     *
+     * @param localityAware whether to choose servers by locality
+     * @return this fraction
+     */
+    public RibbonFraction localityAware(boolean localityAware) {
+        this.localityAware.set(localityAware);
+        return this;
+    }
+
+    public boolean isLocalityAware() {
+        return this.localityAware.get();
+    }
+
+    public RibbonFraction zone(String zone) {
+        this.zone.set(zone);
+        return this;
+    }
+
+    public String zone() {
+        return this.zone.get();
+    }
+
+    public RibbonFraction rack(String rack) {
+        this.rack.set(rack);
+        return this;
+    }
+
+    public String rack() {
+        return this.rack.get();
+    }
+
+    public RibbonFraction node(String node) {
+        this.node.set(node);
+        return this;
+    }
+
+    public String node() {
+        return this.node.get();
+    }
+
+    public RibbonFraction version(String version) {
+        this.version.set(version);
+        return this;
+    }
+
+    public String version() {
+        return this.version.get();
+    }
+
+    public RibbonFraction maxActiveRequests(int maxActiveRequests) {
+        this.maxActiveRequests.set(maxActiveRequests);
+        return this;
+    }
+
+    public int maxActiveRequests() {
+        return this.maxActiveRequests.get();
+    }
+
+    public RibbonFraction minAvailableRatio(float minAvailableRatio) {
+        this.minAvailableRatio.set(minAvailableRatio);
+        return this;
+    }
+
+    public float minAvailableRatio() {
+        return this.minAvailableRatio.get();
+    }
+
+    /**
+     * @return the {@code key=value} topology tags describing the locality of this instance
+     */
+    public List<String> localityTags() {
+        List<String> tags = new ArrayList<>();
+        addTag(tags, "zone", zone());
+        addTag(tags, "rack", rack());
+        addTag(tags, "node", node());
+        addTag(tags, "version", version());
+        return tags;
+    }
+
+    private static void addTag(List<String> tags, String key, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            tags.add(key + "=" + value.trim());
+        }
+    }
+
+    @AttributeDocumentation("Choose servers by locality (same node, rack, zone, then anywhere) instead of round-robin")
+    private Defaultable<Boolean> localityAware = bool(false);
+
+    @AttributeDocumentation("Zone of this instance, advertised as the `zone=` topology tag")
+    private Defaultable<String> zone = string("");
+
+    @AttributeDocumentation("Rack of this instance, advertised as the `rack=` topology tag")
+    private Defaultable<String> rack = string("");
+
+    @AttributeDocumentation("Node of this instance, advertised as the `node=` topology tag")
+    private Defaultable<String> node = string("");
+
+    @AttributeDocumentation("Version of this instance, advertised as the `version=` topology tag")
+    private Defaultable<String> version = string("");
+
+    @AttributeDocumentation("Requests in flight at which the locality-aware rule treats a server as saturated, 0 for no limit")
+    private Defaultable<Integer> maxActiveRequests = integer(100);
+
+    @AttributeDocumentation("Share of a locality's servers that must be available for the locality-aware rule to keep calls there")
+    private Defaultable<Float> minAvailableRatio = floating(0.5f);
 }
@@ -0,0 +1,313 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.netflix.client.config.IClientConfig;
+import com.netflix.loadbalancer.AbstractLoadBalancer;
+import com.netflix.loadbalancer.AbstractLoadBalancerRule;
+import com.netflix.loadbalancer.ILoadBalancer;
+import com.netflix.loadbalancer.LoadBalancerStats;
+import com.netflix.loadbalancer.Server;
+import com.netflix.loadbalancer.ServerStats;
+
+/**
+ * Prefers servers close to this instance: on the same node, then in the same rack, then in the
+ * same zone, and only then anywhere.
+ *
+ * <p>Locality comes from the {@code node=}, {@code rack=} and {@code zone=} tags of each
+ * {@link TopologyServer}, compared with the locality configured for this instance. Within a
+ * locality, servers are chosen round-robin among those available: alive, without a tripped
+ * circuit breaker and with fewer than {@link #maxActiveRequests(int)} requests in flight. A
+ * locality whose available share of servers falls below {@link #minAvailableRatio(double)}
+ * spills over to the next one.</p>
+ */
+public class LocalityAwareRule extends AbstractLoadBalancerRule implements LocalityAwareRuleMXBean {
+
+    public static final String ZONE = "swarm.ribbon.zone";
+
+    public static final String RACK = "swarm.ribbon.rack";
+
+    public static final String NODE = "swarm.ribbon.node";
+
+    public static final String MAX_ACTIVE_REQUESTS = "swarm.ribbon.max-active-requests";
+
+    public static final String MIN_AVAILABLE_RATIO = "swarm.ribbon.min-available-ratio";
+
+    public static final int DEFAULT_MAX_ACTIVE_REQUESTS = 100;
+
+    public static final double DEFAULT_MIN_AVAILABLE_RATIO = 0.5;
+
+    private static final int SAME_NODE = 0;
+
+    private static final int SAME_RACK = 1;
+
+    private static final int SAME_ZONE = 2;
+
+    private static final int REMOTE = 3;
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    public LocalityAwareRule() {
+        zone(System.getProperty(ZONE));
+        rack(System.getProperty(RACK));
+        node(System.getProperty(NODE));
+        maxActiveRequests(Integer.getInteger(MAX_ACTIVE_REQUESTS, DEFAULT_MAX_ACTIVE_REQUESTS));
+        String ratio = System.getProperty(MIN_AVAILABLE_RATIO);
+        minAvailableRatio(ratio == null ? DEFAULT_MIN_AVAILABLE_RATIO : Double.parseDouble(ratio));
+    }
+
+    public LocalityAwareRule zone(String zone) {
+        this.zone = emptyToNull(zone);
+        return this;
+    }
+
+    public LocalityAwareRule rack(String rack) {
+        this.rack = emptyToNull(rack);
+        return this;
+    }
+
+    public LocalityAwareRule node(String node) {
+        this.node = emptyToNull(node);
+        return this;
+    }
+
+    /**
+     * @param maxActiveRequests requests in flight at which a server counts as saturated; {@code 0} for no limit
+     */
+    public LocalityAwareRule maxActiveRequests(int maxActiveRequests) {
+        this.maxActiveRequests = maxActiveRequests;
+        return this;
+    }
+
+    public LocalityAwareRule minAvailableRatio(double minAvailableRatio) {
+        this.minAvailableRatio = minAvailableRatio;
+        return this;
+    }
+
+    @Override
+    public void initWithNiwsConfig(IClientConfig clientConfig) {
+        this.name = clientConfig.getClientName();
+        register();
+    }
+
+    @Override
+    public Server choose(Object key) {
+        ILoadBalancer lb = getLoadBalancer();
+        if (lb == null) {
+            return null;
+        }
+        List<Server> all = lb.getAllServers();
+        List<Server> reachable = lb.getReachableServers();
+        LoadBalancerStats stats = (lb instanceof AbstractLoadBalancer) ? ((AbstractLoadBalancer) lb).getLoadBalancerStats() : null;
+
+        int[] totals = new int[REMOTE + 1];
+        for (Server server : all) {
+            ++totals[locality(server)];
+        }
+
+        List<List<Server>> available = new ArrayList<>(REMOTE + 1);
+        for (int i = 0; i <= REMOTE; ++i) {
+            available.add(new ArrayList<>());
+        }
+        for (Server server : reachable) {
+            if (isAvailable(server, stats)) {
+                available.get(locality(server)).add(server);
+            }
+        }
+
+        boolean skipped = false;
+        for (int locality = SAME_NODE; locality <= REMOTE; ++locality) {
+            List<Server> candidates = available.get(locality);
+            if (totals[locality] == 0) {
+                continue;
+            }
+            if (candidates.isEmpty() || (locality != REMOTE && candidates.size() < this.minAvailableRatio * totals[locality])) {
+                skipped = true;
+                continue;
+            }
+            return chosen(locality, skipped, candidates);
+        }
+
+        // nothing healthy enough anywhere: fall back to whatever is closest and available
+        for (int locality = SAME_NODE; locality <= REMOTE; ++locality) {
+            List<Server> candidates = available.get(locality);
+            if (!candidates.isEmpty()) {
+                return chosen(locality, true, candidates);
+            }
+        }
+        if (!reachable.isEmpty()) {
+            // all saturated; keep serving rather than failing the call
+            this.spillOver.incrementAndGet();
+            this.remote.incrementAndGet();
+            return next(reachable);
+        }
+        this.noServer.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public long getSameNodeCount() {
+        return this.sameNode.get();
+    }
+
+    @Override
+    public long getSameRackCount() {
+        return this.sameRack.get();
+    }
+
+    @Override
+    public long getSameZoneCount() {
+        return this.sameZone.get();
+    }
+
+    @Override
+    public long getRemoteCount() {
+        return this.remote.get();
+    }
+
+    @Override
+    public long getSpillOverCount() {
+        return this.spillOver.get();
+    }
+
+    @Override
+    public long getNoServerCount() {
+        return this.noServer.get();
+    }
+
+    private Server chosen(int locality, boolean skipped, List<Server> candidates) {
+        if (skipped) {
+            this.spillOver.incrementAndGet();
+        }
+        switch (locality) {
+            case SAME_NODE:
+                this.sameNode.incrementAndGet();
+                break;
+            case SAME_RACK:
+                this.sameRack.incrementAndGet();
+                break;
+            case SAME_ZONE:
+                this.sameZone.incrementAndGet();
+                break;
+            default:
+                this.remote.incrementAndGet();
+        }
+        return next(candidates);
+    }
+
+    private Server next(List<Server> candidates) {
+        return candidates.get((this.counter.getAndIncrement() & Integer.MAX_VALUE) % candidates.size());
+    }
+
+    private int locality(Server server) {
+        if (!(server instanceof TopologyServer)) {
+            return REMOTE;
+        }
+        TopologyServer topologyServer = (TopologyServer) server;
+        if (this.node != null && this.node.equals(topologyServer.getNode())) {
+            return SAME_NODE;
+        }
+        String serverZone = topologyServer.getAttribute(TopologyServer.ZONE);
+        boolean sameZone = this.zone != null && this.zone.equals(serverZone);
+        if (this.rack != null && this.rack.equals(topologyServer.getRack()) && (this.zone == null || sameZone)) {
+            return SAME_RACK;
+        }
+        if (sameZone) {
+            return SAME_ZONE;
+        }
+        return REMOTE;
+    }
+
+    private boolean isAvailable(Server server, LoadBalancerStats stats) {
+        if (stats == null) {
+            return true;
+        }
+        ServerStats serverStats = stats.getSingleServerStat(server);
+        if (serverStats.isCircuitBreakerTripped()) {
+            return false;
+        }
+        return this.maxActiveRequests <= 0 || serverStats.getActiveRequestsCount() < this.maxActiveRequests;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private void register() {
+        if (this.registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(this, objectName(0));
+            } catch (InstanceAlreadyExistsException e) {
+                // another rule for the same client name keeps its MBean
+                server.registerMBean(this, objectName(INSTANCES.incrementAndGet()));
+            }
+            this.registered = true;
+        } catch (Exception e) {
+            // counters remain available through the rule
+        }
+    }
+
+    private ObjectName objectName(int instance) throws Exception {
+        StringBuilder objectName = new StringBuilder("org.wildfly.swarm.netflix.ribbon:type=LocalityAwareRule");
+        objectName.append(",name=").append(ObjectName.quote(this.name));
+        if (instance > 0) {
+            objectName.append(",instance=").append(instance);
+        }
+        return new ObjectName(objectName.toString());
+    }
+
+    private String zone;
+
+    private String rack;
+
+    private String node;
+
+    private int maxActiveRequests;
+
+    private double minAvailableRatio;
+
+    private String name;
+
+    private volatile boolean registered;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final AtomicLong sameNode = new AtomicLong();
+
+    private final AtomicLong sameRack = new AtomicLong();
+
+    private final AtomicLong sameZone = new AtomicLong();
+
+    private final AtomicLong remote = new AtomicLong();
+
+    private final AtomicLong spillOver = new AtomicLong();
+
+    private final AtomicLong noServer = new AtomicLong();
+}
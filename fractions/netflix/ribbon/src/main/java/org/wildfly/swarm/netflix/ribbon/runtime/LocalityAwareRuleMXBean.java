@@ -0,0 +1,54 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+/**
+ * Counters of a {@link LocalityAwareRule}, registered as
+ * {@code org.wildfly.swarm.netflix.ribbon:type=LocalityAwareRule,name=<client>}, with an added
+ * {@code instance=<n>} key when another rule already holds that name.
+ */
+public interface LocalityAwareRuleMXBean {
+
+    /**
+     * @return servers chosen on the same node
+     */
+    long getSameNodeCount();
+
+    /**
+     * @return servers chosen in the same rack
+     */
+    long getSameRackCount();
+
+    /**
+     * @return servers chosen in the same zone
+     */
+    long getSameZoneCount();
+
+    /**
+     * @return servers chosen without locality
+     */
+    long getRemoteCount();
+
+    /**
+     * @return choices that skipped a closer locality because it was unhealthy or saturated
+     */
+    long getSpillOverCount();
+
+    /**
+     * @return choices for which no server was available at all
+     */
+    long getNoServerCount();
+}
@@ -1,9 +1,13 @@
 package org.wildfly.swarm.netflix.ribbon.runtime;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.inject.Inject;
 
 import org.jboss.shrinkwrap.api.Archive;
 import org.wildfly.swarm.netflix.ribbon.RibbonArchive;
+import org.wildfly.swarm.netflix.ribbon.RibbonFraction;
 import org.wildfly.swarm.spi.api.DeploymentProcessor;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.runtime.annotations.DeploymentScoped;
@@ -18,21 +22,52 @@ public class RibbonArchiveAdvertiser implements DeploymentProcessor {
     private String advertiseName;
 
     @Inject
-    public RibbonArchiveAdvertiser(Archive archive) {
+    public RibbonArchiveAdvertiser(Archive archive, RibbonFraction fraction) {
         this.archive = archive;
+        this.fraction = fraction;
     }
 
     @Override
     public void process() {
+        RibbonArchive ribbonArchive = archive.as(RibbonArchive.class);
         // If there hasn't been any services advertised, then advertise a service under the archive name
-        if (!archive.as(RibbonArchive.class).hasAdvertised()) {
-            if (this.advertiseName != null) {
-                archive.as(RibbonArchive.class).advertise(this.advertiseName);
-            } else {
-                archive.as(RibbonArchive.class).advertise();
+        if (!ribbonArchive.hasAdvertised()) {
+            ribbonArchive.advertise(serviceName());
+        }
+
+        // Carry the locality of this instance so that callers can prefer nearby servers
+        List<String> localityTags = this.fraction.localityTags();
+        if (!localityTags.isEmpty()) {
+            for (String service : ribbonArchive.advertisements()) {
+                ribbonArchive.advertise(service, withLocality(ribbonArchive.tags(service), localityTags));
             }
         }
     }
 
+    /**
+     * Adds the locality tags, keeping any {@code key=} tag the archive advertised explicitly.
+     */
+    private static List<String> withLocality(List<String> tags, List<String> localityTags) {
+        List<String> merged = new ArrayList<>(tags);
+        for (String localityTag : localityTags) {
+            String key = localityTag.substring(0, localityTag.indexOf('=') + 1);
+            if (merged.stream().noneMatch(tag -> tag.startsWith(key))) {
+                merged.add(localityTag);
+            }
+        }
+        return merged;
+    }
+
+    private String serviceName() {
+        if (this.advertiseName != null) {
+            return this.advertiseName;
+        }
+        String archiveName = this.archive.getName();
+        int lastDotLoc = archiveName.lastIndexOf('.');
+        return lastDotLoc > 0 ? archiveName.substring(0, lastDotLoc) : archiveName;
+    }
+
     private final Archive<?> archive;
+
+    private final RibbonFraction fraction;
 }
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.wildfly.swarm.netflix.ribbon.RibbonFraction;
+import org.wildfly.swarm.spi.api.Customizer;
+import org.wildfly.swarm.spi.runtime.annotations.Pre;
+
+/**
+ * Hands the locality settings of the fraction to the {@link LocalityAwareRule} instances
+ * that Ribbon creates reflectively, and selects that rule when locality awareness is enabled.
+ */
+@Pre
+@ApplicationScoped
+public class RibbonLocalityCustomizer implements Customizer {
+
+    @Override
+    public void customize() {
+        if (!this.fraction.isLocalityAware()) {
+            return;
+        }
+
+        System.setProperty("ribbon.NFLoadBalancerRuleClassName", RibbonFraction.LOCALITY_AWARE_RULE);
+        setProperty(LocalityAwareRule.ZONE, this.fraction.zone());
+        setProperty(LocalityAwareRule.RACK, this.fraction.rack());
+        setProperty(LocalityAwareRule.NODE, this.fraction.node());
+        System.setProperty(LocalityAwareRule.MAX_ACTIVE_REQUESTS, String.valueOf(this.fraction.maxActiveRequests()));
+        System.setProperty(LocalityAwareRule.MIN_AVAILABLE_RATIO, String.valueOf(this.fraction.minAvailableRatio()));
+    }
+
+    private static void setProperty(String name, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            System.setProperty(name, value.trim());
+        }
+    }
+
+    @Inject
+    RibbonFraction fraction;
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.netflix.loadbalancer.Server;
+import org.wildfly.swarm.topology.Topology;
+
+/**
+ * Ribbon server for a topology entry, keeping the entry's tags.
+ *
+ * <p>Tags of the form {@code key=value} are read as locality attributes, such as
+ * {@link #ZONE}, {@link #RACK}, {@link #NODE} and {@link #VERSION}; the zone is also set as
+ * the Ribbon zone of the server.</p>
+ */
+public class TopologyServer extends Server {
+
+    public static final String ZONE = "zone";
+
+    public static final String RACK = "rack";
+
+    public static final String NODE = "node";
+
+    public static final String VERSION = "version";
+
+    public TopologyServer(Topology.Entry entry) {
+        this(entry.getAddress(), entry.getPort(), entry.getTags());
+    }
+
+    public TopologyServer(String host, int port, List<String> tags) {
+        super(host, port);
+        this.tags = Collections.unmodifiableList(tags);
+        this.attributes = parse(tags);
+        String zone = this.attributes.get(ZONE);
+        if (zone != null) {
+            setZone(zone);
+        }
+    }
+
+    public static Map<String, String> parse(List<String> tags) {
+        Map<String, String> attributes = new HashMap<>();
+        for (String tag : tags) {
+            int eq = tag.indexOf('=');
+            if (eq > 0) {
+                attributes.put(tag.substring(0, eq).trim(), tag.substring(eq + 1).trim());
+            }
+        }
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public List<String> getTags() {
+        return this.tags;
+    }
+
+    /**
+     * @param key the attribute name
+     * @return the value of a {@code key=value} tag, or {@code null}
+     */
+    public String getAttribute(String key) {
+        return this.attributes.get(key);
+    }
+
+    public String getRack() {
+        return getAttribute(RACK);
+    }
+
+    public String getNode() {
+        return getAttribute(NODE);
+    }
+
+    public String getVersion() {
+        return getAttribute(VERSION);
+    }
+
+    private final List<String> tags;
+
+    private final Map<String, String> attributes;
+}
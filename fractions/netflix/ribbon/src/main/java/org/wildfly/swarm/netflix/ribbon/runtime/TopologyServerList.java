@@ -15,6 +15,8 @@
  */
 package org.wildfly.swarm.netflix.ribbon.runtime;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,38 +24,114 @@ import com.netflix.client.config.IClientConfig;
 import com.netflix.client.config.IClientConfigKey;
 import com.netflix.loadbalancer.AbstractServerList;
 import com.netflix.loadbalancer.Server;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
+import org.wildfly.swarm.topology.TopologyListener;
 import org.wildfly.swarm.topology.runtime.TopologyManager;
 
 /**
+ * Ribbon server list backed by the local topology.
+ *
+ * <p>The list is recomputed only when a topology change-set touches this client's
+ * service, rather than on every Ribbon poll. Each entry becomes a {@link TopologyServer}
+ * carrying the entry's tags.</p>
+ *
  * @author Bob McWhirter
  */
 public class TopologyServerList extends AbstractServerList<Server> {
 
+    public TopologyServerList() {
+        this(TopologyManager.INSTANCE);
+    }
+
+    public TopologyServerList(TopologyManager topology) {
+        this.topology = topology;
+        this.listener = new Listener(this, topology);
+    }
+
     @Override
     public void initWithNiwsConfig(IClientConfig config) {
         this.appName = config.getClientName();
         this.isSecure = config.get(IClientConfigKey.Keys.IsSecure, false);
+        this.topology.registerInterest(this.appName);
+        // listen before the first read, so that no change in between is lost
+        this.topology.addListener(this.listener);
+        refresh();
+    }
+
+    /**
+     * Stop following the topology. The listener also removes itself once this list is no longer reachable.
+     */
+    public void shutdown() {
+        this.topology.removeListener(this.listener);
     }
 
     @Override
     public List<Server> getInitialListOfServers() {
-        String tag = (this.isSecure ? "https" : "http");
-        return TopologyManager.INSTANCE.registrationsForService(this.appName, tag)
-                .stream()
-                .map(reg -> new Server(reg.getAddress(), reg.getPort()))
-                .collect(Collectors.toList());
+        return this.servers;
     }
 
     @Override
     public List<Server> getUpdatedListOfServers() {
+        return this.servers;
+    }
+
+    void refresh() {
         String tag = (this.isSecure ? "https" : "http");
-        return TopologyManager.INSTANCE.registrationsForService(this.appName, tag)
-                .stream()
-                .map(reg -> new Server(reg.getAddress(), reg.getPort()))
-                .collect(Collectors.toList());
+        this.servers = Collections.unmodifiableList(
+                this.topology.registrationsForService(this.appName, tag)
+                        .stream()
+                        .map(TopologyServer::new)
+                        .collect(Collectors.toList())
+        );
     }
 
+    private final TopologyManager topology;
+
+    private final Listener listener;
+
     private String appName;
 
     private Boolean isSecure;
+
+    private volatile List<Server> servers = Collections.emptyList();
+
+    /**
+     * Holds the server list weakly, as Ribbon has no hook to tell a server list that its client is gone.
+     */
+    private static final class Listener implements TopologyListener {
+
+        Listener(TopologyServerList serverList, TopologyManager topology) {
+            this.serverList = new WeakReference<>(serverList);
+            this.topology = topology;
+        }
+
+        @Override
+        public void onChange(Topology topology) {
+            TopologyServerList serverList = serverList();
+            if (serverList != null) {
+                serverList.refresh();
+            }
+        }
+
+        @Override
+        public void onChange(Topology topology, TopologyChangeSet changes) {
+            TopologyServerList serverList = serverList();
+            if (serverList != null && changes.affects(serverList.appName)) {
+                serverList.refresh();
+            }
+        }
+
+        private TopologyServerList serverList() {
+            TopologyServerList serverList = this.serverList.get();
+            if (serverList == null) {
+                this.topology.removeListener(this);
+            }
+            return serverList;
+        }
+
+        private final WeakReference<TopologyServerList> serverList;
+
+        private final TopologyManager topology;
+    }
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.BaseLoadBalancer;
+import com.netflix.loadbalancer.Server;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LocalityAwareRuleTest {
+
+    @Before
+    public void setUp() {
+        this.rule = new LocalityAwareRule()
+                .zone("east")
+                .rack("r1")
+                .node("a")
+                .maxActiveRequests(2)
+                .minAvailableRatio(0.5);
+
+        this.sameNode = server("10.0.0.1", "zone=east", "rack=r1", "node=a");
+        this.sameZone = server("10.0.0.2", "zone=east", "rack=r2", "node=b");
+        this.remote = server("10.0.1.1", "zone=west", "rack=r1", "node=c");
+
+        this.lb = new BaseLoadBalancer();
+        this.lb.setRule(this.rule);
+        this.lb.addServers(Arrays.asList(this.sameNode, this.sameZone, this.remote));
+    }
+
+    @Test
+    public void testPrefersSameNode() {
+        for (int i = 0; i < 10; ++i) {
+            assertThat(this.rule.choose(null)).isSameAs(this.sameNode);
+        }
+        assertThat(this.rule.getSameNodeCount()).isEqualTo(10);
+        assertThat(this.rule.getSpillOverCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRackRequiresSameZone() {
+        this.rule.node("z");
+
+        assertThat(this.rule.choose(null)).isSameAs(this.sameNode);
+        assertThat(this.rule.getSameRackCount()).isEqualTo(1);
+
+        // the remote server shares the rack name but not the zone
+        saturate(this.sameNode);
+
+        assertThat(this.rule.choose(null)).isSameAs(this.sameZone);
+        assertThat(this.rule.getSameZoneCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSpillsOverWhenSaturated() {
+        saturate(this.sameNode);
+
+        assertThat(this.rule.choose(null)).isSameAs(this.sameZone);
+        assertThat(this.rule.getSameZoneCount()).isEqualTo(1);
+        assertThat(this.rule.getSpillOverCount()).isEqualTo(1);
+
+        saturate(this.sameZone);
+
+        assertThat(this.rule.choose(null)).isSameAs(this.remote);
+        assertThat(this.rule.getRemoteCount()).isEqualTo(1);
+        assertThat(this.rule.getSpillOverCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFallsBackWhenEverythingIsSaturated() {
+        saturate(this.sameNode);
+        saturate(this.sameZone);
+        saturate(this.remote);
+
+        assertThat(this.rule.choose(null)).isNotNull();
+        assertThat(this.rule.getSpillOverCount()).isEqualTo(1);
+        assertThat(this.rule.getNoServerCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSpillsOverBelowMinimumAvailableRatio() {
+        Server sameZone2 = server("10.0.0.3", "zone=east", "rack=r2", "node=d");
+        Server sameZone3 = server("10.0.0.4", "zone=east", "rack=r3", "node=e");
+        this.lb.addServers(Arrays.asList(sameZone2, sameZone3));
+        this.rule.node("z").minAvailableRatio(0.75);
+
+        saturate(this.sameNode);
+        saturate(this.sameZone);
+
+        // only 2 of the 3 servers in the zone are available
+        assertThat(this.rule.choose(null)).isSameAs(this.remote);
+        assertThat(this.rule.getSpillOverCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNoServers() {
+        BaseLoadBalancer empty = new BaseLoadBalancer();
+        LocalityAwareRule rule = new LocalityAwareRule();
+        empty.setRule(rule);
+
+        assertThat(rule.choose(null)).isNull();
+        assertThat(rule.getNoServerCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRulesSharingClientNameKeepTheirMBeans() throws Exception {
+        DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setClientName("locality-aware-rule-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("org.wildfly.swarm.netflix.ribbon:type=LocalityAwareRule,name=\"locality-aware-rule-test\",*");
+
+        LocalityAwareRule first = new LocalityAwareRule();
+        first.initWithNiwsConfig(config);
+        LocalityAwareRule second = new LocalityAwareRule();
+        second.initWithNiwsConfig(config);
+        // registered once per rule
+        second.initWithNiwsConfig(config);
+
+        try {
+            assertThat(server.queryNames(pattern, null)).hasSize(2);
+        } finally {
+            for (ObjectName name : server.queryNames(pattern, null)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    private void saturate(Server server) {
+        for (int i = 0; i < 2; ++i) {
+            this.lb.getLoadBalancerStats().incrementActiveRequestsCount(server);
+        }
+    }
+
+    private static Server server(String host, String... tags) {
+        return new TopologyServer(host, 8080, Arrays.asList(tags));
+    }
+
+    private LocalityAwareRule rule;
+
+    private BaseLoadBalancer lb;
+
+    private Server sameNode;
+
+    private Server sameZone;
+
+    private Server remote;
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+import java.util.Arrays;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.junit.Test;
+import org.wildfly.swarm.netflix.ribbon.RibbonArchive;
+import org.wildfly.swarm.netflix.ribbon.RibbonFraction;
+import org.wildfly.swarm.spi.api.JARArchive;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RibbonArchiveAdvertiserTest {
+
+    @Test
+    public void testAdvertisesArchiveNameWithLocality() {
+        JARArchive archive = ShrinkWrap.create(JARArchive.class, "myapp.war");
+
+        new RibbonArchiveAdvertiser(archive, new RibbonFraction().zone("east").node("a")).process();
+
+        RibbonArchive ribbonArchive = archive.as(RibbonArchive.class);
+        assertThat(ribbonArchive.advertisements()).containsExactly("myapp");
+        assertThat(ribbonArchive.tags("myapp")).containsExactly("zone=east", "node=a");
+    }
+
+    @Test
+    public void testLocalityAddedToExplicitAdvertisements() {
+        JARArchive archive = ShrinkWrap.create(JARArchive.class, "myapp.war");
+        archive.as(RibbonArchive.class)
+                .advertise("service-a")
+                .advertise("service-b", Arrays.asList("canary", "zone=west"));
+
+        new RibbonArchiveAdvertiser(archive, new RibbonFraction().zone("east").rack("r1")).process();
+
+        RibbonArchive ribbonArchive = archive.as(RibbonArchive.class);
+        assertThat(ribbonArchive.tags("service-a")).containsExactly("zone=east", "rack=r1");
+        // the archive's own zone wins
+        assertThat(ribbonArchive.tags("service-b")).containsExactly("canary", "zone=west", "rack=r1");
+    }
+
+    @Test
+    public void testNoLocality() {
+        JARArchive archive = ShrinkWrap.create(JARArchive.class, "myapp.war");
+        archive.as(RibbonArchive.class).advertise("service-a", Arrays.asList("canary"));
+
+        new RibbonArchiveAdvertiser(archive, new RibbonFraction()).process();
+
+        assertThat(archive.as(RibbonArchive.class).tags("service-a")).containsExactly("canary");
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.netflix.ribbon.runtime;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.client.config.DefaultClientConfigImpl;
+import com.netflix.loadbalancer.Server;
+import org.junit.Test;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyListener;
+import org.wildfly.swarm.topology.runtime.Registration;
+import org.wildfly.swarm.topology.runtime.TopologyManager;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TopologyServerListTest {
+
+    @Test
+    public void testServersCarryTopologyTags() {
+        TopologyManager topology = new TopologyManager();
+        topology.setBatching(0, 0);
+        topology.register(new Registration("node-a", "myservice", "10.0.0.1", 8080, "http", "zone=east", "rack=r1", "node=a", "version=2"));
+        topology.register(new Registration("node-b", "myservice", "10.0.0.2", 8443, "https", "zone=west"));
+        topology.register(new Registration("node-c", "otherservice", "10.0.0.3", 8080, "http"));
+
+        DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setClientName("myservice");
+
+        TopologyServerList serverList = new TopologyServerList(topology);
+        serverList.initWithNiwsConfig(config);
+
+        List<Server> servers = serverList.getInitialListOfServers();
+        assertThat(servers).hasSize(1);
+
+        TopologyServer server = (TopologyServer) servers.get(0);
+        assertThat(server.getHost()).isEqualTo("10.0.0.1");
+        assertThat(server.getPort()).isEqualTo(8080);
+        assertThat(server.getZone()).isEqualTo("east");
+        assertThat(server.getRack()).isEqualTo("r1");
+        assertThat(server.getNode()).isEqualTo("a");
+        assertThat(server.getVersion()).isEqualTo("2");
+        assertThat(server.getTags()).contains("http");
+    }
+
+    @Test
+    public void testRefreshesOnChange() throws InterruptedException {
+        TopologyManager topology = new TopologyManager();
+        topology.setBatching(0, 0);
+
+        DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setClientName("myservice");
+
+        RecordingServerList serverList = new RecordingServerList(topology);
+        serverList.initWithNiwsConfig(config);
+        assertThat(serverList.getUpdatedListOfServers()).isEmpty();
+
+        serverList.expect(1);
+        topology.register(new Registration("node-a", "myservice", "10.0.0.1", 8080, "http", "zone=east"));
+        assertThat(serverList.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(serverList.getUpdatedListOfServers()).hasSize(1);
+
+        serverList.expect(1);
+        topology.unregisterAll("node-a");
+        assertThat(serverList.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(serverList.getUpdatedListOfServers()).isEmpty();
+    }
+
+    @Test
+    public void testShutdownStopsListening() throws InterruptedException {
+        TopologyManager topology = new TopologyManager();
+        topology.setBatching(0, 0);
+
+        DefaultClientConfigImpl config = new DefaultClientConfigImpl();
+        config.setClientName("myservice");
+
+        RecordingServerList serverList = new RecordingServerList(topology);
+        serverList.initWithNiwsConfig(config);
+        serverList.shutdown();
+
+        // the change is handed to every registered listener at once, so by the time this one hears of it
+        // the server list would have been queued too
+        ChangeListener listener = new ChangeListener(1);
+        topology.addListener(listener);
+        serverList.expect(1);
+        topology.register(new Registration("node-a", "myservice", "10.0.0.1", 8080, "http"));
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(serverList.latch.getCount()).isEqualTo(1);
+        assertThat(serverList.getUpdatedListOfServers()).isEmpty();
+    }
+
+    private static class RecordingServerList extends TopologyServerList {
+
+        RecordingServerList(TopologyManager topology) {
+            super(topology);
+        }
+
+        void expect(int count) {
+            this.latch = new CountDownLatch(count);
+        }
+
+        @Override
+        void refresh() {
+            super.refresh();
+            if (this.latch != null) {
+                this.latch.countDown();
+            }
+        }
+
+        volatile CountDownLatch latch;
+    }
+
+    private static class ChangeListener implements TopologyListener {
+
+        ChangeListener(int count) {
+            this.latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void onChange(Topology topology) {
+            this.latch.countDown();
+        }
+
+        final CountDownLatch latch;
+    }
+}
@@ -2,6 +2,7 @@ package org.wildfly.swarm.opentracing;
 
 import io.opentracing.contrib.web.servlet.filter.TracingFilter;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.opentracing.deployment.RequestSampler;
 import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
@@ -19,10 +20,46 @@ public class OpenTracingFraction implements Fraction<OpenTracingFraction> {
     @Configurable("swarm.opentracing.servlet.skipPattern")
     private Defaultable<String> servletSkipPattern = Defaultable.string(getDefault(TracingFilter.SKIP_PATTERN));
 
+    @AttributeDocumentation("Which requests reach the tracer: `const` (parameter `1` for all, `0` for none), `probabilistic` (parameter is the probability) or `rate-limiting` (parameter is requests per second)")
+    private Defaultable<String> samplerType = Defaultable.string(RequestSampler.CONST);
+
+    @AttributeDocumentation("The sampler parameter (number). Ex.: `0.1`")
+    private Defaultable<String> samplerParameter = Defaultable.string("1");
+
+    @AttributeDocumentation("Comma-separated per-path sampling rules `<regex>=<rate>`, where the rate is a probability or a limit like `10/s`; the first match wins. Ex.: `/health.*=0,/orders/.*=10/s`")
+    private Defaultable<String> samplerPathRules = Defaultable.string("");
+
     public String getServletSkipPattern() {
         return servletSkipPattern.get();
     }
 
+    public String getSamplerType() {
+        return samplerType.get();
+    }
+
+    public OpenTracingFraction samplerType(String samplerType) {
+        this.samplerType.set(samplerType);
+        return this;
+    }
+
+    public String getSamplerParameter() {
+        return samplerParameter.get();
+    }
+
+    public OpenTracingFraction samplerParameter(String samplerParameter) {
+        this.samplerParameter.set(samplerParameter);
+        return this;
+    }
+
+    public String getSamplerPathRules() {
+        return samplerPathRules.get();
+    }
+
+    public OpenTracingFraction samplerPathRules(String samplerPathRules) {
+        this.samplerPathRules.set(samplerPathRules);
+        return this;
+    }
+
     private static String getDefault(String key) {
         return Optional.ofNullable(System.getProperty(key, System.getenv(key))).orElse("");
     }
@@ -22,6 +22,7 @@ import io.opentracing.util.GlobalTracer;
 import org.jboss.logging.Logger;
 
 import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
@@ -45,9 +46,16 @@ public class OpenTracingInitializer implements ServletContextListener {
             servletContext.setAttribute(TracingFilter.SKIP_PATTERN, Pattern.compile(skipPatternAttribute));
         }
 
+        Filter tracingFilter = new TracingFilter();
+        PathSampler sampler = sampler(servletContext);
+        if (!sampler.isSamplingAll()) {
+            logger.info("Sampling requests before tracing");
+            tracingFilter = new SamplingFilter(tracingFilter, sampler);
+        }
+
         logger.info("Registering Tracing Filter");
         servletContext
-                .addFilter("tracingFilter", new TracingFilter())
+                .addFilter("tracingFilter", tracingFilter)
                 .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), false, "*");
 
         String skipParameter = servletContext.getInitParameter("skipOpenTracingResolver");
@@ -71,6 +79,15 @@ public class OpenTracingInitializer implements ServletContextListener {
         GlobalTracer.register(tracer);
     }
 
+    private static PathSampler sampler(ServletContext servletContext) {
+        String parameter = servletContext.getInitParameter(SamplingFilter.SAMPLER_PARAMETER);
+        RequestSampler defaultSampler = RequestSampler.of(
+                servletContext.getInitParameter(SamplingFilter.SAMPLER_TYPE),
+                parameter == null || parameter.isEmpty() ? 1 : Double.parseDouble(parameter)
+        );
+        return new PathSampler(defaultSampler, servletContext.getInitParameter(SamplingFilter.SAMPLER_PATH_RULES));
+    }
+
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
     }
@@ -0,0 +1,50 @@
+package org.wildfly.swarm.opentracing.deployment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wildfly.swarm.container.util.SamplingRule;
+
+/**
+ * Per-path {@link RequestSampler}s.
+ *
+ * <p>Rules are written as a comma-separated list of {@code <regex>=<rate>} entries matched against
+ * the request path in order, see {@link SamplingRule}. Paths matching no rule use the default
+ * sampler.</p>
+ *
+ * <pre>/health.*=0,/orders/.*=10/s</pre>
+ */
+public class PathSampler {
+
+    public PathSampler(RequestSampler defaultSampler, String rules) {
+        this.defaultSampler = defaultSampler;
+        for (SamplingRule each : SamplingRule.parse(rules)) {
+            this.rules.add(each);
+            this.samplers.add(each.isRateLimited()
+                                      ? new RequestSampler.RateLimiting(each.getRate())
+                                      : RequestSampler.probabilistic(each.getRate()));
+        }
+    }
+
+    public boolean isSampled(String path) {
+        for (int i = 0; i < this.rules.size(); ++i) {
+            if (this.rules.get(i).matches(path)) {
+                return this.samplers.get(i).isSampled();
+            }
+        }
+        return this.defaultSampler.isSampled();
+    }
+
+    /**
+     * @return {@code true} if every request is sampled, so the filter need not be wrapped
+     */
+    public boolean isSamplingAll() {
+        return this.rules.isEmpty() && this.defaultSampler == RequestSampler.ALWAYS;
+    }
+
+    private final RequestSampler defaultSampler;
+
+    private final List<SamplingRule> rules = new ArrayList<>();
+
+    private final List<RequestSampler> samplers = new ArrayList<>();
+}
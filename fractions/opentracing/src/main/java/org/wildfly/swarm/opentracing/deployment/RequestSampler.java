@@ -0,0 +1,72 @@
+package org.wildfly.swarm.opentracing.deployment;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.wildfly.swarm.container.util.RateLimiter;
+
+/**
+ * Decides whether a request is handed to the tracing filter at all.
+ */
+@FunctionalInterface
+public interface RequestSampler {
+
+    String CONST = "const";
+
+    String PROBABILISTIC = "probabilistic";
+
+    String RATE_LIMITING = "rate-limiting";
+
+    RequestSampler ALWAYS = () -> true;
+
+    RequestSampler NEVER = () -> false;
+
+    boolean isSampled();
+
+    /**
+     * @param type      {@link #CONST} (parameter {@code 0} or {@code 1}), {@link #PROBABILISTIC}
+     *                  (parameter is the probability) or {@link #RATE_LIMITING} (parameter is the
+     *                  number of requests per second)
+     * @param parameter the parameter of the sampler
+     * @return the sampler
+     */
+    static RequestSampler of(String type, double parameter) {
+        if (type == null || type.trim().isEmpty() || CONST.equalsIgnoreCase(type.trim())) {
+            return parameter > 0 ? ALWAYS : NEVER;
+        }
+        if (PROBABILISTIC.equalsIgnoreCase(type.trim())) {
+            return probabilistic(parameter);
+        }
+        if (RATE_LIMITING.equalsIgnoreCase(type.trim())) {
+            return new RateLimiting(parameter);
+        }
+        throw new IllegalArgumentException("Unknown sampler type: " + type);
+    }
+
+    static RequestSampler probabilistic(double probability) {
+        if (probability <= 0) {
+            return NEVER;
+        }
+        if (probability >= 1) {
+            return ALWAYS;
+        }
+        return () -> ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    /**
+     * Admits requests at an even pace of at most the given number per second, allowing a burst of
+     * up to one second's worth after an idle period, without ever blocking the caller.
+     */
+    final class RateLimiting implements RequestSampler {
+
+        public RateLimiting(double perSecond) {
+            this.limiter = new RateLimiter(perSecond);
+        }
+
+        @Override
+        public boolean isSampled() {
+            return this.limiter.tryAcquire();
+        }
+
+        private final RateLimiter limiter;
+    }
+}
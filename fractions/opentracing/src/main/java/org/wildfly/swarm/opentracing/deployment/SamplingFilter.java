@@ -0,0 +1,122 @@
+package org.wildfly.swarm.opentracing.deployment;
+
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMap;
+import io.opentracing.util.GlobalTracer;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Hands only sampled requests to the tracing filter; the others go straight down the chain and
+ * cost no span at all.
+ *
+ * <p>A request that carries a span context from its caller is always traced, so that sampling
+ * decisions made upstream are kept.</p>
+ */
+public class SamplingFilter implements Filter {
+
+    public static final String SAMPLER_TYPE = "swarm.opentracing.sampler.type";
+
+    public static final String SAMPLER_PARAMETER = "swarm.opentracing.sampler.parameter";
+
+    public static final String SAMPLER_PATH_RULES = "swarm.opentracing.sampler.path-rules";
+
+    public SamplingFilter(Filter tracingFilter, PathSampler sampler) {
+        this(tracingFilter, sampler, GlobalTracer.get());
+    }
+
+    SamplingFilter(Filter tracingFilter, PathSampler sampler, Tracer tracer) {
+        this.tracingFilter = tracingFilter;
+        this.sampler = sampler;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        this.tracingFilter.init(filterConfig);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest)) {
+            this.tracingFilter.doFilter(request, response, chain);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        if (this.sampler.isSampled(httpRequest.getRequestURI()) || hasSpanContext(httpRequest)) {
+            this.tracingFilter.doFilter(request, response, chain);
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.tracingFilter.destroy();
+    }
+
+    private boolean hasSpanContext(HttpServletRequest request) {
+        if (!request.getHeaderNames().hasMoreElements()) {
+            return false;
+        }
+        SpanContext context = this.tracer.extract(Format.Builtin.HTTP_HEADERS, new RequestHeaders(request));
+        return context != null;
+    }
+
+    private final Filter tracingFilter;
+
+    private final PathSampler sampler;
+
+    private final Tracer tracer;
+
+    /**
+     * Read-only view of the request headers, first value of each.
+     */
+    private static final class RequestHeaders implements TextMap {
+
+        RequestHeaders(HttpServletRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            Enumeration<String> names = this.request.getHeaderNames();
+            return new Iterator<Map.Entry<String, String>>() {
+                @Override
+                public boolean hasNext() {
+                    return names.hasMoreElements();
+                }
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (!names.hasMoreElements()) {
+                        throw new NoSuchElementException();
+                    }
+                    String name = names.nextElement();
+                    return new AbstractMap.SimpleImmutableEntry<>(name, request.getHeader(name));
+                }
+            };
+        }
+
+        @Override
+        public void put(String key, String value) {
+            throw new UnsupportedOperationException("request headers are read-only");
+        }
+
+        private final HttpServletRequest request;
+    }
+}
@@ -4,6 +4,7 @@ import io.opentracing.contrib.web.servlet.filter.TracingFilter;
 import org.jboss.logging.Logger;
 import org.jboss.shrinkwrap.api.Archive;
 import org.wildfly.swarm.opentracing.OpenTracingFraction;
+import org.wildfly.swarm.opentracing.deployment.SamplingFilter;
 import org.wildfly.swarm.spi.api.DeploymentProcessor;
 import org.wildfly.swarm.spi.runtime.annotations.DeploymentScoped;
 import org.wildfly.swarm.undertow.WARArchive;
@@ -39,6 +40,9 @@ public class OpenTracingInstaller implements DeploymentProcessor {
             webXml.addListener("org.wildfly.swarm.opentracing.deployment.OpenTracingInitializer");
 
             setContextParamIfNotNull(webXml, TracingFilter.SKIP_PATTERN, fraction.getServletSkipPattern());
+            setContextParamIfNotNull(webXml, SamplingFilter.SAMPLER_TYPE, fraction.getSamplerType());
+            setContextParamIfNotNull(webXml, SamplingFilter.SAMPLER_PARAMETER, fraction.getSamplerParameter());
+            setContextParamIfNotNull(webXml, SamplingFilter.SAMPLER_PATH_RULES, fraction.getSamplerPathRules());
         }
     }
 
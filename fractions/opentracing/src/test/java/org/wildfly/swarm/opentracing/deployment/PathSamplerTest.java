@@ -0,0 +1,125 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.opentracing.deployment;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class PathSamplerTest {
+
+    @Test
+    public void testConstSampler() {
+        assertThat(RequestSampler.of(null, 1)).isSameAs(RequestSampler.ALWAYS);
+        assertThat(RequestSampler.of(RequestSampler.CONST, 1)).isSameAs(RequestSampler.ALWAYS);
+        assertThat(RequestSampler.of(RequestSampler.CONST, 0)).isSameAs(RequestSampler.NEVER);
+    }
+
+    @Test
+    public void testProbabilisticSampler() {
+        assertThat(RequestSampler.of(RequestSampler.PROBABILISTIC, 0)).isSameAs(RequestSampler.NEVER);
+        assertThat(RequestSampler.of(RequestSampler.PROBABILISTIC, 1)).isSameAs(RequestSampler.ALWAYS);
+
+        RequestSampler sampler = RequestSampler.of(RequestSampler.PROBABILISTIC, 0.5);
+        int sampled = 0;
+        for (int i = 0; i < 10000; ++i) {
+            if (sampler.isSampled()) {
+                ++sampled;
+            }
+        }
+        assertThat(sampled).isGreaterThan(4000);
+        assertThat(sampled).isLessThan(6000);
+    }
+
+    @Test
+    public void testRateLimitingSampler() throws Exception {
+        RequestSampler sampler = RequestSampler.of(RequestSampler.RATE_LIMITING, 10);
+        int sampled = 0;
+        while (sampler.isSampled()) {
+            ++sampled;
+        }
+        // one second's worth, plus one for any time passing during the loop
+        assertThat(sampled).isGreaterThanOrEqualTo(10);
+        assertThat(sampled).isLessThanOrEqualTo(11);
+
+        Thread.sleep(250);
+        sampled = 0;
+        while (sampler.isSampled()) {
+            ++sampled;
+        }
+        assertThat(sampled).isGreaterThanOrEqualTo(2);
+        assertThat(sampled).isLessThanOrEqualTo(5);
+
+        assertThat(RequestSampler.of(RequestSampler.RATE_LIMITING, 0).isSampled()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownType() {
+        RequestSampler.of("remote", 1);
+    }
+
+    @Test
+    public void testFirstMatchingRuleWins() {
+        PathSampler sampler = new PathSampler(RequestSampler.ALWAYS, " /orders/internal/.*=0 , /orders/.*=1,,/health=0 ");
+
+        assertThat(sampler.isSampled("/orders/internal/1")).isFalse();
+        assertThat(sampler.isSampled("/orders/1")).isTrue();
+        assertThat(sampler.isSampled("/health")).isFalse();
+        // rules match the whole path
+        assertThat(sampler.isSampled("/health/live")).isTrue();
+        assertThat(sampler.isSamplingAll()).isFalse();
+    }
+
+    @Test
+    public void testDefaultSampler() {
+        PathSampler sampler = new PathSampler(RequestSampler.NEVER, "/orders/.*=1");
+        assertThat(sampler.isSampled("/customers")).isFalse();
+        assertThat(sampler.isSampled("/orders/1")).isTrue();
+
+        assertThat(new PathSampler(RequestSampler.ALWAYS, null).isSamplingAll()).isTrue();
+        assertThat(new PathSampler(RequestSampler.ALWAYS, "").isSamplingAll()).isTrue();
+        assertThat(new PathSampler(RequestSampler.NEVER, null).isSamplingAll()).isFalse();
+    }
+
+    @Test
+    public void testRateLimitingRule() {
+        PathSampler sampler = new PathSampler(RequestSampler.ALWAYS, "/orders/.*=2/s");
+        assertThat(sampler.isSampled("/orders/1")).isTrue();
+        assertThat(sampler.isSampled("/orders/2")).isTrue();
+        assertThat(sampler.isSampled("/orders/3")).isFalse();
+        assertThat(sampler.isSampled("/customers")).isTrue();
+    }
+
+    @Test
+    public void testProbabilitiesAreClamped() {
+        PathSampler sampler = new PathSampler(RequestSampler.NEVER, "/always=1.5,/never=-1");
+        assertThat(sampler.isSampled("/always")).isTrue();
+        assertThat(sampler.isSampled("/never")).isFalse();
+    }
+
+    @Test
+    public void testInvalidRules() {
+        for (String each : new String[]{"/health", "=1", "/health="}) {
+            try {
+                new PathSampler(RequestSampler.ALWAYS, each);
+                fail("expected " + each + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage()).contains(each);
+            }
+        }
+    }
+}
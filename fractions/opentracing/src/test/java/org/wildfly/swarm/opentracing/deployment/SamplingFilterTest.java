@@ -0,0 +1,157 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.opentracing.deployment;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.propagation.TextMap;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SamplingFilterTest {
+
+    @Test
+    public void testSampledRequestIsTraced() throws Exception {
+        SamplingFilter filter = new SamplingFilter(this.tracingFilter, new PathSampler(RequestSampler.NEVER, "/orders/.*=1"), tracer());
+
+        filter.doFilter(request("/orders/1"), null, this.chain);
+
+        assertThat(this.traced).hasSize(1);
+        assertThat(this.passed).hasSize(1);
+    }
+
+    @Test
+    public void testUnsampledRequestSkipsTracing() throws Exception {
+        SamplingFilter filter = new SamplingFilter(this.tracingFilter, new PathSampler(RequestSampler.ALWAYS, "/health=0"), tracer());
+
+        filter.doFilter(request("/health"), null, this.chain);
+
+        assertThat(this.traced).isEmpty();
+        assertThat(this.passed).hasSize(1);
+    }
+
+    @Test
+    public void testRequestWithSpanContextIsTraced() throws Exception {
+        SamplingFilter filter = new SamplingFilter(this.tracingFilter, new PathSampler(RequestSampler.NEVER, null), tracer());
+
+        filter.doFilter(request("/orders/1", "uber-trace-id", "463ac35c9f6413ad:72485a3953bb6124:0:1"), null, this.chain);
+
+        assertThat(this.traced).hasSize(1);
+        assertThat(this.passed).hasSize(1);
+    }
+
+    @Test
+    public void testRequestWithoutSpanContextIsSampled() throws Exception {
+        SamplingFilter filter = new SamplingFilter(this.tracingFilter, new PathSampler(RequestSampler.NEVER, null), tracer());
+
+        filter.doFilter(request("/orders/1", "Accept", "application/json"), null, this.chain);
+
+        assertThat(this.traced).isEmpty();
+        assertThat(this.passed).hasSize(1);
+    }
+
+    @Test
+    public void testLifecycleIsDelegated() throws Exception {
+        SamplingFilter filter = new SamplingFilter(this.tracingFilter, new PathSampler(RequestSampler.NEVER, null), tracer());
+
+        filter.init(null);
+        filter.destroy();
+
+        assertThat(this.lifecycle).containsExactly("init", "destroy");
+    }
+
+    /**
+     * A tracer which finds a span context in any request carrying {@code uber-trace-id}.
+     */
+    private static Tracer tracer() {
+        return (Tracer) Proxy.newProxyInstance(SamplingFilterTest.class.getClassLoader(), new Class<?>[]{Tracer.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("extract")) {
+                        for (Map.Entry<String, String> each : (TextMap) args[1]) {
+                            if (each.getKey().equalsIgnoreCase("uber-trace-id")) {
+                                return Proxy.newProxyInstance(SamplingFilterTest.class.getClassLoader(), new Class<?>[]{SpanContext.class},
+                                        (context, m, a) -> null);
+                            }
+                        }
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static HttpServletRequest request(String uri, String... headers) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            values.put(headers[i], headers[i + 1]);
+        }
+        return (HttpServletRequest) Proxy.newProxyInstance(SamplingFilterTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRequestURI":
+                            return uri;
+                        case "getHeaderNames":
+                            return Collections.enumeration(values.keySet());
+                        case "getHeader":
+                            return values.get(args[0]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private final List<ServletRequest> traced = new CopyOnWriteArrayList<>();
+
+    private final List<ServletRequest> passed = new CopyOnWriteArrayList<>();
+
+    private final List<String> lifecycle = new CopyOnWriteArrayList<>();
+
+    private final FilterChain chain = (request, response) -> this.passed.add(request);
+
+    private final Filter tracingFilter = new Filter() {
+        @Override
+        public void init(FilterConfig filterConfig) {
+            lifecycle.add("init");
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+            traced.add(request);
+            chain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+            lifecycle.add("destroy");
+        }
+    };
+}
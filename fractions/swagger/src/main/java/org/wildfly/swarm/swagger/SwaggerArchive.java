@@ -23,6 +23,16 @@ import org.jboss.shrinkwrap.api.Assignable;
 public interface SwaggerArchive extends Assignable {
     String SWAGGER_CONFIGURATION_PATH = "META-INF/swarm.swagger.conf";
 
+    /**
+     * Location of a swagger.json generated at build time.
+     */
+    String SWAGGER_DOCUMENT_PATH = "META-INF/swagger.json";
+
+    /**
+     * Location of the optional gzip-compressed copy of the generated swagger.json.
+     */
+    String SWAGGER_DOCUMENT_GZIP_PATH = SWAGGER_DOCUMENT_PATH + ".gz";
+
     SwaggerArchive setResourcePackages(String... packages);
 
     /**
@@ -129,4 +139,12 @@ public interface SwaggerArchive extends Assignable {
     boolean hasResourcePackages();
 
     String[] getResourcePackages();
+
+    /**
+     * Determine if the archive contains a swagger.json generated at build time, in which case
+     * the document is served as-is and the resources are not scanned on deployment.
+     *
+     * @return true if a generated document is present
+     */
+    boolean hasDocument();
 }
@@ -55,5 +55,16 @@ public interface SwaggerMessages extends BasicLogger {
     @Message(id = 5, value = "Configure Swagger for deployment %s with packages %s")
     void configureSwaggerForSeveralPackages(String deployment, List<String> packages);
 
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 6, value = "Serving swagger document generated at build time for deployment %s at %s")
+    void servingGeneratedDocument(String deployment, String path);
+
+    @LogMessage(level = Logger.Level.INFO)
+    @Message(id = 7, value = "Generated swagger document for packages %s: %s")
+    void generatedDocument(List<String> packages, String path);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 8, value = "Runtime swagger settings are configured for deployment %s; ignoring the document generated at build time and scanning instead")
+    void ignoringGeneratedDocument(String deployment);
 
 }
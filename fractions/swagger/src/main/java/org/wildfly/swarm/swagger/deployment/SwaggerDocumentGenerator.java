@@ -0,0 +1,191 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.swagger.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import io.swagger.jaxrs.config.BeanConfig;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+import org.wildfly.swarm.swagger.SwaggerArchive;
+import org.wildfly.swarm.swagger.SwaggerConfig;
+import org.wildfly.swarm.swagger.SwaggerMessages;
+
+/**
+ * Produces swagger.json ahead of time, so that a deployment only has to serve it.
+ *
+ * <p>Invoked by the build plugins through {@link #main(String...)} with the application
+ * classes and dependencies on the thread context class loader:</p>
+ *
+ * <pre>
+ *   SwaggerDocumentGenerator &lt;classes-dir&gt; [--gzip] [--packages=com.foo,com.bar]
+ * </pre>
+ *
+ * <p>The document is written to {@code META-INF/swagger.json} below the classes directory.</p>
+ */
+public class SwaggerDocumentGenerator {
+
+    public SwaggerDocumentGenerator(SwaggerConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String... args) throws Exception {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("Usage: SwaggerDocumentGenerator <classes-dir> [--gzip] [--packages=a,b]");
+        }
+
+        Path classesDir = Paths.get(args[0]);
+        boolean gzip = false;
+        String[] packages = null;
+        for (int i = 1; i < args.length; ++i) {
+            if (args[i].equals("--gzip")) {
+                gzip = true;
+            } else if (args[i].startsWith("--packages=")) {
+                packages = args[i].substring("--packages=".length()).split(",");
+            }
+        }
+
+        SwaggerConfig config = new SwaggerConfig();
+        Path configFile = classesDir.resolve(SwaggerArchive.SWAGGER_CONFIGURATION_PATH);
+        if (Files.exists(configFile)) {
+            try (InputStream in = Files.newInputStream(configFile)) {
+                config = new SwaggerConfig(in);
+            }
+        }
+        if (packages != null) {
+            config.put(SwaggerConfig.Key.PACKAGES, packages);
+        } else if (config.get(SwaggerConfig.Key.PACKAGES) == null) {
+            Optional<String> detected = detectPackage(classesDir);
+            if (!detected.isPresent()) {
+                SwaggerMessages.MESSAGES.noEligiblePackages(classesDir.toString());
+                return;
+            }
+            config.put(SwaggerConfig.Key.PACKAGES, new String[]{detected.get()});
+        }
+
+        Path document = classesDir.resolve(SwaggerArchive.SWAGGER_DOCUMENT_PATH);
+        new SwaggerDocumentGenerator(config).write(document, gzip);
+        SwaggerMessages.MESSAGES.generatedDocument(Arrays.asList((String[]) config.get(SwaggerConfig.Key.PACKAGES)), document.toString());
+    }
+
+    /**
+     * Scan the configured packages and render the document.
+     *
+     * @return the swagger.json content
+     * @throws IOException if the document cannot be rendered
+     */
+    public byte[] generate() throws IOException {
+        BeanConfig beanConfig = configure(new BeanConfig(), this.config);
+        beanConfig.setScan(true);
+        Swagger swagger = beanConfig.getSwagger();
+
+        if ("true".equals(this.config.get(SwaggerConfig.Key.PRETTY_PRINT))) {
+            return Json.pretty().writeValueAsBytes(swagger);
+        }
+        return Json.mapper().writeValueAsBytes(swagger);
+    }
+
+    /**
+     * Generate the document to the given path, optionally with a gzip-compressed sibling.
+     *
+     * @param document the swagger.json path
+     * @param gzip     whether to also write swagger.json.gz
+     * @throws IOException if the document cannot be written
+     */
+    public void write(Path document, boolean gzip) throws IOException {
+        byte[] content = generate();
+        Files.createDirectories(document.getParent());
+        Files.write(document, content);
+
+        Path compressed = document.resolveSibling(document.getFileName() + ".gz");
+        if (gzip) {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+                out.write(content);
+            }
+        } else {
+            Files.deleteIfExists(compressed);
+        }
+    }
+
+    static BeanConfig configure(BeanConfig beanConfig, SwaggerConfig config) {
+        beanConfig.setHost((String) config.get(SwaggerConfig.Key.HOST));
+        beanConfig.setLicense((String) config.get(SwaggerConfig.Key.LICENSE));
+        beanConfig.setLicenseUrl((String) config.get(SwaggerConfig.Key.LICENSE_URL));
+        beanConfig.setTermsOfServiceUrl((String) config.get(SwaggerConfig.Key.TERMS_OF_SERVICE_URL));
+
+        // some type inconsistencies in the API (String vs String[])
+        String[] packages = (String[]) config.get(SwaggerConfig.Key.PACKAGES);
+
+        if (packages != null) {
+            StringBuffer sb = new StringBuffer();
+            for (String s : packages) {
+                sb.append(s).append(',');
+            }
+
+            beanConfig.setResourcePackage(sb.toString());
+        }
+
+        beanConfig.setVersion((String) config.get(SwaggerConfig.Key.VERSION));
+        beanConfig.setBasePath((String) config.get(SwaggerConfig.Key.ROOT));
+        beanConfig.setContact((String) config.get(SwaggerConfig.Key.CONTACT));
+        beanConfig.setDescription((String) config.get(SwaggerConfig.Key.DESCRIPTION));
+        beanConfig.setTitle((String) config.get(SwaggerConfig.Key.TITLE));
+        beanConfig.setPrettyPrint((String) config.get(SwaggerConfig.Key.PRETTY_PRINT));
+        beanConfig.setSchemes((String[]) config.get(SwaggerConfig.Key.SCHEMES));
+        return beanConfig;
+    }
+
+    /**
+     * Same heuristic as the deployment-time preparer: the package of the first class
+     * outside of the org.wildfly.swarm package space.
+     */
+    private static Optional<String> detectPackage(Path classesDir) throws IOException {
+        if (!Files.isDirectory(classesDir)) {
+            return Optional.empty();
+        }
+        List<String> candidates = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            files.filter(p -> p.toString().endsWith(".class"))
+                    .map(p -> classesDir.relativize(p.getParent()))
+                    .map(p -> p.toString().replace(p.getFileSystem().getSeparator(), "."))
+                    .filter(p -> !p.isEmpty())
+                    .distinct()
+                    .sorted()
+                    .forEach(candidates::add);
+        }
+        for (String candidate : candidates) {
+            if (candidate.startsWith("org.wildfly.swarm")) {
+                SwaggerMessages.MESSAGES.ignoringPackage(candidate);
+            } else {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private final SwaggerConfig config;
+}
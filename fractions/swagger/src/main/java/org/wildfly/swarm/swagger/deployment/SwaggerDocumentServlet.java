@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.swagger.deployment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.wildfly.swarm.swagger.SwaggerArchive;
+
+/**
+ * Serves the swagger.json generated at build time, and its gzip-compressed copy to clients
+ * accepting it. Both are read once, when the servlet is initialized.
+ */
+public class SwaggerDocumentServlet extends HttpServlet {
+
+    @Override
+    public void init() throws ServletException {
+        this.document = read(SwaggerArchive.SWAGGER_DOCUMENT_PATH);
+        this.compressed = read(SwaggerArchive.SWAGGER_DOCUMENT_GZIP_PATH);
+        if (this.document == null) {
+            throw new ServletException("No generated swagger document found at " + SwaggerArchive.SWAGGER_DOCUMENT_PATH);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Vary", "Accept-Encoding");
+
+        byte[] body = this.document;
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (this.compressed != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            resp.setHeader("Content-Encoding", "gzip");
+            body = this.compressed;
+        }
+
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    private byte[] read(String path) throws ServletException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        InputStream in = loader.getResourceAsStream(path);
+        if (in == null) {
+            in = loader.getResourceAsStream("WEB-INF/classes/" + path);
+        }
+        if (in == null) {
+            return null;
+        }
+        try (InputStream content = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = content.read(buffer)) >= 0) {
+                out.write(buffer, 0, len);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private byte[] document;
+
+    private byte[] compressed;
+}
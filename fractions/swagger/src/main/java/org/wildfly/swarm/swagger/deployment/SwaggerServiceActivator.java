@@ -47,36 +47,20 @@ public class SwaggerServiceActivator implements ServiceActivator {
             return;
         }
 
-        try {
-            SwaggerConfig config = new SwaggerConfig(in);
-
-            BeanConfig beanConfig = new BeanConfig();
-            beanConfig.setHost((String) config.get(SwaggerConfig.Key.HOST));
-            beanConfig.setLicense((String) config.get(SwaggerConfig.Key.LICENSE));
-            beanConfig.setLicenseUrl((String) config.get(SwaggerConfig.Key.LICENSE_URL));
-            beanConfig.setTermsOfServiceUrl((String) config.get(SwaggerConfig.Key.TERMS_OF_SERVICE_URL));
-
-            // some type inconsistencies in the API (String vs String[])
-            String[] packages = (String[]) config.get(SwaggerConfig.Key.PACKAGES);
-
-            if (packages != null) {
-                StringBuffer sb = new StringBuffer();
-                for (String s : packages) {
-                    sb.append(s).append(',');
-                }
-
-                beanConfig.setResourcePackage(sb.toString());
+        if (Thread.currentThread().getContextClassLoader().getResource(SwaggerArchive.SWAGGER_DOCUMENT_PATH) != null
+                || Thread.currentThread().getContextClassLoader().getResource("WEB-INF/classes/" + SwaggerArchive.SWAGGER_DOCUMENT_PATH) != null) {
+            // Generated at build time and served by SwaggerDocumentServlet; nothing to scan
+            try {
+                in.close();
+            } catch (IOException ignored) {
             }
+            return;
+        }
 
-            beanConfig.setVersion((String) config.get(SwaggerConfig.Key.VERSION));
-            beanConfig.setBasePath((String) config.get(SwaggerConfig.Key.ROOT));
-            beanConfig.setContact((String) config.get(SwaggerConfig.Key.CONTACT));
-            beanConfig.setDescription((String) config.get(SwaggerConfig.Key.DESCRIPTION));
-            beanConfig.setTitle((String) config.get(SwaggerConfig.Key.TITLE));
-            beanConfig.setPrettyPrint((String) config.get(SwaggerConfig.Key.PRETTY_PRINT));
-            beanConfig.setSchemes((String[]) config.get(SwaggerConfig.Key.SCHEMES));
+        try {
+            SwaggerConfig config = new SwaggerConfig(in);
 
-            beanConfig.setScan(true);
+            SwaggerDocumentGenerator.configure(new BeanConfig(), config).setScan(true);
         } catch (IOException e) {
             throw new ServiceRegistryException(e);
         }
@@ -134,6 +134,11 @@ public class SwaggerArchiveImpl extends AssignableBase<ArchiveBase<?>> implement
         return getConfigurationAsset().getResourcePackages();
     }
 
+    @Override
+    public boolean hasDocument() {
+        return getArchive().contains(SWAGGER_DOCUMENT_PATH) || getArchive().contains("WEB-INF/classes/" + SWAGGER_DOCUMENT_PATH);
+    }
+
     private void loadOrCreateConfigurationAsset() throws IOException {
 
         Node node = getArchive().get(SWAGGER_CONFIGURATION_PATH);
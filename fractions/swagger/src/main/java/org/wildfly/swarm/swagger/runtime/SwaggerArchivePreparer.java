@@ -6,16 +6,22 @@ import java.util.Map;
 
 import javax.inject.Inject;
 
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.DotName;
 import org.jboss.shrinkwrap.api.Archive;
 import org.jboss.shrinkwrap.api.ArchivePath;
 import org.jboss.shrinkwrap.api.Node;
 import org.wildfly.swarm.container.runtime.cdi.DeploymentContext;
+import org.wildfly.swarm.internal.DeploymentIndexer;
 import org.wildfly.swarm.spi.api.DeploymentProcessor;
 import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.runtime.annotations.DeploymentScoped;
 import org.wildfly.swarm.swagger.SwaggerArchive;
 import org.wildfly.swarm.swagger.SwaggerMessages;
+import org.wildfly.swarm.swagger.deployment.SwaggerDocumentServlet;
 import org.wildfly.swarm.undertow.WARArchive;
+import org.wildfly.swarm.undertow.descriptors.WebXmlAsset;
 
 /**
  * @author Bob McWhirter
@@ -23,6 +29,10 @@ import org.wildfly.swarm.undertow.WARArchive;
 @DeploymentScoped
 public class SwaggerArchivePreparer implements DeploymentProcessor {
 
+    private static final String JAXRS_APPLICATION = "javax.ws.rs.core.Application";
+
+    private static final DotName APPLICATION_PATH = DotName.createSimple("javax.ws.rs.ApplicationPath");
+
     @Configurable("swarm.deployment.*.swagger.title")
     private String title;
 
@@ -123,6 +133,26 @@ public class SwaggerArchivePreparer implements DeploymentProcessor {
             }
 
 
+            // A document generated at build time is served as-is; there is nothing to scan.
+            // It cannot reflect runtime swagger settings though, so those fall back to scanning.
+            if (swaggerArchive.hasDocument() && hasRuntimeSettings()) {
+                SwaggerMessages.MESSAGES.ignoringGeneratedDocument(archive.getName());
+                for (String each : new String[]{SwaggerArchive.SWAGGER_DOCUMENT_PATH, SwaggerArchive.SWAGGER_DOCUMENT_GZIP_PATH}) {
+                    deployment.delete(each);
+                    deployment.delete("WEB-INF/classes/" + each);
+                }
+            }
+
+            if (swaggerArchive.hasDocument()) {
+                String path = servletPath(documentPath(deployment));
+                deployment.addClass(SwaggerDocumentServlet.class);
+                deployment.findWebXmlAsset()
+                        .addServlet("swagger-document", SwaggerDocumentServlet.class.getName())
+                        .withUrlPattern(path);
+                SwaggerMessages.MESSAGES.servingGeneratedDocument(archive.getName(), path);
+                return;
+            }
+
             // If the archive has not been configured with packages for swagger to scan
             // try to be smart about it, and find the topmost package that's not in the
             // org.wildfly.swarm package space
@@ -160,4 +190,50 @@ public class SwaggerArchivePreparer implements DeploymentProcessor {
             deployment.addClass(io.swagger.jaxrs.listing.SwaggerSerializers.class);
         }
     }
+
+    private boolean hasRuntimeSettings() {
+        return this.title != null || this.description != null || (this.packages != null && !this.packages.isEmpty()) || this.tosUrl != null
+                || this.license != null || this.licenseUrl != null || this.version != null || (this.schemes != null && !this.schemes.isEmpty())
+                || this.host != null || this.root != null;
+    }
+
+    /**
+     * The generated document is served where ApiListingResource would serve it, below the JAX-RS application path.
+     * A web.xml servlet mapping for the application takes precedence over its {@code @ApplicationPath}.
+     */
+    private String documentPath(WARArchive deployment) {
+        WebXmlAsset webXml = deployment.findWebXmlAsset();
+        String mapped = mappedPath(webXml, JAXRS_APPLICATION);
+        if (mapped != null) {
+            return mapped;
+        }
+        for (AnnotationInstance annotation : DeploymentIndexer.index(this.archive).getAnnotations(APPLICATION_PATH)) {
+            if (annotation.target().kind() == AnnotationTarget.Kind.CLASS) {
+                mapped = mappedPath(webXml, annotation.target().asClass().name().toString());
+                return mapped != null ? mapped : annotation.value().asString();
+            }
+        }
+        return "/";
+    }
+
+    private static String mappedPath(WebXmlAsset webXml, String servletName) {
+        List<String> patterns = webXml.getServletMapping(servletName);
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        String pattern = patterns.get(0);
+        return pattern.endsWith("/*") ? pattern.substring(0, pattern.length() - 2) : pattern;
+    }
+
+    private static String servletPath(String applicationPath) {
+        StringBuilder path = new StringBuilder();
+        if (!applicationPath.startsWith("/")) {
+            path.append('/');
+        }
+        path.append(applicationPath);
+        if (path.charAt(path.length() - 1) != '/') {
+            path.append('/');
+        }
+        return path.append("swagger.json").toString();
+    }
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.swagger.deployment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.swagger.SwaggerArchive;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SwaggerDocumentGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGeneratesDocument() throws Exception {
+        Path classes = folder.newFolder("classes").toPath();
+
+        SwaggerDocumentGenerator.main(classes.toString(), "--packages=com.myapp");
+
+        Path document = classes.resolve(SwaggerArchive.SWAGGER_DOCUMENT_PATH);
+        assertThat(Files.exists(document)).isTrue();
+        assertThat(new String(Files.readAllBytes(document), StandardCharsets.UTF_8)).contains("\"swagger\"");
+        assertThat(Files.exists(classes.resolve(SwaggerArchive.SWAGGER_DOCUMENT_GZIP_PATH))).isFalse();
+    }
+
+    @Test
+    public void testGeneratesCompressedCopy() throws Exception {
+        Path classes = folder.newFolder("classes").toPath();
+
+        SwaggerDocumentGenerator.main(classes.toString(), "--gzip", "--packages=com.myapp");
+
+        byte[] document = Files.readAllBytes(classes.resolve(SwaggerArchive.SWAGGER_DOCUMENT_PATH));
+        byte[] expanded;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(classes.resolve(SwaggerArchive.SWAGGER_DOCUMENT_GZIP_PATH)))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                out.write(buf, 0, len);
+            }
+            expanded = out.toByteArray();
+        }
+        assertThat(expanded).isEqualTo(document);
+    }
+}
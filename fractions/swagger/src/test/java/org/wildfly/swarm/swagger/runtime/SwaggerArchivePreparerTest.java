@@ -1,12 +1,17 @@
 package org.wildfly.swarm.swagger.runtime;
 
+import java.lang.reflect.Field;
+import java.util.List;
+
 import com.myapp.MyResource;
 import com.myapp.mysubstuff.MyOtherResource;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.junit.Test;
 import org.wildfly.swarm.jaxrs.JAXRSArchive;
 import org.wildfly.swarm.swagger.SwaggerArchive;
+import org.wildfly.swarm.undertow.descriptors.WebXmlAsset;
 
 import static org.fest.assertions.Assertions.assertThat;
 
@@ -61,4 +66,61 @@ public class SwaggerArchivePreparerTest {
 
         assertThat(swaggerArchive.getResourcePackages()).containsOnly("com.myapp.mysubstuff");
     }
+
+    @Test
+    public void testWithGeneratedDocument() {
+        JAXRSArchive archive = ShrinkWrap.create(JAXRSArchive.class);
+
+        archive.addResource(MyResource.class);
+        archive.add(new ByteArrayAsset("{\"swagger\":\"2.0\"}".getBytes()), "WEB-INF/classes/META-INF/swagger.json");
+
+        SwaggerArchivePreparer preparer = new SwaggerArchivePreparer(archive);
+        preparer.process();
+
+        assertThat(archive.as(SwaggerArchive.class).hasResourcePackages()).isFalse();
+        assertThat(archive.contains("WEB-INF/classes/io/swagger/jaxrs/listing/ApiListingResource.class")).isFalse();
+
+        assertThat(documentMapping(archive)).containsOnly("/swagger.json");
+    }
+
+    @Test
+    public void testGeneratedDocumentBelowWebXmlMapping() {
+        JAXRSArchive archive = ShrinkWrap.create(JAXRSArchive.class);
+
+        archive.addResource(MyResource.class);
+        archive.add(new ByteArrayAsset("{\"swagger\":\"2.0\"}".getBytes()), "WEB-INF/classes/META-INF/swagger.json");
+        archive.add(new StringAsset("<web-app xmlns=\"http://xmlns.jcp.org/xml/ns/javaee\" version=\"3.1\">"
+                                            + "<servlet-mapping><servlet-name>javax.ws.rs.core.Application</servlet-name>"
+                                            + "<url-pattern>/rest/*</url-pattern></servlet-mapping></web-app>"), WebXmlAsset.NAME);
+
+        SwaggerArchivePreparer preparer = new SwaggerArchivePreparer(archive);
+        preparer.process();
+
+        assertThat(documentMapping(archive)).containsOnly("/rest/swagger.json");
+    }
+
+    @Test
+    public void testRuntimeSettingsIgnoreGeneratedDocument() throws Exception {
+        JAXRSArchive archive = ShrinkWrap.create(JAXRSArchive.class);
+
+        archive.addResource(MyResource.class);
+        archive.add(new ByteArrayAsset("{\"swagger\":\"2.0\"}".getBytes()), "WEB-INF/classes/META-INF/swagger.json");
+
+        SwaggerArchivePreparer preparer = new SwaggerArchivePreparer(archive);
+        Field title = SwaggerArchivePreparer.class.getDeclaredField("title");
+        title.setAccessible(true);
+        title.set(preparer, "Configured at runtime");
+        preparer.process();
+
+        SwaggerArchive swaggerArchive = archive.as(SwaggerArchive.class);
+        assertThat(swaggerArchive.hasDocument()).isFalse();
+        assertThat(swaggerArchive.getResourcePackages()).containsOnly("com.myapp");
+        assertThat(documentMapping(archive)).isEmpty();
+    }
+
+    private static List<String> documentMapping(JAXRSArchive archive) {
+        // Servlets added through WebXmlAsset only reach the descriptor once it is written out
+        WebXmlAsset webXml = new WebXmlAsset(archive.get(WebXmlAsset.NAME).getAsset().openStream());
+        return webXml.getServletMapping("swagger-document");
+    }
 }
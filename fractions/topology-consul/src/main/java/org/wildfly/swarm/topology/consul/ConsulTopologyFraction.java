@@ -17,6 +17,9 @@ package org.wildfly.swarm.topology.consul;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
 import org.wildfly.swarm.spi.api.Defaultable;
@@ -89,6 +92,57 @@ public class ConsulTopologyFraction implements Fraction<ConsulTopologyFraction>
         return this.url.get();
     }
 
+    /**
+     * Restrict discovery to the services this application consumes: those it
+     * advertises, those used through Ribbon or the topology proxy, and those
+     * listed with {@link #watchService(String...)}. When false, every service
+     * in the Consul catalog is watched.
+     *
+     * @param consumedServicesOnly whether to watch only consumed services.
+     * @return this fraction.
+     */
+    public ConsulTopologyFraction consumedServicesOnly(boolean consumedServicesOnly) {
+        this.consumedServicesOnly.set(consumedServicesOnly);
+        return this;
+    }
+
+    public boolean consumedServicesOnly() {
+        return this.consumedServicesOnly.get();
+    }
+
+    /**
+     * Explicitly watch the named services in addition to those discovered
+     * from the application's own usage.
+     *
+     * @param serviceNames The names of the services to watch.
+     * @return this fraction.
+     */
+    public ConsulTopologyFraction watchService(String... serviceNames) {
+        this.watchedServices.addAll(Arrays.asList(serviceNames));
+        return this;
+    }
+
+    public List<String> watchedServices() {
+        return this.watchedServices;
+    }
+
+    /**
+     * Set the TTL, in seconds, of the health checks registered for advertised
+     * services. Every check is passed from one scheduled task roughly every
+     * two-thirds of this period.
+     *
+     * @param ttl The TTL in seconds.
+     * @return this fraction.
+     */
+    public ConsulTopologyFraction ttl(int ttl) {
+        this.ttl.set(ttl);
+        return this;
+    }
+
+    public int ttl() {
+        return this.ttl.get();
+    }
+
     /**
      * The default consul Agent URL (http://localhost:8500/)
      */
@@ -107,4 +161,13 @@ public class ConsulTopologyFraction implements Fraction<ConsulTopologyFraction>
     @AttributeDocumentation("URL of the Consul server")
     private Defaultable<URL> url = Defaultable.url(DEFAULT_URL);
 
+    @AttributeDocumentation("Flag to watch only the services consumed by this application instead of the whole catalog")
+    private Defaultable<Boolean> consumedServicesOnly = Defaultable.bool(false);
+
+    @AttributeDocumentation("Names of additional services to watch when only consumed services are watched")
+    private List<String> watchedServices = new ArrayList<>();
+
+    @AttributeDocumentation("TTL (seconds) of the health checks of advertised services")
+    private Defaultable<Integer> ttl = Defaultable.integer(3);
+
 }
@@ -46,4 +46,8 @@ public interface ConsulTopologyMessages extends BasicLogger {
     @Message(id = 3, value = "Error while querying service data from consul.")
     void errorOnCatalogUpdate(@Cause Throwable t);
 
+    @LogMessage(level = Logger.Level.ERROR)
+    @Message(id = 4, value = "Error refreshing health of service: %s.")
+    void errorRefreshingService(String key, @Cause Throwable t);
+
 }
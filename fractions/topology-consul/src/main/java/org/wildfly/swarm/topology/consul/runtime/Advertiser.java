@@ -18,6 +18,9 @@ package org.wildfly.swarm.topology.consul.runtime;
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import com.orbitz.consul.AgentClient;
@@ -36,6 +39,10 @@ import org.wildfly.swarm.topology.runtime.Registration;
 /**
  * Service advertiser providing TTL checks for all registered deployments
  *
+ * All TTL checks are passed from one scheduled task, roughly every two-thirds
+ * of the TTL. Consul has no bulk check update, so each check is still passed
+ * with its own request.
+ *
  * @author John Hovell
  * @author Bob McWhirter
  */
@@ -43,6 +50,14 @@ public class Advertiser implements Service<Advertiser>, Runnable {
 
     public static final ServiceName SERVICE_NAME = ConsulService.SERVICE_NAME.append("advertiser");
 
+    public Advertiser() {
+        this(3);
+    }
+
+    public Advertiser(int ttl) {
+        this.ttl = ttl;
+    }
+
     public Injector<AgentClient> getAgentClientInjector() {
         return this.agentClientInjector;
     }
@@ -60,12 +75,15 @@ public class Advertiser implements Service<Advertiser>, Runnable {
                 .id(serviceId(registration))
                 .name(registration.getName())
                 .addTags(registration.getTags().toArray(new String[]{}))
-                .check(com.orbitz.consul.model.agent.Registration.RegCheck.ttl(3L))
+                .check(com.orbitz.consul.model.agent.Registration.RegCheck.ttl((long) this.ttl))
                 .build();
         client.register(consulReg);
 
         this.advertisements.add(registration);
 
+        // pass immediately rather than leaving the service critical until the next round
+        pass(client, registration);
+
         log.info("Registered service " + consulReg.getId());
     }
 
@@ -87,14 +105,18 @@ public class Advertiser implements Service<Advertiser>, Runnable {
 
     @Override
     public void start(StartContext startContext) throws StartException {
-        this.thread = new Thread(this);
-
-        this.thread.start();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "consul-ttl-checks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(500, (this.ttl * 1000L * 2) / 3);
+        this.executor.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void stop(StopContext stopContext) {
-        this.thread.interrupt();
+        this.executor.shutdownNow();
     }
 
     @Override
@@ -105,26 +127,17 @@ public class Advertiser implements Service<Advertiser>, Runnable {
     @Override
     public void run() {
         AgentClient client = this.agentClientInjector.getValue();
-        while (true) {
-            this.advertisements
-                    .stream()
-                    .forEach(e -> {
-                        try {
-                            client.pass(serviceId(e));
-                        } catch (NotRegisteredException ex) {
-                            TopologyMessages.MESSAGES.notRegistered(e.toString(), ex);
-                        } catch (Exception ex) {
-                            TopologyMessages.MESSAGES.errorOnCheck(e.toString(), ex);
-                        }
-                    });
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                // ignore
-                break;
-            }
-        }
+        this.advertisements.forEach(e -> pass(client, e));
+    }
 
+    private void pass(AgentClient client, Registration registration) {
+        try {
+            client.pass(serviceId(registration));
+        } catch (NotRegisteredException ex) {
+            TopologyMessages.MESSAGES.notRegistered(registration.toString(), ex);
+        } catch (Exception ex) {
+            TopologyMessages.MESSAGES.errorOnCheck(registration.toString(), ex);
+        }
     }
 
     private String serviceId(Registration registration) {
@@ -137,5 +150,7 @@ public class Advertiser implements Service<Advertiser>, Runnable {
 
     private Set<Registration> advertisements = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
-    private Thread thread;
+    private final int ttl;
+
+    private ScheduledExecutorService executor;
 }
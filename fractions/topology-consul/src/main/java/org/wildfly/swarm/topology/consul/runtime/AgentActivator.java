@@ -49,7 +49,7 @@ public class AgentActivator implements ServiceActivator {
                 .addDependency(ConsulService.SERVICE_NAME, Consul.class, agentClient.getConsulInjector())
                 .install();
 
-        Advertiser advertiser = new Advertiser();
+        Advertiser advertiser = new Advertiser(this.fraction.ttl());
         target.addService(Advertiser.SERVICE_NAME, advertiser)
                 .addDependency(AgentClientService.SERVICE_NAME, AgentClient.class, advertiser.getAgentClientInjector())
                 .install();
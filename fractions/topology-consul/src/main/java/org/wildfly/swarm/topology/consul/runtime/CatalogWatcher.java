@@ -16,17 +16,26 @@
 package org.wildfly.swarm.topology.consul.runtime;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import com.orbitz.consul.CatalogClient;
 import com.orbitz.consul.HealthClient;
-import com.orbitz.consul.cache.ServiceHealthCache;
 import com.orbitz.consul.model.ConsulResponse;
+import com.orbitz.consul.model.State;
+import com.orbitz.consul.model.health.HealthCheck;
+import com.orbitz.consul.model.health.ServiceHealth;
 import com.orbitz.consul.option.CatalogOptions;
-import com.orbitz.consul.option.ImmutableCatalogOptions;
 import com.orbitz.consul.option.ImmutableQueryOptions;
 import com.orbitz.consul.option.QueryOptions;
 import org.jboss.msc.inject.Injector;
@@ -42,12 +51,18 @@ import org.wildfly.swarm.topology.runtime.TopologyManager;
 /**
  * Catalog-watching service.
  *
- * This service regularly performs a blocking-wait poll of the catalog of all
- * services in order to avoid having to know a-priori which services are of
- * interest to the application.
+ * This service performs a single blocking-wait poll of the health checks of
+ * all services, multiplexing what used to be one long-poll per service. Each
+ * time the checks change, only the watched services whose checks differ from
+ * the previous poll are re-read, node-level checks counting towards every
+ * service on that node, and services which have vanished are removed
+ * from the topology. A poll which times out without the index advancing
+ * changes nothing and refreshes nothing.
  *
- * Any discovered service is setup with a related health-cache listener in
- * order to maintain the full topology.
+ * By default every service in the catalog is watched. When restricted to
+ * consumed services, only the services the application has registered
+ * interest in with the topology, plus any explicitly configured ones, are
+ * watched.
  *
  * @author John Hovell
  * @author Bob McWhirter
@@ -56,6 +71,15 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
 
     public static final ServiceName SERVICE_NAME = ConsulService.SERVICE_NAME.append("catalog-watcher");
 
+    public CatalogWatcher() {
+        this(false, Collections.emptyList());
+    }
+
+    public CatalogWatcher(boolean consumedServicesOnly, Collection<String> watchedServices) {
+        this.consumedServicesOnly = consumedServicesOnly;
+        this.watchedServices = new HashSet<>(watchedServices);
+    }
+
     public Injector<CatalogClient> getCatalogClientInjector() {
         return this.catalogClientInjector;
     }
@@ -70,21 +94,23 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
 
     @Override
     public void start(StartContext startContext) throws StartException {
-        this.thread = new Thread(this);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "consul-service-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.consumedServicesOnly) {
+            this.topologyManagerInjector.getValue().addInterestListener(this.interestListener);
+        }
+        this.thread = new Thread(this, "consul-catalog-watcher");
         this.thread.start();
     }
 
     @Override
     public void stop(StopContext stopContext) {
         this.thread.interrupt();
-
-        this.watchers.entrySet().forEach(e -> {
-            try {
-                e.getValue().stop();
-            } catch (Exception ex) {
-                ConsulTopologyMessages.MESSAGES.errorStoppingCatalogWatcher(e.getKey(), ex);
-            }
-        });
+        this.refreshExecutor.shutdownNow();
+        this.topologyManagerInjector.getValue().removeInterestListener(this.interestListener);
     }
 
     @Override
@@ -94,70 +120,141 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
 
     @Override
     public void run() {
-        CatalogClient client = this.catalogClientInjector.getValue();
-
         BigInteger index = null;
 
-        while (true) {
-
+        while (!Thread.currentThread().isInterrupted()) {
             try {
-                QueryOptions options = QueryOptions.BLANK;
-
-                if (index != null) {
-                    options = ImmutableQueryOptions.builder()
-                            .wait("60s")
-                            .index(index)
-                            .build();
+                index = poll(index);
+            } catch (Exception ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                ConsulTopologyMessages.MESSAGES.errorOnCatalogUpdate(ex);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    break;
                 }
+            }
+        }
+    }
 
-                ConsulResponse<Map<String, List<String>>> services = client.getServices(options);
+    /**
+     * Perform one (possibly blocking) poll of the health checks and apply any changes.
+     *
+     * @param index The index returned by the previous poll, or {@code null} for the first.
+     * @return The index to use for the next poll.
+     */
+    BigInteger poll(BigInteger index) {
+        QueryOptions options = QueryOptions.BLANK;
 
-                index = services.getIndex();
+        if (index != null) {
+            options = ImmutableQueryOptions.builder()
+                    .wait("60s")
+                    .index(index)
+                    .build();
+        }
 
-                Map<String, List<String>> response = services.getResponse();
+        ConsulResponse<List<HealthCheck>> checks = this.healthClientInjector.getValue()
+                .getChecksByState(State.ANY, CatalogOptions.BLANK, options);
 
-                response.keySet().forEach(e -> {
-                    setupWatcher(e);
-                });
-            } catch (Exception ex) {
-                ConsulTopologyMessages.MESSAGES.errorOnCatalogUpdate(ex);
-            }
+        if (!checks.getIndex().equals(index)) {
+            update(checks.getResponse());
+        }
 
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                break;
+        return checks.getIndex();
+    }
+
+    synchronized void update(List<HealthCheck> checks) {
+        Map<String, Set<String>> serviceChecks = new HashMap<>();
+        Map<String, Set<String>> nodeChecks = new HashMap<>();
+        for (HealthCheck check : checks) {
+            String entry = check.getNode() + ":" + check.getCheckId() + "=" + check.getStatus();
+            // node-level checks, such as serfHealth, carry an empty service name
+            String serviceName = check.getServiceName().or("");
+            if (serviceName.isEmpty()) {
+                nodeChecks.computeIfAbsent(check.getNode(), k -> new TreeSet<>()).add(entry);
+            } else {
+                serviceChecks.computeIfAbsent(serviceName, k -> new TreeSet<>()).add(entry);
+                this.nodes.computeIfAbsent(serviceName, k -> new HashSet<>()).add(check.getNode());
             }
         }
-    }
 
-    private void setupWatcher(String serviceName) {
-        if (watchers.containsKey(serviceName)) {
-            return;
+        Set<String> services = watchedServices();
+
+        for (String name : new ArrayList<>(this.known.keySet())) {
+            if (!services.contains(name)) {
+                this.known.remove(name);
+                this.listeners.remove(name);
+                this.nodes.remove(name);
+                this.topologyManagerInjector.getValue().unregisterAll("consul", name);
+            }
         }
 
-        CatalogOptions options = ImmutableCatalogOptions.builder()
-                .build();
+        for (String name : services) {
+            String fingerprint = fingerprint(name, serviceChecks, nodeChecks);
+            if (!fingerprint.equals(this.known.get(name))) {
+                if (refresh(name)) {
+                    // the refresh may have revealed nodes whose checks belong in the fingerprint
+                    this.known.put(name, fingerprint(name, serviceChecks, nodeChecks));
+                }
+            }
+        }
+    }
 
-        ServiceHealthCache healthCache = ServiceHealthCache.newCache(
-                this.healthClientInjector.getValue(),
-                serviceName,
-                true,
-                options,
-                5
-        );
+    /**
+     * The checks of a service, including the node-level checks of every node it runs on,
+     * since a failing node takes its instances out of the healthy set too.
+     */
+    private String fingerprint(String name, Map<String, Set<String>> serviceChecks, Map<String, Set<String>> nodeChecks) {
+        Set<String> fingerprint = new TreeSet<>(serviceChecks.getOrDefault(name, Collections.emptySet()));
+        this.nodes.getOrDefault(name, Collections.emptySet())
+                .forEach(node -> fingerprint.addAll(nodeChecks.getOrDefault(node, Collections.emptySet())));
+        return fingerprint.toString();
+    }
 
+    private Set<String> watchedServices() {
+        if (this.consumedServicesOnly) {
+            Set<String> services = new HashSet<>(this.watchedServices);
+            services.addAll(this.topologyManagerInjector.getValue().interests());
+            return services;
+        }
+        return this.catalogClientInjector.getValue().getServices(QueryOptions.BLANK).getResponse().keySet();
+    }
 
+    private boolean refresh(String serviceName) {
         try {
-            healthCache.addListener(new ServiceCacheListener(serviceName, this.topologyManagerInjector.getValue()));
-            healthCache.start();
-            healthCache.awaitInitialized(1, TimeUnit.SECONDS);
-            this.watchers.put(serviceName, healthCache);
+            List<ServiceHealth> instances = this.healthClientInjector.getValue()
+                    .getHealthyServiceInstances(serviceName)
+                    .getResponse();
+            this.listeners.computeIfAbsent(serviceName, k -> new ServiceCacheListener(k, this.topologyManagerInjector.getValue()))
+                    .update(instances);
+            Set<String> serviceNodes = this.nodes.computeIfAbsent(serviceName, k -> new HashSet<>());
+            instances.forEach(e -> serviceNodes.add(e.getNode().getNode()));
+            return true;
         } catch (Exception e) {
-            ConsulTopologyMessages.MESSAGES.errorSettingUpCatalogWatcher(serviceName, e);
+            ConsulTopologyMessages.MESSAGES.errorRefreshingService(serviceName, e);
+            return false;
         }
     }
 
+    private void newInterest(String serviceName) {
+        this.refreshExecutor.execute(() -> {
+            synchronized (this) {
+                if (!this.known.containsKey(serviceName) && refresh(serviceName)) {
+                    // unknown fingerprint; the next poll re-reads it once with its checks
+                    this.known.put(serviceName, "");
+                }
+            }
+        });
+    }
+
+    private final boolean consumedServicesOnly;
+
+    private final Set<String> watchedServices;
+
+    private final Consumer<String> interestListener = this::newInterest;
+
     private InjectedValue<CatalogClient> catalogClientInjector = new InjectedValue<>();
 
     private InjectedValue<HealthClient> healthClientInjector = new InjectedValue<>();
@@ -166,5 +263,15 @@ public class CatalogWatcher implements Service<CatalogWatcher>, Runnable {
 
     private Thread thread;
 
-    private Map<String, ServiceHealthCache> watchers = new HashMap<>();
+    private ExecutorService refreshExecutor;
+
+    private Map<String, String> known = new HashMap<>();
+
+    private Map<String, ServiceCacheListener> listeners = new HashMap<>();
+
+    /**
+     * Nodes each service has been seen on. Only ever grows while the service is watched, as
+     * instances on a failing node drop out of the healthy reads that would otherwise name it.
+     */
+    private Map<String, Set<String>> nodes = new HashMap<>();
 }
@@ -15,6 +15,9 @@
  */
 package org.wildfly.swarm.topology.consul.runtime;
 
+import java.util.Collections;
+import java.util.List;
+
 import com.orbitz.consul.CatalogClient;
 import com.orbitz.consul.HealthClient;
 import org.jboss.as.network.SocketBinding;
@@ -43,7 +46,12 @@ import org.wildfly.swarm.topology.runtime.TopologyManagerActivator;
 public class ConsulTopologyConnector implements Service<ConsulTopologyConnector>, TopologyConnector {
 
     public ConsulTopologyConnector() {
+        this(false, Collections.emptyList());
+    }
 
+    public ConsulTopologyConnector(boolean consumedServicesOnly, List<String> watchedServices) {
+        this.consumedServicesOnly = consumedServicesOnly;
+        this.watchedServices = watchedServices;
     }
 
     public Injector<TopologyManager> getTopologyManagerInjector() {
@@ -58,6 +66,7 @@ public class ConsulTopologyConnector implements Service<ConsulTopologyConnector>
     public void advertise(String name, SocketBinding binding, String... tags) {
         Registration registration = new Registration("consul", name, binding.getAddress().getHostAddress(), binding.getAbsolutePort(), tags);
         getAdvertiser().advertise(registration);
+        this.topologyManagerInjector.getValue().registerInterest(name);
     }
 
     private Advertiser getAdvertiser() {
@@ -73,7 +82,7 @@ public class ConsulTopologyConnector implements Service<ConsulTopologyConnector>
     public void start(StartContext startContext) throws StartException {
         ServiceTarget target = startContext.getChildTarget();
 
-        CatalogWatcher watcher = new CatalogWatcher();
+        CatalogWatcher watcher = new CatalogWatcher(this.consumedServicesOnly, this.watchedServices);
         target.addService(CatalogWatcher.SERVICE_NAME, watcher)
                 .addDependency(CatalogClientService.SERVICE_NAME, CatalogClient.class, watcher.getCatalogClientInjector())
                 .addDependency(HealthClientService.SERIVCE_NAME, HealthClient.class, watcher.getHealthClientInjector())
@@ -94,6 +103,10 @@ public class ConsulTopologyConnector implements Service<ConsulTopologyConnector>
         return this;
     }
 
+    private final boolean consumedServicesOnly;
+
+    private final List<String> watchedServices;
+
     private InjectedValue<TopologyManager> topologyManagerInjector = new InjectedValue<>();
 
     private InjectedValue<Advertiser> advertiser = new InjectedValue<>();
@@ -16,12 +16,15 @@
 package org.wildfly.swarm.topology.consul.runtime;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
 
 import org.jboss.msc.service.ServiceActivator;
 import org.jboss.msc.service.ServiceActivatorContext;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceRegistryException;
 import org.jboss.msc.service.ServiceTarget;
+import org.wildfly.swarm.topology.consul.ConsulTopologyFraction;
 import org.wildfly.swarm.topology.runtime.TopologyManager;
 import org.wildfly.swarm.topology.runtime.TopologyManagerActivator;
 
@@ -40,11 +43,15 @@ public class ConsulTopologyConnectorActivator implements ServiceActivator {
 
     }
 
+    @Inject
+    @Any
+    ConsulTopologyFraction fraction;
+
     @Override
     public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
         ServiceTarget target = context.getServiceTarget();
 
-        ConsulTopologyConnector connector = new ConsulTopologyConnector();
+        ConsulTopologyConnector connector = new ConsulTopologyConnector(this.fraction.consumedServicesOnly(), this.fraction.watchedServices());
 
         target.addService(TopologyManagerActivator.CONNECTOR_SERVICE_NAME, connector)
                 .addDependency(TopologyManagerActivator.SERVICE_NAME, TopologyManager.class, connector.getTopologyManagerInjector())
@@ -15,6 +15,7 @@
  */
 package org.wildfly.swarm.topology.consul.runtime;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -44,9 +45,18 @@ public class ServiceCacheListener implements Listener<HostAndPort, ServiceHealth
 
     @Override
     public void notify(Map<HostAndPort, ServiceHealth> newValues) {
+        update(newValues.values());
+    }
+
+    /**
+     * Replace the known instances of this service with the given healthy instances.
+     *
+     * @param instances The currently healthy instances.
+     */
+    public void update(Collection<ServiceHealth> instances) {
         Set<Registration> previousEntries = topologyManager.registrationsForService(this.name);
 
-        Set<Registration> newEntries = newValues.values().stream()
+        Set<Registration> newEntries = instances.stream()
                 .map(e -> new Registration("consul",
                                            this.name,
                                            e.getService().getAddress(),
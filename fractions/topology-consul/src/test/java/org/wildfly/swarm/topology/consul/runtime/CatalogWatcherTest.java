@@ -0,0 +1,160 @@
+/**
+ * Copyright 2015-2016 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.consul.runtime;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.orbitz.consul.Consul;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.swarm.topology.runtime.TopologyManager;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class CatalogWatcherTest {
+
+    @Before
+    public void setUp() throws Exception {
+        this.standIn = new ConsulStandIn();
+        this.consul = Consul.builder().withUrl(this.standIn.url()).build();
+        this.topologyManager = new TopologyManager();
+        this.topologyManager.setBatching(0, 0);
+    }
+
+    @After
+    public void tearDown() {
+        this.standIn.close();
+    }
+
+    @Test
+    public void testWatchesOnlyConsumedServices() throws Exception {
+        this.standIn.addInstance("used", "10.0.0.1", 8080);
+        this.standIn.addInstance("configured", "10.0.0.2", 8080);
+        this.standIn.addInstance("unused", "10.0.0.3", 8080);
+
+        CatalogWatcher watcher = watcher(true, "configured");
+        this.topologyManager.registerInterest("used");
+
+        watcher.poll(null);
+
+        assertThat(this.topologyManager.registrationsForService("used")).hasSize(1);
+        assertThat(this.topologyManager.registrationsForService("configured")).hasSize(1);
+        assertThat(this.topologyManager.registrationsForService("unused")).isEmpty();
+        assertThat(this.standIn.requests()).excludes("/v1/health/service/unused", "/v1/catalog/services");
+    }
+
+    @Test
+    public void testOnlyChangedServicesAreRefreshed() throws Exception {
+        this.standIn.addInstance("a", "10.0.0.1", 8080);
+        this.standIn.addInstance("b", "10.0.0.2", 8080);
+
+        CatalogWatcher watcher = watcher(false);
+        BigInteger index = watcher.poll(null);
+
+        assertThat(this.topologyManager.registrationsForService("a")).hasSize(1);
+        assertThat(this.topologyManager.registrationsForService("b")).hasSize(1);
+
+        this.standIn.requests().clear();
+        this.standIn.addInstance("a", "10.0.0.4", 8080);
+        watcher.poll(index);
+
+        assertThat(this.topologyManager.registrationsForService("a")).hasSize(2);
+        assertThat(this.standIn.requests()).contains("/v1/health/service/a");
+        assertThat(this.standIn.requests()).excludes("/v1/health/service/b");
+    }
+
+    @Test
+    public void testNodeChecksCountTowardsServicesOnThatNode() throws Exception {
+        this.standIn.addInstance("a", "10.0.0.1", 8080);
+        this.standIn.addInstance("b", "10.0.0.2", 8080);
+
+        CatalogWatcher watcher = watcher(false);
+        BigInteger index = watcher.poll(null);
+
+        this.standIn.requests().clear();
+        this.standIn.setNodeStatus("10.0.0.1", "critical");
+        index = watcher.poll(index);
+
+        assertThat(this.topologyManager.registrationsForService("a")).isEmpty();
+        assertThat(this.topologyManager.registrationsForService("b")).hasSize(1);
+        assertThat(this.standIn.requests()).contains("/v1/health/service/a");
+        assertThat(this.standIn.requests()).excludes("/v1/health/service/b");
+
+        // the node is remembered while its instances are unhealthy, so its recovery is noticed too
+        this.standIn.setNodeStatus("10.0.0.1", "passing");
+        watcher.poll(index);
+
+        assertThat(this.topologyManager.registrationsForService("a")).hasSize(1);
+    }
+
+    @Test
+    public void testUnchangedPollRefreshesNothing() throws Exception {
+        this.standIn.addInstance("a", "10.0.0.1", 8080);
+
+        CatalogWatcher watcher = watcher(false);
+        BigInteger index = watcher.poll(null);
+
+        this.standIn.requests().clear();
+        this.standIn.addInstance("b", "10.0.0.2", 8080);
+        watcher.poll(index);
+
+        assertThat(this.standIn.requests()).excludes("/v1/health/service/a");
+    }
+
+    @Test
+    public void testPollWithoutNewIndexRefreshesNothing() throws Exception {
+        this.standIn.addInstance("a", "10.0.0.1", 8080);
+
+        CatalogWatcher watcher = watcher(false);
+        BigInteger index = watcher.poll(null);
+
+        this.standIn.requests().clear();
+        assertThat(watcher.poll(index)).isEqualTo(index);
+
+        assertThat(this.standIn.requests()).excludes("/v1/health/service/a", "/v1/catalog/services");
+    }
+
+    @Test
+    public void testVanishedServicesAreRemoved() throws Exception {
+        this.standIn.addInstance("a", "10.0.0.1", 8080);
+        this.standIn.addInstance("b", "10.0.0.2", 8080);
+
+        CatalogWatcher watcher = watcher(false);
+        BigInteger index = watcher.poll(null);
+
+        this.standIn.removeService("b");
+        watcher.poll(index);
+
+        assertThat(this.topologyManager.registrationsForService("a")).hasSize(1);
+        assertThat(this.topologyManager.registrationsForService("b")).isEmpty();
+    }
+
+    private CatalogWatcher watcher(boolean consumedServicesOnly, String... watchedServices) {
+        CatalogWatcher watcher = new CatalogWatcher(consumedServicesOnly, Arrays.asList(watchedServices));
+        watcher.getCatalogClientInjector().inject(this.consul.catalogClient());
+        watcher.getHealthClientInjector().inject(this.consul.healthClient());
+        watcher.getTopologyManagerInjector().inject(this.topologyManager);
+        return watcher;
+    }
+
+    private ConsulStandIn standIn;
+
+    private Consul consul;
+
+    private TopologyManager topologyManager;
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015-2016 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.consul.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-process stand-in for the Consul HTTP API, serving just the
+ * endpoints used by the catalog watcher and advertiser.
+ */
+class ConsulStandIn implements AutoCloseable {
+
+    ConsulStandIn() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort();
+    }
+
+    synchronized void addInstance(String service, String address, int port) {
+        this.instances.computeIfAbsent(service, k -> new CopyOnWriteArrayList<>()).add(new String[]{address, "" + port});
+        ++this.index;
+    }
+
+    /**
+     * Set the status of the node-level serfHealth check of the node hosting the given address.
+     */
+    synchronized void setNodeStatus(String address, String status) {
+        this.nodeStatus.put(node(address), status);
+        ++this.index;
+    }
+
+    synchronized void removeService(String service) {
+        this.instances.remove(service);
+        ++this.index;
+    }
+
+    List<String> requests() {
+        return this.requests;
+    }
+
+    List<String> passedChecks() {
+        return this.passedChecks;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    private synchronized void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        this.requests.add(path);
+
+        String body;
+        if (path.equals("/v1/status/leader")) {
+            body = "\"127.0.0.1:8300\"";
+        } else if (path.equals("/v1/agent/self")) {
+            body = "{}";
+        } else if (path.equals("/v1/catalog/services")) {
+            body = catalogServices();
+        } else if (path.equals("/v1/health/state/any")) {
+            body = checks();
+        } else if (path.startsWith("/v1/health/service/")) {
+            body = serviceHealth(path.substring("/v1/health/service/".length()));
+        } else if (path.startsWith("/v1/agent/check/pass/")) {
+            this.passedChecks.add(path.substring("/v1/agent/check/pass/".length()));
+            body = "";
+        } else {
+            body = "";
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Consul-Index", "" + this.index);
+        exchange.getResponseHeaders().add("X-Consul-Knownleader", "true");
+        exchange.getResponseHeaders().add("X-Consul-Lastcontact", "0");
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String catalogServices() {
+        List<String> entries = new ArrayList<>();
+        this.instances.keySet().forEach(e -> entries.add("\"" + e + "\":[]"));
+        return "{" + String.join(",", entries) + "}";
+    }
+
+    private String checks() {
+        List<String> entries = new ArrayList<>();
+        Set<String> nodes = new TreeSet<>();
+        this.instances.forEach((service, list) -> {
+            for (String[] each : list) {
+                String id = service + ":" + each[0] + ":" + each[1];
+                nodes.add(node(each[0]));
+                entries.add("{\"Node\":\"" + node(each[0]) + "\",\"CheckID\":\"service:" + id + "\",\"Name\":\"ttl\",\"Status\":\"passing\","
+                                    + "\"Notes\":\"\",\"Output\":\"\",\"ServiceID\":\"" + id + "\",\"ServiceName\":\"" + service + "\"}");
+            }
+        });
+        for (String node : nodes) {
+            entries.add("{\"Node\":\"" + node + "\",\"CheckID\":\"serfHealth\",\"Name\":\"Serf Health Status\","
+                                + "\"Status\":\"" + this.nodeStatus.getOrDefault(node, "passing") + "\","
+                                + "\"Notes\":\"\",\"Output\":\"\",\"ServiceID\":\"\",\"ServiceName\":\"\"}");
+        }
+        return "[" + String.join(",", entries) + "]";
+    }
+
+    private String serviceHealth(String service) {
+        List<String> entries = new ArrayList<>();
+        for (String[] each : this.instances.getOrDefault(service, new ArrayList<>())) {
+            String id = service + ":" + each[0] + ":" + each[1];
+            if (!"passing".equals(this.nodeStatus.getOrDefault(node(each[0]), "passing"))) {
+                continue;
+            }
+            entries.add("{\"Node\":{\"Node\":\"" + node(each[0]) + "\",\"Address\":\"" + each[0] + "\"},"
+                                + "\"Service\":{\"ID\":\"" + id + "\",\"Service\":\"" + service + "\",\"Tags\":[\"http\"],"
+                                + "\"Address\":\"" + each[0] + "\",\"Port\":" + each[1] + "},"
+                                + "\"Checks\":[]}");
+        }
+        return "[" + String.join(",", entries) + "]";
+    }
+
+    private static String node(String address) {
+        return "node-" + address;
+    }
+
+    private final HttpServer server;
+
+    private final Map<String, List<String[]>> instances = new ConcurrentHashMap<>();
+
+    private final Map<String, String> nodeStatus = new ConcurrentHashMap<>();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final List<String> passedChecks = new CopyOnWriteArrayList<>();
+
+    private long index = 1;
+}
@@ -23,15 +23,21 @@ import org.wildfly.swarm.topology.runtime.Registration;
  */
 public class AdvertiseCommand implements Command<Void, JGroupsTopologyConnector> {
 
-    public AdvertiseCommand(Registration registration) {
+    public AdvertiseCommand(Registration registration, long incarnation, long version) {
         this.registration = registration;
+        this.incarnation = incarnation;
+        this.version = version;
     }
 
     @Override
     public Void execute(JGroupsTopologyConnector context) throws Exception {
-        context.register(this.registration);
+        context.apply(this.registration, this.incarnation, this.version, true);
         return null;
     }
 
-    private Registration registration;
+    private final Registration registration;
+
+    private final long incarnation;
+
+    private final long version;
 }
@@ -16,9 +16,17 @@
 package org.wildfly.swarm.topology.jgroups.runtime;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.jboss.as.network.SocketBinding;
 import org.jboss.msc.inject.Injector;
@@ -37,10 +45,30 @@ import org.wildfly.swarm.topology.runtime.Registration;
 import org.wildfly.swarm.topology.runtime.TopologyManager;
 
 /**
+ * Topology connector exchanging registrations over a JGroups cluster.
+ *
+ * <p>Each node versions its own registrations. Local changes are sent to the
+ * other members as single-registration deltas; a node which starts, merges or
+ * detects a missed delta exchanges complete {@link NodeAdvertisement}s instead,
+ * one message per node.</p>
+ *
+ * <p>These commands are not understood by nodes running the earlier, unversioned
+ * protocol, so they are dispatched under {@link #DISPATCHER_ID} rather than the
+ * earlier {@code netflix.runtime.manager}. Old and new nodes sharing a channel do
+ * not see each other's registrations, which means a rolling upgrade splits the
+ * topology until every node runs the same release. Every member running this
+ * protocol answers a starting node, so members which do not are logged as
+ * possibly running the earlier one.</p>
+ *
  * @author Bob McWhirter
  */
 public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnector>, Group.Listener, TopologyConnector {
 
+    /**
+     * Identifies the wire protocol; change it whenever the commands or {@link NodeAdvertisement} change incompatibly.
+     */
+    public static final String DISPATCHER_ID = "topology.jgroups.v2";
+
     public JGroupsTopologyConnector() {
     }
 
@@ -54,8 +82,13 @@ public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnecto
 
     @Override
     public void start(StartContext startContext) throws StartException {
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "topology-jgroups-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
         this.commandDispatcherFactoryInjector.getValue().getGroup().addListener(this);
-        this.dispatcher = this.commandDispatcherFactoryInjector.getValue().createCommandDispatcher("netflix.runtime.manager", this);
+        this.dispatcher = this.commandDispatcherFactoryInjector.getValue().createCommandDispatcher(DISPATCHER_ID, this);
         this.node = this.commandDispatcherFactoryInjector.getValue().getGroup().getLocalNode();
         try {
             requestAdvertisements();
@@ -66,7 +99,9 @@ public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnecto
 
     @Override
     public void stop(StopContext stopContext) {
+        this.commandDispatcherFactoryInjector.getValue().getGroup().removeListener(this);
         this.dispatcher.close();
+        this.executor.shutdownNow();
     }
 
     @Override
@@ -76,16 +111,20 @@ public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnecto
 
     @Override
     public void membershipChanged(List<Node> previousMembers, List<Node> members, boolean merged) {
-        try {
-            advertiseAll();
-        } catch (Exception e) {
-            TopologyMessages.MESSAGES.errorStartingAdvertisement(e);
+        // Joining nodes pull state themselves when they start; only after a merge
+        // may the partitions disagree, so then every node pushes its own snapshot once.
+        if (merged) {
+            try {
+                advertiseAll();
+            } catch (Exception e) {
+                TopologyMessages.MESSAGES.errorStartingAdvertisement(e);
+            }
         }
         List<Node> removed = new ArrayList<>();
         removed.addAll(previousMembers);
         removed.removeAll(members);
         removed.forEach((e) -> {
-            this.topologyManagerInjector.getValue().unregisterAll(sourceKey(e));
+            forget(sourceKey(e));
         });
     }
 
@@ -104,22 +143,109 @@ public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnecto
     public synchronized void unadvertise(String appName, SocketBinding binding) throws Exception {
         Registration registration = this.registrations.remove(appName + ":" + binding.getName());
         if (registration != null) {
-            this.dispatcher.submitOnCluster(new UnadvertiseCommand(registration));
+            this.topologyManagerInjector.getValue().unregister(registration);
+            this.dispatcher.submitOnCluster(new UnadvertiseCommand(registration, this.incarnation, ++this.version), this.node);
         }
     }
 
+    /**
+     * Request the advertisements of every other member, applying each response as it arrives.
+     */
     protected void requestAdvertisements() throws Exception {
-        this.dispatcher.submitOnCluster(new RequestAdvertisementsCommand(), this.node);
+        Map<Node, Future<NodeAdvertisement>> responses = this.dispatcher.submitOnCluster(new RequestAdvertisementsCommand(), this.node);
+        responses.values().forEach(this::applyWhenDone);
+        // runs once every response has been applied
+        this.executor.execute(() -> {
+            silentMembers(this.commandDispatcherFactoryInjector.getValue().getGroup().getNodes())
+                    .forEach(e -> TopologyMessages.MESSAGES.memberWithoutTopologyProtocol(e.getName(), DISPATCHER_ID));
+        });
+    }
+
+    /**
+     * Members, other than this node, from which no advertisement has been applied.
+     */
+    synchronized List<Node> silentMembers(List<Node> members) {
+        return members.stream()
+                .filter(e -> !e.equals(this.node) && !this.seen.containsKey(sourceKey(e)))
+                .collect(Collectors.toList());
     }
 
-    protected synchronized void advertiseAll() throws Exception {
-        for (Registration each : this.topologyManagerInjector.getValue().registrationsForSourceKey(sourceKey(this.node))) {
-            doAdvertise(each);
+    protected void requestAdvertisements(String sourceKey) throws Exception {
+        for (Node each : this.commandDispatcherFactoryInjector.getValue().getGroup().getNodes()) {
+            if (sourceKey(each).equals(sourceKey)) {
+                applyWhenDone(this.dispatcher.submitOnNode(new RequestAdvertisementsCommand(), each));
+                return;
+            }
         }
     }
 
+    protected void advertiseAll() throws Exception {
+        this.dispatcher.submitOnCluster(new AdvertiseAllCommand(snapshot()), this.node);
+    }
+
     protected void doAdvertise(Registration registration) throws Exception {
-        this.dispatcher.submitOnCluster(new AdvertiseCommand(registration));
+        this.dispatcher.submitOnCluster(new AdvertiseCommand(registration, this.incarnation, ++this.version), this.node);
+    }
+
+    synchronized NodeAdvertisement snapshot() {
+        String sourceKey = sourceKey(this.node);
+        return new NodeAdvertisement(sourceKey, this.incarnation, this.version,
+                                     this.topologyManagerInjector.getValue().registrationsForSourceKey(sourceKey));
+    }
+
+    /**
+     * Replace everything known about a remote node with its advertised snapshot,
+     * unless a newer version has already been applied.
+     */
+    synchronized void apply(NodeAdvertisement advertisement) {
+        Seen seen = this.seen.computeIfAbsent(advertisement.getSourceKey(), k -> new Seen());
+        if (seen.incarnation == advertisement.getIncarnation() && advertisement.getVersion() <= seen.version && !seen.resyncing) {
+            return;
+        }
+
+        TopologyManager topologyManager = this.topologyManagerInjector.getValue();
+        Set<Registration> advertised = new HashSet<>(advertisement.getRegistrations());
+        for (Registration each : topologyManager.registrationsForSourceKey(advertisement.getSourceKey())) {
+            if (!advertised.remove(each)) {
+                topologyManager.unregister(each);
+            }
+        }
+        advertised.forEach(topologyManager::register);
+
+        seen.incarnation = advertisement.getIncarnation();
+        seen.version = advertisement.getVersion();
+        seen.resyncing = false;
+    }
+
+    /**
+     * Apply a single-registration delta from a remote node, requesting its full
+     * advertisement if a preceding delta was missed.
+     */
+    synchronized void apply(Registration registration, long incarnation, long version, boolean add) throws Exception {
+        Seen seen = this.seen.computeIfAbsent(registration.getSourceKey(), k -> new Seen());
+        if (seen.incarnation != incarnation) {
+            seen.incarnation = incarnation;
+            seen.version = 0;
+            seen.resyncing = false;
+        } else if (version <= seen.version) {
+            return;
+        }
+
+        if (add) {
+            register(registration);
+        } else {
+            unregister(registration);
+        }
+
+        if (seen.resyncing) {
+            return;
+        }
+        if (version == seen.version + 1) {
+            seen.version = version;
+        } else {
+            seen.resyncing = true;
+            requestAdvertisements(registration.getSourceKey());
+        }
     }
 
     void register(Registration registration) {
@@ -130,11 +256,31 @@ public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnecto
         this.topologyManagerInjector.getValue().unregister(registration);
     }
 
+    synchronized void forget(String sourceKey) {
+        this.seen.remove(sourceKey);
+        this.topologyManagerInjector.getValue().unregisterAll(sourceKey);
+    }
+
     String sourceKey(Node node) {
         return node.getName() + ":" + node.getSocketAddress().toString();
 
     }
 
+    private void applyWhenDone(Future<NodeAdvertisement> response) {
+        this.executor.execute(() -> {
+            try {
+                NodeAdvertisement advertisement = response.get();
+                if (advertisement != null) {
+                    apply(advertisement);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                TopologyMessages.MESSAGES.errorSynchronizingAdvertisements(e.getCause());
+            }
+        });
+    }
+
     private InjectedValue<CommandDispatcherFactory> commandDispatcherFactoryInjector = new InjectedValue<>();
 
     private InjectedValue<TopologyManager> topologyManagerInjector = new InjectedValue<>();
@@ -143,6 +289,21 @@ public class JGroupsTopologyConnector implements Service<JGroupsTopologyConnecto
 
     private Node node;
 
+    private ExecutorService executor;
+
+    private final long incarnation = System.currentTimeMillis();
+
+    private long version;
+
+    private Map<String, Seen> seen = new HashMap<>();
+
     private Map<String, Registration> registrations = new ConcurrentHashMap<>();
 
+    private static class Seen {
+        long incarnation = -1;
+
+        long version;
+
+        boolean resyncing;
+    }
 }
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2015-2016 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.jgroups.runtime;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.wildfly.swarm.topology.runtime.Registration;
+
+/**
+ * The complete, versioned set of registrations advertised by a single node.
+ *
+ * <p>The incarnation distinguishes successive starts of a node sharing the same
+ * source key; the version increases with every local advertise or unadvertise.</p>
+ */
+public class NodeAdvertisement implements Serializable {
+
+    public NodeAdvertisement(String sourceKey, long incarnation, long version, Collection<Registration> registrations) {
+        this.sourceKey = sourceKey;
+        this.incarnation = incarnation;
+        this.version = version;
+        this.registrations = new ArrayList<>(registrations);
+    }
+
+    public String getSourceKey() {
+        return this.sourceKey;
+    }
+
+    public long getIncarnation() {
+        return this.incarnation;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public List<Registration> getRegistrations() {
+        return Collections.unmodifiableList(this.registrations);
+    }
+
+    public String toString() {
+        return "[NodeAdvertisement: " + this.sourceKey + "; incarnation=" + this.incarnation + "; version=" + this.version + "; " + this.registrations + "]";
+    }
+
+    private static final long serialVersionUID = 2L;
+
+    private final String sourceKey;
+
+    private final long incarnation;
+
+    private final long version;
+
+    private final List<Registration> registrations;
+}
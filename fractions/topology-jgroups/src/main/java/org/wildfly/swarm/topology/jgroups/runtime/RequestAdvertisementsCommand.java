@@ -18,16 +18,18 @@ package org.wildfly.swarm.topology.jgroups.runtime;
 import org.wildfly.clustering.dispatcher.Command;
 
 /**
+ * Asks a node for its current {@link NodeAdvertisement}, which is returned as the
+ * command result so that a joining node obtains the whole topology in one round trip.
+ *
  * @author Bob McWhirter
  */
-public class RequestAdvertisementsCommand implements Command<Void, JGroupsTopologyConnector> {
+public class RequestAdvertisementsCommand implements Command<NodeAdvertisement, JGroupsTopologyConnector> {
 
     public RequestAdvertisementsCommand() {
     }
 
     @Override
-    public Void execute(JGroupsTopologyConnector context) throws Exception {
-        context.advertiseAll();
-        return null;
+    public NodeAdvertisement execute(JGroupsTopologyConnector context) throws Exception {
+        return context.snapshot();
     }
 }
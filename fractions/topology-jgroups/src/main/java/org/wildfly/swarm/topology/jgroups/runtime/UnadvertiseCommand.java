@@ -23,15 +23,21 @@ import org.wildfly.swarm.topology.runtime.Registration;
  */
 public class UnadvertiseCommand implements Command<Void, JGroupsTopologyConnector> {
 
-    public UnadvertiseCommand(Registration registration) {
+    public UnadvertiseCommand(Registration registration, long incarnation, long version) {
         this.registration = registration;
+        this.incarnation = incarnation;
+        this.version = version;
     }
 
     @Override
     public Void execute(JGroupsTopologyConnector context) throws Exception {
-        context.unregister(this.registration);
+        context.apply(this.registration, this.incarnation, this.version, false);
         return null;
     }
 
     private final Registration registration;
+
+    private final long incarnation;
+
+    private final long version;
 }
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.jgroups.runtime;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.clustering.group.Node;
+import org.wildfly.swarm.topology.runtime.Registration;
+import org.wildfly.swarm.topology.runtime.TopologyManager;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JGroupsTopologyConnectorTest {
+
+    @Before
+    public void setUp() {
+        this.manager = new TopologyManager();
+        this.manager.setBatching(0, 0);
+        this.connector = new RecordingConnector();
+        this.connector.getTopologyManagerInjector().inject(this.manager);
+    }
+
+    @Test
+    public void testDeltasInSequenceApply() throws Exception {
+        this.connector.apply(registration("web", 8080), 1, 1, true);
+        this.connector.apply(registration("api", 8081), 1, 2, true);
+        this.connector.apply(registration("web", 8080), 1, 3, false);
+
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).containsOnly(registration("api", 8081));
+        assertThat(this.connector.resyncRequests).isEmpty();
+    }
+
+    @Test
+    public void testStaleDeltaIsIgnored() throws Exception {
+        this.connector.apply(registration("web", 8080), 1, 1, true);
+        this.connector.apply(registration("web", 8080), 1, 2, false);
+        this.connector.apply(registration("web", 8080), 1, 1, true);
+
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).isEmpty();
+        assertThat(this.connector.resyncRequests).isEmpty();
+    }
+
+    @Test
+    public void testSequenceGapRequestsAdvertisementOnce() throws Exception {
+        this.connector.apply(registration("web", 8080), 1, 1, true);
+        this.connector.apply(registration("api", 8081), 1, 3, true);
+        this.connector.apply(registration("admin", 9990), 1, 4, true);
+
+        // deltas are still applied while the resync is outstanding
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).hasSize(3);
+        assertThat(this.connector.resyncRequests).containsExactly(SOURCE_KEY);
+
+        // the requested advertisement is authoritative, whatever its version
+        this.connector.apply(new NodeAdvertisement(SOURCE_KEY, 1, 4, Arrays.asList(registration("web", 8080), registration("api", 8081))));
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).containsOnly(registration("web", 8080), registration("api", 8081));
+
+        this.connector.apply(registration("admin", 9990), 1, 5, true);
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).hasSize(3);
+        assertThat(this.connector.resyncRequests).hasSize(1);
+    }
+
+    @Test
+    public void testNewIncarnationRestartsSequence() throws Exception {
+        this.connector.apply(registration("web", 8080), 1, 7, true);
+        this.connector.resyncRequests.clear();
+
+        this.connector.apply(registration("api", 8081), 2, 1, true);
+
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).hasSize(2);
+        assertThat(this.connector.resyncRequests).isEmpty();
+    }
+
+    @Test
+    public void testOlderAdvertisementIsIgnored() throws Exception {
+        this.connector.apply(new NodeAdvertisement(SOURCE_KEY, 1, 5, Collections.singletonList(registration("web", 8080))));
+        this.connector.apply(new NodeAdvertisement(SOURCE_KEY, 1, 4, Collections.singletonList(registration("api", 8081))));
+
+        assertThat(this.manager.registrationsForSourceKey(SOURCE_KEY)).containsOnly(registration("web", 8080));
+    }
+
+    @Test
+    public void testMergeAdvertisesAllAndForgetsDepartedMembers() throws Exception {
+        Node stays = new TestNode("a", 7600);
+        Node leaves = new TestNode("b", 7601);
+        this.manager.register(new Registration(this.connector.sourceKey(stays), "web", "10.0.0.1", 8080));
+        this.manager.register(new Registration(this.connector.sourceKey(leaves), "web", "10.0.0.2", 8080));
+
+        this.connector.membershipChanged(Arrays.asList(stays, leaves), Collections.singletonList(stays), true);
+
+        assertThat(this.connector.advertiseAlls).isEqualTo(1);
+        assertThat(this.manager.registrationsForSourceKey(this.connector.sourceKey(stays))).hasSize(1);
+        assertThat(this.manager.registrationsForSourceKey(this.connector.sourceKey(leaves))).isEmpty();
+    }
+
+    @Test
+    public void testPlainViewChangeDoesNotAdvertise() throws Exception {
+        Node a = new TestNode("a", 7600);
+        Node b = new TestNode("b", 7601);
+
+        this.connector.membershipChanged(Collections.singletonList(a), Arrays.asList(a, b), false);
+
+        assertThat(this.connector.advertiseAlls).isEqualTo(0);
+    }
+
+    @Test
+    public void testMembersWithoutAdvertisementAreSilent() throws Exception {
+        Node answered = new TestNode("a", 7600);
+        Node silent = new TestNode("b", 7601);
+        this.connector.apply(new NodeAdvertisement(this.connector.sourceKey(answered), 1, 0, Collections.emptyList()));
+
+        assertThat(this.connector.silentMembers(Arrays.asList(answered, silent))).containsExactly(silent);
+    }
+
+    private static Registration registration(String name, int port) {
+        return new Registration(SOURCE_KEY, name, "10.0.0.1", port);
+    }
+
+    private static final String SOURCE_KEY = "remote:/10.0.0.1:7600";
+
+    private TopologyManager manager;
+
+    private RecordingConnector connector;
+
+    private static class RecordingConnector extends JGroupsTopologyConnector {
+
+        @Override
+        protected void requestAdvertisements(String sourceKey) {
+            this.resyncRequests.add(sourceKey);
+        }
+
+        @Override
+        protected void advertiseAll() {
+            this.advertiseAlls++;
+        }
+
+        final List<String> resyncRequests = new ArrayList<>();
+
+        int advertiseAlls;
+    }
+
+    private static class TestNode implements Node {
+
+        TestNode(String name, int port) {
+            this.name = name;
+            this.address = new InetSocketAddress("127.0.0.1", port);
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public InetSocketAddress getSocketAddress() {
+            return this.address;
+        }
+
+        private final String name;
+
+        private final InetSocketAddress address;
+    }
+}
@@ -86,10 +86,50 @@ public class TopologyWebAppFraction implements Fraction<TopologyWebAppFraction>
         return exposeTopologyEndpoint.get();
     }
 
+    /**
+     * How long, in milliseconds, the topology endpoint reuses the result of resolving a service
+     * address. Set to 0 to resolve on every change.
+     *
+     * Defaults to 30000.
+     *
+     * @param addressCacheTtl the time to live of resolved addresses
+     */
+    public TopologyWebAppFraction addressCacheTtl(long addressCacheTtl) {
+        this.addressCacheTtl.set(addressCacheTtl);
+        return this;
+    }
+
+    public long addressCacheTtl() {
+        return addressCacheTtl.get();
+    }
+
+    /**
+     * How many change-sets the topology endpoint keeps, so that a client
+     * resuming the delta stream is sent only what it missed.
+     *
+     * Defaults to 256.
+     *
+     * @param eventHistorySize the number of change-sets kept
+     */
+    public TopologyWebAppFraction eventHistorySize(int eventHistorySize) {
+        this.eventHistorySize.set(eventHistorySize);
+        return this;
+    }
+
+    public int eventHistorySize() {
+        return eventHistorySize.get();
+    }
+
     @AttributeDocumentation("Service name to URL path proxy mappings")
     private Map<String, String> proxiedServiceMappings = new HashMap<>();
 
     @AttributeDocumentation("Flag to enable or disable the topology web endpoint")
     private Defaultable<Boolean> exposeTopologyEndpoint = bool(true);
 
+    @AttributeDocumentation("Time (ms) the topology endpoint caches whether a service address resolves")
+    private Defaultable<Long> addressCacheTtl = longInteger(30000L);
+
+    @AttributeDocumentation("Number of change-sets kept to resume the topology delta stream")
+    private Defaultable<Integer> eventHistorySize = integer(256);
+
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Remembers for a while whether topology addresses resolve, so that serializing the topology
+ * does not look up every address again on each change.
+ */
+class AddressCache {
+
+    private static final int PRUNE_THRESHOLD = 4096;
+
+    /**
+     * @param ttl how long (ms) a lookup result is reused; {@code 0} disables caching
+     */
+    AddressCache(long ttl) {
+        this(ttl, AddressCache::resolve, System::currentTimeMillis);
+    }
+
+    AddressCache(long ttl, Predicate<String> resolver, LongSupplier clock) {
+        this.ttl = ttl;
+        this.resolver = resolver;
+        this.clock = clock;
+    }
+
+    boolean isResolvable(String address) {
+        if (this.ttl <= 0) {
+            return this.resolver.test(address);
+        }
+        long now = this.clock.getAsLong();
+        Resolution resolution = this.resolutions.get(address);
+        if (resolution == null || resolution.expires - now <= 0) {
+            if (this.resolutions.size() >= PRUNE_THRESHOLD) {
+                this.resolutions.values().removeIf(e -> e.expires - now <= 0);
+            }
+            resolution = new Resolution(this.resolver.test(address), now + this.ttl);
+            this.resolutions.put(address, resolution);
+        }
+        return resolution.resolvable;
+    }
+
+    private static boolean resolve(String address) {
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            InetAddress.getByName(address);
+            return true;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private final long ttl;
+
+    private final Predicate<String> resolver;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Resolution> resolutions = new ConcurrentHashMap<>();
+
+    private static final class Resolution {
+
+        Resolution(boolean resolvable, long expires) {
+            this.resolvable = resolvable;
+            this.expires = expires;
+        }
+
+        private final boolean resolvable;
+
+        private final long expires;
+    }
+}
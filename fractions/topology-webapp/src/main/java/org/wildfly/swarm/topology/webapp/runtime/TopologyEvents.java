@@ -0,0 +1,334 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
+
+/**
+ * Topology events serialized once and shared by every subscriber of the stream.
+ *
+ * <p>The snapshot of the whole topology is cached until the next change-set is {@link #record(TopologyChangeSet) recorded}.
+ * The last change-sets are kept, with their delta lazily serialized, so that a subscriber
+ * reconnecting with the id of the last event it saw can be sent only what it missed.</p>
+ *
+ * <p>A delta lists the entries added and removed per service. Services exposed through a proxy
+ * context have a single synthetic entry, which is sent again in full under {@code replaced}.</p>
+ */
+class TopologyEvents {
+
+    TopologyEvents(Topology topology, Function<String, String> proxyContexts, AddressCache addresses, int historySize) {
+        this.topology = topology;
+        this.proxyContexts = proxyContexts;
+        this.addresses = addresses;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Record a change-set; change-sets at or before the last one recorded are ignored, so every
+     * listener of a notification may call this.
+     */
+    synchronized void record(TopologyChangeSet changes) {
+        if (changes.sequence() <= this.sequence) {
+            return;
+        }
+        if (!this.history.isEmpty() && this.history.peekLast().changes.sequence() != changes.sequence() - 1) {
+            // a gap cannot be replayed
+            this.history.clear();
+        }
+        this.sequence = changes.sequence();
+        this.plainSnapshot = null;
+        this.secureSnapshot = null;
+        if (this.historySize > 0) {
+            this.history.addLast(new Delta(changes));
+            while (this.history.size() > this.historySize) {
+                this.history.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * @return the SSE event id of a change-set, only valid for this instance
+     */
+    String eventId(long sequence) {
+        return this.instance + "-" + sequence;
+    }
+
+    /**
+     * @return the sequence of an SSE event id, or {@code -1} if it was not issued by this instance
+     */
+    long parseEventId(String eventId) {
+        String prefix = this.instance + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the sequence of the last change-set recorded
+     */
+    synchronized long sequence() {
+        return this.sequence;
+    }
+
+    /**
+     * @return the whole topology as of {@link #sequence()}
+     */
+    synchronized String snapshot(boolean secure) {
+        String snapshot = secure ? this.secureSnapshot : this.plainSnapshot;
+        if (snapshot == null) {
+            snapshot = topologyToJson(secure);
+            if (secure) {
+                this.secureSnapshot = snapshot;
+            } else {
+                this.plainSnapshot = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the delta of a change-set
+     */
+    String delta(TopologyChangeSet changes, boolean secure) {
+        Delta delta = null;
+        synchronized (this) {
+            for (Iterator<Delta> iter = this.history.descendingIterator(); iter.hasNext(); ) {
+                Delta candidate = iter.next();
+                if (candidate.changes.sequence() == changes.sequence()) {
+                    delta = candidate;
+                    break;
+                }
+                if (candidate.changes.sequence() < changes.sequence()) {
+                    break;
+                }
+            }
+        }
+        if (delta == null) {
+            return deltaToJson(changes, secure);
+        }
+        return delta.json(secure);
+    }
+
+    /**
+     * @param lastEventId the sequence of the last event the subscriber saw
+     * @return the change-sets recorded after it, or {@code null} if some of them are no longer known
+     */
+    synchronized List<TopologyChangeSet> since(long lastEventId) {
+        if (lastEventId > this.sequence) {
+            return null;
+        }
+        if (lastEventId == this.sequence) {
+            return Collections.emptyList();
+        }
+        if (this.history.isEmpty() || this.history.peekFirst().changes.sequence() > lastEventId + 1) {
+            return null;
+        }
+        List<TopologyChangeSet> missed = new ArrayList<>();
+        for (Delta delta : this.history) {
+            if (delta.changes.sequence() > lastEventId) {
+                missed.add(delta.changes);
+            }
+        }
+        return missed;
+    }
+
+    String topologyToJson(boolean secure) {
+        StringBuilder json = new StringBuilder();
+
+        json.append("{");
+
+        Map<String, List<Topology.Entry>> map = this.topology.asMap();
+
+        Iterator<String> keyIter = map.keySet().iterator();
+
+        while (keyIter.hasNext()) {
+            String key = keyIter.next();
+            json.append("  ").append('"').append(key).append('"').append(": ");
+            appendEntries(json, key, map.get(key), secure);
+            if (keyIter.hasNext()) {
+                json.append(',');
+            }
+        }
+
+        json.append("}");
+        return json.toString();
+    }
+
+    private String deltaToJson(TopologyChangeSet changes, boolean secure) {
+        StringBuilder added = new StringBuilder();
+        StringBuilder removed = new StringBuilder();
+        StringBuilder replaced = new StringBuilder();
+        Map<String, List<Topology.Entry>> current = null;
+
+        for (String service : changes.services()) {
+            if (this.proxyContexts.apply(service) != null) {
+                if (current == null) {
+                    current = this.topology.asMap();
+                }
+                List<Topology.Entry> entries = current.getOrDefault(service, Collections.emptyList());
+                appendService(replaced, service);
+                if (entries.isEmpty()) {
+                    replaced.append("[]");
+                } else {
+                    appendEntries(replaced, service, entries, secure);
+                }
+                continue;
+            }
+            if (!changes.added(service).isEmpty()) {
+                appendService(added, service);
+                appendEntries(added, service, changes.added(service), secure);
+            }
+            if (!changes.removed(service).isEmpty()) {
+                appendService(removed, service);
+                appendEntries(removed, service, changes.removed(service), secure);
+            }
+        }
+
+        return "{\"added\": {" + added + "}, \"removed\": {" + removed + "}, \"replaced\": {" + replaced + "}}";
+    }
+
+    private static void appendService(StringBuilder json, String service) {
+        if (json.length() > 0) {
+            json.append(',');
+        }
+        json.append('"').append(service).append("\": ");
+    }
+
+    private void appendEntries(StringBuilder json, String key, List<Topology.Entry> list, boolean secure) {
+        json.append("[");
+        Iterator<Topology.Entry> listIter = list.iterator();
+        String proxyContext = this.proxyContexts.apply(key);
+        if (proxyContext != null) {
+            List<String> tags = new ArrayList<>();
+            tags.add(secure ? "https" : "http");
+            while (listIter.hasNext()) {
+                Topology.Entry server = listIter.next();
+                tags.add(formatMaybeIpv6(server.getAddress()) + ":" + server.getPort());
+            }
+            populateEndpointAndTagsJson(json, proxyContext, null, tags);
+        } else {
+            while (listIter.hasNext()) {
+                Topology.Entry server = listIter.next();
+
+                boolean invalidServerAddress = !this.addresses.isResolvable(server.getAddress());
+
+                String address = formatMaybeIpv6(server.getAddress()) + ":" + server.getPort();
+                String endpoint = (!invalidServerAddress ? (server.getTags().contains("https") ? "https" : "http") + "://" : "")
+                        + address;
+                populateEndpointAndTagsJson(json, endpoint, address, server.getTags());
+                if (listIter.hasNext()) {
+                    json.append(',');
+                }
+            }
+        }
+        json.append("]");
+    }
+
+    /**
+     * The {@code address} field carries the raw {@code address:port} of a server so clients can match
+     * removals against it; the rendered endpoint's scheme depends on whether the address resolved.
+     */
+    private void populateEndpointAndTagsJson(StringBuilder json, String endpoint, String address, List<String> tags) {
+        json.append("{");
+        json.append("\"endpoint\": \"").append(endpoint).append("\",");
+        if (address != null) {
+            json.append("\"address\": \"").append(address).append("\",");
+        }
+        json.append("\"tags\":[");
+        Iterator<String> tagIter = tags.iterator();
+        while (tagIter.hasNext()) {
+            String tag = tagIter.next();
+            json.append("\"").append(tag).append("\"");
+            if (tagIter.hasNext()) {
+                json.append(',');
+            }
+        }
+        json.append("]");
+        json.append("}");
+    }
+
+    /** This isn't very precise; org.jboss.as.network.NetworkUtils has better implementation, but that's in a private module. */
+    private String formatMaybeIpv6(String address) {
+        String openBracket = "[";
+        String closeBracket = "]";
+
+        if (address.contains(":") && !address.startsWith(openBracket) && !address.endsWith(closeBracket)) {
+            return openBracket + address + closeBracket;
+        }
+
+        return address;
+    }
+
+    private final Topology topology;
+
+    private final Function<String, String> proxyContexts;
+
+    private final AddressCache addresses;
+
+    private final int historySize;
+
+    private final Deque<Delta> history = new ArrayDeque<>();
+
+    // distinguishes the ids of this instance from those a client kept from a previous one
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private long sequence;
+
+    private String plainSnapshot;
+
+    private String secureSnapshot;
+
+    private final class Delta {
+
+        Delta(TopologyChangeSet changes) {
+            this.changes = changes;
+        }
+
+        synchronized String json(boolean secure) {
+            if (secure) {
+                if (this.secureJson == null) {
+                    this.secureJson = deltaToJson(this.changes, true);
+                }
+                return this.secureJson;
+            }
+            if (this.plainJson == null) {
+                this.plainJson = deltaToJson(this.changes, false);
+            }
+            return this.plainJson;
+        }
+
+        private final TopologyChangeSet changes;
+
+        private String plainJson;
+
+        private String secureJson;
+    }
+}
@@ -20,6 +20,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -40,7 +41,9 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.wildfly.extension.undertow.deployment.GlobalRequestControllerHandler;
 import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
 import org.wildfly.swarm.topology.TopologyListener;
+import org.wildfly.swarm.topology.runtime.TopologyManager;
 import org.wildfly.swarm.topology.webapp.TopologyWebAppFraction;
 
 public class TopologyProxyService implements Service<TopologyProxyService>, TopologyListener {
@@ -60,6 +63,7 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
     public void start(StartContext context) throws StartException {
         try {
             Topology topology = Topology.lookup();
+            serviceNames.forEach(TopologyManager.INSTANCE::registerInterest);
             topology.addListener(this);
         } catch (NamingException ex) {
             throw new StartException(ex);
@@ -84,15 +88,40 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
     public void onChange(Topology topology) {
         Map<String, List<Topology.Entry>> topologyMap = topology.asMap();
         for (String serviceName : serviceNames) {
-            if (topologyMap.containsKey(serviceName)) {
-                updateProxyHosts(serviceName, topologyMap.get(serviceName));
-            } else {
-                // All instances of this service went away
-                updateProxyHosts(serviceName, Collections.emptyList());
+            resync(serviceName, topologyMap);
+        }
+    }
+
+    @Override
+    public void onChange(Topology topology, TopologyChangeSet changes) {
+        Map<String, List<Topology.Entry>> topologyMap = null;
+        for (String serviceName : serviceNames) {
+            if (!proxyEntries.containsKey(serviceName)) {
+                // nothing applied yet, so a delta alone is not enough
+                if (topologyMap == null) {
+                    topologyMap = topology.asMap();
+                }
+                resync(serviceName, topologyMap);
+            } else if (changes.affects(serviceName)) {
+                updateProxyHosts(serviceName, changes.added(serviceName), changes.removed(serviceName));
             }
         }
     }
 
+    private void resync(String serviceName, Map<String, List<Topology.Entry>> topologyMap) {
+        // All instances of this service may have gone away
+        Set<Topology.Entry> entries = new HashSet<>(topologyMap.getOrDefault(serviceName, Collections.emptyList()));
+        Set<Topology.Entry> oldEntries = proxyEntries.getOrDefault(serviceName, Collections.emptySet());
+
+        List<Topology.Entry> entriesToRemove = new ArrayList<>();
+        for (Topology.Entry oldEntry : oldEntries) {
+            if (!entries.contains(oldEntry)) {
+                entriesToRemove.add(oldEntry);
+            }
+        }
+        updateProxyHosts(serviceName, new ArrayList<>(entries), entriesToRemove);
+    }
+
     public Injector<HttpHandler> getHandlerInjectorFor(String serviceName) {
         InjectedValue<HttpHandler> injector = proxyHandlerMap.get(serviceName);
         if (injector == null) {
@@ -102,8 +131,9 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
         return injector;
     }
 
-    private void updateProxyHosts(String serviceName, List<Topology.Entry> entries) {
-        HttpHandler proxyHandler = proxyHandlerMap.get(serviceName).getOptionalValue();
+    private void updateProxyHosts(String serviceName, List<Topology.Entry> entriesToAdd, List<Topology.Entry> entriesToRemove) {
+        InjectedValue<HttpHandler> injectedHandler = proxyHandlerMap.get(serviceName);
+        HttpHandler proxyHandler = (injectedHandler != null ? injectedHandler.getOptionalValue() : null);
 
         if (proxyHandler == null) {
             // Service has been shutdown
@@ -123,24 +153,11 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
             proxyClient = (LoadBalancingProxyClient) ((ProxyHandler) proxyHandler).getProxyClient();
         }
 
-        List<Topology.Entry> oldEntries = proxyEntries.get(serviceName);
-        List<Topology.Entry> entriesToRemove = new ArrayList<>();
-        List<Topology.Entry> entriesToAdd = new ArrayList<>();
-        if (oldEntries == null) {
-            entriesToAdd.addAll(entries);
-        } else {
-            for (Topology.Entry oldEntry : oldEntries) {
-                if (!entries.contains(oldEntry)) {
-                    entriesToRemove.add(oldEntry);
-                }
-            }
-            for (Topology.Entry entry : entries) {
-                if (!oldEntries.contains(entry)) {
-                    entriesToAdd.add(entry);
-                }
-            }
-        }
+        Set<Topology.Entry> current = proxyEntries.computeIfAbsent(serviceName, k -> new HashSet<>());
         for (Topology.Entry entry : entriesToRemove) {
+            if (!current.remove(entry)) {
+                continue;
+            }
             try {
                 proxyClient.removeHost(entryToURI(entry));
             } catch (URISyntaxException ex) {
@@ -148,13 +165,15 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
             }
         }
         for (Topology.Entry entry : entriesToAdd) {
+            if (!current.add(entry)) {
+                continue;
+            }
             try {
                 proxyClient.addHost(entryToURI(entry));
             } catch (URISyntaxException ex) {
                 log.log(Level.WARNING, "Error converting topology entry to URI", ex);
             }
         }
-        proxyEntries.put(serviceName, entries);
     }
 
     private URI entryToURI(Topology.Entry entry) throws URISyntaxException {
@@ -172,5 +191,5 @@ public class TopologyProxyService implements Service<TopologyProxyService>, Topo
 
     private Map<String, InjectedValue<HttpHandler>> proxyHandlerMap = new HashMap<>();
 
-    private Map<String, List<Topology.Entry>> proxyEntries = new HashMap<>();
+    private Map<String, Set<Topology.Entry>> proxyEntries = new HashMap<>();
 }
@@ -17,13 +17,7 @@ package org.wildfly.swarm.topology.webapp.runtime;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -42,28 +36,72 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
 import org.wildfly.swarm.topology.TopologyListener;
 
 
 /**
+ * Streams the topology as server-sent events.
+ *
+ * <p>By default every change sends the whole topology as a {@code topologyChange} event. With
+ * {@code ?mode=delta}, or when the client resumes with a {@code Last-Event-ID} header, the
+ * stream starts with a {@code topologySnapshot} event and then only sends {@code topologyDelta}
+ * events, each identified by the sequence of its change-set. A client resuming from an id
+ * that is still in the history is sent only the deltas it missed, instead of a new snapshot.</p>
+ *
  * @author Bob McWhirter
  */
 @Vetoed
 @WebServlet(urlPatterns = {"/system/stream"}, asyncSupported = true)
 public class TopologySSEServlet extends HttpServlet {
 
+    public static final String ADDRESS_CACHE_TTL = "swarm.topology.web-app.address-cache-ttl";
+
+    public static final String EVENT_HISTORY_SIZE = "swarm.topology.web-app.event-history-size";
+
+    public static final long DEFAULT_ADDRESS_CACHE_TTL = 30_000;
+
+    public static final int DEFAULT_EVENT_HISTORY_SIZE = 256;
+
+    private static final String MODE_PARAMETER = "mode";
+
+    private static final String DELTA_MODE = "delta";
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
     @Override
     public void init(ServletConfig config) throws ServletException {
 
         super.init(config);
 
-        try {
-            this.topology = Topology.lookup();
-        } catch (NamingException e) {
-            throw new ServletException(e);
-        }
+        this.topology = lookupTopology();
 
         this.keepAliveExecutor = Executors.newScheduledThreadPool(2);
+
+        AddressCache addresses = new AddressCache(initParameter(ADDRESS_CACHE_TTL, DEFAULT_ADDRESS_CACHE_TTL));
+        this.events = new TopologyEvents(
+                this.topology,
+                key -> getServletContext().getInitParameter(key + "-proxy"),
+                addresses,
+                (int) initParameter(EVENT_HISTORY_SIZE, DEFAULT_EVENT_HISTORY_SIZE));
+        this.recorder = new TopologyListener() {
+            @Override
+            public void onChange(Topology topology) {
+            }
+
+            @Override
+            public void onChange(Topology topology, TopologyChangeSet changes) {
+                TopologySSEServlet.this.events.record(changes);
+            }
+        };
+        this.topology.addListener(this.recorder);
+    }
+
+    @Override
+    public void destroy() {
+        this.topology.removeListener(this.recorder);
+        this.keepAliveExecutor.shutdownNow();
+        super.destroy();
     }
 
     @Override
@@ -75,7 +113,10 @@ public class TopologySSEServlet extends HttpServlet {
         AsyncContext asyncContext = req.startAsync();
         PrintWriter writer = resp.getWriter();
 
-        TopologyListener topologyListener = new SSETopologyListener(writer, req.isSecure());
+        String lastEventId = req.getHeader(LAST_EVENT_ID);
+        boolean deltas = DELTA_MODE.equals(req.getParameter(MODE_PARAMETER)) || lastEventId != null;
+
+        SSETopologyListener topologyListener = new SSETopologyListener(writer, req.isSecure(), deltas);
 
         ScheduledFuture keepAlive = this.keepAliveExecutor.scheduleAtFixedRate(
                 new KeepAliveRunnable(writer, topologyListener),
@@ -85,107 +126,60 @@ public class TopologySSEServlet extends HttpServlet {
         asyncContext.setTimeout(0);
         asyncContext.addListener(new TopologyAsyncListener(topology, topologyListener, keepAlive));
 
-
-        this.topology.addListener(topologyListener);
-        String json = topologyToJson(req.isSecure());
-        writer.write("event: topologyChange\n");
-        writer.write("data: " + json);
-        writer.flush();
-
-    }
-
-    private String topologyToJson(boolean secure) {
-        StringBuilder json = new StringBuilder();
-
-        json.append("{");
-
-        Map<String, List<Topology.Entry>> map = this.topology.asMap();
-
-        Set<String> keys = map.keySet();
-        Iterator<String> keyIter = keys.iterator();
-
-        while (keyIter.hasNext()) {
-            String key = keyIter.next();
-            json.append("  ").append('"').append(key).append('"').append(": [");
-            List<Topology.Entry> list = map.get(key);
-            Iterator<Topology.Entry> listIter = list.iterator();
-            String proxyContext = getServletContext().getInitParameter(key + "-proxy");
-            if (proxyContext != null) {
-                List<String> tags = new ArrayList<>();
-                tags.add(secure ? "https" : "http");
-                while (listIter.hasNext()) {
-                    Topology.Entry server = listIter.next();
-                    tags.add(formatMaybeIpv6(server.getAddress()) + ":" + server.getPort());
-                }
-                populateEndpointAndTagsJson(json, proxyContext, tags);
+        synchronized (topologyListener.writeLock) {
+            this.topology.addListener(topologyListener);
+            if (deltas) {
+                topologyListener.start(lastEventId);
             } else {
-                while (listIter.hasNext()) {
-                    Topology.Entry server = listIter.next();
-
-                    boolean invalidServerAddress = false;
-                    try {
-                        //noinspection ResultOfMethodCallIgnored
-                        InetAddress.getByName(server.getAddress());
-                    } catch (UnknownHostException e) {
-                        invalidServerAddress = true;
-                    }
-
-                    String endpoint = (!invalidServerAddress ? (server.getTags().contains("https") ? "https" : "http") + "://" : "")
-                            + formatMaybeIpv6(server.getAddress()) + ":" + server.getPort();
-                    populateEndpointAndTagsJson(json, endpoint, server.getTags());
-                    if (listIter.hasNext()) {
-                        json.append(",");
-                    }
-                }
-            }
-            json.append("]");
-            if (keyIter.hasNext()) {
-                json.append(",");
+                writeEvent(writer, "topologyChange", null, this.events.snapshot(req.isSecure()));
+                writer.flush();
             }
         }
-
-        json.append("}\n\n");
-        return json.toString();
     }
 
-    private void populateEndpointAndTagsJson(StringBuilder json, String endpoint, List<String> tags) {
-        json.append("{");
-        json.append("\"endpoint\": \"").append(endpoint).append("\",");
-        json.append("\"tags\":[");
-        Iterator<String> tagIter = tags.iterator();
-        while (tagIter.hasNext()) {
-            String tag = tagIter.next();
-            json.append("\"").append(tag).append("\"");
-            if (tagIter.hasNext()) {
-                json.append(",");
-            }
+    /**
+     * Write an event, without flushing.
+     *
+     * @param id the event id, or {@code null} for none
+     */
+    private static void writeEvent(PrintWriter writer, String event, String id, String json) {
+        writer.write("event: " + event + "\n");
+        if (id != null) {
+            writer.write("id: " + id + "\n");
         }
-        json.append("]");
-        json.append("}");
+        writer.write("data: " + json + "\n\n");
     }
 
-    /** This isn't very precise; org.jboss.as.network.NetworkUtils has better implementation, but that's in a private module. */
-    private String formatMaybeIpv6(String address) {
-        String openBracket = "[";
-        String closeBracket = "]";
-
-        if (address.contains(":") && !address.startsWith(openBracket) && !address.endsWith(closeBracket)) {
-            return openBracket + address + closeBracket;
+    Topology lookupTopology() throws ServletException {
+        try {
+            return Topology.lookup();
+        } catch (NamingException e) {
+            throw new ServletException(e);
         }
+    }
 
-        return address;
+    private long initParameter(String name, long defaultValue) {
+        String value = getServletContext().getInitParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Long.parseLong(value.trim());
     }
 
     private Topology topology;
 
     private ScheduledExecutorService keepAliveExecutor;
 
+    private TopologyEvents events;
+
+    private TopologyListener recorder;
+
     private class KeepAliveRunnable implements Runnable {
         private final PrintWriter writer;
 
-        private final TopologyListener topologyListener;
+        private final SSETopologyListener topologyListener;
 
-        public KeepAliveRunnable(PrintWriter writer, TopologyListener topologyListener) {
+        public KeepAliveRunnable(PrintWriter writer, SSETopologyListener topologyListener) {
             this.writer = writer;
             this.topologyListener = topologyListener;
         }
@@ -193,8 +187,10 @@ public class TopologySSEServlet extends HttpServlet {
         @Override
         public void run() {
             try {
-                writer.write(":\n\n");
-                writer.flush();
+                synchronized (topologyListener.writeLock) {
+                    writer.write(":\n\n");
+                    writer.flush();
+                }
             } catch (Throwable t) {
                 TopologySSEServlet.this.topology.removeListener(topologyListener);
                 throw t;
@@ -259,17 +255,83 @@ public class TopologySSEServlet extends HttpServlet {
 
         final boolean secure;
 
-        private SSETopologyListener(PrintWriter writer, boolean secure) {
+        final boolean deltas;
+
+        long lastSent = -1;
+
+        private SSETopologyListener(PrintWriter writer, boolean secure, boolean deltas) {
             this.writer = writer;
             this.secure = secure;
+            this.deltas = deltas;
+        }
+
+        /**
+         * Send what a delta subscriber needs first: the deltas it missed, or a snapshot.
+         * Called with the write lock held.
+         */
+        void start(String lastEventId) {
+            List<TopologyChangeSet> missed = null;
+            if (lastEventId != null) {
+                long id = events.parseEventId(lastEventId);
+                if (id >= 0) {
+                    missed = events.since(id);
+                }
+                if (missed != null) {
+                    this.lastSent = id;
+                }
+            }
+            if (missed == null) {
+                this.lastSent = events.sequence();
+                writeEvent("topologySnapshot", this.lastSent, events.snapshot(this.secure));
+                return;
+            }
+            for (TopologyChangeSet changes : missed) {
+                writeDelta(changes);
+            }
+            writer.flush();
         }
 
         @Override
         public void onChange(Topology topology) {
-            String json = topologyToJson(secure);
+            if (this.deltas) {
+                // no change-set to send as a delta, start over
+                synchronized (writeLock) {
+                    this.lastSent = events.sequence();
+                    writeEvent("topologySnapshot", this.lastSent, events.topologyToJson(this.secure));
+                }
+                return;
+            }
+            write(events.topologyToJson(secure));
+        }
+
+        @Override
+        public void onChange(Topology topology, TopologyChangeSet changes) {
+            events.record(changes);
+            if (this.deltas) {
+                synchronized (writeLock) {
+                    if (changes.sequence() > this.lastSent) {
+                        writeDelta(changes);
+                        writer.flush();
+                    }
+                }
+                return;
+            }
+            write(events.snapshot(secure));
+        }
+
+        private void writeDelta(TopologyChangeSet changes) {
+            TopologySSEServlet.writeEvent(writer, "topologyDelta", events.eventId(changes.sequence()), events.delta(changes, this.secure));
+            this.lastSent = changes.sequence();
+        }
+
+        private void writeEvent(String event, long id, String json) {
+            TopologySSEServlet.writeEvent(writer, event, events.eventId(id), json);
+            writer.flush();
+        }
+
+        private void write(String json) {
             synchronized (writeLock) {
-                writer.write("event: topologyChange\n");
-                writer.write("data: " + json);
+                TopologySSEServlet.writeEvent(writer, "topologyChange", null, json);
                 writer.flush();
             }
         }
@@ -57,6 +57,8 @@ public class TopologyWebAppDeploymentProducer {
             WARArchive war = ShrinkWrap.create(WARArchive.class, "topology-webapp.war");
             war.addAsWebInfResource(new StringAsset(getWebXml(fraction)), "web.xml");
             war.addClass(TopologySSEServlet.class);
+            war.addClass(TopologyEvents.class);
+            war.addClass(AddressCache.class);
             war.addModule("swarm.application");
             war.addModule("org.wildfly.swarm.topology");
             war.addAsWebResource(new ClassLoaderAsset("topology.js", this.getClass().getClassLoader()), "topology.js");
@@ -84,6 +86,15 @@ public class TopologyWebAppDeploymentProducer {
                     "    </context-param>";
         }
 
+        webXml += "    <context-param>" +
+                "        <param-name>" + TopologySSEServlet.ADDRESS_CACHE_TTL + "</param-name>" +
+                "        <param-value>" + fraction.addressCacheTtl() + "</param-value>" +
+                "    </context-param>";
+        webXml += "    <context-param>" +
+                "        <param-name>" + TopologySSEServlet.EVENT_HISTORY_SIZE + "</param-name>" +
+                "        <param-value>" + fraction.eventHistorySize() + "</param-value>" +
+                "    </context-param>";
+
         webXml += "</web-app>";
         return webXml;
     }
@@ -184,17 +184,18 @@ var topology = (function() {
 
     var initialTopologyObtained = false;
     var result = deferred();
-
-    var sse = new EventSource( options.context + "/system/stream" );
-    sse.addEventListener('topologyChange', function(message) {
+    var changeListeners = [];
+
+    // Snapshot first, then only deltas; on reconnect the browser sends the
+    // id of the last event and only the missed deltas are replayed.
+    var sse = new EventSource( options.context + "/system/stream?mode=delta" );
+    sse.addEventListener('topologySnapshot', function(message) {
+      console.log('topology.js: topology snapshot: ', message.data);
+      topologyChanged(JSON.parse(message.data));
+    });
+    sse.addEventListener('topologyDelta', function(message) {
       console.log('topology.js: topology changed: ', message.data);
-      topology = JSON.parse(message.data);
-      scheduler = schedule(topology);
-
-      if (!initialTopologyObtained) {
-        initialTopologyObtained = true;
-        result.resolve(_topology);
-      }
+      topologyChanged(applyDelta(topology, JSON.parse(message.data)));
     });
 
     sse.onerror = function(e) {
@@ -206,10 +207,61 @@ var topology = (function() {
       }
     };
 
-    function onTopologyChange(f) {
-      sse.addEventListener('topologyChange', function(message) {
-        f(JSON.parse(message.data));
+    function topologyChanged(newTopology) {
+      topology = newTopology;
+      scheduler = schedule(topology);
+
+      if (!initialTopologyObtained) {
+        initialTopologyObtained = true;
+        result.resolve(_topology);
+      }
+      changeListeners.forEach(function(f) {
+        f(topology);
       });
+    }
+
+    // servers are identified by their raw address:port; the endpoint's
+    // scheme may differ between events for the same server
+    function sameServer(a, b) {
+      if (a.address !== undefined && b.address !== undefined) return a.address === b.address;
+      return a.endpoint === b.endpoint;
+    }
+
+    function applyDelta(current, delta) {
+      var next = {}, key;
+      for (key in current) {
+        if (current.hasOwnProperty(key)) next[key] = current[key].slice();
+      }
+      for (key in delta.removed) {
+        if (delta.removed.hasOwnProperty(key) && next[key]) {
+          next[key] = next[key].filter(function(entry) {
+            return !delta.removed[key].some(function(removed) {
+              return sameServer(removed, entry);
+            });
+          });
+          if (next[key].length === 0) delete next[key];
+        }
+      }
+      for (key in delta.added) {
+        if (delta.added.hasOwnProperty(key)) {
+          next[key] = (next[key] || []).filter(function(entry) {
+            return !delta.added[key].some(function(added) {
+              return sameServer(added, entry);
+            });
+          }).concat(delta.added[key]);
+        }
+      }
+      for (key in delta.replaced) {
+        if (delta.replaced.hasOwnProperty(key)) {
+          if (delta.replaced[key].length === 0) delete next[key];
+          else next[key] = delta.replaced[key];
+        }
+      }
+      return next;
+    }
+
+    function onTopologyChange(f) {
+      changeListeners.push(f);
       f(topology);
     }
 
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class AddressCacheTest {
+
+    @Test
+    public void testReusedUntilExpiry() {
+        AtomicLong clock = new AtomicLong(1000);
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicBoolean resolvable = new AtomicBoolean(true);
+        AddressCache cache = new AddressCache(30_000, address -> {
+            lookups.incrementAndGet();
+            return resolvable.get();
+        }, clock::get);
+
+        assertThat(cache.isResolvable("orders.internal")).isTrue();
+        resolvable.set(false);
+        clock.addAndGet(29_999);
+        assertThat(cache.isResolvable("orders.internal")).isTrue();
+        assertThat(lookups.get()).isEqualTo(1);
+
+        clock.addAndGet(1);
+        assertThat(cache.isResolvable("orders.internal")).isFalse();
+        assertThat(lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCachedPerAddress() {
+        AtomicInteger lookups = new AtomicInteger();
+        AddressCache cache = new AddressCache(30_000, address -> {
+            lookups.incrementAndGet();
+            return address.startsWith("10.");
+        }, () -> 0);
+
+        assertThat(cache.isResolvable("10.0.0.1")).isTrue();
+        assertThat(cache.isResolvable("unknown.host")).isFalse();
+        assertThat(cache.isResolvable("10.0.0.1")).isTrue();
+        assertThat(cache.isResolvable("unknown.host")).isFalse();
+        assertThat(lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDisabled() {
+        AtomicInteger lookups = new AtomicInteger();
+        AddressCache cache = new AddressCache(0, address -> {
+            lookups.incrementAndGet();
+            return true;
+        }, () -> 0);
+
+        cache.isResolvable("10.0.0.1");
+        cache.isResolvable("10.0.0.1");
+        assertThat(lookups.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.wildfly.swarm.topology.AdvertisementHandle;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
+import org.wildfly.swarm.topology.TopologyListener;
+
+/**
+ * A topology changed only by the test, one change-set at a time.
+ */
+class StaticTopology implements Topology {
+
+    static Entry entry(String address, int port, String... tags) {
+        return new StaticEntry(address, port, Arrays.asList(tags));
+    }
+
+    /**
+     * Apply the next change-set and notify the listeners.
+     */
+    TopologyChangeSet change(Map<String, List<Entry>> added, Map<String, List<Entry>> removed) {
+        synchronized (this.entries) {
+            added.forEach((service, entries) -> this.entries.computeIfAbsent(service, s -> new ArrayList<>()).addAll(entries));
+            removed.forEach((service, entries) -> this.entries.getOrDefault(service, new ArrayList<>()).removeAll(entries));
+            this.entries.values().removeIf(List::isEmpty);
+        }
+        TopologyChangeSet changes = new TopologyChangeSet(++this.sequence, added, removed);
+        for (TopologyListener each : this.listeners) {
+            each.onChange(this, changes);
+        }
+        return changes;
+    }
+
+    TopologyChangeSet add(String service, Entry entry) {
+        return change(Collections.singletonMap(service, Collections.singletonList(entry)), Collections.emptyMap());
+    }
+
+    TopologyChangeSet remove(String service, Entry entry) {
+        return change(Collections.emptyMap(), Collections.singletonMap(service, Collections.singletonList(entry)));
+    }
+
+    List<TopologyListener> listeners() {
+        return this.listeners;
+    }
+
+    @Override
+    public void addListener(TopologyListener listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(TopologyListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public AdvertisementHandle advertise(String name, String... tags) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, List<Entry>> asMap() {
+        synchronized (this.entries) {
+            Map<String, List<Entry>> copy = new LinkedHashMap<>();
+            this.entries.forEach((service, entries) -> copy.put(service, new ArrayList<>(entries)));
+            return copy;
+        }
+    }
+
+    private final Map<String, List<Entry>> entries = new LinkedHashMap<>();
+
+    private final List<TopologyListener> listeners = new CopyOnWriteArrayList<>();
+
+    private long sequence;
+
+    private static final class StaticEntry implements Entry {
+
+        StaticEntry(String address, int port, List<String> tags) {
+            this.address = address;
+            this.port = port;
+            this.tags = tags;
+        }
+
+        @Override
+        public String getAddress() {
+            return this.address;
+        }
+
+        @Override
+        public int getPort() {
+            return this.port;
+        }
+
+        @Override
+        public List<String> getTags() {
+            return this.tags;
+        }
+
+        private final String address;
+
+        private final int port;
+
+        private final List<String> tags;
+    }
+}
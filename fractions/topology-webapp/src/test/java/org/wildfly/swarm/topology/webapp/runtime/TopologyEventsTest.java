@@ -0,0 +1,149 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TopologyEventsTest {
+
+    private static final String ORDERS_1 = "{\"endpoint\": \"http://10.0.0.1:8080\",\"address\": \"10.0.0.1:8080\",\"tags\":[\"http\"]}";
+
+    private static final String ORDERS_2 = "{\"endpoint\": \"http://10.0.0.2:8080\",\"address\": \"10.0.0.2:8080\",\"tags\":[\"http\"]}";
+
+    @Test
+    public void testSnapshotCachedUntilRecorded() {
+        TopologyEvents events = events(16);
+        this.topology.add("orders", this.orders1);
+        String snapshot = events.snapshot(false);
+        assertThat(snapshot).isEqualTo("{  \"orders\": [" + ORDERS_1 + "]}");
+
+        // not recorded yet
+        TopologyChangeSet changes = this.topology.add("orders", this.orders2);
+        assertThat(events.snapshot(false)).isSameAs(snapshot);
+
+        events.record(changes);
+        assertThat(events.snapshot(false)).isEqualTo("{  \"orders\": [" + ORDERS_1 + "," + ORDERS_2 + "]}");
+        assertThat(events.sequence()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDelta() {
+        TopologyEvents events = events(16);
+        TopologyChangeSet added = this.topology.add("orders", this.orders1);
+        TopologyChangeSet removed = this.topology.remove("orders", this.orders1);
+        events.record(added);
+        events.record(removed);
+
+        assertThat(events.delta(added, false)).isEqualTo("{\"added\": {\"orders\": [" + ORDERS_1 + "]}, \"removed\": {}, \"replaced\": {}}");
+        assertThat(events.delta(removed, false)).isEqualTo("{\"added\": {}, \"removed\": {\"orders\": [" + ORDERS_1 + "]}, \"replaced\": {}}");
+        // serialized once, then shared
+        assertThat(events.delta(added, false)).isSameAs(events.delta(added, false));
+    }
+
+    @Test
+    public void testRawAddressIndependentOfResolution() {
+        TopologyEvents events = new TopologyEvents(this.topology, key -> null,
+                                                   new AddressCache(0, address -> false, () -> 0), 16);
+        TopologyChangeSet removed = this.topology.remove("orders", this.orders1);
+        events.record(removed);
+
+        assertThat(events.delta(removed, false)).isEqualTo("{\"added\": {}, \"removed\": {\"orders\": "
+                + "[{\"endpoint\": \"10.0.0.1:8080\",\"address\": \"10.0.0.1:8080\",\"tags\":[\"http\"]}]}, \"replaced\": {}}");
+    }
+
+    @Test
+    public void testProxiedServiceReplacedInFull() {
+        TopologyEvents events = new TopologyEvents(this.topology, key -> key.equals("orders") ? "/orders" : null,
+                                                   new AddressCache(0, address -> true, () -> 0), 16);
+        this.topology.add("orders", this.orders1);
+        TopologyChangeSet changes = this.topology.add("orders", this.orders2);
+        events.record(changes);
+
+        assertThat(events.delta(changes, true)).isEqualTo("{\"added\": {}, \"removed\": {}, \"replaced\": {\"orders\": "
+                + "[{\"endpoint\": \"/orders\",\"tags\":[\"https\",\"10.0.0.1:8080\",\"10.0.0.2:8080\"]}]}}");
+    }
+
+    @Test
+    public void testSince() {
+        TopologyEvents events = events(16);
+        for (int i = 0; i < 3; ++i) {
+            events.record(this.topology.add("orders", StaticTopology.entry("10.0.1." + i, 8080)));
+        }
+
+        assertThat(sequences(events.since(0))).containsExactly(1L, 2L, 3L);
+        assertThat(sequences(events.since(1))).containsExactly(2L, 3L);
+        assertThat(events.since(3)).isEmpty();
+        // from the future, as after a restart
+        assertThat(events.since(4)).isNull();
+    }
+
+    @Test
+    public void testSinceEvicted() {
+        TopologyEvents events = events(2);
+        for (int i = 0; i < 5; ++i) {
+            events.record(this.topology.add("orders", StaticTopology.entry("10.0.1." + i, 8080)));
+        }
+
+        assertThat(events.since(2)).isNull();
+        assertThat(sequences(events.since(3))).containsExactly(4L, 5L);
+    }
+
+    @Test
+    public void testGapClearsHistory() {
+        TopologyEvents events = events(16);
+        TopologyChangeSet first = this.topology.add("orders", this.orders1);
+        this.topology.add("orders", this.orders2);
+        TopologyChangeSet third = this.topology.remove("orders", this.orders1);
+
+        events.record(first);
+        events.record(third);
+        events.record(first);
+
+        assertThat(events.sequence()).isEqualTo(3);
+        assertThat(events.since(1)).isNull();
+        assertThat(events.since(3)).isEmpty();
+    }
+
+    @Test
+    public void testEventIds() {
+        TopologyEvents events = events(16);
+        assertThat(events.parseEventId(events.eventId(7))).isEqualTo(7);
+        assertThat(events.parseEventId("zzzz-7")).isEqualTo(-1);
+        assertThat(events.parseEventId(events.eventId(7) + "x")).isEqualTo(-1);
+        assertThat(events.parseEventId("7")).isEqualTo(-1);
+    }
+
+    private TopologyEvents events(int historySize) {
+        return new TopologyEvents(this.topology, key -> null, new AddressCache(0, address -> true, () -> 0), historySize);
+    }
+
+    private static List<Long> sequences(List<TopologyChangeSet> changes) {
+        return changes.stream().map(TopologyChangeSet::sequence).collect(Collectors.toList());
+    }
+
+    private final StaticTopology topology = new StaticTopology();
+
+    private final Topology.Entry orders1 = StaticTopology.entry("10.0.0.1", 8080, "http");
+
+    private final Topology.Entry orders2 = StaticTopology.entry("10.0.0.2", 8080, "http");
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.webapp.runtime;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.swarm.topology.Topology;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TopologySSEServletTest {
+
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("event: topologySnapshot\\nid: (.+)-(\\d+)\\n");
+
+    @After
+    public void destroy() {
+        this.servlet.destroy();
+    }
+
+    @Test
+    public void testWholeTopologyByDefault() throws Exception {
+        init();
+        this.topology.add("orders", StaticTopology.entry("10.0.0.1", 8080, "http"));
+
+        Stream stream = subscribe(null, null);
+        assertThat(stream.output()).isEqualTo("event: topologyChange\n"
+                + "data: {  \"orders\": [{\"endpoint\": \"http://10.0.0.1:8080\",\"address\": \"10.0.0.1:8080\",\"tags\":[\"http\"]}]}\n\n");
+
+        this.topology.add("orders", StaticTopology.entry("10.0.0.2", 8080, "http"));
+        assertThat(stream.output()).endsWith("event: topologyChange\n"
+                + "data: {  \"orders\": [{\"endpoint\": \"http://10.0.0.1:8080\",\"address\": \"10.0.0.1:8080\",\"tags\":[\"http\"]},"
+                + "{\"endpoint\": \"http://10.0.0.2:8080\",\"address\": \"10.0.0.2:8080\",\"tags\":[\"http\"]}]}\n\n");
+    }
+
+    @Test
+    public void testSnapshotThenDeltas() throws Exception {
+        init();
+        this.topology.add("orders", StaticTopology.entry("10.0.0.1", 8080, "http"));
+
+        Stream stream = subscribe("delta", null);
+        String instance = instance(stream);
+        assertThat(stream.output()).isEqualTo("event: topologySnapshot\n"
+                + "id: " + instance + "-1\n"
+                + "data: {  \"orders\": [{\"endpoint\": \"http://10.0.0.1:8080\",\"address\": \"10.0.0.1:8080\",\"tags\":[\"http\"]}]}\n\n");
+
+        stream.clear();
+        this.topology.add("orders", StaticTopology.entry("10.0.0.2", 8080, "http"));
+        assertThat(stream.output()).isEqualTo("event: topologyDelta\n"
+                + "id: " + instance + "-2\n"
+                + "data: {\"added\": {\"orders\": [{\"endpoint\": \"http://10.0.0.2:8080\",\"address\": \"10.0.0.2:8080\",\"tags\":[\"http\"]}]}, "
+                + "\"removed\": {}, \"replaced\": {}}\n\n");
+    }
+
+    @Test
+    public void testReplayFromKnownId() throws Exception {
+        init();
+        String instance = instance(subscribe("delta", null));
+        for (int i = 1; i <= 3; ++i) {
+            this.topology.add("orders", StaticTopology.entry("10.0.0." + i, 8080));
+        }
+
+        Stream stream = subscribe(null, instance + "-1");
+        assertThat(stream.output()).doesNotMatch("(?s).*topologySnapshot.*");
+        assertThat(stream.output()).isEqualTo(delta(instance, 2) + delta(instance, 3));
+
+        // and carries on with new deltas
+        this.topology.add("orders", StaticTopology.entry("10.0.0.4", 8080));
+        assertThat(stream.output()).isEqualTo(delta(instance, 2) + delta(instance, 3) + delta(instance, 4));
+    }
+
+    @Test
+    public void testReplayFromCurrentId() throws Exception {
+        init();
+        String instance = instance(subscribe("delta", null));
+        this.topology.add("orders", StaticTopology.entry("10.0.0.1", 8080));
+
+        assertThat(subscribe(null, instance + "-1").output()).isEmpty();
+    }
+
+    @Test
+    public void testSnapshotForUnknownId() throws Exception {
+        init();
+        this.topology.add("orders", StaticTopology.entry("10.0.0.1", 8080));
+
+        // issued by another instance, from the future, or not an id at all
+        for (String each : new String[]{"zzzz-1", instance(subscribe("delta", null)) + "-9", "garbage"}) {
+            Stream stream = subscribe(null, each);
+            assertThat(stream.output()).startsWith("event: topologySnapshot\n");
+            assertThat(stream.output()).contains("-1\ndata: {  \"orders\"");
+        }
+    }
+
+    @Test
+    public void testSnapshotForEvictedId() throws Exception {
+        this.initParameters.put(TopologySSEServlet.EVENT_HISTORY_SIZE, "2");
+        init();
+        String instance = instance(subscribe("delta", null));
+        for (int i = 1; i <= 4; ++i) {
+            this.topology.add("orders", StaticTopology.entry("10.0.0." + i, 8080));
+        }
+
+        assertThat(subscribe(null, instance + "-1").output()).startsWith("event: topologySnapshot\nid: " + instance + "-4\n");
+        assertThat(subscribe(null, instance + "-2").output()).isEqualTo(delta(instance, 3) + delta(instance, 4));
+    }
+
+    @Test
+    public void testCompletedStreamStopsListening() throws Exception {
+        init();
+        Stream stream = subscribe("delta", null);
+        assertThat(this.topology.listeners()).hasSize(2);
+
+        for (AsyncListener each : stream.listeners) {
+            each.onComplete(null);
+        }
+        assertThat(this.topology.listeners()).hasSize(1);
+    }
+
+    private void init() throws Exception {
+        ServletContext context = proxy(ServletContext.class, (name, args) ->
+                name.equals("getInitParameter") ? this.initParameters.get(args[0]) : null);
+        this.servlet.init(proxy(ServletConfig.class, (name, args) -> name.equals("getServletContext") ? context : null));
+    }
+
+    private Stream subscribe(String mode, String lastEventId) throws Exception {
+        Stream stream = new Stream();
+        AsyncContext async = proxy(AsyncContext.class, (name, args) -> {
+            if (name.equals("addListener")) {
+                stream.listeners.add((AsyncListener) args[0]);
+            }
+            return null;
+        });
+        HttpServletRequest request = proxy(HttpServletRequest.class, (name, args) -> {
+            switch (name) {
+                case "getHeader":
+                    return args[0].equals("Last-Event-ID") ? lastEventId : null;
+                case "getParameter":
+                    return args[0].equals("mode") ? mode : null;
+                case "isSecure":
+                    return false;
+                case "startAsync":
+                    return async;
+                default:
+                    return null;
+            }
+        });
+        HttpServletResponse response = proxy(HttpServletResponse.class, (name, args) ->
+                name.equals("getWriter") ? stream.writer : null);
+        this.servlet.doGet(request, response);
+        return stream;
+    }
+
+    private static String instance(Stream stream) {
+        Matcher matcher = SNAPSHOT_ID.matcher(stream.output());
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
+
+    private static String delta(String instance, int sequence) {
+        return "event: topologyDelta\n"
+                + "id: " + instance + "-" + sequence + "\n"
+                + "data: {\"added\": {\"orders\": [{\"endpoint\": \"http://10.0.0." + sequence + ":8080\",\"address\": \"10.0.0." + sequence + ":8080\",\"tags\":[]}]}, "
+                + "\"removed\": {}, \"replaced\": {}}\n\n";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(TopologySSEServletTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args));
+    }
+
+    private final StaticTopology topology = new StaticTopology();
+
+    private final Map<String, String> initParameters = new HashMap<>();
+
+    private final TopologySSEServlet servlet = new TopologySSEServlet() {
+        @Override
+        Topology lookupTopology() {
+            return TopologySSEServletTest.this.topology;
+        }
+    };
+
+    private interface Handler {
+        Object invoke(String name, Object[] args);
+    }
+
+    private static final class Stream {
+
+        String output() {
+            this.writer.flush();
+            return this.buffer.toString();
+        }
+
+        void clear() {
+            this.buffer.getBuffer().setLength(0);
+        }
+
+        final StringWriter buffer = new StringWriter();
+
+        final PrintWriter writer = new PrintWriter(this.buffer);
+
+        final List<AsyncListener> listeners = new CopyOnWriteArrayList<>();
+    }
+}
@@ -37,5 +37,7 @@ public interface TopologyArchive extends Assignable {
 
     List<String> advertisements();
 
+    List<String> tags(String serviceName);
+
     boolean hasAdvertised();
 }
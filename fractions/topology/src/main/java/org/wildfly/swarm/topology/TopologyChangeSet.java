@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The net set of entries added and removed, keyed by service name, between two
+ * successive topology notifications.
+ *
+ * <p>A single change-set instance is delivered to every listener of a given
+ * notification, so consumers may use {@link #sequence()} to share work derived
+ * from it.</p>
+ */
+public final class TopologyChangeSet {
+
+    public TopologyChangeSet(long sequence, Map<String, List<Topology.Entry>> added, Map<String, List<Topology.Entry>> removed) {
+        this.sequence = sequence;
+        this.added = Collections.unmodifiableMap(new HashMap<>(added));
+        this.removed = Collections.unmodifiableMap(new HashMap<>(removed));
+    }
+
+    /**
+     * Monotonically increasing number identifying this change-set.
+     *
+     * @return the sequence number.
+     */
+    public long sequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Names of all services which had at least one entry added or removed.
+     *
+     * @return the affected service names.
+     */
+    public Set<String> services() {
+        Set<String> services = new HashSet<>(this.added.keySet());
+        services.addAll(this.removed.keySet());
+        return services;
+    }
+
+    public boolean affects(String serviceName) {
+        return this.added.containsKey(serviceName) || this.removed.containsKey(serviceName);
+    }
+
+    public Map<String, List<Topology.Entry>> added() {
+        return this.added;
+    }
+
+    public Map<String, List<Topology.Entry>> removed() {
+        return this.removed;
+    }
+
+    public List<Topology.Entry> added(String serviceName) {
+        return this.added.getOrDefault(serviceName, Collections.emptyList());
+    }
+
+    public List<Topology.Entry> removed(String serviceName) {
+        return this.removed.getOrDefault(serviceName, Collections.emptyList());
+    }
+
+    public boolean isEmpty() {
+        return this.added.isEmpty() && this.removed.isEmpty();
+    }
+
+    public String toString() {
+        return "[TopologyChangeSet: #" + this.sequence + "; added=" + this.added + "; removed=" + this.removed + "]";
+    }
+
+    private final long sequence;
+
+    private final Map<String, List<Topology.Entry>> added;
+
+    private final Map<String, List<Topology.Entry>> removed;
+}
@@ -15,14 +15,63 @@
  */
 package org.wildfly.swarm.topology;
 
+import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
+import org.wildfly.swarm.spi.api.annotations.Configurable;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 
+import static org.wildfly.swarm.spi.api.Defaultable.longInteger;
+
 /**
  * @author Bob McWhirter
  */
 @DeploymentModule(name = "org.wildfly.swarm.topology")
 @DeploymentModule(name = "org.wildfly.swarm.topology", slot = "deployment")
+@Configurable("swarm.topology")
 public class TopologyFraction implements Fraction<TopologyFraction> {
 
+    public static final long DEFAULT_BATCH_WINDOW = 100;
+
+    public static final long DEFAULT_MAX_DELAY = 1000;
+
+    /**
+     * Set the quiet period, in milliseconds, that must elapse without further
+     * registration changes before listeners are notified. A value of zero
+     * notifies listeners of every change as soon as it happens.
+     *
+     * @param batchWindow the batch window in milliseconds.
+     * @return this fraction.
+     */
+    public TopologyFraction batchWindow(long batchWindow) {
+        this.batchWindow.set(batchWindow);
+        return this;
+    }
+
+    public long batchWindow() {
+        return this.batchWindow.get();
+    }
+
+    /**
+     * Set the maximum time, in milliseconds, a registration change may be held
+     * back while waiting for the batch window to go quiet.
+     *
+     * @param maxDelay the maximum delay in milliseconds.
+     * @return this fraction.
+     */
+    public TopologyFraction maxDelay(long maxDelay) {
+        this.maxDelay.set(maxDelay);
+        return this;
+    }
+
+    public long maxDelay() {
+        return this.maxDelay.get();
+    }
+
+    @AttributeDocumentation("Quiet period (ms) used to coalesce topology changes before notifying listeners")
+    private Defaultable<Long> batchWindow = longInteger(DEFAULT_BATCH_WINDOW);
+
+    @AttributeDocumentation("Maximum time (ms) a topology change may be delayed by coalescing")
+    private Defaultable<Long> maxDelay = longInteger(DEFAULT_MAX_DELAY);
+
 }
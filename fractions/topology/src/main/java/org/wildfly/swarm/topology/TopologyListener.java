@@ -20,4 +20,17 @@ package org.wildfly.swarm.topology;
  */
 public interface TopologyListener {
     void onChange(Topology topology);
+
+    /**
+     * Invoked once per coalesced batch of registration changes.
+     *
+     * <p>Listeners which only care about what changed should override this
+     * method; the default simply delegates to {@link #onChange(Topology)}.</p>
+     *
+     * @param topology The current topology.
+     * @param changes  The entries added and removed since the previous notification.
+     */
+    default void onChange(Topology topology, TopologyChangeSet changes) {
+        onChange(topology);
+    }
 }
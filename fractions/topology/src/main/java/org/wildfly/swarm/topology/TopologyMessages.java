@@ -49,4 +49,12 @@ public interface TopologyMessages extends BasicLogger {
     @LogMessage(level = Logger.Level.ERROR)
     @Message(id = 5, value = "Error sending check for %s.")
     void errorOnCheck(String clientId, @Cause Throwable cause);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 6, value = "Error synchronizing topology advertisements.")
+    void errorSynchronizingAdvertisements(@Cause Throwable cause);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 7, value = "Cluster member %s did not answer the %s topology protocol. If it runs a release using the earlier, unversioned protocol, neither node sees the other's registrations until both run the same release.")
+    void memberWithoutTopologyProtocol(String member, String protocol);
 }
@@ -81,6 +81,11 @@ public class TopologyArchiveImpl extends AssignableBase<ArchiveBase<?>> implemen
         return Collections.unmodifiableList(serviceNames);
     }
 
+    @Override
+    public List<String> tags(String serviceName) {
+        return Collections.unmodifiableList(new ArrayList<>(tagsByService.getOrDefault(serviceName, Collections.emptyList())));
+    }
+
     @Override
     public boolean hasAdvertised() {
         return as(JARArchive.class).get(REGISTRATION_CONF) != null;
@@ -93,7 +98,10 @@ public class TopologyArchiveImpl extends AssignableBase<ArchiveBase<?>> implemen
             String serviceName = split.get(0);
 
             List<String> tags = split.size() > 1
-                    ? split.subList(1, split.size())
+                    ? Arrays.stream(String.join(TAG_SEPARATOR, split.subList(1, split.size())).split(TAG_SEPARATOR))
+                        .map(String::trim)
+                        .filter(tag -> !tag.isEmpty())
+                        .collect(Collectors.toList())
                     : Collections.emptyList();
             tagsByService.put(serviceName, tags);
         }
@@ -15,21 +15,34 @@
  */
 package org.wildfly.swarm.topology.runtime;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceTarget;
 import org.wildfly.swarm.topology.AdvertisementHandle;
 import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
+import org.wildfly.swarm.topology.TopologyFraction;
 import org.wildfly.swarm.topology.TopologyListener;
 import org.wildfly.swarm.topology.TopologyMessages;
 import org.wildfly.swarm.topology.deployment.RegistrationAdvertiser;
@@ -45,12 +58,30 @@ public class TopologyManager implements Topology {
         this.serviceTarget = serviceTarget;
     }
 
+    /**
+     * Configure coalescing of registration changes.
+     *
+     * <p>Listeners are notified once no further change has arrived for {@code batchWindow}
+     * milliseconds, but never later than {@code maxDelay} milliseconds after the first
+     * pending change. A {@code batchWindow} of zero disables coalescing.</p>
+     *
+     * @param batchWindow The quiet period in milliseconds.
+     * @param maxDelay    The maximum delay in milliseconds.
+     */
+    public synchronized void setBatching(long batchWindow, long maxDelay) {
+        if (batchWindow < 0 || maxDelay < 0) {
+            throw new IllegalArgumentException("Batch window and maximum delay must not be negative");
+        }
+        this.batchWindow = batchWindow;
+        this.maxDelay = Math.max(batchWindow, maxDelay);
+    }
+
     public synchronized void addListener(TopologyListener listener) {
-        this.listeners.add(listener);
+        this.deliveries.putIfAbsent(listener, new Delivery(this.executor));
     }
 
     public synchronized void removeListener(TopologyListener listener) {
-        this.listeners.remove(listener);
+        this.deliveries.remove(listener);
     }
 
     @Override
@@ -62,6 +93,40 @@ public class TopologyManager implements Topology {
         return new AdvertisementHandleImpl(httpAdvert, httpsAdvert);
     }
 
+    /**
+     * Declare that this application consumes the named service, allowing
+     * connectors to restrict discovery to services which are actually used.
+     *
+     * @param name The name of the consumed service.
+     */
+    public void registerInterest(String name) {
+        List<Consumer<String>> currentListeners;
+        synchronized (this) {
+            if (!this.interests.add(name)) {
+                return;
+            }
+            currentListeners = new ArrayList<>(this.interestListeners);
+        }
+        currentListeners.forEach(e -> e.accept(name));
+    }
+
+    public synchronized Set<String> interests() {
+        return Collections.unmodifiableSet(new HashSet<>(this.interests));
+    }
+
+    /**
+     * Be notified of each service name newly passed to {@link #registerInterest(String)}.
+     *
+     * @param listener The listener.
+     */
+    public synchronized void addInterestListener(Consumer<String> listener) {
+        this.interestListeners.add(listener);
+    }
+
+    public synchronized void removeInterestListener(Consumer<String> listener) {
+        this.interestListeners.remove(listener);
+    }
+
     public synchronized Set<Registration> registrationsForSourceKey(String sourceKey) {
         Set<Registration> result = Collections.unmodifiableSet(
                 this.registrations.stream()
@@ -92,33 +157,104 @@ public class TopologyManager implements Topology {
     }
 
     public synchronized void register(Registration registration) {
-        if (!this.registrations.contains(registration)) {
-            this.registrations.add(registration);
-            fireListeners();
+        if (this.registrations.add(registration)) {
+            added(registration);
+            changed();
         }
     }
 
     public synchronized void unregister(Registration registration) {
-        boolean removed = this.registrations.removeIf(e -> e.equals(registration));
-        if (removed) {
-            fireListeners();
-        }
+        removeIf(e -> e.equals(registration));
     }
 
     public synchronized void unregisterAll(String sourceKey) {
-        boolean removed = this.registrations.removeIf(e -> e.getSourceKey().equals(sourceKey));
-        if (removed) {
-            fireListeners();
-        }
+        removeIf(e -> e.getSourceKey().equals(sourceKey));
     }
 
     public synchronized void unregisterAll(String sourceKey, String name) {
-        boolean removed = this.registrations.removeIf(e -> e.getSourceKey().equals(sourceKey) && e.getName().equals(name));
+        removeIf(e -> e.getSourceKey().equals(sourceKey) && e.getName().equals(name));
+    }
+
+    /**
+     * Immediately notify listeners of any pending changes, bypassing the batch window.
+     */
+    public synchronized void flush() {
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+            this.scheduledFlush = null;
+        }
+        fireListeners();
+    }
+
+    private void removeIf(Predicate<Registration> predicate) {
+        boolean removed = false;
+        Iterator<Registration> iter = this.registrations.iterator();
+        while (iter.hasNext()) {
+            Registration each = iter.next();
+            if (predicate.test(each)) {
+                iter.remove();
+                removed(each);
+                removed = true;
+            }
+        }
         if (removed) {
+            changed();
+        }
+    }
+
+    private void added(Registration registration) {
+        // an add which cancels a pending removal nets out to no change
+        if (this.pending.get(registration) == Boolean.FALSE) {
+            this.pending.remove(registration);
+        } else {
+            this.pending.put(registration, Boolean.TRUE);
+        }
+    }
+
+    private void removed(Registration registration) {
+        // a removal which cancels a pending add nets out to no change
+        if (this.pending.get(registration) == Boolean.TRUE) {
+            this.pending.remove(registration);
+        } else {
+            this.pending.put(registration, Boolean.FALSE);
+        }
+    }
+
+    private void changed() {
+        if (this.batchWindow <= 0) {
             fireListeners();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (this.firstPendingChange < 0) {
+            this.firstPendingChange = now;
+        }
+
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+        }
+
+        long delay = Math.min(this.batchWindow, (this.firstPendingChange + this.maxDelay) - now);
+        if (delay <= 0) {
+            this.scheduledFlush = null;
+            fireListeners();
+        } else {
+            this.scheduledFlush = scheduler().schedule(this::flush, delay, TimeUnit.MILLISECONDS);
         }
     }
 
+    private ScheduledExecutorService scheduler() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "topology-change-coalescer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.scheduler;
+    }
+
     @Override
     public synchronized Map<String, List<Entry>> asMap() {
         Map<String, List<Entry>> map = new HashMap<>();
@@ -136,12 +272,26 @@ public class TopologyManager implements Topology {
     }
 
     private void fireListeners() {
-        List<TopologyListener> currentListeners = new ArrayList<>();
-        currentListeners.addAll(this.listeners);
-        currentListeners.forEach((e) -> {
-            executor.execute(() -> {
+        this.firstPendingChange = -1;
+        if (this.pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Entry>> added = new HashMap<>();
+        Map<String, List<Entry>> removed = new HashMap<>();
+        this.pending.forEach((registration, isAdd) -> {
+            Map<String, List<Entry>> target = isAdd ? added : removed;
+            target.computeIfAbsent(registration.getName(), k -> new ArrayList<>()).add(registration);
+        });
+        this.pending.clear();
+
+        TopologyChangeSet changes = new TopologyChangeSet(++this.sequence, added, removed);
+
+        Map<TopologyListener, Delivery> currentListeners = new LinkedHashMap<>(this.deliveries);
+        currentListeners.forEach((e, delivery) -> {
+            delivery.execute(() -> {
                 try {
-                    e.onChange(this);
+                    e.onChange(this, changes);
                 } catch (Throwable t) {
                     TopologyMessages.MESSAGES.errorFiringEvent(e.getClass().getName(), t);
                     removeListener(e);
@@ -150,13 +300,78 @@ public class TopologyManager implements Topology {
         });
     }
 
-    private List<TopologyListener> listeners = new ArrayList<>();
+    private Set<Registration> registrations = new LinkedHashSet<>();
+
+    private Set<String> interests = new HashSet<>();
+
+    private List<Consumer<String>> interestListeners = new ArrayList<>();
+
+    private Map<Registration, Boolean> pending = new LinkedHashMap<>();
+
+    private long sequence;
+
+    private long batchWindow = TopologyFraction.DEFAULT_BATCH_WINDOW;
 
-    private List<Registration> registrations = new ArrayList<>();
+    private long maxDelay = TopologyFraction.DEFAULT_MAX_DELAY;
 
-    private Executor executor = Executors.newFixedThreadPool(2);
+    private long firstPendingChange = -1;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    private ScheduledExecutorService scheduler;
+
+    // each registered listener has its own queue, so it observes change-sets in sequence order
+    // without waiting for slower listeners; registering a listener twice is a no-op
+    private Map<TopologyListener, Delivery> deliveries = new LinkedHashMap<>();
+
+    private Executor executor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "topology-listener");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private ServiceTarget serviceTarget;
 
+    /**
+     * Runs the notifications of one listener in submission order, one at a time, on a shared executor.
+     */
+    private static final class Delivery implements Executor {
+
+        Delivery(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            synchronized (this) {
+                this.tasks.add(task);
+                if (this.running) {
+                    return;
+                }
+                this.running = true;
+            }
+            this.executor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = this.tasks.poll();
+                    if (task == null) {
+                        this.running = false;
+                        return;
+                    }
+                }
+                task.run();
+            }
+        }
+
+        private final Executor executor;
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        private boolean running;
+    }
 
 }
@@ -16,6 +16,8 @@
 package org.wildfly.swarm.topology.runtime;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
 
 import org.jboss.as.naming.ImmediateManagedReferenceFactory;
 import org.jboss.as.naming.ServiceBasedNamingStore;
@@ -30,6 +32,7 @@ import org.jboss.msc.service.ServiceTarget;
 import org.jboss.msc.service.ValueService;
 import org.jboss.msc.value.ImmediateValue;
 import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyFraction;
 
 /**
  * @author Bob McWhirter
@@ -41,11 +44,16 @@ public class TopologyManagerActivator implements ServiceActivator {
 
     public static final ServiceName CONNECTOR_SERVICE_NAME = ServiceName.of("swarm", "topology", "connector");
 
+    @Inject
+    @Any
+    TopologyFraction fraction;
+
     @Override
     public void activate(ServiceActivatorContext context) throws ServiceRegistryException {
         ServiceTarget target = context.getServiceTarget();
 
         TopologyManager.INSTANCE.setServiceTarget(target);
+        TopologyManager.INSTANCE.setBatching(this.fraction.batchWindow(), this.fraction.maxDelay());
 
         target.addService(SERVICE_NAME, new ValueService<>(new ImmediateValue<>(TopologyManager.INSTANCE)))
                 .install();
@@ -15,6 +15,8 @@
  */
 package org.wildfly.swarm.topology;
 
+import java.util.Arrays;
+
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.junit.Test;
 import org.wildfly.swarm.spi.api.JARArchive;
@@ -33,4 +35,15 @@ public class TopologyArchiveTest {
         assertThat( archive.as( TopologyArchive.class).advertisements() ).hasSize(1);
         assertThat( archive.as( TopologyArchive.class).advertisements() ).contains("foo");
     }
+
+    @Test
+    public void testTagsReadBackFromArchive() {
+        JARArchive archive = ShrinkWrap.create(JARArchive.class);
+        archive.as(TopologyArchive.class).advertise("foo", Arrays.asList("zone=east", "canary"));
+        archive.as(TopologyArchive.class).advertise("bar");
+
+        assertThat( archive.as( TopologyArchive.class).tags("foo") ).containsExactly("zone=east", "canary");
+        assertThat( archive.as( TopologyArchive.class).tags("bar") ).isEmpty();
+        assertThat( archive.as( TopologyArchive.class).tags("baz") ).isEmpty();
+    }
 }
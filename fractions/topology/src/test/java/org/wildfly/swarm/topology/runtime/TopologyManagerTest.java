@@ -0,0 +1,216 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.topology.runtime;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.swarm.topology.Topology;
+import org.wildfly.swarm.topology.TopologyChangeSet;
+import org.wildfly.swarm.topology.TopologyListener;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class TopologyManagerTest {
+
+    @Test
+    public void testChangesAreCoalesced() throws Exception {
+        TopologyManager manager = new TopologyManager();
+        manager.setBatching(200, 5000);
+
+        RecordingListener listener = new RecordingListener(1);
+        manager.addListener(listener);
+
+        for (int i = 0; i < 50; ++i) {
+            manager.register(new Registration("node1", "service", "10.0.0." + i, 8080, "http"));
+        }
+
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertNothingPending(manager, listener, 1);
+
+        TopologyChangeSet changes = listener.changes.get(0);
+        assertThat(changes.services()).containsOnly("service");
+        assertThat(changes.added("service")).hasSize(50);
+        assertThat(changes.removed("service")).isEmpty();
+    }
+
+    @Test
+    public void testAddThenRemoveNetsOut() throws Exception {
+        TopologyManager manager = new TopologyManager();
+        manager.setBatching(200, 5000);
+
+        Registration stable = new Registration("node1", "stable", "10.0.0.1", 8080, "http");
+        Registration flapping = new Registration("node2", "flapping", "10.0.0.2", 8080, "http");
+
+        RecordingListener listener = new RecordingListener(1);
+        manager.addListener(listener);
+
+        manager.register(stable);
+        manager.register(flapping);
+        manager.unregister(flapping);
+
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertNothingPending(manager, listener, 1);
+
+        TopologyChangeSet changes = listener.changes.get(0);
+        assertThat(changes.services()).containsOnly("stable");
+        assertThat(changes.affects("flapping")).isFalse();
+    }
+
+    @Test
+    public void testMaxDelayBoundsCoalescing() throws Exception {
+        TopologyManager manager = new TopologyManager();
+        manager.setBatching(100, 250);
+
+        RecordingListener listener = new RecordingListener(1);
+        manager.addListener(listener);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 20; ++i) {
+            manager.register(new Registration("node1", "service", "10.0.0." + i, 8080, "http"));
+            Thread.sleep(50);
+            if (listener.latch.getCount() == 0) {
+                break;
+            }
+        }
+
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.firstNotification - start).isLessThan(1000);
+    }
+
+    @Test
+    public void testWithoutBatching() throws Exception {
+        TopologyManager manager = new TopologyManager();
+        manager.setBatching(0, 0);
+
+        RecordingListener listener = new RecordingListener(2);
+        manager.addListener(listener);
+
+        Registration registration = new Registration("node1", "service", "10.0.0.1", 8080, "http");
+        manager.register(registration);
+        manager.unregister(registration);
+
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(listener.changes).hasSize(2);
+        assertThat(listener.changes.get(0).added("service")).containsOnly(registration);
+        assertThat(listener.changes.get(1).removed("service")).containsOnly(registration);
+        assertThat(listener.changes.get(1).sequence()).isGreaterThan(listener.changes.get(0).sequence());
+    }
+
+    @Test
+    public void testSlowListenerDoesNotDelayOthers() throws Exception {
+        TopologyManager manager = new TopologyManager();
+        manager.setBatching(0, 0);
+
+        CountDownLatch release = new CountDownLatch(1);
+        manager.addListener(new TopologyListener() {
+            @Override
+            public void onChange(Topology topology) {
+            }
+
+            @Override
+            public void onChange(Topology topology, TopologyChangeSet changes) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        RecordingListener listener = new RecordingListener(2);
+        manager.addListener(listener);
+
+        manager.register(new Registration("node1", "service", "10.0.0.1", 8080, "http"));
+        manager.register(new Registration("node1", "service", "10.0.0.2", 8080, "http"));
+
+        try {
+            assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(listener.changes.get(1).sequence()).isGreaterThan(listener.changes.get(0).sequence());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testRegisteringListenerTwiceIsIdempotent() throws Exception {
+        TopologyManager manager = new TopologyManager();
+        manager.setBatching(0, 0);
+
+        RecordingListener removed = new RecordingListener(1);
+        manager.addListener(removed);
+        manager.addListener(removed);
+        manager.removeListener(removed);
+
+        RecordingListener listener = new RecordingListener(1);
+        manager.addListener(listener);
+        manager.addListener(listener);
+
+        manager.register(new Registration("node1", "service", "10.0.0.1", 8080, "http"));
+
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertNothingPending(manager, listener, 1);
+        assertThat(removed.changes).isEmpty();
+    }
+
+    /**
+     * Flush a marker registration; as each listener is notified in order, it must arrive as the next change-set on its own.
+     */
+    private static void assertNothingPending(TopologyManager manager, RecordingListener listener, int delivered) throws InterruptedException {
+        listener.expect(1);
+        manager.register(new Registration("marker", "marker", "10.0.0.254", 8080, "http"));
+        manager.flush();
+
+        assertThat(listener.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.changes).hasSize(delivered + 1);
+        assertThat(listener.changes.get(delivered).services()).containsOnly("marker");
+    }
+
+    private static class RecordingListener implements TopologyListener {
+
+        RecordingListener(int expected) {
+            expect(expected);
+        }
+
+        void expect(int expected) {
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onChange(Topology topology) {
+            throw new AssertionError("change-set callback expected");
+        }
+
+        @Override
+        public void onChange(Topology topology, TopologyChangeSet changes) {
+            if (this.changes.isEmpty()) {
+                this.firstNotification = System.currentTimeMillis();
+            }
+            this.changes.add(changes);
+            this.latch.countDown();
+        }
+
+        volatile CountDownLatch latch;
+
+        final List<TopologyChangeSet> changes = new CopyOnWriteArrayList<>();
+
+        volatile long firstNotification;
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.logging;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.wildfly.swarm.container.util.BatchingQueue;
+
+/**
+ * Moves log records off the logging thread, through a {@link BatchingQueue}.
+ *
+ * <p>Records are handed to the {@link BatchingQueue.Sink} in batches of up to {@link #batchSize(int)}
+ * records, at least every {@link #flushInterval(long)}. When the buffer is full the
+ * {@link BatchingQueue.OverflowPolicy} decides whether the logging thread drops the record or waits
+ * for room. The counters are registered as an MXBean while the shipper runs.</p>
+ *
+ * @param <T> the record type
+ */
+public class BatchingLogShipper<T> implements LogShipperMXBean {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+
+    public BatchingLogShipper(String name, BatchingQueue.Sink<T> sink) {
+        this.name = name;
+        this.queue = new BatchingQueue<>(name + "-shipper", sink)
+                .capacity(DEFAULT_CAPACITY)
+                .batchSize(DEFAULT_BATCH_SIZE)
+                .flushInterval(DEFAULT_FLUSH_INTERVAL)
+                .sampleRate(DEFAULT_SAMPLE_RATE);
+    }
+
+    public BatchingLogShipper<T> capacity(int capacity) {
+        this.queue.capacity(capacity);
+        return this;
+    }
+
+    public BatchingLogShipper<T> batchSize(int batchSize) {
+        this.queue.batchSize(batchSize);
+        return this;
+    }
+
+    public BatchingLogShipper<T> flushInterval(long flushInterval) {
+        this.queue.flushInterval(flushInterval);
+        return this;
+    }
+
+    public BatchingLogShipper<T> overflowPolicy(BatchingQueue.OverflowPolicy overflowPolicy) {
+        this.queue.overflowPolicy(overflowPolicy);
+        return this;
+    }
+
+    public BatchingLogShipper<T> sampleRate(int sampleRate) {
+        this.queue.sampleRate(sampleRate);
+        return this;
+    }
+
+    public BatchingLogShipper<T> start() {
+        if (this.queue.start()) {
+            register();
+        }
+        return this;
+    }
+
+    /**
+     * Queue a record for shipping.
+     *
+     * @param record the record, which must not change after this call
+     * @return {@code false} if the record was dropped
+     */
+    public boolean offer(T record) {
+        return this.queue.offer(record);
+    }
+
+    /**
+     * Stop accepting records, ship what is buffered and close the sink.
+     */
+    public void close() {
+        if (this.queue.close()) {
+            unregister();
+        }
+    }
+
+    @Override
+    public long getQueuedCount() {
+        return this.queue.getQueuedCount();
+    }
+
+    @Override
+    public long getSentCount() {
+        return this.queue.getSentCount();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return this.queue.getDroppedCount();
+    }
+
+    @Override
+    public int getPendingCount() {
+        return this.queue.getPendingCount();
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.queue.getCapacity();
+    }
+
+    @Override
+    public String getOverflowPolicy() {
+        return this.queue.getOverflowPolicy().name();
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (Exception e) {
+            // counters remain available through the handler
+        }
+    }
+
+    private void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    private ObjectName objectName() throws Exception {
+        return new ObjectName("org.wildfly.swarm.logging:type=LogShipper,name=" + ObjectName.quote(this.name));
+    }
+
+    private final String name;
+
+    private final BatchingQueue<T> queue;
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.logging;
+
+/**
+ * Counters of a {@link BatchingLogShipper}, registered as
+ * {@code org.wildfly.swarm.logging:type=LogShipper,name=<handler>}.
+ */
+public interface LogShipperMXBean {
+
+    /**
+     * @return records accepted into the buffer
+     */
+    long getQueuedCount();
+
+    /**
+     * @return records handed to the collector
+     */
+    long getSentCount();
+
+    /**
+     * @return records discarded by the overflow policy or lost to a failed send
+     */
+    long getDroppedCount();
+
+    /**
+     * @return records currently waiting in the buffer
+     */
+    int getPendingCount();
+
+    int getCapacity();
+
+    String getOverflowPolicy();
+}
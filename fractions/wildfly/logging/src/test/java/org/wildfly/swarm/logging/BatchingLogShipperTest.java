@@ -0,0 +1,214 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.logging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.swarm.container.util.BatchingQueue;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BatchingLogShipperTest {
+
+    @Test
+    public void testBatchesAndDrainsOnClose() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        BatchingLogShipper<Integer> shipper = new BatchingLogShipper<>("batches", sink)
+                .capacity(100)
+                .batchSize(10)
+                .flushInterval(5000)
+                .start();
+
+        for (int i = 0; i < 35; ++i) {
+            assertThat(shipper.offer(i)).isTrue();
+        }
+        shipper.close();
+
+        assertThat(sink.records()).hasSize(35);
+        for (List<Integer> batch : sink.batches) {
+            assertThat(batch.size()).isLessThanOrEqualTo(10);
+        }
+        assertThat(sink.records().get(34)).isEqualTo(34);
+        assertThat(shipper.getQueuedCount()).isEqualTo(35);
+        assertThat(shipper.getSentCount()).isEqualTo(35);
+        assertThat(shipper.getDroppedCount()).isEqualTo(0);
+        assertThat(sink.closed).isTrue();
+    }
+
+    @Test
+    public void testFlushIntervalShipsPartialBatch() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        BatchingLogShipper<Integer> shipper = new BatchingLogShipper<>("interval", sink)
+                .batchSize(100)
+                .flushInterval(50)
+                .start();
+
+        shipper.offer(1);
+        assertThat(sink.first.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sink.records()).containsOnly(1);
+        shipper.close();
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        StalledSink sink = new StalledSink();
+        BatchingLogShipper<Integer> shipper = new BatchingLogShipper<>("drop", sink)
+                .capacity(4)
+                .batchSize(1)
+                .flushInterval(0)
+                .start();
+
+        // the flusher takes the first record and stalls on it
+        shipper.offer(0);
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i <= 10; ++i) {
+            shipper.offer(i);
+        }
+        assertThat(shipper.getPendingCount()).isEqualTo(4);
+        assertThat(shipper.getDroppedCount()).isEqualTo(6);
+
+        sink.release.countDown();
+        shipper.close();
+        assertThat(shipper.getSentCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testBlockWaitsForRoom() throws Exception {
+        StalledSink sink = new StalledSink();
+        BatchingLogShipper<Integer> shipper = new BatchingLogShipper<>("block", sink)
+                .capacity(2)
+                .batchSize(1)
+                .flushInterval(0)
+                .overflowPolicy(BatchingQueue.OverflowPolicy.BLOCK)
+                .start();
+
+        shipper.offer(0);
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        shipper.offer(1);
+        shipper.offer(2);
+
+        CountDownLatch offered = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            shipper.offer(3);
+            offered.countDown();
+        });
+        producer.start();
+
+        assertThat(offered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        sink.release.countDown();
+        assertThat(offered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        shipper.close();
+        assertThat(shipper.getDroppedCount()).isEqualTo(0);
+        assertThat(shipper.getSentCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testSampleAboveHalfFull() throws Exception {
+        StalledSink sink = new StalledSink();
+        BatchingLogShipper<Integer> shipper = new BatchingLogShipper<>("sample", sink)
+                .capacity(100)
+                .batchSize(1)
+                .flushInterval(0)
+                .overflowPolicy(BatchingQueue.OverflowPolicy.SAMPLE)
+                .sampleRate(10)
+                .start();
+
+        shipper.offer(-1);
+        assertThat(sink.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 150; ++i) {
+            shipper.offer(i);
+        }
+        // 50 below the mark, then one in ten of the remaining 100
+        assertThat(shipper.getPendingCount()).isEqualTo(60);
+        assertThat(shipper.getDroppedCount()).isEqualTo(90);
+
+        sink.release.countDown();
+        shipper.close();
+    }
+
+    @Test
+    public void testFailedSendCountsAsDropped() throws Exception {
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        BatchingLogShipper<Integer> shipper = new BatchingLogShipper<>("failing", new BatchingQueue.Sink<Integer>() {
+            @Override
+            public void send(List<Integer> batch) throws Exception {
+                throw new IOException("collector down");
+            }
+
+            @Override
+            public void failed(List<Integer> batch, Exception e) {
+                failures.add(e);
+            }
+        }).batchSize(5).start();
+
+        for (int i = 0; i < 5; ++i) {
+            shipper.offer(i);
+        }
+        shipper.close();
+
+        assertThat(failures).isNotEmpty();
+        assertThat(shipper.getDroppedCount()).isEqualTo(5);
+        assertThat(shipper.getSentCount()).isEqualTo(0);
+    }
+
+    private static class RecordingSink implements BatchingQueue.Sink<Integer> {
+
+        @Override
+        public void send(List<Integer> batch) {
+            this.batches.add(new ArrayList<>(batch));
+            this.first.countDown();
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        List<Integer> records() {
+            List<Integer> records = new ArrayList<>();
+            this.batches.forEach(records::addAll);
+            return records;
+        }
+
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch first = new CountDownLatch(1);
+
+        volatile boolean closed;
+    }
+
+    private static class StalledSink implements BatchingQueue.Sink<Integer> {
+
+        @Override
+        public void send(List<Integer> batch) throws Exception {
+            this.entered.countDown();
+            this.release.await();
+        }
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+    }
+}
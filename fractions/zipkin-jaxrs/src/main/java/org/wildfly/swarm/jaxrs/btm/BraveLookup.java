@@ -4,6 +4,7 @@ import javax.naming.InitialContext;
 import javax.naming.NamingException;
 
 import com.github.kristofa.brave.Brave;
+import org.wildfly.swarm.jaxrs.btm.zipkin.PathSampler;
 
 /**
  * @author Heiko Braun
@@ -20,4 +21,9 @@ public interface BraveLookup {
 
 
     Brave get();
+
+    /**
+     * @return the sampler consulted for incoming requests
+     */
+    PathSampler sampler();
 }
@@ -19,14 +19,16 @@ import java.util.UUID;
 
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.LoggingReporter;
-import com.github.kristofa.brave.Sampler;
 import org.wildfly.swarm.config.runtime.AttributeDocumentation;
+import org.wildfly.swarm.jaxrs.btm.zipkin.BatchingSpanReporter;
+import org.wildfly.swarm.jaxrs.btm.zipkin.PathSampler;
 import org.wildfly.swarm.spi.api.Defaultable;
 import org.wildfly.swarm.spi.api.Fraction;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModule;
 import org.wildfly.swarm.spi.api.annotations.DeploymentModules;
 import zipkin.Span;
 import zipkin.reporter.AsyncReporter;
+import zipkin.reporter.Reporter;
 import zipkin.reporter.urlconnection.URLConnectionSender;
 
 /**
@@ -47,18 +49,37 @@ public class ZipkinFraction implements Fraction<ZipkinFraction> {
     }
 
     public Brave getBraveInstance() {
+        return getBraveInstance(createReporter().start(), createSampler());
+    }
 
-        Brave.Builder builder = new Brave.Builder(name.get());
+    public Brave getBraveInstance(BatchingSpanReporter reporter, PathSampler sampler) {
+        return new Brave.Builder(name.get())
+                .reporter(reporter)
+                .traceSampler(sampler)
+                .build();
+    }
 
+    /**
+     * Create the reporter for finished spans, not yet started: spans are logged when no
+     * {@link #setUrl(String) server URL} is set, and sent to that server otherwise.
+     *
+     * @return the reporter
+     */
+    public BatchingSpanReporter createReporter() {
+        Reporter<Span> delegate;
         if (this.url.isDefault()) {
-            builder.reporter(new LoggingReporter())
-                           .traceSampler(Sampler.create(1.0f));
+            delegate = new LoggingReporter();
         } else {
-            AsyncReporter<Span> asyncReporter = AsyncReporter.builder(URLConnectionSender.create(url.get())).build();
-            builder.reporter(asyncReporter)
-                    .traceSampler(Sampler.create(rate.get()));
+            delegate = AsyncReporter.builder(URLConnectionSender.create(url.get())).build();
         }
-        return builder.build();
+        return new BatchingSpanReporter(name.get(), delegate)
+                .capacity(reporterQueueSize.get())
+                .batchSize(reporterBatchSize.get())
+                .flushInterval(reporterFlushInterval.get());
+    }
+
+    public PathSampler createSampler() {
+        return PathSampler.of(sampler.get(), rate.get(), tracesPerSecond.get(), samplingRules.get());
     }
 
     public ZipkinFraction setName(String name) {
@@ -76,6 +97,36 @@ public class ZipkinFraction implements Fraction<ZipkinFraction> {
         return this;
     }
 
+    public ZipkinFraction setSampler(String sampler) {
+        this.sampler.set(sampler);
+        return this;
+    }
+
+    public ZipkinFraction setTracesPerSecond(Integer tracesPerSecond) {
+        this.tracesPerSecond.set(tracesPerSecond);
+        return this;
+    }
+
+    public ZipkinFraction setSamplingRules(String samplingRules) {
+        this.samplingRules.set(samplingRules);
+        return this;
+    }
+
+    public ZipkinFraction setReporterQueueSize(Integer reporterQueueSize) {
+        this.reporterQueueSize.set(reporterQueueSize);
+        return this;
+    }
+
+    public ZipkinFraction setReporterBatchSize(Integer reporterBatchSize) {
+        this.reporterBatchSize.set(reporterBatchSize);
+        return this;
+    }
+
+    public ZipkinFraction setReporterFlushInterval(Long reporterFlushInterval) {
+        this.reporterFlushInterval.set(reporterFlushInterval);
+        return this;
+    }
+
     @AttributeDocumentation("The service name used in reports")
     private Defaultable<String> name = Defaultable.string(UUID.randomUUID().toString());
 
@@ -85,6 +136,21 @@ public class ZipkinFraction implements Fraction<ZipkinFraction> {
     @AttributeDocumentation("The reporting rate")
     private Defaultable<Float> rate = Defaultable.floating(1.0f);
 
+    @AttributeDocumentation("How traces are sampled when the caller did not decide: `probabilistic` keeps `rate` of them, `rate-limiting` at most `traces-per-second`")
+    private Defaultable<String> sampler = Defaultable.string(PathSampler.PROBABILISTIC);
+
+    @AttributeDocumentation("The maximum number of traces started per second by the `rate-limiting` sampler")
+    private Defaultable<Integer> tracesPerSecond = Defaultable.integer(100);
+
+    @AttributeDocumentation("Comma-separated per-path sampling rules `<regex>=<rate>`, where the rate is a probability or a limit like `10/s`; the first match wins. Ex.: `/health.*=0,/orders/.*=10/s`")
+    private Defaultable<String> samplingRules = Defaultable.string("");
+
+    @AttributeDocumentation("The number of finished spans queued for reporting before new ones are dropped")
+    private Defaultable<Integer> reporterQueueSize = Defaultable.integer(BatchingSpanReporter.DEFAULT_CAPACITY);
 
+    @AttributeDocumentation("The maximum number of spans reported in one batch")
+    private Defaultable<Integer> reporterBatchSize = Defaultable.integer(BatchingSpanReporter.DEFAULT_BATCH_SIZE);
 
+    @AttributeDocumentation("The longest time (ms) the reporter waits for a batch to fill")
+    private Defaultable<Long> reporterFlushInterval = Defaultable.longInteger(BatchingSpanReporter.DEFAULT_FLUSH_INTERVAL);
 }
@@ -10,6 +10,8 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.wildfly.swarm.jaxrs.btm.BraveLookup;
+import org.wildfly.swarm.jaxrs.btm.zipkin.BatchingSpanReporter;
+import org.wildfly.swarm.jaxrs.btm.zipkin.PathSampler;
 
 /**
  * @author Heiko Braun
@@ -22,8 +24,10 @@ public class BraveService implements BraveLookup, Service<BraveService> {
 
     private static Logger LOG = Logger.getLogger("org.wildfly.swarm.jaxrs.btm");
 
-    public BraveService(Brave braveInstance) {
+    public BraveService(Brave braveInstance, BatchingSpanReporter reporter, PathSampler sampler) {
         this.brave = braveInstance;
+        this.reporter = reporter;
+        this.sampler = sampler;
     }
 
     @Override
@@ -31,9 +35,15 @@ public class BraveService implements BraveLookup, Service<BraveService> {
         return this.brave;
     }
 
+    @Override
+    public PathSampler sampler() {
+        return this.sampler;
+    }
+
     @Override
     public void start(StartContext startContext) throws StartException {
-        LOG.info("Zipkin BTM services started: " + this.brave);
+        this.reporter.start();
+        LOG.info("Zipkin BTM services started: " + this.brave + ", sampling " + this.sampler);
     }
 
     @Override
@@ -42,6 +52,7 @@ public class BraveService implements BraveLookup, Service<BraveService> {
             LOG.info("Shutdown Zipkin BTM services");
             this.brave.serverTracer().setStateNoTracing();
         }
+        this.reporter.close();
     }
 
     @Override
@@ -51,5 +62,9 @@ public class BraveService implements BraveLookup, Service<BraveService> {
 
 
     private Brave brave;
+
+    private final BatchingSpanReporter reporter;
+
+    private final PathSampler sampler;
 }
 
@@ -17,6 +17,8 @@ import org.jboss.msc.service.ServiceRegistryException;
 import org.jboss.msc.service.ServiceTarget;
 import org.wildfly.swarm.jaxrs.btm.BraveLookup;
 import org.wildfly.swarm.jaxrs.btm.ZipkinFraction;
+import org.wildfly.swarm.jaxrs.btm.zipkin.BatchingSpanReporter;
+import org.wildfly.swarm.jaxrs.btm.zipkin.PathSampler;
 
 /**
  * @author Heiko Braun
@@ -33,7 +35,10 @@ public class BraveServiceActivator implements ServiceActivator {
 
         ServiceTarget target = context.getServiceTarget();
 
-        BraveService service = new BraveService(zipKinFractionInstance.get().getBraveInstance());
+        ZipkinFraction fraction = zipKinFractionInstance.get();
+        BatchingSpanReporter reporter = fraction.createReporter();
+        PathSampler sampler = fraction.createSampler();
+        BraveService service = new BraveService(fraction.getBraveInstance(reporter, sampler), reporter, sampler);
 
         ServiceBuilder<BraveService> serviceBuilder = target.addService(BraveService.SERVICE_NAME, service);
 
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.wildfly.swarm.container.util.BatchingQueue;
+import zipkin.Span;
+import zipkin.reporter.Reporter;
+
+/**
+ * Takes span reporting off the request thread, through a {@link BatchingQueue}.
+ *
+ * <p>Finished spans are handed to the underlying {@link Reporter} in batches of up to
+ * {@link #batchSize(int)} spans, at least every {@link #flushInterval(long)}. When the buffer is full
+ * the span is dropped and counted rather than slowing the request down. The counters are registered
+ * as an MXBean while the reporter runs.</p>
+ */
+public class BatchingSpanReporter implements Reporter<Span>, Closeable, SpanReporterMXBean {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    private static final Logger LOG = Logger.getLogger(BatchingSpanReporter.class.getName());
+
+    public BatchingSpanReporter(String name, Reporter<Span> delegate) {
+        this.name = name;
+        this.delegate = delegate;
+        this.queue = new BatchingQueue<>("zipkin-reporter-" + name, new DelegateSink())
+                .capacity(DEFAULT_CAPACITY)
+                .batchSize(DEFAULT_BATCH_SIZE)
+                .flushInterval(DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public BatchingSpanReporter capacity(int capacity) {
+        this.queue.capacity(capacity);
+        return this;
+    }
+
+    public BatchingSpanReporter batchSize(int batchSize) {
+        this.queue.batchSize(batchSize);
+        return this;
+    }
+
+    public BatchingSpanReporter flushInterval(long flushInterval) {
+        this.queue.flushInterval(flushInterval);
+        return this;
+    }
+
+    public BatchingSpanReporter start() {
+        if (this.queue.start()) {
+            register();
+        }
+        return this;
+    }
+
+    @Override
+    public void report(Span span) {
+        this.queue.offer(span);
+    }
+
+    /**
+     * Stop accepting spans, report what is buffered and close the underlying reporter.
+     */
+    @Override
+    public void close() {
+        if (this.queue.close()) {
+            unregister();
+        }
+    }
+
+    @Override
+    public long getQueuedCount() {
+        return this.queue.getQueuedCount();
+    }
+
+    @Override
+    public long getReportedCount() {
+        return this.queue.getSentCount() - this.failed.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return this.queue.getDroppedCount() + this.failed.get();
+    }
+
+    @Override
+    public int getPendingCount() {
+        return this.queue.getPendingCount();
+    }
+
+    @Override
+    public int getCapacity() {
+        return this.queue.getCapacity();
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (Exception e) {
+            // counters remain available through the reporter
+        }
+    }
+
+    private void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            // ignore
+        }
+    }
+
+    private ObjectName objectName() throws Exception {
+        return new ObjectName("org.wildfly.swarm.zipkin:type=SpanReporter,name=" + ObjectName.quote(this.name));
+    }
+
+    private final String name;
+
+    private final Reporter<Span> delegate;
+
+    private final BatchingQueue<Span> queue;
+
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Reports the spans of a batch one by one, so a failing span does not take the others with it.
+     */
+    private class DelegateSink implements BatchingQueue.Sink<Span> {
+
+        @Override
+        public void send(List<Span> batch) {
+            for (Span span : batch) {
+                try {
+                    delegate.report(span);
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    LOG.log(Level.FINE, "Failed to report span", e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (delegate instanceof Closeable) {
+                try {
+                    ((Closeable) delegate).close();
+                } catch (Exception e) {
+                    LOG.log(Level.FINE, "Failed to close span reporter", e);
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package org.wildfly.swarm.jaxrs.btm.zipkin;
 
+import javax.naming.NamingException;
+
 import com.github.kristofa.brave.Brave;
 import com.github.kristofa.brave.LoggingReporter;
 import com.github.kristofa.brave.Sampler;
+import org.wildfly.swarm.jaxrs.btm.BraveLookup;
 
 /**
  * @author Heiko Braun
@@ -10,12 +13,28 @@ import com.github.kristofa.brave.Sampler;
  */
 public class BraveFactory {
 
+    /**
+     * The {@code Brave} instance bound by the fraction, so that client spans share its sampler and
+     * reporter; outside of a container, one instance that logs spans off the calling thread.
+     *
+     * @return the instance
+     */
     public Brave create() {
-        final Brave.Builder builder = new Brave.Builder();
-        final Brave brave = builder
-                .reporter(new LoggingReporter())
+        try {
+            return BraveLookup.lookup().get();
+        } catch (NamingException | RuntimeException e) {
+            return Standalone.BRAVE;
+        }
+    }
+
+    private static final class Standalone {
+
+        static final Brave BRAVE = new Brave.Builder()
+                .reporter(new BatchingSpanReporter("standalone", new LoggingReporter()).start())
                 .traceSampler(Sampler.create(1.0f)) // retain 100% of traces
                 .build();
-        return brave;
+
+        private Standalone() {
+        }
     }
 }
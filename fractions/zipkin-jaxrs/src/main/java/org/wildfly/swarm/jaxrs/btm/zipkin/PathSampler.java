@@ -0,0 +1,151 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.github.kristofa.brave.Sampler;
+import org.wildfly.swarm.container.util.SamplingRule;
+
+/**
+ * Sampling decision for traces started by this service.
+ *
+ * <p>Incoming requests are matched against an ordered list of path rules, each with its own
+ * sampler; the first matching rule decides, and requests matching no rule use the default sampler.
+ * Rules are written as a comma-separated list of {@code <regex>=<rate>} entries, see
+ * {@link SamplingRule}.</p>
+ *
+ * <p>As the {@link Sampler} of the {@code Brave} instance it returns the decision already made for
+ * the current request, see {@link #decided(Boolean)}, and otherwise falls back to the default
+ * sampler, which is what traces started by outgoing client calls use.</p>
+ */
+public class PathSampler extends Sampler {
+
+    public static final String PROBABILISTIC = "probabilistic";
+
+    public static final String RATE_LIMITING = "rate-limiting";
+
+    private static final ThreadLocal<Boolean> DECISION = new ThreadLocal<>();
+
+    public PathSampler(Sampler defaultSampler) {
+        this(defaultSampler, Collections.emptyList());
+    }
+
+    public PathSampler(Sampler defaultSampler, List<Rule> rules) {
+        this.defaultSampler = defaultSampler;
+        this.rules = rules.toArray(new Rule[rules.size()]);
+    }
+
+    /**
+     * @param type           {@link #PROBABILISTIC} or {@link #RATE_LIMITING}
+     * @param rate           the probability used by the probabilistic sampler
+     * @param perSecond      the limit used by the rate-limiting sampler
+     * @param rules          the path rules, may be {@code null} or empty
+     * @return the sampler
+     */
+    public static PathSampler of(String type, float rate, double perSecond, String rules) {
+        Sampler defaultSampler;
+        if (type == null || type.trim().isEmpty() || PROBABILISTIC.equalsIgnoreCase(type.trim())) {
+            defaultSampler = Sampler.create(rate);
+        } else if (RATE_LIMITING.equalsIgnoreCase(type.trim())) {
+            defaultSampler = new RateLimitingSampler(perSecond);
+        } else {
+            throw new IllegalArgumentException("Unknown sampler type: " + type);
+        }
+        return new PathSampler(defaultSampler, parseRules(rules));
+    }
+
+    public static List<Rule> parseRules(String rules) {
+        List<Rule> parsed = new ArrayList<>();
+        for (SamplingRule each : SamplingRule.parse(rules)) {
+            Sampler sampler = each.isRateLimited()
+                    ? new RateLimitingSampler(each.getRate())
+                    : Sampler.create((float) each.getRate());
+            parsed.add(new Rule(each, sampler));
+        }
+        return parsed;
+    }
+
+    /**
+     * Decide whether a request for the given path starts a trace.
+     *
+     * @param path the request path
+     * @return {@code true} to trace the request
+     */
+    public boolean isSampled(String path) {
+        for (Rule rule : this.rules) {
+            if (rule.rule.matches(path)) {
+                return rule.sampler.isSampled(ThreadLocalRandom.current().nextLong());
+            }
+        }
+        return this.defaultSampler.isSampled(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Override
+    public boolean isSampled(long traceId) {
+        Boolean decision = DECISION.get();
+        if (decision != null) {
+            return decision;
+        }
+        return this.defaultSampler.isSampled(traceId);
+    }
+
+    /**
+     * Record the decision taken by {@link #isSampled(String)} for the current thread, or clear it.
+     *
+     * @param decision the decision, or {@code null} once the trace has been started
+     */
+    public static void decided(Boolean decision) {
+        if (decision == null) {
+            DECISION.remove();
+        } else {
+            DECISION.set(decision);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("PathSampler{");
+        for (Rule rule : this.rules) {
+            str.append(rule).append(", ");
+        }
+        return str.append("default=").append(this.defaultSampler).append('}').toString();
+    }
+
+    private final Sampler defaultSampler;
+
+    private final Rule[] rules;
+
+    public static final class Rule {
+
+        public Rule(SamplingRule rule, Sampler sampler) {
+            this.rule = rule;
+            this.sampler = sampler;
+        }
+
+        @Override
+        public String toString() {
+            return this.rule.getPattern().pattern() + "=" + this.sampler;
+        }
+
+        private final SamplingRule rule;
+
+        private final Sampler sampler;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import com.github.kristofa.brave.Sampler;
+import org.wildfly.swarm.container.util.RateLimiter;
+
+/**
+ * Samples at most a fixed number of traces per second, independently of the request rate.
+ *
+ * <p>Traces are admitted by a {@link RateLimiter}, at an even pace, allowing a burst of up to one
+ * second's worth after an idle period, so request threads never block on it.</p>
+ */
+public class RateLimitingSampler extends Sampler {
+
+    public RateLimitingSampler(double tracesPerSecond) {
+        this.limiter = new RateLimiter(tracesPerSecond);
+    }
+
+    @Override
+    public boolean isSampled(long traceId) {
+        return this.limiter.tryAcquire();
+    }
+
+    public double getTracesPerSecond() {
+        return this.limiter.getPerSecond();
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitingSampler{" + this.limiter + "}";
+    }
+
+    private final RateLimiter limiter;
+}
@@ -7,6 +7,7 @@ import javax.naming.NamingException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
 
 import com.github.kristofa.brave.Brave;
@@ -23,24 +24,70 @@ import org.wildfly.swarm.jaxrs.btm.BraveLookup;
 @Priority(0)
 public class ServerRequestInterceptor implements ContainerRequestFilter {
 
+    /**
+     * Request property set when no trace was started for the request.
+     */
+    static final String NOT_SAMPLED = ServerRequestInterceptor.class.getName() + ".notSampled";
+
+    private static final String SAMPLED_HEADER = "X-B3-Sampled";
+
+    private static final String TRACE_ID_HEADER = "X-B3-TraceId";
+
     public ServerRequestInterceptor() {
+        this(lookup());
+    }
+
+    ServerRequestInterceptor(Brave brave, PathSampler sampler) {
+        this.brave = brave;
+        this.sampler = sampler;
+        this.delegate = new BraveContainerRequestFilter(
+                brave.serverRequestInterceptor(),
+                new DefaultSpanNameProvider()
+        );
+    }
+
+    private ServerRequestInterceptor(BraveLookup lookup) {
+        this(lookup.get(), lookup.sampler());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext containerRequestContext) throws IOException {
+        if (hasTraceHeaders(containerRequestContext)) {
+            // the caller already decided
+            delegate.filter(containerRequestContext);
+            return;
+        }
+
+        if (!this.sampler.isSampled(containerRequestContext.getUriInfo().getRequestUri().getPath())) {
+            this.brave.serverTracer().setStateNoTracing();
+            containerRequestContext.setProperty(NOT_SAMPLED, Boolean.TRUE);
+            return;
+        }
+
+        PathSampler.decided(Boolean.TRUE);
         try {
-            this.brave = BraveLookup.lookup().get();
-            this.delegate = new BraveContainerRequestFilter(
-                    brave.serverRequestInterceptor(),
-                    new DefaultSpanNameProvider()
-            );
+            delegate.filter(containerRequestContext);
+        } finally {
+            PathSampler.decided(null);
+        }
+    }
+
+    private static BraveLookup lookup() {
+        try {
+            return BraveLookup.lookup();
         } catch (NamingException e) {
             throw new RuntimeException("Failed to lookup brave", e);
         }
     }
 
-    @Override
-    public void filter(ContainerRequestContext containerRequestContext) throws IOException {
-        delegate.filter(containerRequestContext);
+    private static boolean hasTraceHeaders(ContainerRequestContext containerRequestContext) {
+        MultivaluedMap<String, String> headers = containerRequestContext.getHeaders();
+        return headers.containsKey(SAMPLED_HEADER) || headers.containsKey(TRACE_ID_HEADER);
     }
 
     private final Brave brave;
 
+    private final PathSampler sampler;
+
     private final BraveContainerRequestFilter delegate;
 }
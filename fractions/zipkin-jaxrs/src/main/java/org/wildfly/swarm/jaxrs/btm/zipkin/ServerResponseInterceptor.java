@@ -34,6 +34,9 @@ public class ServerResponseInterceptor implements ContainerResponseFilter {
 
     @Override
     public void filter(final ContainerRequestContext containerRequestContext, final ContainerResponseContext containerResponseContext) throws IOException {
+        if (containerRequestContext.getProperty(ServerRequestInterceptor.NOT_SAMPLED) != null) {
+            return;
+        }
         delegate.filter(containerRequestContext, containerResponseContext);
     }
 
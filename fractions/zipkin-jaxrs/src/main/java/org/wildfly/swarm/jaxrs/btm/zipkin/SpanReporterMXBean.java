@@ -0,0 +1,45 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+/**
+ * Counters of a {@link BatchingSpanReporter}, registered as
+ * {@code org.wildfly.swarm.zipkin:type=SpanReporter,name=<service>}.
+ */
+public interface SpanReporterMXBean {
+
+    /**
+     * @return spans accepted into the queue
+     */
+    long getQueuedCount();
+
+    /**
+     * @return spans handed to the underlying reporter
+     */
+    long getReportedCount();
+
+    /**
+     * @return spans discarded because the queue was full or the underlying reporter failed
+     */
+    long getDroppedCount();
+
+    /**
+     * @return spans currently waiting in the queue
+     */
+    int getPendingCount();
+
+    int getCapacity();
+}
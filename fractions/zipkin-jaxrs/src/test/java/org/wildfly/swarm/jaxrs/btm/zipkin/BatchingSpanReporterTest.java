@@ -0,0 +1,180 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import zipkin.Span;
+import zipkin.reporter.Reporter;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class BatchingSpanReporterTest {
+
+    @Test
+    public void testDrainsOnClose() throws Exception {
+        RecordingReporter delegate = new RecordingReporter();
+        BatchingSpanReporter reporter = new BatchingSpanReporter("drain", delegate)
+                .capacity(100)
+                .batchSize(10)
+                .flushInterval(60000)
+                .start();
+
+        for (int i = 1; i <= 35; ++i) {
+            reporter.report(span(i));
+        }
+        reporter.close();
+
+        assertThat(delegate.spans).hasSize(35);
+        assertThat(delegate.spans.get(34).id).isEqualTo(35);
+        assertThat(reporter.getQueuedCount()).isEqualTo(35);
+        assertThat(reporter.getReportedCount()).isEqualTo(35);
+        assertThat(reporter.getDroppedCount()).isEqualTo(0);
+        assertThat(reporter.getPendingCount()).isEqualTo(0);
+        assertThat(delegate.closed).isTrue();
+    }
+
+    @Test
+    public void testFlushIntervalReportsPartialBatch() throws Exception {
+        RecordingReporter delegate = new RecordingReporter();
+        BatchingSpanReporter reporter = new BatchingSpanReporter("interval", delegate)
+                .batchSize(100)
+                .flushInterval(50)
+                .start();
+
+        reporter.report(span(1));
+        assertThat(delegate.first.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(delegate.spans).hasSize(1);
+        reporter.close();
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        StalledReporter delegate = new StalledReporter();
+        BatchingSpanReporter reporter = new BatchingSpanReporter("drop", delegate)
+                .capacity(4)
+                .batchSize(1)
+                .flushInterval(0)
+                .start();
+
+        // the flusher takes the first span and stalls on it
+        reporter.report(span(0));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i <= 10; ++i) {
+            reporter.report(span(i));
+        }
+        assertThat(reporter.getPendingCount()).isEqualTo(4);
+        assertThat(reporter.getQueuedCount()).isEqualTo(5);
+        assertThat(reporter.getDroppedCount()).isEqualTo(6);
+
+        delegate.release.countDown();
+        reporter.close();
+        assertThat(reporter.getReportedCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testDropWhenNotRunning() {
+        RecordingReporter delegate = new RecordingReporter();
+        BatchingSpanReporter reporter = new BatchingSpanReporter("stopped", delegate);
+
+        reporter.report(span(1));
+        reporter.start().close();
+        reporter.report(span(2));
+
+        assertThat(reporter.getDroppedCount()).isEqualTo(2);
+        assertThat(delegate.spans).isEmpty();
+    }
+
+    @Test
+    public void testFailedReportCountsAsDropped() {
+        BatchingSpanReporter reporter = new BatchingSpanReporter("failing", span -> {
+            throw new IllegalStateException("collector down");
+        }).start();
+
+        for (int i = 0; i < 5; ++i) {
+            reporter.report(span(i));
+        }
+        reporter.close();
+
+        assertThat(reporter.getQueuedCount()).isEqualTo(5);
+        assertThat(reporter.getDroppedCount()).isEqualTo(5);
+        assertThat(reporter.getReportedCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRegistersMXBeanWhileRunning() throws Exception {
+        ObjectName name = new ObjectName("org.wildfly.swarm.zipkin:type=SpanReporter,name=" + ObjectName.quote("mxbean"));
+        BatchingSpanReporter reporter = new BatchingSpanReporter("mxbean", new RecordingReporter()).start();
+        try {
+            assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+            assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Capacity"))
+                    .isEqualTo(BatchingSpanReporter.DEFAULT_CAPACITY);
+        } finally {
+            reporter.close();
+        }
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+    }
+
+    private static Span span(long id) {
+        return Span.builder().traceId(id).id(id).name("get").build();
+    }
+
+    private static class RecordingReporter implements Reporter<Span>, Closeable {
+
+        @Override
+        public void report(Span span) {
+            this.spans.add(span);
+            this.first.countDown();
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        final List<Span> spans = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch first = new CountDownLatch(1);
+
+        volatile boolean closed;
+    }
+
+    private static class StalledReporter implements Reporter<Span> {
+
+        @Override
+        public void report(Span span) {
+            this.entered.countDown();
+            try {
+                this.release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import java.util.List;
+
+import com.github.kristofa.brave.Sampler;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Fail.fail;
+
+public class PathSamplerTest {
+
+    @After
+    public void clearDecision() {
+        PathSampler.decided(null);
+    }
+
+    @Test
+    public void testParseRules() {
+        List<PathSampler.Rule> rules = PathSampler.parseRules(" /health.*=0 , /orders/.*=10/s,,/admin/.*=1 ");
+        assertThat(rules).hasSize(3);
+        assertThat(rules.get(0).toString()).startsWith("/health.*=");
+        assertThat(rules.get(1).toString()).isEqualTo("/orders/.*=RateLimitingSampler{10.0/s}");
+        assertThat(rules.get(2).toString()).startsWith("/admin/.*=");
+
+        assertThat(PathSampler.parseRules(null)).isEmpty();
+        assertThat(PathSampler.parseRules("")).isEmpty();
+    }
+
+    @Test
+    public void testRuleWithEqualsInRegex() {
+        PathSampler sampler = new PathSampler(Sampler.create(0.0f), PathSampler.parseRules("/q\\?a=b.*=1"));
+        assertThat(sampler.isSampled("/q?a=bc")).isTrue();
+        assertThat(sampler.isSampled("/q?a=c")).isFalse();
+    }
+
+    @Test
+    public void testInvalidRules() {
+        for (String each : new String[]{"/health", "=1", "/health="}) {
+            try {
+                PathSampler.parseRules(each);
+                fail("expected " + each + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage()).contains(each);
+            }
+        }
+    }
+
+    @Test
+    public void testFirstMatchingRuleWins() {
+        PathSampler sampler = new PathSampler(Sampler.create(1.0f), PathSampler.parseRules("/orders/internal/.*=0,/orders/.*=1,/health=0"));
+
+        assertThat(sampler.isSampled("/orders/internal/1")).isFalse();
+        assertThat(sampler.isSampled("/orders/1")).isTrue();
+        assertThat(sampler.isSampled("/health")).isFalse();
+        // rules match the whole path
+        assertThat(sampler.isSampled("/health/live")).isTrue();
+    }
+
+    @Test
+    public void testDefaultSampler() {
+        PathSampler never = PathSampler.of(PathSampler.PROBABILISTIC, 0.0f, 0, "/orders/.*=1");
+        assertThat(never.isSampled("/customers")).isFalse();
+        assertThat(never.isSampled("/orders/1")).isTrue();
+
+        PathSampler always = PathSampler.of(null, 1.0f, 0, null);
+        assertThat(always.isSampled("/customers")).isTrue();
+    }
+
+    @Test
+    public void testRateLimitingRule() {
+        PathSampler sampler = new PathSampler(Sampler.create(1.0f), PathSampler.parseRules("/orders/.*=2/s"));
+        assertThat(sampler.isSampled("/orders/1")).isTrue();
+        assertThat(sampler.isSampled("/orders/2")).isTrue();
+        assertThat(sampler.isSampled("/orders/3")).isFalse();
+        assertThat(sampler.isSampled("/customers")).isTrue();
+    }
+
+    @Test
+    public void testRateLimitingDefault() {
+        PathSampler sampler = PathSampler.of(PathSampler.RATE_LIMITING, 1.0f, 1, null);
+        assertThat(sampler.isSampled("/a")).isTrue();
+        assertThat(sampler.isSampled("/a")).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownType() {
+        PathSampler.of("remote", 1.0f, 0, null);
+    }
+
+    @Test
+    public void testTraceSamplerFollowsDecision() {
+        PathSampler sampler = new PathSampler(Sampler.create(0.0f));
+        assertThat(sampler.isSampled(1L)).isFalse();
+
+        PathSampler.decided(Boolean.TRUE);
+        assertThat(sampler.isSampled(1L)).isTrue();
+
+        PathSampler.decided(null);
+        assertThat(sampler.isSampled(1L)).isFalse();
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class RateLimitingSamplerTest {
+
+    @Test
+    public void testBurstOfOneSecond() {
+        RateLimitingSampler sampler = new RateLimitingSampler(10);
+        int sampled = 0;
+        for (int i = 0; i < 1000; ++i) {
+            if (sampler.isSampled(i)) {
+                ++sampled;
+            }
+        }
+        // one second's worth, plus one for any time passing during the loop
+        assertThat(sampled).isGreaterThanOrEqualTo(10);
+        assertThat(sampled).isLessThanOrEqualTo(11);
+    }
+
+    @Test
+    public void testPacing() throws Exception {
+        RateLimitingSampler sampler = new RateLimitingSampler(10);
+        while (sampler.isSampled(0)) {
+            // use up the burst
+        }
+        assertThat(sampler.isSampled(0)).isFalse();
+
+        Thread.sleep(250);
+        int sampled = 0;
+        while (sampler.isSampled(0)) {
+            ++sampled;
+        }
+        assertThat(sampled).isGreaterThanOrEqualTo(2);
+        assertThat(sampled).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testNonPositiveRateNeverSamples() {
+        assertThat(new RateLimitingSampler(0).isSampled(0)).isFalse();
+        assertThat(new RateLimitingSampler(-1).isSampled(0)).isFalse();
+    }
+
+    @Test
+    public void testConcurrentAdmissionsStayWithinLimit() throws Exception {
+        RateLimitingSampler sampler = new RateLimitingSampler(100);
+        int[] sampled = new int[4];
+        Thread[] threads = new Thread[sampled.length];
+        for (int i = 0; i < threads.length; ++i) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; ++j) {
+                    if (sampler.isSampled(j)) {
+                        ++sampled[index];
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        int total = 0;
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i].join();
+            total += sampled[i];
+        }
+        assertThat(total).isGreaterThanOrEqualTo(100);
+        assertThat(total).isLessThan(150);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.jaxrs.btm.zipkin;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import com.github.kristofa.brave.Brave;
+import com.github.kristofa.brave.Sampler;
+import com.github.kristofa.brave.ServerSpan;
+import org.junit.After;
+import org.junit.Test;
+import zipkin.reporter.Reporter;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ServerRequestInterceptorTest {
+
+    private static final String TRACE_ID = "463ac35c9f6413ad";
+
+    private static final String SPAN_ID = "72485a3953bb6124";
+
+    @After
+    public void clearSpan() {
+        if (this.brave != null) {
+            this.brave.serverTracer().clearCurrentSpan();
+        }
+    }
+
+    @Test
+    public void testSampledByPath() throws Exception {
+        Request request = request("/orders/1");
+        interceptor(PathSampler.of(null, 0.0f, 0, "/orders/.*=1")).filter(request.context);
+
+        assertThat(request.properties.containsKey(ServerRequestInterceptor.NOT_SAMPLED)).isFalse();
+        assertThat(currentSpan().getSample()).isTrue();
+    }
+
+    @Test
+    public void testNotSampledByPath() throws Exception {
+        Request request = request("/health");
+        interceptor(PathSampler.of(null, 1.0f, 0, "/health=0")).filter(request.context);
+
+        assertThat(request.properties.get(ServerRequestInterceptor.NOT_SAMPLED)).isEqualTo(Boolean.TRUE);
+        assertThat(currentSpan().getSample()).isFalse();
+    }
+
+    @Test
+    public void testCallerSampledOverridesPath() throws Exception {
+        Request request = request("/health")
+                .header("X-B3-TraceId", TRACE_ID)
+                .header("X-B3-SpanId", SPAN_ID)
+                .header("X-B3-Sampled", "1");
+        interceptor(new PathSampler(Sampler.create(0.0f))).filter(request.context);
+
+        assertThat(request.properties.containsKey(ServerRequestInterceptor.NOT_SAMPLED)).isFalse();
+        assertThat(currentSpan().getSample()).isTrue();
+        assertThat(currentSpan().getSpan().getTrace_id()).isEqualTo(Long.parseUnsignedLong(TRACE_ID, 16));
+    }
+
+    @Test
+    public void testCallerNotSampledOverridesPath() throws Exception {
+        Request request = request("/orders/1")
+                .header("X-B3-TraceId", TRACE_ID)
+                .header("X-B3-SpanId", SPAN_ID)
+                .header("X-B3-Sampled", "0");
+        interceptor(new PathSampler(Sampler.create(1.0f))).filter(request.context);
+
+        assertThat(currentSpan().getSample()).isFalse();
+    }
+
+    private ServerRequestInterceptor interceptor(PathSampler sampler) {
+        this.brave = new Brave.Builder("test")
+                .reporter(Reporter.NOOP)
+                .traceSampler(sampler)
+                .build();
+        return new ServerRequestInterceptor(this.brave, sampler);
+    }
+
+    private ServerSpan currentSpan() {
+        return this.brave.serverSpanThreadBinder().getCurrentServerSpan();
+    }
+
+    private static Request request(String path) {
+        return new Request(URI.create("http://localhost:8080" + path));
+    }
+
+    private Brave brave;
+
+    /**
+     * Just enough of a JAX-RS request for the filters.
+     */
+    private static final class Request {
+
+        Request(URI uri) {
+            UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{UriInfo.class},
+                    (proxy, method, args) -> method.getReturnType() == URI.class ? uri : null);
+            this.context = (ContainerRequestContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ContainerRequestContext.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getUriInfo":
+                                return uriInfo;
+                            case "getMethod":
+                                return "GET";
+                            case "getHeaders":
+                                return this.headers;
+                            case "getHeaderString":
+                                return this.headers.getFirst((String) args[0]);
+                            case "getProperty":
+                                return this.properties.get(args[0]);
+                            case "setProperty":
+                                this.properties.put((String) args[0], args[1]);
+                                return null;
+                            default:
+                                return defaultValue(method.getReturnType());
+                        }
+                    });
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (type == boolean.class) {
+                return Boolean.FALSE;
+            }
+            if (type == int.class) {
+                return 0;
+            }
+            return null;
+        }
+
+        Request header(String name, String value) {
+            this.headers.putSingle(name, value);
+            return this;
+        }
+
+        final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+
+        final Map<String, Object> properties = new HashMap<>();
+
+        final ContainerRequestContext context;
+    }
+}
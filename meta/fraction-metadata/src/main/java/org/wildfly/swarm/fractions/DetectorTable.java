@@ -0,0 +1,143 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.fractions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.wildfly.swarm.spi.meta.FractionDetector;
+import org.wildfly.swarm.spi.meta.PackageFractionDetector;
+
+/**
+ * Detectors indexed by the file extension they inspect and, for package detectors,
+ * by the leading segments of the names they look for.
+ *
+ * <p>A name is only offered to the detectors whose prefixes share its first one or two
+ * segments, instead of to every class detector. Not thread-safe; callers serialize access.</p>
+ */
+class DetectorTable {
+
+    private static final String CLASS = "class";
+
+    DetectorTable(Collection<FractionDetector<?>> detectors) {
+        this.detectors = new ArrayList<>(detectors);
+        for (FractionDetector<?> detector : detectors) {
+            this.byExtension.computeIfAbsent(detector.extensionToDetect(), k -> new ArrayList<>()).add(detector);
+            if (!CLASS.equals(detector.extensionToDetect())) {
+                continue;
+            }
+            if (detector instanceof PackageFractionDetector) {
+                for (String prefix : ((PackageFractionDetector) detector).detectionPrefixes()) {
+                    String key = key(prefix);
+                    if (key == null) {
+                        this.unindexed.add(detector);
+                    } else {
+                        this.byPrefix.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(detector);
+                    }
+                }
+            } else {
+                this.unindexed.add(detector);
+            }
+        }
+    }
+
+    /**
+     * @return the detectors for an extension that have not made up their mind yet
+     */
+    List<FractionDetector<?>> undecided(String extension) {
+        List<FractionDetector<?>> candidates = this.byExtension.get(extension);
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        List<FractionDetector<?>> undecided = new ArrayList<>(candidates.size());
+        for (FractionDetector<?> each : candidates) {
+            if (!each.detectionComplete()) {
+                undecided.add(each);
+            }
+        }
+        return undecided;
+    }
+
+    /**
+     * Offer a dotted class or package name to the class detectors that may match it.
+     */
+    void detect(String name) {
+        int first = name.indexOf('.');
+        if (first > 0) {
+            offer(this.byPrefix.get(name.substring(0, first)), name);
+            int second = name.indexOf('.', first + 1);
+            if (second > 0) {
+                offer(this.byPrefix.get(name.substring(0, second)), name);
+            }
+        }
+        offer(this.unindexed, name);
+    }
+
+    boolean allDecided() {
+        for (FractionDetector<?> each : this.detectors) {
+            if (!each.detectionComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Collection<FractionDetector<?>> detectors() {
+        return this.detectors;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void offer(Collection<FractionDetector<?>> detectors, String name) {
+        if (detectors == null) {
+            return;
+        }
+        for (FractionDetector<?> each : detectors) {
+            if (!each.detectionComplete()) {
+                ((FractionDetector<String>) each).detect(name);
+            }
+        }
+    }
+
+    /**
+     * The prefix's first two segments when both are complete, its first segment when that one is,
+     * or {@code null} when even the first segment may be partial.
+     */
+    private static String key(String prefix) {
+        int first = prefix.indexOf('.');
+        if (first <= 0) {
+            return null;
+        }
+        int second = prefix.indexOf('.', first + 1);
+        if (second > 0) {
+            return prefix.substring(0, second);
+        }
+        return prefix.substring(0, first);
+    }
+
+    private final List<FractionDetector<?>> detectors;
+
+    private final Map<String, List<FractionDetector<?>>> byExtension = new HashMap<>();
+
+    private final Map<String, Set<FractionDetector<?>>> byPrefix = new HashMap<>();
+
+    private final Set<FractionDetector<?>> unindexed = new LinkedHashSet<>();
+}
@@ -17,21 +17,32 @@ package org.wildfly.swarm.fractions;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -43,18 +54,34 @@ import org.wildfly.swarm.fractions.scanner.JarScanner;
 import org.wildfly.swarm.fractions.scanner.Scanner;
 import org.wildfly.swarm.fractions.scanner.WarScanner;
 import org.wildfly.swarm.fractions.scanner.WebXmlDescriptorScanner;
-import org.wildfly.swarm.spi.meta.PathSource;
 import org.wildfly.swarm.spi.meta.FilePathSource;
 import org.wildfly.swarm.spi.meta.FractionDetector;
+import org.wildfly.swarm.spi.meta.PathSource;
 import org.wildfly.swarm.spi.meta.SimpleLogger;
 import org.wildfly.swarm.spi.meta.ZipPathSource;
 
 /**
+ * Detects the fractions an application needs by scanning its classes and descriptors.
+ *
+ * <p>Sources are scanned on a fork/join pool: class files are parsed in parallel chunks, and the
+ * names they reference are then handed to the detectors, which are not thread-safe, one chunk at
+ * a time. Scanning stops early once every detector has made up its mind.</p>
+ *
+ * <p>With a {@link #cacheDirectory(Path) cache directory}, the names referenced by the classes of
+ * each jar are kept on disk, keyed by the jar's checksum, so unchanged libraries are not parsed again.</p>
+ *
  * @author Bob McWhirter
  * @author Toby Crawley
  * @author Ken Finnigan
  */
 public class FractionUsageAnalyzer {
+
+    private static final int CLASSES_PER_TASK = 64;
+
+    private static final String CLASS = "class";
+
+    private static final String CACHE_HEADER = "# fraction-detection v1";
+
     public FractionUsageAnalyzer() {
         this(FractionList.get());
     }
@@ -80,6 +107,19 @@ public class FractionUsageAnalyzer {
         return this;
     }
 
+    /**
+     * Keep the results of scanning each jar in the given directory.
+     */
+    public FractionUsageAnalyzer cacheDirectory(final Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        return this;
+    }
+
+    public FractionUsageAnalyzer parallelism(final int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
     public FractionUsageAnalyzer testClass(String testClass) {
         this.testClass = testClass;
 
@@ -106,7 +146,17 @@ public class FractionUsageAnalyzer {
 
         loadDetectorsAndScanners();
 
-        sources.forEach(this::scanFile);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, this.parallelism));
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(sources.stream().map(ScanTask::new).collect(Collectors.toList()));
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
 
         Set<String> detectedFractionNames =
                 detectors.stream()
@@ -151,120 +201,222 @@ public class FractionUsageAnalyzer {
         return source.getName().endsWith(".jar") || source.getName().endsWith(".war") || source.getName().endsWith(".zip");
     }
 
-    private void scanFile(File source) {
+    private void scanFile(File source) throws IOException {
         if (isZipFile(source)) {
-            fireScanner(suffix(source.getName()), zipFileScannerConsumer(source));
-        } else {
-            File basePathFile = source.getAbsoluteFile();
-            Path basePath = null;
-            if (basePathFile.isDirectory()) {
-               basePath = basePathFile.toPath();
+            if (this.scanners.containsKey(suffix(source.getName()))) {
+                scanZip(source);
             }
-
-            if (source.isDirectory()) {
-                if (source.getName().endsWith(".war") || new File(source, "WEB-INF").exists()) {
-                    fireScanner("war", explodedScannerConsumer(basePath, source));
-                } else {
-                    fireScanner("jar", explodedScannerConsumer(basePath, source));
-                }
+        } else if (source.isDirectory()) {
+            scanDirectory(source.getAbsoluteFile().toPath());
+        } else if (this.scanners.containsKey(suffix(source.getName()))) {
+            List<ForkJoinTask<?>> nested = new ArrayList<>();
+            PathSource pathSource = new FilePathSource(null, source);
+            if (isClass(pathSource.getRelativePath())) {
+                new ClassesTask(Collections.singletonList(pathSource)).invoke();
             } else {
-                fireScanner(suffix(source.getName()), explodedScannerConsumer(basePath, source));
+                scanOther(pathSource, nested);
             }
+            nested.forEach(ForkJoinTask::join);
         }
     }
 
-    private Consumer<Scanner<?>> zipFileScannerConsumer(File source) {
-        return s -> {
-            try (ZipFile zip = new ZipFile(source)) {
-                scanEntries(zip);
-            } catch (IOException e) {
-                log.error("", e);
+    private void scanZip(File source) throws IOException {
+        String checksum = null;
+        Set<String> cached = null;
+        if (this.cacheDirectory != null && !this.removeTestClassFromScanning && source.getName().endsWith(".jar")) {
+            checksum = checksum(source);
+            cached = readCache(checksum);
+        }
+
+        List<ForkJoinTask<Set<String>>> chunks = new ArrayList<>();
+        List<ForkJoinTask<?>> nested = new ArrayList<>();
+        boolean complete = true;
+
+        try (ZipFile zip = new ZipFile(source)) {
+            List<PathSource> classes = new ArrayList<>(CLASSES_PER_TASK);
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                if (this.decided) {
+                    complete = false;
+                    break;
+                }
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (!isClass(entry.getName())) {
+                    scanOther(new ZipPathSource(zip, entry), nested);
+                } else if (cached == null && !isExcluded(entry.getName())) {
+                    classes.add(new ZipPathSource(zip, entry));
+                    if (classes.size() == CLASSES_PER_TASK) {
+                        chunks.add(new ClassesTask(classes).fork());
+                        classes = new ArrayList<>(CLASSES_PER_TASK);
+                    }
+                }
             }
-        };
+            if (!classes.isEmpty()) {
+                chunks.add(new ClassesTask(classes).fork());
+            }
+
+            Set<String> names = new HashSet<>();
+            for (ForkJoinTask<Set<String>> chunk : chunks) {
+                Set<String> chunkNames = chunk.join();
+                if (chunkNames == null) {
+                    complete = false;
+                } else if (checksum != null) {
+                    names.addAll(chunkNames);
+                }
+            }
+
+            if (cached != null) {
+                dispatch(cached);
+            } else if (checksum != null && complete) {
+                writeCache(checksum, names);
+            }
+
+            nested.forEach(ForkJoinTask::join);
+        }
     }
 
-    private Consumer<Scanner<?>> explodedScannerConsumer(Path basePath, File source) {
-        return s -> {
-            try {
-                scanEntries(source.toPath(), basePath);
-            } catch (IOException e) {
-                log.error("", e);
+    private void scanDirectory(Path basePath) throws IOException {
+        List<ForkJoinTask<Set<String>>> chunks = new ArrayList<>();
+        List<ForkJoinTask<?>> nested = new ArrayList<>();
+
+        Files.walkFileTree(basePath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (decided) {
+                    return FileVisitResult.TERMINATE;
+                }
+                PathSource pathSource = new FilePathSource(basePath, file.toFile());
+                if (!isClass(file.toString())) {
+                    scanOther(pathSource, nested);
+                } else if (!isExcluded(pathSource.getRelativePath())) {
+                    this.classes.add(pathSource);
+                    if (this.classes.size() == CLASSES_PER_TASK) {
+                        chunks.add(new ClassesTask(this.classes).fork());
+                        this.classes = new ArrayList<>(CLASSES_PER_TASK);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
             }
-        };
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (dir.equals(basePath) && !this.classes.isEmpty()) {
+                    chunks.add(new ClassesTask(this.classes).fork());
+                }
+                return super.postVisitDirectory(dir, exc);
+            }
+
+            private List<PathSource> classes = new ArrayList<>(CLASSES_PER_TASK);
+        });
+
+        chunks.forEach(ForkJoinTask::join);
+        nested.forEach(ForkJoinTask::join);
     }
 
-    private void scanSource(final PathSource source) {
-        if (this.removeTestClassFromScanning &&
-                transformClassSource(source.getRelativePath()).equals(testClass)) {
+    /**
+     * Descriptors and anything else that is not a class are cheap to look at; they are handed to
+     * the scanners of their extension directly, while holding the detector lock.
+     */
+    private void scanOther(PathSource source, List<ForkJoinTask<?>> nested) {
+        final String suffix = suffix(source.getSource().getFileName().toString());
+        List<Scanner<?>> scanners = this.scanners.get(suffix);
+        if (scanners == null) {
             return;
         }
 
-        final String suffix = suffix(source.getSource().getFileName().toString());
-
-        Collection<FractionDetector<?>> validDetectors =
-                detectors.stream()
-                        .filter(d -> d.extensionToDetect().equals(suffix))
-                        .filter(d -> !d.detectionComplete())
-                        .collect(Collectors.toList());
-
-        if (validDetectors.size() > 0) {
-            fireScanner(suffix, s -> {
+        synchronized (this.table) {
+            Collection<FractionDetector<?>> validDetectors = this.table.undecided(suffix);
+            if (validDetectors.isEmpty()) {
+                return;
+            }
+            for (Scanner<?> scanner : scanners) {
                 try {
-                    s.scan(source, convertDetectors(validDetectors), this::scanFile);
+                    scanner.scan(source, convertDetectors(validDetectors), file -> nested.add(new ScanTask(file).fork()));
                 } catch (IOException e) {
                     log.error("", e);
                 }
-            });
+            }
+            updateDecided();
         }
-
     }
 
-    private void scanSource(ZipEntry entry, ZipFile source) {
-        if (this.removeTestClassFromScanning &&
-                transformClassSource(entry.getName()).equals(testClass)) {
-            return;
+    /**
+     * Hand names collected from class files to the detectors that may match them.
+     */
+    private void dispatch(Set<String> names) {
+        synchronized (this.table) {
+            for (String name : names) {
+                if (this.seen.add(name)) {
+                    this.table.detect(name);
+                }
+            }
+            updateDecided();
         }
+    }
 
-        final String suffix = suffix(entry.getName());
+    private void updateDecided() {
+        this.classesDecided = this.table.undecided(CLASS).isEmpty();
+        this.decided = this.table.allDecided();
+    }
 
-        Collection<FractionDetector<?>> validDetectors =
-                detectors.stream()
-                        .filter(d -> d.extensionToDetect().equals(suffix))
-                        .filter(d -> !d.detectionComplete())
-                        .collect(Collectors.toList());
+    private boolean isClass(String name) {
+        return name.endsWith(".class");
+    }
 
-        if (validDetectors.size() > 0) {
-            fireScanner(suffix, s -> {
-                try {
-                   s.scan(new ZipPathSource(source, entry), convertDetectors(validDetectors), this::scanFile);
-                } catch (IOException e) {
-                    log.error("", e);
+    private boolean isExcluded(String path) {
+        return this.removeTestClassFromScanning && transformClassSource(path).equals(testClass);
+    }
+
+    private String checksum(File source) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(source.toPath()), digest)) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // digest only
                 }
-            });
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
         }
     }
 
-    private void scanEntries(ZipFile source) throws IOException {
-        final Enumeration<? extends ZipEntry> entries = source.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
-            if (!entry.isDirectory()) {
-                scanSource(entry, source);
+    private Set<String> readCache(String checksum) {
+        Path file = this.cacheDirectory.resolve(checksum);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(CACHE_HEADER)) {
+                return null;
             }
+            return new HashSet<>(lines.subList(1, lines.size()));
+        } catch (IOException e) {
+            log.error("Unable to read fraction detection cache " + file, e);
+            return null;
         }
     }
 
-    private void scanEntries(Path source, Path basePath) throws IOException {
-        if (Files.isDirectory(source)) {
-            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    scanSource(new FilePathSource(basePath, file.toFile()));
-                    return super.visitFile(file, attrs);
-                }
-            });
-        } else {
-            scanSource(new FilePathSource(basePath, source.toFile()));
+    private void writeCache(String checksum, Set<String> names) {
+        try {
+            Files.createDirectories(this.cacheDirectory);
+            Path tmp = Files.createTempFile(this.cacheDirectory, checksum, ".tmp");
+            List<String> lines = new ArrayList<>(names.size() + 1);
+            lines.add(CACHE_HEADER);
+            lines.addAll(names);
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, this.cacheDirectory.resolve(checksum), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Unable to write fraction detection cache", e);
         }
     }
 
@@ -281,14 +433,6 @@ public class FractionUsageAnalyzer {
         return (FractionDetector<T>) detector;
     }
 
-    private void fireScanner(String suffix, Consumer<Scanner<?>> scannerConsumer) {
-        List<Scanner<?>> scanners = this.scanners.stream()
-                .filter(s -> s.extension().equals(suffix))
-                .collect(Collectors.toList());
-
-        scanners.forEach(scannerConsumer);
-    }
-
     private String suffix(String name) {
         return name.substring(name.lastIndexOf('.') + 1);
     }
@@ -301,17 +445,22 @@ public class FractionUsageAnalyzer {
         ServiceLoader<FractionDetector> detectorLoader = ServiceLoader.load(FractionDetector.class);
         detectorLoader.forEach(d -> detectors.add(d));
 
-        scanners.add(new WarScanner());
-        scanners.add(new JarScanner());
-        scanners.add(new ClassAndPackageScanner());
-        scanners.add(new WebXmlDescriptorScanner());
-        scanners.add(new FilePresenceScanner());
+        addScanner(new WarScanner());
+        addScanner(new JarScanner());
+        addScanner(new ClassAndPackageScanner());
+        addScanner(new WebXmlDescriptorScanner());
+        addScanner(new FilePresenceScanner());
 
-        ClassAndPackageScanner.classesPackagesAlreadyDetected.clear();
+        this.table = new DetectorTable(this.detectors);
+        updateDecided();
 
         detectorsLoaded = true;
     }
 
+    private void addScanner(Scanner<?> scanner) {
+        this.scanners.computeIfAbsent(scanner.extension(), k -> new ArrayList<>()).add(scanner);
+    }
+
     private String transformClassSource(String entry) {
         entry = entry.replace("WEB-INF/classes/", "");
         entry = entry.replace(".class", "");
@@ -325,14 +474,84 @@ public class FractionUsageAnalyzer {
 
     private Collection<FractionDetector<?>> detectors = new HashSet<>();
 
-    private Collection<Scanner<?>> scanners = new HashSet<>();
+    private Map<String, List<Scanner<?>>> scanners = new HashMap<>();
+
+    private DetectorTable table;
+
+    /**
+     * Names already offered to the detectors; guarded by {@link #table}.
+     */
+    private final Set<String> seen = new HashSet<>();
+
+    private volatile boolean decided;
+
+    private volatile boolean classesDecided;
 
     private boolean detectorsLoaded = false;
 
+    private Path cacheDirectory;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
     private SimpleLogger log = new SimpleLogger() {
     };
 
     private String testClass;
 
     private boolean removeTestClassFromScanning;
+
+    private class ScanTask extends RecursiveAction {
+
+        ScanTask(File source) {
+            this.source = source;
+        }
+
+        @Override
+        protected void compute() {
+            if (decided) {
+                return;
+            }
+            try {
+                scanFile(this.source);
+            } catch (IOException e) {
+                log.error("", e);
+            }
+        }
+
+        private final File source;
+    }
+
+    /**
+     * Parses a chunk of class files and dispatches the names they reference.
+     *
+     * <p>Yields the names, or {@code null} if it stopped early because detection was complete.</p>
+     */
+    private class ClassesTask extends RecursiveTask<Set<String>> {
+
+        ClassesTask(List<PathSource> classes) {
+            this.classes = classes;
+        }
+
+        @Override
+        protected Set<String> compute() {
+            Set<String> names = new HashSet<>();
+            for (PathSource each : this.classes) {
+                if (classesDecided) {
+                    return null;
+                }
+                if (each.getSource().getFileName().toString().equals("module-info.class")) {
+                    continue;
+                }
+                try (InputStream input = each.getInputStream()) {
+                    ClassAndPackageScanner.collect(input, names);
+                } catch (IOException | RuntimeException e) {
+                    log.error("", e);
+                }
+            }
+            dispatch(names);
+            return names;
+        }
+
+        private final List<PathSource> classes;
+    }
 }
@@ -54,18 +54,31 @@ public class ClassAndPackageScanner implements Scanner<String> {
         if (pathSource.getSource().getFileName().toString().equals("module-info.class")) {
             return;
         }
+        Set<String> names = new HashSet<>();
         try (InputStream input = pathSource.getInputStream()) {
-            new ClassReader(input).accept(new PackageCollector(detectors), 0);
+            collect(input, names);
+        }
+        for (String name : names) {
+            detectors.forEach(d -> d.detect(name));
         }
     }
 
-    public static Set<String> classesPackagesAlreadyDetected = new HashSet<>();
+    /**
+     * Collect the names of the classes referenced by a class file, and of their packages.
+     *
+     * @param input the class file
+     * @param names receives dotted class and package names
+     * @throws IOException if the class cannot be read
+     */
+    public static void collect(InputStream input, Set<String> names) throws IOException {
+        new ClassReader(input).accept(new PackageCollector(names), ClassReader.SKIP_FRAMES);
+    }
 
     private static class PackageCollector extends ClassVisitor {
 
-        PackageCollector(Collection<FractionDetector<String>> detectors) {
+        PackageCollector(Set<String> names) {
             super(Opcodes.ASM5);
-            this.detectors = detectors;
+            this.names = names;
         }
 
         @Override
@@ -320,10 +333,7 @@ public class ClassAndPackageScanner implements Scanner<String> {
         }
 
         private void addClass(String name) {
-            if (!classesPackagesAlreadyDetected.contains(name)) {
-                classesPackagesAlreadyDetected.add(name);
-                this.detectors.forEach(d -> d.detect(name.replace('/', '.')));
-            }
+            this.names.add(name.replace('/', '.'));
         }
 
         private String addPackage(String name) {
@@ -334,14 +344,7 @@ public class ClassAndPackageScanner implements Scanner<String> {
                     name = name.substring(0, pos);
                 }
                 name = name.replace('/', '.');
-
-                if (!classesPackagesAlreadyDetected.contains(name)) {
-                    classesPackagesAlreadyDetected.add(name);
-
-                    for (FractionDetector<String> detector : this.detectors) {
-                        detector.detect(name);
-                    }
-                }
+                this.names.add(name);
             }
 
             return name;
@@ -411,7 +414,7 @@ public class ClassAndPackageScanner implements Scanner<String> {
             }
         }
 
-        private Collection<FractionDetector<String>> detectors;
+        private final Set<String> names;
 
         private final AnnotationVisitor ANNOTATION_VISITOR =
                 new AnnotationVisitor(Opcodes.ASM5) {
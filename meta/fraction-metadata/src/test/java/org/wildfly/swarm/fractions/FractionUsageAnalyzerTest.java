@@ -17,6 +17,10 @@ package org.wildfly.swarm.fractions;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.EmptyAsset;
@@ -83,4 +87,40 @@ public class FractionUsageAnalyzerTest {
                            .count())
                 .isEqualTo(1);
     }
+
+    @Test
+    public void testJarScanIsCached() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class, "resources.jar");
+        archive.addClass(MyResource.class);
+
+        final File out = Files.createTempFile(archive.getName(), ".jar").toFile();
+        archive.as(ZipExporter.class).exportTo(out, true);
+        out.deleteOnExit();
+
+        Path cache = TempFileManager.INSTANCE.newTempDirectory("fractionusagecache", null).toPath();
+
+        assertThat(new FractionUsageAnalyzer()
+                           .cacheDirectory(cache)
+                           .source(out)
+                           .detectNeededFractions()
+                           .stream()
+                           .filter(fd -> fd.getArtifactId().equals("jaxrs"))
+                           .count())
+                .isEqualTo(1);
+
+        List<Path> entries = Files.list(cache).collect(Collectors.toList());
+        assertThat(entries).hasSize(1);
+        assertThat(Files.readAllLines(entries.get(0))).contains("javax.ws.rs.Path");
+
+        // a cached jar is not parsed again, so emptying its entry hides the JAX-RS usage
+        Files.write(entries.get(0), Collections.singletonList(Files.readAllLines(entries.get(0)).get(0)));
+        assertThat(new FractionUsageAnalyzer()
+                           .cacheDirectory(cache)
+                           .source(out)
+                           .detectNeededFractions()
+                           .stream()
+                           .filter(fd -> fd.getArtifactId().equals("jaxrs"))
+                           .count())
+                .isEqualTo(0);
+    }
 }
@@ -93,6 +93,19 @@ public abstract class PackageFractionDetector implements FractionDetector<String
         }
     }
 
+    /**
+     * Every package or class name this detector matches by prefix, so that scanners
+     * only need to offer it names that can possibly match.
+     *
+     * @return the package and class names this detector is looking for
+     */
+    public Collection<String> detectionPrefixes() {
+        Collection<String> prefixes = new HashSet<>(this.anyPackages);
+        prefixes.addAll(this.anyClasses);
+        prefixes.addAll(this.allPackages.keySet());
+        return prefixes;
+    }
+
     private boolean detected = false;
 
     private boolean detectionComplete = false;
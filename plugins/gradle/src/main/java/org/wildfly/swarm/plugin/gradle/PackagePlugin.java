@@ -31,6 +31,7 @@ import org.gradle.api.tasks.bundling.Jar;
 public class PackagePlugin implements Plugin<Project> {
 
     public static final String WILDFLY_SWARM_PACKAGE_TASK_NAME = "wildfly-swarm-package";
+    public static final String WILDFLY_SWARM_SWAGGER_TASK_NAME = "wildfly-swarm-swagger";
     public static final String SWARM_EXTENSION = "swarm";
 
     @Override
@@ -48,6 +49,13 @@ public class PackagePlugin implements Plugin<Project> {
 
             packageTask.jarTask(archiveTask).dependsOn(archiveTask);
 
+            if (project.getExtensions().getByType(SwarmExtension.class).getSwagger()) {
+                // the document is written among the classes, so it must exist before they are archived
+                final SwaggerTask swaggerTask = tasks.create(WILDFLY_SWARM_SWAGGER_TASK_NAME, SwaggerTask.class);
+                swaggerTask.dependsOn(JavaPlugin.CLASSES_TASK_NAME);
+                archiveTask.dependsOn(swaggerTask);
+            }
+
             tasks.getByName(JavaBasePlugin.BUILD_TASK_NAME).dependsOn(packageTask);
         });
     }
@@ -38,6 +38,7 @@ import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.bundling.Jar;
@@ -95,6 +96,10 @@ public class PackageTask extends DefaultTask {
                 .mainClass(getMainClassName())
                 .bundleDependencies(getBundleDependencies())
                 .executable(getExecutable())
+                .layered(getLayered())
+                .analysisCache(getAnalysisCache() ? getAnalysisCacheDirectory() : null)
+                .verifyAnalysisCache(getVerifyAnalysisCache())
+                .fractionDetectionCache(getProject().getBuildDir().toPath().resolve(BuildTool.FRACTION_DETECTION_CACHE_DIRECTORY))
                 .executableScript(getExecutableScript())
                 .properties(propertiesFromExtension)
                 .properties(getPropertiesFromFile())
@@ -227,6 +232,21 @@ public class PackageTask extends DefaultTask {
         return getSwarmExtension().getExecutable();
     }
 
+    @Input
+    private boolean getLayered() {
+        return getSwarmExtension().getLayered();
+    }
+
+    @Input
+    private boolean getAnalysisCache() {
+        return getSwarmExtension().getAnalysisCache();
+    }
+
+    @Input
+    private boolean getVerifyAnalysisCache() {
+        return getSwarmExtension().getVerifyAnalysisCache();
+    }
+
     @Optional
     @InputFile
     private File getExecutableScript() {
@@ -264,11 +284,24 @@ public class PackageTask extends DefaultTask {
         return getSwarmExtension().getModuleDirs();
     }
 
+    @Optional
     @OutputFile
     private File getOutputFile() {
+        if (getLayered()) {
+            return null;
+        }
         return BuildTool.getOutputFile(getBaseName(), getOutputDirectory());
     }
 
+    @Optional
+    @OutputDirectory
+    private File getLayersDirectory() {
+        if (!getLayered()) {
+            return null;
+        }
+        return BuildTool.getLayersDirectory(getBaseName(), getOutputDirectory());
+    }
+
     private String getBaseName() {
         return getProject().getName();
     }
@@ -277,6 +310,10 @@ public class PackageTask extends DefaultTask {
         return getProject().getBuildDir().toPath().resolve("libs");
     }
 
+    private Path getAnalysisCacheDirectory() {
+        return getProject().getBuildDir().toPath().resolve(BuildTool.ANALYSIS_CACHE_DIRECTORY);
+    }
+
     /*private void addDependency(DeclaredDependencies declaredDependencies, final List<ArtifactSpec> explicitDependencies, final ResolvedArtifact gradleArtifact) {
 
         String groupId = gradleArtifact.getModuleVersion().getId().getGroup();
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.plugin.gradle;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.plugins.JavaPluginConvention;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskAction;
+import org.wildfly.swarm.tools.SwaggerGenerator;
+
+/**
+ * Generates {@code META-INF/swagger.json} into the main classes directory, so that
+ * the swagger fraction serves it as-is instead of scanning the deployment at boot.
+ */
+public class SwaggerTask extends DefaultTask {
+
+    @TaskAction
+    public void generateSwagger() throws Exception {
+        final Project project = getProject();
+        SwarmExtension extension = project.getExtensions().getByType(SwarmExtension.class);
+
+        File classes = project.getConvention()
+                .getPlugin(JavaPluginConvention.class)
+                .getSourceSets()
+                .findByName(SourceSet.MAIN_SOURCE_SET_NAME)
+                .getOutput()
+                .getClassesDir();
+        if (!classes.isDirectory()) {
+            getLogger().info("No classes to document in " + classes);
+            return;
+        }
+
+        Set<ResolvedArtifact> artifacts = project.getConfigurations()
+                .getByName("compile")
+                .getResolvedConfiguration()
+                .getResolvedArtifacts();
+
+        File fraction = artifacts.stream()
+                .filter(e -> e.getModuleVersion().getId().getGroup().equals("org.wildfly.swarm")
+                        && e.getModuleVersion().getId().getName().equals("swagger"))
+                .map(ResolvedArtifact::getFile)
+                .findFirst()
+                .orElseThrow(() -> new GradleException("Swagger generation requires a dependency on org.wildfly.swarm:swagger"));
+
+        List<File> dependencies = artifacts.stream()
+                .map(ResolvedArtifact::getFile)
+                .collect(Collectors.toList());
+
+        new SwaggerGenerator(new GradleArtifactResolvingHelper(project))
+                .gzip(extension.getSwaggerGzip())
+                .packages(extension.getSwaggerPackages())
+                .generate(classes, fraction, dependencies);
+    }
+}
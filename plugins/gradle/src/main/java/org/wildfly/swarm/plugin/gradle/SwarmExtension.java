@@ -39,6 +39,18 @@ public class SwarmExtension {
 
     private Boolean executable = false;
 
+    private Boolean layered = false;
+
+    private Boolean analysisCache = false;
+
+    private Boolean verifyAnalysisCache = false;
+
+    private Boolean swagger = false;
+
+    private Boolean swaggerGzip = false;
+
+    private List<String> swaggerPackages = new ArrayList<>();
+
     private File executableScript;
 
     private Properties properties = new Properties();
@@ -91,6 +103,55 @@ public class SwarmExtension {
         this.executable = executable;
     }
 
+    public Boolean getLayered() {
+        return layered;
+    }
+
+    public void setLayered(Boolean layered) {
+        this.layered = layered;
+    }
+
+    public Boolean getAnalysisCache() {
+        return analysisCache;
+    }
+
+    public void setAnalysisCache(Boolean analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    public Boolean getVerifyAnalysisCache() {
+        return verifyAnalysisCache;
+    }
+
+    public void setVerifyAnalysisCache(Boolean verifyAnalysisCache) {
+        this.verifyAnalysisCache = verifyAnalysisCache;
+    }
+
+    public Boolean getSwagger() {
+        return swagger;
+    }
+
+    public void setSwagger(Boolean swagger) {
+        this.swagger = swagger;
+    }
+
+    public Boolean getSwaggerGzip() {
+        return swaggerGzip;
+    }
+
+    public void setSwaggerGzip(Boolean swaggerGzip) {
+        this.swaggerGzip = swaggerGzip;
+    }
+
+    public List<String> getSwaggerPackages() {
+        return swaggerPackages;
+    }
+
+    public void setSwaggerPackages(final List<String> swaggerPackages) {
+        this.swaggerPackages.clear();
+        this.swaggerPackages.addAll(swaggerPackages);
+    }
+
     public File getExecutableScript() {
         return executableScript;
     }
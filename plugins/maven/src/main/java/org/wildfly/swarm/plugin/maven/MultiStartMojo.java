@@ -17,10 +17,20 @@ package org.wildfly.swarm.plugin.maven;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.BuildPluginManager;
@@ -48,6 +58,14 @@ import org.wildfly.swarm.tools.exec.SwarmExecutor;
 import org.wildfly.swarm.tools.exec.SwarmProcess;
 
 /**
+ * Start several Swarm processes, for instance ahead of integration tests.
+ *
+ * <p>Each process may declare an {@code <id>} (defaulting to its artifactId), a comma-separated
+ * {@code <dependsOn>} list of ids, and a comma-separated {@code <ports>} list of properties to be
+ * set to free ports. Processes start in declaration order, after the processes they depend on.
+ * With {@code parallel} enabled, each process starts as soon as the processes it depends on are
+ * ready, rather than after every process declared before it.</p>
+ *
  * @author Bob McWhirter
  * @author Ken Finnigan
  */
@@ -62,6 +80,9 @@ public class MultiStartMojo extends AbstractSwarmMojo {
     @Parameter(alias = "processes")
     protected List<XmlPlexusConfiguration> processes;
 
+    @Parameter(alias = "parallel", property = "swarm.multistart.parallel", defaultValue = "false")
+    protected boolean parallel;
+
     @Component
     protected BuildPluginManager pluginManager;
 
@@ -72,16 +93,90 @@ public class MultiStartMojo extends AbstractSwarmMojo {
         initProperties(true);
         initEnvironment();
 
-        for (XmlPlexusConfiguration process : this.processes) {
-            try {
-                start(process);
-            } catch (Exception e) {
-                throw new MojoFailureException("Unable to start", e);
+        ProcessPlan<XmlPlexusConfiguration> plan = new ProcessPlan<>();
+        List<ProcessPlan.Step<XmlPlexusConfiguration>> steps;
+        try {
+            for (XmlPlexusConfiguration process : this.processes) {
+                String id = process.getChild("id").getValue(process.getChild("artifactId").getValue(this.project.getArtifactId()));
+                plan.add(id, process.getChild("dependsOn").getValue(), process.getChild("ports").getValue(), process);
+            }
+            steps = plan.order();
+            plan.allocatePorts();
+        } catch (IllegalArgumentException | IOException e) {
+            throw new MojoFailureException("Unable to plan processes: " + e.getMessage(), e);
+        }
+
+        List<SwarmProcess> launched = new ArrayList<>();
+        long begin = System.currentTimeMillis();
+        try {
+            if (this.parallel) {
+                startParallel(plan, steps, launched);
+            } else {
+                for (ProcessPlan.Step<XmlPlexusConfiguration> step : steps) {
+                    startStep(plan, step, this.mavenSession, launched);
+                }
             }
+        } finally {
+            addProcesses(launched);
+            reportBootTimes(steps, System.currentTimeMillis() - begin);
         }
     }
 
-    protected void start(XmlPlexusConfiguration process) throws PluginConfigurationException, MojoFailureException, MojoExecutionException, PluginManagerException, InvalidPluginDescriptorException, PluginResolutionException, PluginDescriptorParsingException, PluginNotFoundException {
+    protected void startParallel(ProcessPlan<XmlPlexusConfiguration> plan, List<ProcessPlan.Step<XmlPlexusConfiguration>> steps, List<SwarmProcess> launched) throws MojoFailureException {
+        ExecutorService executor = Executors.newFixedThreadPool(steps.size());
+        // each worker collects into its own list, gathered once all of them are done
+        Map<String, List<SwarmProcess>> launchedBySteps = new LinkedHashMap<>();
+        try {
+            Map<String, CompletableFuture<Void>> started = new HashMap<>();
+            for (ProcessPlan.Step<XmlPlexusConfiguration> step : steps) {
+                CompletableFuture<?>[] dependencies = step.dependsOn()
+                        .stream()
+                        .map(started::get)
+                        .toArray(CompletableFuture[]::new);
+                List<SwarmProcess> stepLaunched = new ArrayList<>();
+                launchedBySteps.put(step.id(), stepLaunched);
+                started.put(step.id(), CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    try {
+                        // each worker needs its own current project
+                        startStep(plan, step, this.mavenSession.clone(), stepLaunched);
+                    } catch (MojoFailureException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(started.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof MojoFailureException) {
+                throw (MojoFailureException) e.getCause();
+            }
+            throw new MojoFailureException("Unable to start", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            launchedBySteps.values().forEach(launched::addAll);
+        }
+    }
+
+    protected void startStep(ProcessPlan<XmlPlexusConfiguration> plan, ProcessPlan.Step<XmlPlexusConfiguration> step, MavenSession session, List<SwarmProcess> launched) throws MojoFailureException {
+        long begin = System.currentTimeMillis();
+        try {
+            start(step.config(), plan.propertiesFor(step), session, launched);
+        } catch (MojoFailureException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoFailureException("Unable to start " + step.id(), e);
+        }
+        this.bootTimes.put(step.id(), System.currentTimeMillis() - begin);
+    }
+
+    protected void reportBootTimes(List<ProcessPlan.Step<XmlPlexusConfiguration>> steps, long elapsed) {
+        for (ProcessPlan.Step<XmlPlexusConfiguration> step : steps) {
+            Long bootTime = this.bootTimes.get(step.id());
+            getLog().info(step.id() + ": " + (bootTime != null ? "started in " + bootTime + "ms" : "not started"));
+        }
+        getLog().info("Started " + this.bootTimes.size() + " of " + steps.size() + " processes in " + elapsed + "ms" + (this.parallel ? " (parallel)" : ""));
+    }
+
+    protected void start(XmlPlexusConfiguration process, Properties allocated, MavenSession session, List<SwarmProcess> launched) throws PluginConfigurationException, MojoFailureException, MojoExecutionException, PluginManagerException, InvalidPluginDescriptorException, PluginResolutionException, PluginDescriptorParsingException, PluginNotFoundException {
 
         String groupId = process.getChild("groupId").getValue(this.project.getGroupId());
         String artifactId = process.getChild("artifactId").getValue(this.project.getArtifactId());
@@ -90,7 +185,7 @@ public class MultiStartMojo extends AbstractSwarmMojo {
         MavenProject project = findProject(groupId, artifactId);
 
         if (project != null) {
-            startProject(project, executionId, process);
+            startProject(project, executionId, process, allocated, session, launched);
             return;
         }
 
@@ -98,7 +193,7 @@ public class MultiStartMojo extends AbstractSwarmMojo {
         Artifact artifact = findArtifact(groupId, artifactId, classifier);
 
         if (artifact != null) {
-            startArtifact(artifact, process);
+            startArtifact(artifact, process, allocated, launched);
             return;
         }
 
@@ -106,11 +201,11 @@ public class MultiStartMojo extends AbstractSwarmMojo {
     }
 
     @SuppressWarnings("unchecked")
-    protected void startProject(MavenProject project, String executionId, XmlPlexusConfiguration process) throws InvalidPluginDescriptorException, PluginResolutionException, PluginDescriptorParsingException, PluginNotFoundException, PluginConfigurationException, MojoFailureException, MojoExecutionException, PluginManagerException {
+    protected void startProject(MavenProject project, String executionId, XmlPlexusConfiguration process, Properties allocated, MavenSession session, List<SwarmProcess> launched) throws InvalidPluginDescriptorException, PluginResolutionException, PluginDescriptorParsingException, PluginNotFoundException, PluginConfigurationException, MojoFailureException, MojoExecutionException, PluginManagerException {
         Plugin plugin = this.project.getPlugin("org.wildfly.swarm:wildfly-swarm-plugin");
 
         Xpp3Dom config = getConfiguration(project, executionId);
-        Xpp3Dom processConfig = getProcessConfiguration(process);
+        Xpp3Dom processConfig = getProcessConfiguration(process, allocated);
 
         Xpp3Dom globalConfig = getGlobalConfig();
         Xpp3Dom mergedConfig = Xpp3DomUtils.mergeXpp3Dom(processConfig, config);
@@ -119,32 +214,23 @@ public class MultiStartMojo extends AbstractSwarmMojo {
         PluginDescriptor pluginDescriptor = this.pluginManager.loadPlugin(plugin, project.getRemotePluginRepositories(), this.repositorySystemSession);
         MojoDescriptor mojoDescriptor = pluginDescriptor.getMojo("start");
         MojoExecution mojoExecution = new MojoExecution(mojoDescriptor, mergedConfig);
-        mavenSession.setCurrentProject(project);
-        this.pluginManager.executeMojo(mavenSession, mojoExecution);
-
-        List<SwarmProcess> launched = (List<SwarmProcess>) mavenSession.getPluginContext(pluginDescriptor, project).get(SWARM_PROCESS);
-
-        List<SwarmProcess> procs = (List<SwarmProcess>) getPluginContext().get(SWARM_PROCESS);
-
-        if (procs == null) {
-            procs = new ArrayList<>();
-            getPluginContext().put(SWARM_PROCESS, procs);
+        session.setCurrentProject(project);
+
+        // start mojos of the same project share its context and process list
+        Map<String, Object> context = session.getPluginContext(pluginDescriptor, project);
+        synchronized (context) {
+            List<SwarmProcess> before = processes(context);
+            this.pluginManager.executeMojo(session, mojoExecution);
+            List<SwarmProcess> started = processes(context);
+            started.removeAll(before);
+            launched.addAll(started);
         }
 
-        procs.addAll(launched);
-
-        mavenSession.setCurrentProject(this.project);
+        session.setCurrentProject(this.project);
     }
 
     @SuppressWarnings("unchecked")
-    protected void startArtifact(Artifact artifact, XmlPlexusConfiguration process) throws InvalidPluginDescriptorException, PluginResolutionException, PluginDescriptorParsingException, PluginNotFoundException, PluginConfigurationException, MojoFailureException, MojoExecutionException, PluginManagerException {
-        List<SwarmProcess> procs = (List<SwarmProcess>) getPluginContext().get(SWARM_PROCESS);
-
-        if (procs == null) {
-            procs = new ArrayList<>();
-            getPluginContext().put(SWARM_PROCESS, procs);
-        }
-
+    protected void startArtifact(Artifact artifact, XmlPlexusConfiguration process, Properties allocated, List<SwarmProcess> launched) throws InvalidPluginDescriptorException, PluginResolutionException, PluginDescriptorParsingException, PluginNotFoundException, PluginConfigurationException, MojoFailureException, MojoExecutionException, PluginManagerException {
         SwarmExecutor executor = new SwarmExecutor();
 
         executor.withExecutableJar(artifact.getFile().toPath());
@@ -158,6 +244,7 @@ public class MultiStartMojo extends AbstractSwarmMojo {
             executor.withProperty(each.getName(), each.getValue());
         }
 
+        executor.withProperties(allocated);
 
         PlexusConfiguration env = process.getChild("environment");
 
@@ -172,14 +259,46 @@ public class MultiStartMojo extends AbstractSwarmMojo {
         }
 
         try {
-            SwarmProcess launched = executor.execute();
-            launched.awaitReadiness(startTimeoutSeconds, TimeUnit.SECONDS);
-            procs.add(launched);
+            SwarmProcess swarmProcess = executor.execute();
+            launched.add(swarmProcess);
+            swarmProcess.awaitReadiness(startTimeoutSeconds, TimeUnit.SECONDS);
+            if (swarmProcess.getError() != null) {
+                throw new MojoFailureException("Error starting " + artifact, swarmProcess.getError());
+            }
+            if (swarmProcess.getReadiness() != null) {
+                getLog().info(artifact + ": WildFly Swarm " + swarmProcess.getReadiness());
+            }
         } catch (IOException | InterruptedException e) {
             throw new MojoFailureException("Unable to execute: " + artifact, e);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    protected void addProcesses(List<SwarmProcess> launched) {
+        Map<String, Object> context = getPluginContext();
+        synchronized (context) {
+            List<SwarmProcess> procs = (List<SwarmProcess>) context.get(SWARM_PROCESS);
+
+            if (procs == null) {
+                procs = new ArrayList<>();
+                context.put(SWARM_PROCESS, procs);
+            }
+
+            for (SwarmProcess process : launched) {
+                // in-reactor starts of this very project have already added theirs
+                if (!procs.contains(process)) {
+                    procs.add(process);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<SwarmProcess> processes(Map<String, Object> context) {
+        List<SwarmProcess> procs = (List<SwarmProcess>) context.get(SWARM_PROCESS);
+        return procs == null ? new ArrayList<>() : new ArrayList<>(procs);
+    }
+
     protected MavenProject findProject(String groupId, String artifactId) {
         if (groupId.equals(this.project.getGroupId()) && artifactId.equals(this.project.getArtifactId())) {
             return this.project;
@@ -262,10 +381,19 @@ public class MultiStartMojo extends AbstractSwarmMojo {
         return config;
     }
 
-    protected Xpp3Dom getProcessConfiguration(XmlPlexusConfiguration process) {
+    protected Xpp3Dom getProcessConfiguration(XmlPlexusConfiguration process, Properties allocated) {
         Xpp3Dom config = new Xpp3Dom("configuration");
 
-        config.addChild(convert(process.getChild("properties")));
+        Xpp3Dom properties = convert(process.getChild("properties"));
+        for (String name : allocated.stringPropertyNames()) {
+            Xpp3Dom prop = properties.getChild(name);
+            if (prop == null) {
+                prop = new Xpp3Dom(name);
+                properties.addChild(prop);
+            }
+            prop.setValue(allocated.getProperty(name));
+        }
+        config.addChild(properties);
         config.addChild(convert(process.getChild("environment")));
         config.addChild(convert(process.getChild("jvmArguments")));
 
@@ -289,4 +417,6 @@ public class MultiStartMojo extends AbstractSwarmMojo {
 
         return dom;
     }
+
+    private final Map<String, Long> bootTimes = new ConcurrentHashMap<>();
 }
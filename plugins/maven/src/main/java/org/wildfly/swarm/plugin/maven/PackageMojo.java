@@ -69,6 +69,36 @@ public class PackageMojo extends AbstractSwarmMojo {
     @Parameter(alias = "hollow", defaultValue = "false", property = "swarm.hollow")
     protected boolean hollow;
 
+    /**
+     * Write a -swarm directory of dependency, bootstrap and application layers instead of a -swarm.jar.
+     */
+    @Parameter(alias = "layered", defaultValue = "false", property = "swarm.package.layered")
+    protected boolean layered;
+
+    /**
+     * Rewrite the -swarm.jar from the previous one, reusing every entry whose content is unchanged.
+     */
+    @Parameter(alias = "incremental", defaultValue = "false", property = "swarm.package.incremental")
+    protected boolean incremental;
+
+    /**
+     * Store jars, archives and images inside the -swarm.jar without deflating them again.
+     */
+    @Parameter(alias = "storeCompressedEntries", defaultValue = "false", property = "swarm.package.storeCompressed")
+    protected boolean storeCompressedEntries;
+
+    /**
+     * Keep dependency analysis results under the build directory and reuse them while the dependencies are unchanged.
+     */
+    @Parameter(alias = "analysisCache", defaultValue = "false", property = "swarm.package.analysisCache")
+    protected boolean analysisCache;
+
+    /**
+     * Analyze dependencies even when cached results exist, and fail if they differ.
+     */
+    @Parameter(alias = "verifyAnalysisCache", defaultValue = "false", property = "swarm.package.analysisCache.verify")
+    protected boolean verifyAnalysisCache;
+
     /**
      * Flag to skip packaging entirely.
      */
@@ -137,6 +167,12 @@ public class PackageMojo extends AbstractSwarmMojo {
                 .executableScript(executableScript)
                 .fractionDetectionMode(fractionDetectMode)
                 .hollow(hollow)
+                .layered(layered)
+                .incremental(incremental)
+                .storeCompressedEntries(storeCompressedEntries)
+                .analysisCache(this.analysisCache ? Paths.get(this.projectBuildDir, BuildTool.ANALYSIS_CACHE_DIRECTORY) : null)
+                .verifyAnalysisCache(verifyAnalysisCache)
+                .fractionDetectionCache(Paths.get(this.projectBuildDir, BuildTool.FRACTION_DETECTION_CACHE_DIRECTORY))
                 .logger(new SimpleLogger() {
                     @Override
                     public void debug(String msg) {
@@ -204,19 +240,12 @@ public class PackageMojo extends AbstractSwarmMojo {
         try {
             File jar = tool.build(finalName + (this.hollow ? "-hollow" : ""), Paths.get(this.projectBuildDir));
 
-            ArtifactHandler handler = new DefaultArtifactHandler("jar");
-            Artifact swarmJarArtifact = new DefaultArtifact(
-                    primaryArtifact.getGroupId(),
-                    primaryArtifact.getArtifactId(),
-                    primaryArtifact.getBaseVersion(),
-                    primaryArtifact.getScope(),
-                    "jar",
-                    (this.hollow ? "hollow" : "") + "swarm",
-                    handler
-            );
-
-            swarmJarArtifact.setFile(jar);
-            this.project.addAttachedArtifact(swarmJarArtifact);
+            if (this.layered) {
+                // a directory of layers is not something to attach and install
+                getLog().info("Wrote layered -swarm output to " + jar);
+            } else {
+                attachSwarmJar(primaryArtifact, jar);
+            }
 
             if (this.project.getPackaging().equals("war")) {
                 tool.repackageWar(primaryArtifactFile);
@@ -226,5 +255,21 @@ public class PackageMojo extends AbstractSwarmMojo {
         }
     }
 
+    private void attachSwarmJar(Artifact primaryArtifact, File jar) {
+        ArtifactHandler handler = new DefaultArtifactHandler("jar");
+        Artifact swarmJarArtifact = new DefaultArtifact(
+                primaryArtifact.getGroupId(),
+                primaryArtifact.getArtifactId(),
+                primaryArtifact.getBaseVersion(),
+                primaryArtifact.getScope(),
+                "jar",
+                (this.hollow ? "hollow" : "") + "swarm",
+                handler
+        );
+
+        swarmJarArtifact.setFile(jar);
+        this.project.addAttachedArtifact(swarmJarArtifact);
+    }
+
 }
 
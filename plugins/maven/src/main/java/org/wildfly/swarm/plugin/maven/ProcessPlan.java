@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.plugin.maven;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Start order and port assignment for the processes of a {@code multistart} execution.
+ *
+ * <p>Each process may name the processes it depends on, and the properties (such as
+ * {@code swarm.http.port}) that should receive a free port. The process itself is given
+ * those properties, and each of its direct dependents is given them prefixed with its
+ * id, for example {@code orders.swarm.http.port}.</p>
+ *
+ * @param <T> the configuration carried along with each process
+ */
+public class ProcessPlan<T> {
+
+    public ProcessPlan<T> add(String id, String dependsOn, String ports, T config) {
+        if (this.steps.containsKey(id)) {
+            throw new IllegalArgumentException("Duplicate process id: " + id);
+        }
+        this.steps.put(id, new Step<>(id, split(dependsOn), split(ports), config));
+        return this;
+    }
+
+    /**
+     * @return the processes in declaration order, except that each follows the processes it depends on
+     */
+    public List<Step<T>> order() {
+        List<Step<T>> ordered = new ArrayList<>();
+        Set<String> visiting = new LinkedHashSet<>();
+        Set<String> visited = new LinkedHashSet<>();
+        for (Step<T> step : this.steps.values()) {
+            visit(step, visiting, visited, ordered);
+        }
+        return ordered;
+    }
+
+    /**
+     * Assign a free port to every declared port property.
+     *
+     * <p>All sockets are held open until every port has been picked, so that no port is
+     * handed out twice.</p>
+     *
+     * @throws IOException if no free port can be found
+     */
+    public void allocatePorts() throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        try {
+            for (Step<T> step : this.steps.values()) {
+                for (String property : step.ports) {
+                    ServerSocket socket = new ServerSocket(0);
+                    socket.setReuseAddress(true);
+                    sockets.add(socket);
+                    step.allocated.setProperty(property, String.valueOf(socket.getLocalPort()));
+                }
+            }
+        } finally {
+            for (ServerSocket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * @param step the process
+     * @return the ports allocated to the process, and those of the processes it depends on prefixed with their ids
+     */
+    public Properties propertiesFor(Step<T> step) {
+        Properties properties = new Properties();
+        for (String id : step.dependsOn) {
+            Step<T> dependency = this.steps.get(id);
+            for (String name : dependency.allocated.stringPropertyNames()) {
+                properties.setProperty(id + "." + name, dependency.allocated.getProperty(name));
+            }
+        }
+        properties.putAll(step.allocated);
+        return properties;
+    }
+
+    private void visit(Step<T> step, Set<String> visiting, Set<String> visited, List<Step<T>> ordered) {
+        if (visited.contains(step.id)) {
+            return;
+        }
+        if (!visiting.add(step.id)) {
+            throw new IllegalArgumentException("Circular process dependency: " + String.join(" -> ", visiting) + " -> " + step.id);
+        }
+        for (String id : step.dependsOn) {
+            Step<T> dependency = this.steps.get(id);
+            if (dependency == null) {
+                throw new IllegalArgumentException("Process " + step.id + " depends on unknown process: " + id);
+            }
+            visit(dependency, visiting, visited, ordered);
+        }
+        visiting.remove(step.id);
+        visited.add(step.id);
+        ordered.add(step);
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(e -> !e.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private final Map<String, Step<T>> steps = new LinkedHashMap<>();
+
+    public static class Step<T> {
+
+        Step(String id, List<String> dependsOn, List<String> ports, T config) {
+            this.id = id;
+            this.dependsOn = dependsOn;
+            this.ports = ports;
+            this.config = config;
+        }
+
+        public String id() {
+            return this.id;
+        }
+
+        public List<String> dependsOn() {
+            return this.dependsOn;
+        }
+
+        public T config() {
+            return this.config;
+        }
+
+        private final String id;
+
+        private final List<String> dependsOn;
+
+        private final List<String> ports;
+
+        private final T config;
+
+        private final Properties allocated = new Properties();
+    }
+}
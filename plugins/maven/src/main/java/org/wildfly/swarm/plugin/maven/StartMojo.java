@@ -149,6 +149,9 @@ public class StartMojo extends AbstractSwarmMojo {
             if (process.getError() != null) {
                 throw new MojoFailureException("Error starting process", process.getError());
             }
+            if (process.getReadiness() != null) {
+                getLog().info("WildFly Swarm " + process.getReadiness());
+            }
 
         } catch (IOException e) {
             throw new MojoFailureException("unable to execute", e);
@@ -243,6 +246,10 @@ public class StartMojo extends AbstractSwarmMojo {
         final FractionUsageAnalyzer analyzer = new FractionUsageAnalyzer(FractionList.get()).source(source);
         if (scanDeps) {
             existingDeps.forEach(d -> analyzer.source(d.getFile()));
+            // multi-start doesn't have a projectBuildDir
+            if (this.projectBuildDir != null) {
+                analyzer.cacheDirectory(Paths.get(this.projectBuildDir, BuildTool.FRACTION_DETECTION_CACHE_DIRECTORY));
+            }
         }
         final Predicate<FractionDescriptor> notExistingDep =
                 d -> !existingDepGASet.contains(String.format("%s:%s", d.getGroupId(), d.getArtifactId()));
@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.plugin.maven;
+
+import java.io.File;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.wildfly.swarm.tools.SwaggerGenerator;
+
+/**
+ * Generates {@code META-INF/swagger.json} into the project's output directory, so that
+ * the swagger fraction serves it as-is instead of scanning the deployment at boot.
+ *
+ * <p>The goal is bound to {@code process-classes} by default: the document has to be among the
+ * classes before the application archive is built, which happens ahead of the {@code package} goal.</p>
+ */
+@Mojo(
+        name = "swagger",
+        defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+        requiresDependencyCollection = ResolutionScope.COMPILE_PLUS_RUNTIME,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
+)
+public class SwaggerMojo extends AbstractSwarmMojo {
+
+    /**
+     * Also write a gzip-compressed {@code swagger.json.gz}, served to clients accepting gzip.
+     */
+    @Parameter(alias = "gzip", defaultValue = "false", property = "swarm.swagger.gzip")
+    protected boolean gzip;
+
+    /**
+     * Packages to scan; defaults to {@code META-INF/swarm.swagger.conf}, then to the topmost application package.
+     */
+    @Parameter(alias = "packages", property = "swarm.swagger.packages")
+    protected List<String> packages;
+
+    @Parameter(alias = "skip", defaultValue = "false", property = "swarm.swagger.skip")
+    protected boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (this.skip) {
+            getLog().info("Skipping swagger document generation");
+            return;
+        }
+
+        File classes = new File(this.project.getBuild().getOutputDirectory());
+        if (!classes.isDirectory()) {
+            getLog().info("No classes to document in " + classes);
+            return;
+        }
+
+        Artifact fraction = this.project.getArtifacts().stream()
+                .filter(e -> e.getGroupId().equals("org.wildfly.swarm") && e.getArtifactId().equals("swagger"))
+                .findFirst()
+                .orElseThrow(() -> new MojoFailureException("The swagger goal requires a dependency on org.wildfly.swarm:swagger"));
+
+        List<File> dependencies = this.project.getArtifacts().stream()
+                .map(Artifact::getFile)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        try {
+            new SwaggerGenerator(mavenArtifactResolvingHelper())
+                    .gzip(this.gzip)
+                    .packages(this.packages)
+                    .generate(classes, fraction.getFile(), dependencies);
+        } catch (Exception e) {
+            throw new MojoFailureException("Unable to generate swagger.json", e);
+        }
+    }
+}
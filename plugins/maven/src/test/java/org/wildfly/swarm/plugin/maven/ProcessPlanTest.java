@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.plugin.maven;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ProcessPlanTest {
+
+    @Test
+    public void testDeclarationOrderWithoutDependencies() {
+        ProcessPlan<String> plan = new ProcessPlan<String>()
+                .add("a", null, null, "A")
+                .add("b", "", null, "B")
+                .add("c", null, null, "C");
+
+        assertThat(ids(plan.order())).containsExactly("a", "b", "c");
+    }
+
+    @Test
+    public void testDependenciesStartFirst() {
+        ProcessPlan<String> plan = new ProcessPlan<String>()
+                .add("gateway", "orders, users", null, "gateway")
+                .add("orders", "db", null, "orders")
+                .add("users", null, null, "users")
+                .add("db", null, null, "db");
+
+        assertThat(ids(plan.order())).containsExactly("db", "orders", "users", "gateway");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCircularDependency() {
+        new ProcessPlan<String>()
+                .add("a", "b", null, "A")
+                .add("b", "a", null, "B")
+                .order();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDependency() {
+        new ProcessPlan<String>()
+                .add("a", "missing", null, "A")
+                .order();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateId() {
+        new ProcessPlan<String>()
+                .add("a", null, null, "A")
+                .add("a", null, null, "A");
+    }
+
+    @Test
+    public void testPortsPassedToDependents() throws Exception {
+        ProcessPlan<String> plan = new ProcessPlan<String>()
+                .add("orders", null, "swarm.http.port, swarm.management.http.port", "orders")
+                .add("gateway", "orders", "swarm.http.port", "gateway")
+                .add("other", null, null, "other");
+        plan.allocatePorts();
+
+        List<ProcessPlan.Step<String>> steps = plan.order();
+        Properties orders = plan.propertiesFor(steps.get(0));
+        Properties gateway = plan.propertiesFor(steps.get(1));
+        Properties other = plan.propertiesFor(steps.get(2));
+
+        assertThat(orders.stringPropertyNames()).containsOnly("swarm.http.port", "swarm.management.http.port");
+        assertThat(orders.getProperty("swarm.http.port")).isNotEqualTo(orders.getProperty("swarm.management.http.port"));
+
+        assertThat(gateway.stringPropertyNames()).containsOnly("swarm.http.port", "orders.swarm.http.port", "orders.swarm.management.http.port");
+        assertThat(gateway.getProperty("orders.swarm.http.port")).isEqualTo(orders.getProperty("swarm.http.port"));
+        assertThat(gateway.getProperty("swarm.http.port")).isNotEqualTo(orders.getProperty("swarm.http.port"));
+
+        assertThat(other).isEmpty();
+    }
+
+    private static List<String> ids(List<ProcessPlan.Step<String>> steps) {
+        return steps.stream().map(ProcessPlan.Step::id).collect(Collectors.toList());
+    }
+}
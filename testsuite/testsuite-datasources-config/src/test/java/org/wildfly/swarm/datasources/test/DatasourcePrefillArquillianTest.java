@@ -0,0 +1,63 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.datasources.test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.naming.InitialContext;
+import javax.sql.DataSource;
+
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.wildfly.swarm.arquillian.DefaultDeployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Arquillian.class)
+@DefaultDeployment(type = DefaultDeployment.Type.JAR)
+public class DatasourcePrefillArquillianTest {
+
+    @ArquillianResource
+    InitialContext context;
+
+    @ArquillianResource
+    ServiceRegistry registry;
+
+    @Test
+    public void testPrefilledBeforeReady() throws Exception {
+        ServiceController<?> warmup = this.registry.getService(ServiceName.parse("swarm.datasources.warmup"));
+        assertNotNull(warmup);
+        assertEquals(ServiceController.State.UP, warmup.getState());
+
+        // min-pool-size is 2: besides the connection in hand, the pool already holds another
+        DataSource ds = (DataSource) this.context.lookup("java:jboss/datasources/MyDS");
+        try (Connection connection = ds.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet sessions = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS")) {
+            assertTrue(sessions.next());
+            assertTrue(sessions.getInt(1) >= 2);
+        }
+    }
+}
@@ -26,6 +26,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
@@ -38,6 +41,7 @@ import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import net.lingala.zip4j.core.ZipFile;
 import net.lingala.zip4j.exception.ZipException;
@@ -52,6 +56,8 @@ import org.jboss.shrinkwrap.api.importer.ZipImporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.impl.base.io.IOUtil;
 import org.wildfly.swarm.bootstrap.Main;
+import org.wildfly.swarm.bootstrap.env.ApplicationEnvironment;
+import org.wildfly.swarm.bootstrap.env.JDBCDriverManifest;
 import org.wildfly.swarm.bootstrap.env.WildFlySwarmManifest;
 import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
 import org.wildfly.swarm.bootstrap.util.MavenArtifactDescriptor;
@@ -66,6 +72,21 @@ import org.wildfly.swarm.spi.meta.SimpleLogger;
  */
 public class BuildTool {
 
+    /**
+     * Suffix of the entry holding the hex SHA-1 digest of the packaged application, next to it under {@code _bootstrap/}.
+     */
+    public static final String DIGEST_SUFFIX = ".sha1";
+
+    /**
+     * Directory under the build directory where the plugins keep the {@link DependencyAnalysisCache}.
+     */
+    public static final String ANALYSIS_CACHE_DIRECTORY = "swarm-analysis-cache";
+
+    /**
+     * Directory under the build directory where the plugins keep the results of fraction detection for each jar.
+     */
+    public static final String FRACTION_DETECTION_CACHE_DIRECTORY = "swarm-fraction-detection";
+
     public enum FractionDetectionMode {
         when_missing,
         force,
@@ -165,6 +186,60 @@ public class BuildTool {
         return this;
     }
 
+    /**
+     * Write the uberjar as a directory of dependency, bootstrap and application layers.
+     *
+     * @see LayeredOutput
+     */
+    public BuildTool layered(boolean layered) {
+        this.layered = layered;
+        return this;
+    }
+
+    /**
+     * Rewrite the uberjar from the previous one, only compressing entries that changed.
+     */
+    public BuildTool incremental(boolean incremental) {
+        this.incremental = incremental;
+        return this;
+    }
+
+    /**
+     * Store nested archives and images instead of deflating them again.
+     */
+    public BuildTool storeCompressedEntries(boolean storeCompressedEntries) {
+        this.storeCompressedEntries = storeCompressedEntries;
+        return this;
+    }
+
+    /**
+     * Keep dependency analysis results in {@code directory} and reuse them while the dependencies are unchanged.
+     *
+     * @see DependencyAnalysisCache
+     */
+    public BuildTool analysisCache(Path directory) {
+        this.analysisCache = directory == null ? null : new DependencyAnalysisCache(directory);
+        this.dependencyManager.analysisCache(this.analysisCache);
+        return this;
+    }
+
+    /**
+     * Keep the names referenced by the classes of each jar scanned for fraction detection in {@code directory},
+     * including the libraries nested in the application, so that unchanged jars are not parsed again.
+     */
+    public BuildTool fractionDetectionCache(Path directory) {
+        this.fractionDetectionCache = directory;
+        return this;
+    }
+
+    /**
+     * Analyze dependencies even on a cache hit, and fail if the cached results differ; only used with an analysis cache.
+     */
+    public BuildTool verifyAnalysisCache(boolean verifyAnalysisCache) {
+        this.verifyAnalysisCache = verifyAnalysisCache;
+        return this;
+    }
+
     public BuildTool hollow(boolean hollow) {
         this.hollow = hollow;
         return this;
@@ -183,6 +258,9 @@ public class BuildTool {
 
     public File build(String baseName, Path dir) throws Exception {
         build();
+        if (this.layered) {
+            return createLayers(baseName, dir);
+        }
         return createJar(baseName, dir);
     }
 
@@ -237,6 +315,7 @@ public class BuildTool {
         addWildFlySwarmApplicationManifest();
         addAdditionalModules();
         addProjectAsset(this.dependencyManager);
+        addJDBCDriverManifest(this.dependencyManager);
         populateUberJarMavenRepository(this.dependencyManager);
         addUberjarResources();
 
@@ -286,6 +365,7 @@ public class BuildTool {
                     continue;
                 }
                 this.archive.add(new ZipFileHeaderAsset(zipFile, each), each.getFileName());
+                this.bootstrapEntries.add(each.getFileName());
             }
         } catch (ZipException e) {
             throw new IOException(e);
@@ -297,15 +377,102 @@ public class BuildTool {
             throw new IllegalStateException("dependency declaration is not provided");
         }
 
+        if (this.analysisCache == null) {
+            this.dependencyManager.analyzeDependencies(autodetect, declaredDependencies);
+            return;
+        }
+
+        this.analysisCache.verify(this.verifyAnalysisCache);
         this.dependencyManager.analyzeDependencies(autodetect, declaredDependencies);
+        this.log.info(this.analysisCache.lastResult());
+
+        List<String> mismatches = this.analysisCache.mismatches();
+        if (!mismatches.isEmpty()) {
+            mismatches.forEach(this.log::error);
+            throw new BuildException("Cached dependency analysis differs from a fresh one; the cache has been updated");
+        }
     }
 
     @SuppressWarnings("UnusedParameters")
-    private void addProjectAsset(ResolvedDependencies resolvedDependencies) {
+    private void addProjectAsset(ResolvedDependencies resolvedDependencies) throws IOException {
         if (this.hollow) {
             return;
         }
-        this.archive.add(new WebInfLibFilteringArchiveAsset(this.projectAsset, this.dependencyManager));
+        ProjectAsset asset = new WebInfLibFilteringArchiveAsset(this.projectAsset, this.dependencyManager);
+        if (!deploysPackagedApplication()) {
+            this.archive.add(asset);
+            return;
+        }
+
+        // Spool the application once, so the digest is taken over the very bytes packaged;
+        // at runtime the digest lets an unchanged application be deployed without re-hashing it
+        final File spooled = File.createTempFile("buildtool", asset.getName().replace("/", "_"));
+        spooled.deleteOnExit();
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream in = new DigestInputStream(asset.openStream(), digest)) {
+            Files.copy(in, spooled.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte each : digest.digest()) {
+            hex.append(String.format("%02x", each));
+        }
+        this.archive.add(new FileAsset(spooled), asset.getName());
+        this.archive.add(new ByteArrayAsset(hex.toString().getBytes(StandardCharsets.US_ASCII)), asset.getName() + DIGEST_SUFFIX);
+    }
+
+    /**
+     * Only the default main class deploys the packaged application as is; a custom main builds its own
+     * deployment, and should it deploy the packaged one after all, the digest is computed at boot instead.
+     */
+    private boolean deploysPackagedApplication() {
+        return this.mainClass == null || this.mainClass.equals(ApplicationEnvironment.DEFAULT_MAIN_CLASS_NAME);
+    }
+
+    private void addJDBCDriverManifest(ResolvedDependencies resolvedDependencies) throws IOException {
+        if (this.hollow) {
+            // drivers arrive with the deployments, after the uberjar is built
+            return;
+        }
+        JDBCDriverScanner scanner = new JDBCDriverScanner();
+        for (ArtifactSpec each : resolvedDependencies.getDependencies()) {
+            if (each.groupId().equals(DependencyManager.WILDFLY_SWARM_GROUP_ID)) {
+                scanner.detectable(each);
+            }
+        }
+        if (scanner.isEmpty()) {
+            // no datasources fraction, so nothing to detect
+            return;
+        }
+
+        for (ArtifactSpec each : resolvedDependencies.getDependencies()) {
+            scanner.scan(each);
+        }
+        for (ArtifactSpec each : resolvedDependencies.getModuleDependencies()) {
+            scanner.scan(each);
+        }
+        scanner.scan(this.projectAsset.getArchive());
+        for (String each : this.additionalModules) {
+            try (Stream<Path> jars = Files.find(Paths.get(each), 20, (p, __) -> p.getFileName().toString().endsWith(".jar"))) {
+                for (Path jar : jars.collect(Collectors.toList())) {
+                    scanner.scan(jar.toFile());
+                }
+            }
+        }
+
+        JDBCDriverManifest manifest = scanner.manifest();
+        List<String> present = manifest.drivers().stream()
+                .filter(manifest::isPackaged)
+                .collect(Collectors.toList());
+        if (!present.isEmpty()) {
+            this.log.info("Packaged JDBC drivers: " + String.join(", ", present));
+        }
+        this.archive.add(new ByteArrayAsset(manifest.toBytes()), JDBCDriverManifest.LOCATION);
     }
 
     private void detectFractions() throws Exception {
@@ -315,6 +482,9 @@ public class BuildTool {
         final FractionUsageAnalyzer analyzer = new FractionUsageAnalyzer()
                 .logger(log)
                 .source(tmpFile);
+        if (this.fractionDetectionCache != null) {
+            analyzer.cacheDirectory(this.fractionDetectionCache);
+        }
 
         if (testClass != null && !"".equals(testClass)) {
             analyzer.testClass(testClass);
@@ -428,6 +598,9 @@ public class BuildTool {
         if (!this.hollow) {
             this.properties.put(BootstrapProperties.APP_ARTIFACT, this.projectAsset.getSimpleName());
         }
+        if (this.layered) {
+            this.properties.put(BootstrapProperties.IS_LAYERED, Boolean.TRUE.toString());
+        }
 
         manifest.setProperties(this.properties);
         manifest.bundleDependencies(this.bundleDependencies);
@@ -441,11 +614,37 @@ public class BuildTool {
         return new File(directory.toFile(), baseName + "-swarm.jar");
     }
 
+    public static File getLayersDirectory(String baseName, Path directory) {
+        return new File(directory.toFile(), baseName + "-swarm");
+    }
+
+    private File createLayers(String baseName, Path dir) throws IOException {
+        if (this.executable) {
+            this.log.info("Layered output is not executable, ignoring the launch script");
+        }
+        return new LayeredOutput(this.bootstrapEntries)
+                .logger(this.log)
+                .write(this.archive, getLayersDirectory(baseName, dir));
+    }
+
     private File createJar(String baseName, Path dir) throws IOException {
         File out = getOutputFile(baseName, dir);
         if (!out.getParentFile().exists() && !out.getParentFile().mkdirs()) {
             this.log.error("Failed to create parent directory for: " + out.getAbsolutePath());
         }
+        if (this.incremental || this.storeCompressedEntries) {
+            try (InputStream is = executable ? getLaunchScript() : null) {
+                new UberjarWriter()
+                        .previous(this.incremental ? out : null)
+                        .storeCompressedEntries(this.storeCompressedEntries)
+                        .logger(this.log)
+                        .write(this.archive, is, out);
+            }
+            if (executable && !out.setExecutable(true)) {
+                this.log.error("Failed to set executable flag");
+            }
+            return out;
+        }
         ZipExporter exporter = this.archive.as(ZipExporter.class);
         try (FileOutputStream fos = new FileOutputStream(out)) {
             if (executable) {
@@ -585,6 +784,12 @@ public class BuildTool {
 
     private DependencyManager dependencyManager;
 
+    private DependencyAnalysisCache analysisCache;
+
+    private boolean verifyAnalysisCache;
+
+    private Path fractionDetectionCache;
+
     private ProjectAsset projectAsset;
 
     private Properties properties = new Properties();
@@ -597,6 +802,14 @@ public class BuildTool {
 
     private boolean hollow;
 
+    private boolean incremental;
+
+    private boolean storeCompressedEntries;
+
+    private boolean layered;
+
+    private final Set<String> bootstrapEntries = new HashSet<>();
+
     private DeclaredDependencies declaredDependencies;
 
     private final DefaultArtifactResolver resolver;
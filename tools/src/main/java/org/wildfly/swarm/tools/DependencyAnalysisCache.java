@@ -0,0 +1,370 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Results of {@link DependencyManager#analyzeDependencies(boolean, DeclaredDependencies)} kept on disk
+ * between builds.
+ *
+ * <p>An entry is keyed by the declared dependencies, including the length and modification time of
+ * every artifact file, and by what earlier analyses of the same build contributed. It is only used
+ * if every artifact it resolved to is still unchanged on disk. In verify mode the analysis is
+ * always run, and compared with the cached entry.</p>
+ */
+public class DependencyAnalysisCache {
+
+    public DependencyAnalysisCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Always analyze, and report any difference from the cached entry as a mismatch.
+     */
+    public DependencyAnalysisCache verify(boolean verify) {
+        this.verify = verify;
+        return this;
+    }
+
+    public boolean isVerify() {
+        return this.verify;
+    }
+
+    public int hits() {
+        return this.hits;
+    }
+
+    public int misses() {
+        return this.misses;
+    }
+
+    /**
+     * @return the differences found by the last verification, empty if the cached entry was correct
+     */
+    public List<String> mismatches() {
+        return Collections.unmodifiableList(this.mismatches);
+    }
+
+    /**
+     * @return a one-line description of the last lookup
+     */
+    public String lastResult() {
+        return this.lastResult;
+    }
+
+    String key(boolean autodetect, DeclaredDependencies declaredDependencies, Collection<String> state) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("format " + FORMAT);
+        lines.add("autodetect " + autodetect);
+        lines.add("presolved " + declaredDependencies.isPresolved());
+        declaredDependencies.getExplicitDependencies().stream()
+                .map(e -> "explicit " + describe(e))
+                .sorted()
+                .forEach(lines::add);
+        declaredDependencies.getTransientDependencies().stream()
+                .map(e -> "transient " + describe(e))
+                .sorted()
+                .forEach(lines::add);
+        state.stream()
+                .map(e -> "state " + e)
+                .sorted()
+                .forEach(lines::add);
+        for (String line : lines) {
+            md.update(line.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) '\n');
+        }
+        StringBuilder key = new StringBuilder();
+        for (byte b : md.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    Analysis load(String key) {
+        this.mismatches.clear();
+        Path file = entry(key);
+        if (!Files.exists(file)) {
+            return miss("no entry for these dependencies");
+        }
+        Analysis analysis;
+        try {
+            analysis = read(file);
+        } catch (IOException | RuntimeException e) {
+            return miss("unreadable entry " + file.getFileName());
+        }
+        for (ArtifactSpec each : analysis.artifacts()) {
+            if (each.file != null) {
+                if (!stamp(each.file).equals(analysis.stamps.get(each))) {
+                    return miss(each.mavenGav() + " changed");
+                }
+            }
+        }
+        for (ArtifactSpec each : analysis.moduleDependencies) {
+            if (each.file == null && ModuleAnalyzer.localRepositoryFile(each).exists()) {
+                return miss(each.mavenGav() + " is now in the local repository");
+            }
+        }
+        ++this.hits;
+        this.lastResult = "Dependency analysis cache hit (" + analysis.dependencies.size() + " artifacts, analysis took "
+                + analysis.elapsed + "ms)";
+        return analysis;
+    }
+
+    void verify(Analysis cached, Analysis fresh) {
+        this.mismatches.clear();
+        compare("dependency", cached.dependencyLines(), fresh.dependencyLines());
+        compare("module dependency", lines(cached.moduleDependencies), lines(fresh.moduleDependencies));
+        compare("manifest dependency", cached.manifestDependencies, fresh.manifestDependencies);
+        compare("bootstrap module", cached.bootstrapModules, fresh.bootstrapModules);
+        compare("bootstrap artifact", cached.bootstrapArtifacts, fresh.bootstrapArtifacts);
+        this.lastResult = this.mismatches.isEmpty()
+                ? "Dependency analysis cache verified"
+                : "Dependency analysis cache mismatch (" + this.mismatches.size() + " differences)";
+    }
+
+    void store(String key, Analysis analysis) throws IOException {
+        Files.createDirectories(this.directory);
+        Path file = entry(key);
+        Path tmp = Files.createTempFile(this.directory, key, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writeLine(writer, "elapsed", Long.toString(analysis.elapsed));
+            for (ArtifactSpec each : analysis.dependencies) {
+                writeLine(writer, "dependency", Boolean.toString(analysis.removable.contains(each)), describe(each));
+            }
+            for (ArtifactSpec each : analysis.moduleDependencies) {
+                writeLine(writer, "module", describe(each));
+            }
+            for (String each : analysis.manifestDependencies) {
+                writeLine(writer, "manifest-dependency", each);
+            }
+            for (String each : analysis.bootstrapModules) {
+                writeLine(writer, "bootstrap-module", each);
+            }
+            for (String each : analysis.bootstrapArtifacts) {
+                writeLine(writer, "bootstrap-artifact", each);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        prune(file);
+    }
+
+    private static void writeLine(BufferedWriter writer, String... fields) throws IOException {
+        writer.write(String.join(SEPARATOR, fields));
+        writer.write('\n');
+    }
+
+    static String describe(ArtifactSpec spec) {
+        return String.join(SEPARATOR,
+                spec.scope,
+                spec.groupId(),
+                spec.artifactId(),
+                nullToEmpty(spec.version()),
+                spec.type(),
+                nullToEmpty(spec.classifier()),
+                spec.file == null ? "" : spec.file.getAbsolutePath(),
+                spec.file == null ? "" : stamp(spec.file));
+    }
+
+    private Analysis miss(String reason) {
+        ++this.misses;
+        this.lastResult = "Dependency analysis cache miss: " + reason;
+        return null;
+    }
+
+    private void compare(String kind, Collection<String> cached, Collection<String> fresh) {
+        for (String each : new TreeSet<>(cached)) {
+            if (!fresh.contains(each)) {
+                this.mismatches.add(kind + " only cached: " + each);
+            }
+        }
+        for (String each : new TreeSet<>(fresh)) {
+            if (!cached.contains(each)) {
+                this.mismatches.add(kind + " only analyzed: " + each);
+            }
+        }
+    }
+
+    private Path entry(String key) {
+        return this.directory.resolve(key + ".analysis");
+    }
+
+    private void prune(Path keep) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(this.directory)) {
+            entries = files.filter(e -> e.getFileName().toString().endsWith(".analysis"))
+                    .filter(e -> !e.equals(keep))
+                    .sorted((l, r) -> Long.compare(r.toFile().lastModified(), l.toFile().lastModified()))
+                    .collect(Collectors.toList());
+        }
+        for (int i = MAX_ENTRIES - 1; i < entries.size(); ++i) {
+            Files.deleteIfExists(entries.get(i));
+        }
+    }
+
+    private static Analysis read(Path file) throws IOException {
+        Analysis analysis = new Analysis();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(SEPARATOR, -1);
+                switch (parts[0]) {
+                    case "elapsed":
+                        analysis.elapsed = Long.parseLong(parts[1]);
+                        break;
+                    case "dependency":
+                        ArtifactSpec dependency = parse(analysis, parts, 2);
+                        analysis.dependencies.add(dependency);
+                        if (Boolean.parseBoolean(parts[1])) {
+                            analysis.removable.add(dependency);
+                        }
+                        break;
+                    case "module":
+                        ArtifactSpec module = parse(analysis, parts, 1);
+                        module.shouldGather = module.file == null;
+                        analysis.moduleDependencies.add(module);
+                        break;
+                    case "manifest-dependency":
+                        analysis.manifestDependencies.add(parts[1]);
+                        break;
+                    case "bootstrap-module":
+                        analysis.bootstrapModules.add(parts[1]);
+                        break;
+                    case "bootstrap-artifact":
+                        analysis.bootstrapArtifacts.add(parts[1]);
+                        break;
+                    default:
+                        throw new IOException("Unexpected line: " + line);
+                }
+            }
+        }
+        return analysis;
+    }
+
+    private static ArtifactSpec parse(Analysis analysis, String[] parts, int offset) {
+        String path = parts[offset + 6];
+        ArtifactSpec spec = new ArtifactSpec(parts[offset],
+                parts[offset + 1],
+                parts[offset + 2],
+                emptyToNull(parts[offset + 3]),
+                parts[offset + 4],
+                emptyToNull(parts[offset + 5]),
+                path.isEmpty() ? null : new File(path));
+        if (spec.file != null) {
+            analysis.stamps.put(spec, parts[offset + 7]);
+        }
+        return spec;
+    }
+
+    private static Set<String> lines(Collection<ArtifactSpec> specs) {
+        return specs.stream().map(DependencyAnalysisCache::describe).collect(Collectors.toSet());
+    }
+
+    /**
+     * Length and modification time stand in for a checksum of the artifact; hashing every jar
+     * would cost much of what the cache saves.
+     */
+    private static String stamp(File file) {
+        return file.length() + "@" + file.lastModified();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static final int FORMAT = 1;
+
+    private static final String SEPARATOR = "\t";
+
+    private static final int MAX_ENTRIES = 8;
+
+    private final Path directory;
+
+    private boolean verify;
+
+    private int hits;
+
+    private int misses;
+
+    private String lastResult;
+
+    private final List<String> mismatches = new ArrayList<>();
+
+    /**
+     * What one analysis leaves in the {@link DependencyManager}.
+     */
+    static class Analysis {
+
+        List<ArtifactSpec> artifacts() {
+            List<ArtifactSpec> artifacts = new ArrayList<>(this.dependencies);
+            artifacts.addAll(this.moduleDependencies);
+            return artifacts;
+        }
+
+        Set<String> dependencyLines() {
+            return this.dependencies.stream()
+                    .map(e -> this.removable.contains(e) + SEPARATOR + describe(e))
+                    .collect(Collectors.toSet());
+        }
+
+        final List<ArtifactSpec> dependencies = new ArrayList<>();
+
+        final Set<ArtifactSpec> removable = new HashSet<>();
+
+        final List<ArtifactSpec> moduleDependencies = new ArrayList<>();
+
+        final Set<String> manifestDependencies = new LinkedHashSet<>();
+
+        final Set<String> bootstrapModules = new LinkedHashSet<>();
+
+        final Set<String> bootstrapArtifacts = new LinkedHashSet<>();
+
+        final Map<ArtifactSpec, String> stamps = new IdentityHashMap<>();
+
+        long elapsed;
+    }
+}
@@ -111,7 +111,39 @@ public class DependencyManager implements ResolvedDependencies {
         return null;
     }
 
+    /**
+     * Reuse the results of earlier analyses of the same dependencies.
+     */
+    public DependencyManager analysisCache(DependencyAnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+        return this;
+    }
+
     public ResolvedDependencies analyzeDependencies(boolean autodetect, DeclaredDependencies declaredDependencies) throws Exception {
+        if (this.analysisCache == null) {
+            analyze(autodetect, declaredDependencies);
+            return this;
+        }
+
+        String key = this.analysisCache.key(autodetect, declaredDependencies, analysisState());
+        DependencyAnalysisCache.Analysis cached = this.analysisCache.load(key);
+        if (cached != null && !this.analysisCache.isVerify()) {
+            apply(cached);
+            return this;
+        }
+
+        long start = System.currentTimeMillis();
+        analyze(autodetect, declaredDependencies);
+        DependencyAnalysisCache.Analysis analysis = snapshot(System.currentTimeMillis() - start);
+        if (cached != null) {
+            this.analysisCache.verify(cached, analysis);
+        }
+        this.analysisCache.store(key, analysis);
+
+        return this;
+    }
+
+    private void analyze(boolean autodetect, DeclaredDependencies declaredDependencies) throws Exception {
 
         // resolve to local files
         resolveDependencies(declaredDependencies, autodetect);
@@ -127,8 +159,41 @@ public class DependencyManager implements ResolvedDependencies {
                 });
 
         analyzeModuleDependencies(declaredDependencies);
+    }
 
-        return this;
+    /**
+     * What earlier analyses left behind, since each analysis adds to it.
+     */
+    private List<String> analysisState() {
+        List<String> state = new ArrayList<>();
+        this.removableDependencies.forEach(e -> state.add("removable " + e.mscGav()));
+        this.moduleDependencies.forEach(e -> state.add("module " + e.mscGav()));
+        this.applicationManifest.getDependencies().forEach(e -> state.add("dependency " + e));
+        this.applicationManifest.bootstrapModules().forEach(e -> state.add("bootstrap-module " + e));
+        this.applicationManifest.bootstrapArtifacts().forEach(e -> state.add("bootstrap-artifact " + e));
+        return state;
+    }
+
+    private DependencyAnalysisCache.Analysis snapshot(long elapsed) {
+        DependencyAnalysisCache.Analysis analysis = new DependencyAnalysisCache.Analysis();
+        analysis.dependencies.addAll(this.dependencies);
+        analysis.removable.addAll(this.removableDependencies);
+        analysis.moduleDependencies.addAll(this.moduleDependencies);
+        analysis.manifestDependencies.addAll(this.applicationManifest.getDependencies());
+        analysis.bootstrapModules.addAll(this.applicationManifest.bootstrapModules());
+        analysis.bootstrapArtifacts.addAll(this.applicationManifest.bootstrapArtifacts());
+        analysis.elapsed = elapsed;
+        return analysis;
+    }
+
+    private void apply(DependencyAnalysisCache.Analysis analysis) {
+        this.dependencies.clear();
+        this.dependencies.addAll(analysis.dependencies);
+        this.removableDependencies.addAll(analysis.removable);
+        this.moduleDependencies.addAll(analysis.moduleDependencies);
+        analysis.manifestDependencies.forEach(this.applicationManifest::addDependency);
+        analysis.bootstrapModules.forEach(this.applicationManifest::addBootstrapModule);
+        analysis.bootstrapArtifacts.forEach(this.applicationManifest::addBootstrapArtifact);
     }
 
     /**
@@ -378,4 +443,6 @@ public class DependencyManager implements ResolvedDependencies {
 
     private ArtifactResolver resolver;
 
+    private DependencyAnalysisCache analysisCache;
+
 }
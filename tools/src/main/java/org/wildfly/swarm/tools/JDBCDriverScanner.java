@@ -0,0 +1,217 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.wildfly.swarm.bootstrap.env.JDBCDriverManifest;
+
+/**
+ * Finds which of the JDBC drivers the datasources fraction can detect are packaged with the application,
+ * to record them in a {@link JDBCDriverManifest}.
+ *
+ * <p>Only the candidate classes the fraction lists are looked up, by name, in each scanned archive. The
+ * first archive holding a class wins, so dependencies are scanned before the application, as a driver
+ * found in a dependency can be installed at boot from its artifact.</p>
+ */
+public class JDBCDriverScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String JAR_SUFFIX = ".jar";
+
+    private static final String WEB_INF_CLASSES = "WEB-INF/classes/";
+
+    private static final String[] PROPERTIES = {
+            JDBCDriverManifest.DRIVER_CLASS,
+            JDBCDriverManifest.XA_DATASOURCE_CLASS,
+            JDBCDriverManifest.OPTIONAL_CLASS
+    };
+
+    /**
+     * Read the detectable drivers a jar artifact lists, if any.
+     */
+    public JDBCDriverScanner detectable(ArtifactSpec artifact) throws IOException {
+        if (!artifact.isResolved() || !artifact.file.getName().endsWith(JAR_SUFFIX)) {
+            return this;
+        }
+        try (ZipFile zip = new ZipFile(artifact.file)) {
+            ZipEntry entry = zip.getEntry(JDBCDriverManifest.DETECTABLE_LOCATION);
+            if (entry != null) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    detectable(in);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add detectable drivers, in the format of {@link JDBCDriverManifest#DETECTABLE_LOCATION}.
+     */
+    public JDBCDriverScanner detectable(InputStream properties) throws IOException {
+        this.detectable.read(properties);
+        this.wanted = null;
+        return this;
+    }
+
+    /**
+     * @return Whether there is nothing to look for, as no fraction lists detectable drivers.
+     */
+    public boolean isEmpty() {
+        return this.detectable.drivers().isEmpty();
+    }
+
+    /**
+     * Scan a jar artifact; the drivers found in it are recorded with the artifact.
+     */
+    public JDBCDriverScanner scan(ArtifactSpec artifact) throws IOException {
+        if (!artifact.isResolved() || !artifact.file.getName().endsWith(JAR_SUFFIX)) {
+            return this;
+        }
+        return scan(artifact.mscGav(), artifact.file);
+    }
+
+    /**
+     * Scan a jar that is not an artifact, such as one of an additional module.
+     */
+    public JDBCDriverScanner scan(File jar) throws IOException {
+        return scan(null, jar);
+    }
+
+    /**
+     * Scan the application: its classes, and the jars nested in it.
+     */
+    public JDBCDriverScanner scan(Archive<?> archive) throws IOException {
+        for (String each : wanted()) {
+            String path = each.replace('.', '/') + CLASS_SUFFIX;
+            if (archive.contains(path) || archive.contains(WEB_INF_CLASSES + path)) {
+                found(null, each);
+            }
+        }
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            Node node = each.getValue();
+            if (each.getKey().get().endsWith(JAR_SUFFIX) && node.getAsset() != null) {
+                try (ZipInputStream in = new ZipInputStream(node.getAsset().openStream())) {
+                    ZipEntry entry;
+                    while ((entry = in.getNextEntry()) != null) {
+                        String name = entry.getName();
+                        if (name.endsWith(CLASS_SUFFIX)) {
+                            String className = name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.');
+                            if (wanted().contains(className)) {
+                                found(null, className);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return Each detectable driver, with the classes found for it, or recorded as absent.
+     */
+    public JDBCDriverManifest manifest() {
+        JDBCDriverManifest manifest = new JDBCDriverManifest();
+        for (String each : this.detectable.drivers()) {
+            String driverClassName = first(each, JDBCDriverManifest.DRIVER_CLASS);
+            if (driverClassName == null) {
+                manifest.absent(each);
+                continue;
+            }
+            String artifact = this.artifacts.get(driverClassName);
+            String xaDatasourceClassName = first(each, JDBCDriverManifest.XA_DATASOURCE_CLASS);
+
+            // only a driver installed from its artifact needs the others; one in the application sees them all
+            Set<String> optionalArtifacts = new TreeSet<>();
+            if (artifact != null) {
+                if (xaDatasourceClassName != null && this.artifacts.containsKey(xaDatasourceClassName)) {
+                    optionalArtifacts.add(this.artifacts.get(xaDatasourceClassName));
+                }
+                for (String className : this.detectable.candidates(each, JDBCDriverManifest.OPTIONAL_CLASS)) {
+                    if (this.artifacts.containsKey(className)) {
+                        optionalArtifacts.add(this.artifacts.get(className));
+                    }
+                }
+                optionalArtifacts.remove(artifact);
+            }
+
+            manifest.packaged(each, driverClassName, xaDatasourceClassName, artifact, optionalArtifacts);
+        }
+        return manifest;
+    }
+
+    private JDBCDriverScanner scan(String artifact, File jar) throws IOException {
+        try (ZipFile zip = new ZipFile(jar)) {
+            for (String each : wanted()) {
+                if (!this.found.contains(each) && zip.getEntry(each.replace('.', '/') + CLASS_SUFFIX) != null) {
+                    found(artifact, each);
+                }
+            }
+        }
+        return this;
+    }
+
+    private void found(String artifact, String className) {
+        if (this.found.add(className) && artifact != null) {
+            this.artifacts.put(className, artifact);
+        }
+    }
+
+    private String first(String driverName, String property) {
+        for (String each : this.detectable.candidates(driverName, property)) {
+            if (this.found.contains(each)) {
+                return each;
+            }
+        }
+        return null;
+    }
+
+    private Set<String> wanted() {
+        if (this.wanted == null) {
+            Set<String> wanted = new HashSet<>();
+            for (String each : this.detectable.drivers()) {
+                for (String property : PROPERTIES) {
+                    wanted.addAll(this.detectable.candidates(each, property));
+                }
+            }
+            this.wanted = wanted;
+        }
+        return this.wanted;
+    }
+
+    private final JDBCDriverManifest detectable = new JDBCDriverManifest();
+
+    private final Set<String> found = new HashSet<>();
+
+    private final Map<String, String> artifacts = new HashMap<>();
+
+    private Set<String> wanted;
+}
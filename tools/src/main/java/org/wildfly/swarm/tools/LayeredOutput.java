@@ -0,0 +1,190 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.wildfly.swarm.spi.meta.SimpleLogger;
+
+/**
+ * Splits the uberjar into layers that change at different rates, for container images.
+ *
+ * <pre>
+ * &lt;name&gt;-swarm/
+ *   lib/            the m2repo and additional modules; changes with the dependencies
+ *   bootstrap.jar   the bootstrap, referencing lib/ and app/ through its Class-Path
+ *   app/            the application and its manifest; changes on every build
+ * </pre>
+ *
+ * <p>Every file gets the same fixed modification time, so unchanged layers are byte for byte the
+ * same from one build to the next. The layers run with {@code java -jar bootstrap.jar}; artifacts
+ * are loaded from {@code lib/} in place instead of being copied out of the uberjar first.</p>
+ */
+public class LayeredOutput {
+
+    public static final String DEPENDENCIES = "lib";
+
+    public static final String APPLICATION = "app";
+
+    public static final String BOOTSTRAP = "bootstrap.jar";
+
+    /**
+     * 1980-02-01T00:00:00Z, the earliest time every zip tool can represent.
+     */
+    static final long TIMESTAMP = 318211200000L;
+
+    public LayeredOutput(Set<String> bootstrapEntries) {
+        this.bootstrapEntries = bootstrapEntries;
+    }
+
+    public LayeredOutput logger(SimpleLogger log) {
+        this.log = log;
+        return this;
+    }
+
+    public File write(Archive<?> archive, File dir) throws IOException {
+        Path root = dir.toPath();
+        Path dependencies = root.resolve(DEPENDENCIES);
+        Path application = root.resolve(APPLICATION);
+        delete(dependencies);
+        delete(application);
+        Files.createDirectories(dependencies);
+        Files.createDirectories(application);
+
+        JavaArchive bootstrap = ShrinkWrap.create(JavaArchive.class, BOOTSTRAP);
+        int dependencyCount = 0;
+        int applicationCount = 0;
+
+        // sorted, so the layers are written in the same order every time
+        Map<String, Asset> entries = new TreeMap<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            Asset asset = each.getValue().getAsset();
+            if (asset != null) {
+                entries.put(each.getKey().get().substring(1), asset);
+            }
+        }
+
+        for (Map.Entry<String, Asset> each : entries.entrySet()) {
+            String name = each.getKey();
+            if (name.equals(JarFile.MANIFEST_NAME)) {
+                bootstrap.add(new ByteArrayAsset(manifest(each.getValue())), name);
+            } else if (this.bootstrapEntries.contains(name)) {
+                bootstrap.add(each.getValue(), name);
+            } else if (name.startsWith("m2repo/") || name.startsWith("modules/")) {
+                copy(each.getValue(), dependencies.resolve(name));
+                ++dependencyCount;
+            } else {
+                copy(each.getValue(), application.resolve(name));
+                ++applicationCount;
+            }
+        }
+
+        stamp(dependencies);
+        stamp(application);
+
+        new UberjarWriter()
+                .timestamp(TIMESTAMP)
+                .logger(this.log)
+                .write(bootstrap, null, root.resolve(BOOTSTRAP).toFile());
+
+        this.log.info(String.format("Wrote layers to %s: %d dependency and %d application files",
+                                    dir, dependencyCount, applicationCount));
+        return dir;
+    }
+
+    private static byte[] manifest(Asset asset) throws IOException {
+        Manifest manifest;
+        try (InputStream in = asset.openStream()) {
+            manifest = new Manifest(in);
+        }
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, DEPENDENCIES + "/ " + APPLICATION + "/");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        manifest.write(out);
+        return out.toByteArray();
+    }
+
+    private static void copy(Asset asset, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (InputStream in = asset.openStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void stamp(Path dir) throws IOException {
+        FileTime time = FileTime.fromMillis(TIMESTAMP);
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.setLastModifiedTime(file, time);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.setLastModifiedTime(dir, time);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private final Set<String> bootstrapEntries;
+
+    private SimpleLogger log = new SimpleLogger() {
+    };
+}
@@ -83,12 +83,10 @@ public class ModuleAnalyzer {
 
         List<ArtifactSpec> dependencies = new ArrayList<>();
 
-        String localRepo = System.getProperty("maven.repo.local", DEFAULT_LOCAL_REPO);
-
         for (ArtifactType<ResourcesType<ModuleDescriptor>> artifact : artifacts) {
             ArtifactSpec dep = ArtifactSpec.fromMscGav(artifact.getName());
 
-            File file = Paths.get(localRepo, dep.jarRepoPath()).toFile();
+            File file = localRepositoryFile(dep);
             if (!file.exists()) {
                 dep.shouldGather = true;
             } else {
@@ -101,5 +99,10 @@ public class ModuleAnalyzer {
         return dependencies;
     }
 
+    static File localRepositoryFile(ArtifactSpec dep) {
+        String localRepo = System.getProperty("maven.repo.local", DEFAULT_LOCAL_REPO);
+        return Paths.get(localRepo, dep.jarRepoPath()).toFile();
+    }
+
     private ModuleDescriptorImpl module;
 }
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Runs the swagger fraction's document generator over compiled application classes, writing
+ * {@code META-INF/swagger.json} among them so that it is packaged with the application.
+ *
+ * <p>The generator runs in its own class loader, made of the application classes, their dependencies
+ * and the third-party libraries which the swagger fraction's modules would otherwise provide at runtime.</p>
+ */
+public class SwaggerGenerator {
+
+    public static final String GENERATOR = "org.wildfly.swarm.swagger.deployment.SwaggerDocumentGenerator";
+
+    public SwaggerGenerator(ArtifactResolvingHelper resolvingHelper) {
+        this.resolvingHelper = resolvingHelper;
+    }
+
+    /**
+     * Also write a gzip-compressed {@code swagger.json.gz}, served to clients accepting gzip.
+     *
+     * @param gzip Whether to write the compressed document.
+     * @return this generator.
+     */
+    public SwaggerGenerator gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    /**
+     * Packages to scan; defaults to {@code META-INF/swarm.swagger.conf}, then to the topmost application package.
+     *
+     * @param packages The packages, or {@code null} for the default.
+     * @return this generator.
+     */
+    public SwaggerGenerator packages(List<String> packages) {
+        this.packages = packages == null ? Collections.emptyList() : packages;
+        return this;
+    }
+
+    /**
+     * Generate the document.
+     *
+     * @param classes      The directory of compiled application classes, which receives the document.
+     * @param fraction     The swagger fraction jar.
+     * @param dependencies The application's dependencies.
+     * @throws Exception If a library cannot be resolved or the generator fails.
+     */
+    public void generate(File classes, File fraction, Collection<File> dependencies) throws Exception {
+        List<String> args = new ArrayList<>();
+        args.add(classes.getAbsolutePath());
+        if (this.gzip) {
+            args.add("--gzip");
+        }
+        if (!this.packages.isEmpty()) {
+            args.add("--packages=" + String.join(",", this.packages));
+        }
+
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader cl = new URLClassLoader(classpath(classes, fraction, dependencies), getClass().getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(cl);
+            Method main = cl.loadClass(GENERATOR).getMethod("main", String[].class);
+            main.invoke(null, (Object) args.toArray(new String[args.size()]));
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    private URL[] classpath(File classes, File fraction, Collection<File> dependencies) throws Exception {
+        Set<URL> urls = new LinkedHashSet<>();
+        urls.add(classes.toURI().toURL());
+        for (File each : dependencies) {
+            urls.add(each.toURI().toURL());
+        }
+        for (ArtifactSpec each : moduleArtifacts(fraction)) {
+            ArtifactSpec resolved = this.resolvingHelper.resolve(each);
+            if (resolved == null || resolved.file == null) {
+                throw new BuildException("Unable to resolve " + each.mscGav());
+            }
+            urls.add(resolved.file.toURI().toURL());
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    /**
+     * The artifacts of the fraction's modules, other than swarm's own, which are on the application classpath already.
+     */
+    static Set<ArtifactSpec> moduleArtifacts(File fraction) throws IOException {
+        Set<ArtifactSpec> artifacts = new LinkedHashSet<>();
+        try (ZipFile zip = new ZipFile(fraction)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().startsWith("modules/") || !entry.getName().endsWith("/module.xml")) {
+                    continue;
+                }
+                try (InputStream in = zip.getInputStream(entry)) {
+                    for (ArtifactSpec each : new ModuleAnalyzer(in).getDependencies()) {
+                        if (!each.groupId().equals("org.wildfly.swarm")) {
+                            artifacts.add(each);
+                        }
+                    }
+                }
+            }
+        }
+        return artifacts;
+    }
+
+    private final ArtifactResolvingHelper resolvingHelper;
+
+    private boolean gzip;
+
+    private List<String> packages = Collections.emptyList();
+}
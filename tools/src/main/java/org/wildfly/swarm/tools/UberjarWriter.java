@@ -0,0 +1,793 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.ArchivePath;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.wildfly.swarm.spi.meta.SimpleLogger;
+
+/**
+ * Writes an uberjar, reusing what it can from the previous one.
+ *
+ * <p>An entry whose content has the same CRC-32 and size as the entry of the same name in the
+ * previous uberjar is copied over still compressed; only its checksum is computed. Every other
+ * entry is compressed on a pool of threads, while a single thread writes the entries in order. Entries that are archives or images
+ * themselves may be {@link #storeCompressedEntries(boolean) stored} instead of deflated again.</p>
+ *
+ * <p>Entry content is streamed; only entries larger than {@value #SPILL_THRESHOLD} bytes once
+ * compressed are spooled to a temporary file while they wait for their turn.</p>
+ *
+ * <p>Archives beyond the limits of the plain zip format are handed to {@link ZipExporter}, which
+ * writes Zip64 records where needed.</p>
+ */
+public class UberjarWriter {
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+    private static final int SPILL_THRESHOLD = 1024 * 1024;
+
+    private static final String[] COMPRESSED_SUFFIXES = {
+            ".jar", ".war", ".ear", ".rar", ".zip", ".gz", ".tgz", ".bz2", ".xz",
+            ".png", ".jpg", ".jpeg", ".gif", ".ico", ".woff", ".woff2"
+    };
+
+    public UberjarWriter previous(File previous) {
+        this.previous = previous;
+        return this;
+    }
+
+    public UberjarWriter storeCompressedEntries(boolean storeCompressedEntries) {
+        this.storeCompressedEntries = storeCompressedEntries;
+        return this;
+    }
+
+    /**
+     * Give every written entry this modification time instead of the current time, for reproducible output.
+     */
+    public UberjarWriter timestamp(long timestamp) {
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    public UberjarWriter parallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public UberjarWriter logger(SimpleLogger log) {
+        this.log = log;
+        return this;
+    }
+
+    /**
+     * @param archive the uberjar contents
+     * @param prefix  bytes to put in front of the zip, such as a launch script, or {@code null}
+     * @param out     the uberjar, which may also be the previous one
+     */
+    public void write(Archive<?> archive, InputStream prefix, File out) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<ArchivePath, Node> each : archive.getContent().entrySet()) {
+            String name = each.getKey().get().substring(1);
+            if (name.isEmpty()) {
+                continue;
+            }
+            Asset asset = each.getValue().getAsset();
+            entries.add(asset == null ? new Entry(name + "/", null) : new Entry(name, asset));
+        }
+
+        // the prefix may have to be written twice
+        byte[] prefixBytes = prefix == null ? null : readAll(prefix);
+
+        if (entries.size() >= MAX_ENTRIES) {
+            this.log.info("Too many entries for a plain zip, exporting the uberjar in full");
+            export(archive, prefixBytes, out);
+            return;
+        }
+
+        try {
+            write(entries, prefixBytes == null ? null : new ByteArrayInputStream(prefixBytes), out);
+        } catch (TooLargeException e) {
+            this.log.info("Uberjar too large for a plain zip, exporting it in full");
+            export(archive, prefixBytes, out);
+        }
+    }
+
+    private void export(Archive<?> archive, byte[] prefix, File out) throws IOException {
+        File tmp = temporary(out);
+        try (OutputStream os = new FileOutputStream(tmp)) {
+            if (prefix != null) {
+                os.write(prefix);
+            }
+            archive.as(ZipExporter.class).exportTo(os);
+        }
+        Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        this.reusedEntries = 0;
+    }
+
+    void write(List<Entry> entries, InputStream prefix, File out) throws IOException {
+        entries = ordered(entries);
+
+        File tmp = temporary(out);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, this.parallelism), r -> {
+            Thread thread = new Thread(r, "uberjar-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Deque<Future<Result>> pending = new ArrayDeque<>();
+        try (Previous previous = Previous.open(this.previous);
+             Output output = new Output(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024))) {
+            copyPrefix(prefix, output);
+
+            long now = this.timestamp > 0
+                    ? dosTime(this.timestamp, ZoneOffset.UTC)
+                    : dosTime(System.currentTimeMillis(), ZoneId.systemDefault());
+            int window = Math.max(1, this.parallelism) * 4;
+
+            for (Entry entry : entries) {
+                if (pending.size() >= window) {
+                    output.write(await(pending.removeFirst()), previous);
+                }
+                Entry.Previous prior = previous.entries.get(entry.name);
+                pending.addLast(executor.submit(() -> prepare(entry, prior, now)));
+            }
+            while (!pending.isEmpty()) {
+                output.write(await(pending.removeFirst()), previous);
+            }
+            output.finish();
+            this.reusedEntries = output.reused;
+
+            this.log.info(String.format("Wrote %d entries, %d reused from the previous uberjar",
+                                        entries.size(), output.reused));
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        } finally {
+            executor.shutdownNow();
+            discard(pending);
+        }
+
+        Files.move(tmp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return how many entries the last {@link #write} copied from the previous uberjar
+     */
+    public int reusedEntries() {
+        return this.reusedEntries;
+    }
+
+    /**
+     * Checksums the content first, and compresses it only when the previous uberjar has no identical entry.
+     * A changed entry is therefore read twice, but never held in full.
+     */
+    private Result prepare(Entry entry, Entry.Previous prior, long now) throws IOException {
+        if (entry.asset == null) {
+            return new Result(entry.name, ZipEntry.STORED, now, 0, 0, new Spool(), null);
+        }
+
+        int method = this.storeCompressedEntries && isCompressed(entry.name) ? ZipEntry.STORED : ZipEntry.DEFLATED;
+
+        if (prior != null && prior.method == method) {
+            CRC32 crc = new CRC32();
+            long size;
+            try (InputStream in = new CheckedInputStream(entry.asset.openStream(), crc)) {
+                size = skipAll(in);
+            }
+            if (prior.crc == crc.getValue() && prior.size == size) {
+                return new Result(entry.name, method, prior.time, prior.crc, prior.size, null, prior);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        Spool spool = new Spool();
+        Deflater deflater = method == ZipEntry.DEFLATED ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+        long size;
+        try (InputStream in = new CheckedInputStream(entry.asset.openStream(), crc)) {
+            OutputStream data = deflater == null ? spool : new DeflaterOutputStream(spool, deflater, 8192);
+            size = copy(in, data);
+            if (data instanceof DeflaterOutputStream) {
+                ((DeflaterOutputStream) data).finish();
+            }
+        } catch (IOException | RuntimeException e) {
+            spool.discard();
+            throw e;
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        return new Result(entry.name, method, now, crc.getValue(), size, spool, null);
+    }
+
+    private static Result await(Future<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The manifest has to come first for {@link java.util.jar.JarInputStream} to find it.
+     */
+    private static List<Entry> ordered(List<Entry> entries) {
+        List<Entry> ordered = new ArrayList<>(entries);
+        ordered.sort((l, r) -> {
+            int lr = rank(l.name);
+            int rr = rank(r.name);
+            return lr != rr ? Integer.compare(lr, rr) : l.name.compareTo(r.name);
+        });
+        return ordered;
+    }
+
+    private static int rank(String name) {
+        if (name.equals("META-INF/")) {
+            return 0;
+        }
+        if (name.equals("META-INF/MANIFEST.MF")) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static boolean isCompressed(String name) {
+        String lower = name.toLowerCase();
+        for (String suffix : COMPRESSED_SUFFIXES) {
+            if (lower.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void discard(Deque<Future<Result>> pending) {
+        for (Future<Result> each : pending) {
+            try {
+                Result result = each.get();
+                if (result.data != null) {
+                    result.data.discard();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | CancellationException e) {
+                // nothing was spooled
+            }
+        }
+    }
+
+    private static File temporary(File out) {
+        return new File(out.getParentFile(), out.getName() + ".tmp");
+    }
+
+    private static void copyPrefix(InputStream prefix, OutputStream out) throws IOException {
+        if (prefix != null) {
+            copy(prefix, out);
+        }
+    }
+
+    private static long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    private static long skipAll(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy(in, out);
+        return out.toByteArray();
+    }
+
+    private static long dosTime(long millis, ZoneId zone) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((long) (time.getYear() - 1980) << 25)
+                | ((long) time.getMonthValue() << 21)
+                | ((long) time.getDayOfMonth() << 16)
+                | ((long) time.getHour() << 11)
+                | ((long) time.getMinute() << 5)
+                | ((long) time.getSecond() >> 1);
+    }
+
+    private File previous;
+
+    private boolean storeCompressedEntries;
+
+    private long timestamp;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private SimpleLogger log = new SimpleLogger() {
+    };
+
+    private int reusedEntries;
+
+    static class Entry {
+
+        Entry(String name, Asset asset) {
+            this.name = name;
+            this.asset = asset;
+        }
+
+        final String name;
+
+        final Asset asset;
+
+        /**
+         * An entry of the previous uberjar, as found in its central directory.
+         */
+        static class Previous {
+
+            Previous(int method, long time, long crc, long compressedSize, long size, long offset) {
+                this.method = method;
+                this.time = time;
+                this.crc = crc;
+                this.compressedSize = compressedSize;
+                this.size = size;
+                this.offset = offset;
+            }
+
+            final int method;
+
+            final long time;
+
+            final long crc;
+
+            final long compressedSize;
+
+            final long size;
+
+            final long offset;
+        }
+    }
+
+    private static class Result {
+
+        Result(String name, int method, long time, long crc, long size, Spool data, Entry.Previous reuse) {
+            this.name = name;
+            this.method = method;
+            this.time = time;
+            this.crc = crc;
+            this.compressedSize = reuse != null ? reuse.compressedSize : data.size();
+            this.size = size;
+            this.data = data;
+            this.reuse = reuse;
+        }
+
+        final String name;
+
+        final int method;
+
+        final long time;
+
+        final long crc;
+
+        final long compressedSize;
+
+        final long size;
+
+        final Spool data;
+
+        final Entry.Previous reuse;
+    }
+
+    /**
+     * Read access to the compressed entries of the previous uberjar, which may have a launch script in front.
+     */
+    private static class Previous implements AutoCloseable {
+
+        private static final int END_HEADER = 0x06054b50;
+
+        private static final int CENTRAL_HEADER = 0x02014b50;
+
+        private static final int LOCAL_HEADER = 0x04034b50;
+
+        static Previous open(File file) {
+            Previous previous = new Previous();
+            if (file == null || !file.isFile()) {
+                return previous;
+            }
+            try {
+                previous.file = new RandomAccessFile(file, "r");
+                previous.readCentralDirectory();
+            } catch (IOException e) {
+                // nothing to reuse from an unreadable or zip64 uberjar
+                previous.entries.clear();
+            }
+            return previous;
+        }
+
+        private void readCentralDirectory() throws IOException {
+            long length = this.file.length();
+            int tail = (int) Math.min(length, 0xFFFF + 22);
+            byte[] buffer = new byte[tail];
+            this.file.seek(length - tail);
+            this.file.readFully(buffer);
+
+            int end = -1;
+            for (int i = tail - 22; i >= 0; --i) {
+                if (int32(buffer, i) == END_HEADER) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                throw new IOException("No end of central directory");
+            }
+
+            long size = uint32(buffer, end + 12);
+            long offset = uint32(buffer, end + 16);
+            if (size == MAX_OFFSET || offset == MAX_OFFSET) {
+                throw new IOException("zip64");
+            }
+            long actual = length - tail + end - size;
+            this.shift = actual - offset;
+
+            byte[] directory = new byte[(int) size];
+            this.file.seek(actual);
+            this.file.readFully(directory);
+
+            int pos = 0;
+            while (pos + 46 <= directory.length && int32(directory, pos) == CENTRAL_HEADER) {
+                int flags = uint16(directory, pos + 8);
+                int method = uint16(directory, pos + 10);
+                long time = uint32(directory, pos + 12);
+                long crc = uint32(directory, pos + 16);
+                long compressedSize = uint32(directory, pos + 20);
+                long uncompressedSize = uint32(directory, pos + 24);
+                int nameLength = uint16(directory, pos + 28);
+                int extraLength = uint16(directory, pos + 30);
+                int commentLength = uint16(directory, pos + 32);
+                long local = uint32(directory, pos + 42);
+                String name = new String(directory, pos + 46, nameLength, StandardCharsets.UTF_8);
+
+                if (compressedSize == MAX_OFFSET || uncompressedSize == MAX_OFFSET || local == MAX_OFFSET) {
+                    throw new IOException("zip64");
+                }
+                if ((flags & 1) == 0) {
+                    this.entries.put(name, new Entry.Previous(method, time, crc, compressedSize, uncompressedSize, local));
+                }
+                pos += 46 + nameLength + extraLength + commentLength;
+            }
+        }
+
+        void copy(Entry.Previous entry, OutputStream out) throws IOException {
+            byte[] header = new byte[30];
+            this.file.seek(entry.offset + this.shift);
+            this.file.readFully(header);
+            if (int32(header, 0) != LOCAL_HEADER) {
+                throw new IOException("Corrupt previous uberjar");
+            }
+            this.file.seek(entry.offset + this.shift + 30 + uint16(header, 26) + uint16(header, 28));
+
+            byte[] buffer = new byte[8192];
+            long remaining = entry.compressedSize;
+            while (remaining > 0) {
+                int n = this.file.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n < 0) {
+                    throw new IOException("Truncated previous uberjar");
+                }
+                out.write(buffer, 0, n);
+                remaining -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.file != null) {
+                this.file.close();
+            }
+        }
+
+        private static int uint16(byte[] b, int i) {
+            return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8);
+        }
+
+        private static int int32(byte[] b, int i) {
+            return uint16(b, i) | (uint16(b, i + 2) << 16);
+        }
+
+        private static long uint32(byte[] b, int i) {
+            return int32(b, i) & 0xFFFFFFFFL;
+        }
+
+        private final Map<String, Entry.Previous> entries = new HashMap<>();
+
+        private RandomAccessFile file;
+
+        private long shift;
+    }
+
+    private static class Written {
+
+        Written(Result result, byte[] name, long offset) {
+            this.result = result;
+            this.name = name;
+            this.offset = offset;
+        }
+
+        final Result result;
+
+        final byte[] name;
+
+        final long offset;
+    }
+
+    /**
+     * Writes local headers and data as entries come in, then the central directory.
+     */
+    private static class Output extends FilterOutputStream {
+
+        Output(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            ++this.written;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            this.written += len;
+        }
+
+        void write(Result result, Previous previous) throws IOException {
+            if (this.written >= MAX_OFFSET || result.size >= MAX_OFFSET || result.compressedSize >= MAX_OFFSET) {
+                if (result.data != null) {
+                    result.data.discard();
+                }
+                throw new TooLargeException();
+            }
+            byte[] name = result.name.getBytes(StandardCharsets.UTF_8);
+            this.central.add(new Written(result, name, this.written));
+
+            header(0x04034b50);
+            short16(result.method == ZipEntry.STORED ? 10 : 20);
+            short16(0x0800);
+            short16(result.method);
+            int32(result.time);
+            int32(result.crc);
+            int32(result.compressedSize);
+            int32(result.size);
+            short16(name.length);
+            short16(0);
+            write(name, 0, name.length);
+
+            if (result.reuse != null) {
+                previous.copy(result.reuse, this);
+                ++this.reused;
+            } else {
+                try {
+                    result.data.writeTo(this);
+                } finally {
+                    result.data.discard();
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            long start = this.written;
+            for (Written each : this.central) {
+                Result result = each.result;
+                byte[] name = each.name;
+                long offset = each.offset;
+
+                header(0x02014b50);
+                short16(20);
+                short16(result.method == ZipEntry.STORED ? 10 : 20);
+                short16(0x0800);
+                short16(result.method);
+                int32(result.time);
+                int32(result.crc);
+                int32(result.compressedSize);
+                int32(result.size);
+                short16(name.length);
+                short16(0);
+                short16(0);
+                short16(0);
+                short16(0);
+                int32(result.name.endsWith("/") ? 0x10 : 0);
+                int32(offset);
+                write(name, 0, name.length);
+            }
+            long size = this.written - start;
+            if (this.written >= MAX_OFFSET) {
+                throw new TooLargeException();
+            }
+
+            header(0x06054b50);
+            short16(0);
+            short16(0);
+            short16(this.central.size());
+            short16(this.central.size());
+            int32(size);
+            int32(start);
+            short16(0);
+            flush();
+        }
+
+        private void header(int signature) throws IOException {
+            int32(signature & 0xFFFFFFFFL);
+        }
+
+        private void short16(int v) throws IOException {
+            write(v & 0xFF);
+            write((v >>> 8) & 0xFF);
+        }
+
+        private void int32(long v) throws IOException {
+            short16((int) (v & 0xFFFF));
+            short16((int) ((v >>> 16) & 0xFFFF));
+        }
+
+        private final List<Written> central = new ArrayList<>();
+
+        private long written;
+
+        private int reused;
+    }
+
+    /**
+     * Holds the data of one entry in memory, moving it to a temporary file once it grows large.
+     */
+    private static class Spool extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.file == null && this.memory.size() + len > SPILL_THRESHOLD) {
+                this.file = File.createTempFile("uberjar-entry", ".tmp");
+                this.fileOut = new BufferedOutputStream(new FileOutputStream(this.file), 64 * 1024);
+                this.memory.writeTo(this.fileOut);
+                this.memory = null;
+            }
+            if (this.file != null) {
+                this.fileOut.write(b, off, len);
+            } else {
+                this.memory.write(b, off, len);
+            }
+            this.size += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.fileOut != null) {
+                this.fileOut.close();
+            }
+        }
+
+        long size() {
+            return this.size;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (this.file == null) {
+                this.memory.writeTo(out);
+                return;
+            }
+            close();
+            try (InputStream in = new FileInputStream(this.file)) {
+                copy(in, out);
+            }
+        }
+
+        void discard() {
+            this.memory = null;
+            if (this.file != null) {
+                try {
+                    close();
+                } catch (IOException e) {
+                    // deleted next
+                }
+                if (!this.file.delete()) {
+                    this.file.deleteOnExit();
+                }
+                this.file = null;
+            }
+        }
+
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+        private File file;
+
+        private OutputStream fileOut;
+
+        private long size;
+    }
+
+    /**
+     * The uberjar needs Zip64 records, which only the {@link ZipExporter} path writes.
+     */
+    private static class TooLargeException extends IOException {
+
+        TooLargeException() {
+            super("Uberjar too large for the plain zip format");
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
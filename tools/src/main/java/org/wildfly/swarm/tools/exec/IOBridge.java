@@ -47,6 +47,22 @@ public class IOBridge implements Runnable, Closeable {
         return this.error;
     }
 
+    /**
+     * Stop looking for the ready marker in the output, once readiness will be reported some other way.
+     * Deployment failures are still detected until {@link #stopScanning()}.
+     */
+    public void stopScanningForReadiness() {
+        this.scanningForReadiness = false;
+    }
+
+    /**
+     * Stop looking at the output altogether, once readiness or failure has been reported some other way.
+     */
+    public void stopScanning() {
+        this.scanningForReadiness = false;
+        this.scanning = false;
+    }
+
     @Override
     public void run() {
 
@@ -81,7 +97,10 @@ public class IOBridge implements Runnable, Closeable {
             fileOut.newLine();
             fileOut.flush();
         }
-        if (line.contains("WFSWARM99999")) {
+        if (!this.scanning) {
+            return;
+        }
+        if (this.scanningForReadiness && line.contains("WFSWARM99999")) {
             this.latch.countDown();
         }
         if (line.contains("MSC000001: Failed to start service jboss.deployment.unit.")) {
@@ -98,4 +117,8 @@ public class IOBridge implements Runnable, Closeable {
     private BufferedWriter fileOut;
 
     private Exception error;
+
+    private volatile boolean scanning = true;
+
+    private volatile boolean scanningForReadiness = true;
 }
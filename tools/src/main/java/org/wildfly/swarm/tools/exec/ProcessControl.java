@@ -0,0 +1,125 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools.exec;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
+
+/**
+ * Launcher side of the {@link ControlChannel}: a loopback socket the forked process connects back to.
+ */
+class ProcessControl implements AutoCloseable {
+
+    ProcessControl() throws IOException {
+        this.serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    }
+
+    int port() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accept the process's connection and read its reports on a background thread.
+     *
+     * @param onConnect called once the process connected
+     * @param onReadiness called with the ready or failed report
+     */
+    void start(Runnable onConnect, Consumer<Readiness> onReadiness) {
+        Thread thread = new Thread(() -> {
+            try (Socket socket = this.serverSocket.accept()) {
+                this.serverSocket.close();
+                synchronized (this) {
+                    this.socket = socket;
+                    this.writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                }
+                onConnect.run();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(ControlChannel.READY) || line.startsWith(ControlChannel.FAILED)) {
+                        onReadiness.accept(Readiness.parse(line));
+                    } else if (line.startsWith(ControlChannel.STOPPED)) {
+                        this.stopped.countDown();
+                    }
+                }
+            } catch (IOException e) {
+                // closed, or the process exited
+            } finally {
+                this.stopped.countDown();
+            }
+        }, "swarm-process-control");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized boolean isConnected() {
+        return this.socket != null && !this.socket.isClosed();
+    }
+
+    /**
+     * Ask the process to stop its container and exit, and wait for it to confirm.
+     *
+     * @return {@code false} if the process never connected, so it cannot be asked
+     */
+    boolean shutdown(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        synchronized (this) {
+            if (!isConnected()) {
+                return false;
+            }
+            try {
+                this.writer.write(ControlChannel.SHUTDOWN);
+                this.writer.write('\n');
+                this.writer.flush();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        this.stopped.await(timeout, timeUnit);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            this.serverSocket.close();
+            if (this.socket != null) {
+                this.socket.close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private Socket socket;
+
+    private Writer writer;
+}
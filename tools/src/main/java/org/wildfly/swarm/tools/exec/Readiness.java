@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools.exec;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
+
+/**
+ * What a forked process reported over its control channel once it finished booting.
+ */
+public class Readiness {
+
+    private Readiness(long bootTime, Map<String, Integer> ports, Map<String, String> deployments, String failure) {
+        this.bootTime = bootTime;
+        this.ports = ports;
+        this.deployments = deployments;
+        this.failure = failure;
+    }
+
+    static Readiness parse(String line) {
+        Map<String, String> fields = ControlChannel.fields(line);
+        if (line.startsWith(ControlChannel.FAILED)) {
+            String message = fields.get(ControlChannel.MESSAGE);
+            return new Readiness(-1, Collections.emptyMap(), Collections.emptyMap(),
+                                 message == null ? "unknown failure" : ControlChannel.decode(message));
+        }
+
+        long bootTime = -1;
+        try {
+            bootTime = Long.parseLong(fields.get(ControlChannel.BOOT_TIME));
+        } catch (NumberFormatException e) {
+            // not reported
+        }
+        Map<String, Integer> ports = new LinkedHashMap<>();
+        ControlChannel.entries(fields.get(ControlChannel.PORTS)).forEach((name, port) -> {
+            try {
+                ports.put(name, Integer.parseInt(port));
+            } catch (NumberFormatException e) {
+                // skip
+            }
+        });
+        return new Readiness(bootTime, ports, ControlChannel.entries(fields.get(ControlChannel.DEPLOYMENTS)), null);
+    }
+
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+
+    /**
+     * @return why the process failed to boot, or {@code null}
+     */
+    public String getFailure() {
+        return this.failure;
+    }
+
+    /**
+     * @return milliseconds from JVM start until the process was ready, or {@code -1} if unknown
+     */
+    public long getBootTime() {
+        return this.bootTime;
+    }
+
+    /**
+     * @return bound ports by socket-binding name
+     */
+    public Map<String, Integer> getPorts() {
+        return this.ports;
+    }
+
+    /**
+     * @return deployment status (for example {@code OK} or {@code FAILED}) by deployment name
+     */
+    public Map<String, String> getDeployments() {
+        return this.deployments;
+    }
+
+    /**
+     * @return whether every deployment reported {@code OK}
+     */
+    public boolean isDeploymentsOk() {
+        return this.deployments.values().stream().allMatch("OK"::equals);
+    }
+
+    @Override
+    public String toString() {
+        if (isFailed()) {
+            return "failed: " + this.failure;
+        }
+        return "ready in " + this.bootTime + "ms, ports " + this.ports + ", deployments " + this.deployments;
+    }
+
+    private final long bootTime;
+
+    private final Map<String, Integer> ports;
+
+    private final Map<String, String> deployments;
+
+    private final String failure;
+}
@@ -33,6 +33,7 @@ import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.wildfly.swarm.bootstrap.Main;
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
 
 /**
  * @author Bob McWhirter
@@ -213,6 +214,15 @@ public class SwarmExecutor {
         return this;
     }
 
+    /**
+     * Whether the process reports readiness and accepts shutdown requests over a loopback
+     * control channel, rather than through its log output and process file. Defaults to true.
+     */
+    public SwarmExecutor withControlChannel(boolean controlChannel) {
+        this.controlChannel = controlChannel;
+        return this;
+    }
+
     public SwarmProcess execute() throws IOException {
         if (this.executable == null) {
             throw new RuntimeException("An executable jar or a main-class must be specified");
@@ -233,6 +243,11 @@ public class SwarmExecutor {
             cli.add("-D" + name + "=" + this.properties.get(name));
         }
 
+        ProcessControl control = this.controlChannel ? new ProcessControl() : null;
+        if (control != null) {
+            cli.add("-D" + ControlChannel.CONTROL_PORT + "=" + control.port());
+        }
+
         if (!this.classpath.isEmpty()) {
             cli.add("-classpath");
             cli.add(String.join(File.pathSeparator,
@@ -247,10 +262,18 @@ public class SwarmExecutor {
         final ProcessBuilder processBuilder = new ProcessBuilder(cli)
                 .directory(this.workingDirectory.toFile());
         processBuilder.environment().putAll(environment);
-        Process process = processBuilder.start();
+        Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            if (control != null) {
+                control.close();
+            }
+            throw e;
+        }
 
         return new SwarmProcess(
-                process, processFile,
+                process, processFile, control,
                 this.stdout, this.stdoutFile,
                 this.stderr, this.stderrFile);
     }
@@ -304,4 +327,6 @@ public class SwarmExecutor {
 
     private File processFile;
 
+    private boolean controlChannel = true;
+
 }
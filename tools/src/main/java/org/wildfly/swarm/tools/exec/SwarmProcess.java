@@ -32,27 +32,44 @@ public class SwarmProcess {
     }
 
     public SwarmProcess(Process process, File processFile, OutputStream stdout, Path stdoutFile, OutputStream stderr, Path stderrFile) throws IOException {
+        this(process, processFile, null, stdout, stdoutFile, stderr, stderrFile);
+    }
+
+    SwarmProcess(Process process, File processFile, ProcessControl control, OutputStream stdout, Path stdoutFile, OutputStream stderr, Path stderrFile) throws IOException {
         this.process = process;
         this.latch = new CountDownLatch(1);
         this.stdout = new IOBridge(this.latch, process.getInputStream(), stdout, stdoutFile);
         this.stderr = new IOBridge(this.latch, process.getErrorStream(), stderr, stderrFile);
         this.processFile = processFile;
+        this.control = control;
 
         new Thread(this.stdout).start();
         new Thread(this.stderr).start();
-        new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(1000);
-                    if (!this.process.isAlive()) {
-                        this.latch.countDown();
-                    }
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
 
-        }).start();
+        if (control != null) {
+            // a process that connects reports readiness itself; its output is still scanned for
+            // failures until it has actually reported
+            control.start(() -> {
+                this.stdout.stopScanningForReadiness();
+                this.stderr.stopScanningForReadiness();
+            }, readiness -> {
+                this.readiness = readiness;
+                this.stdout.stopScanning();
+                this.stderr.stopScanning();
+                this.latch.countDown();
+            });
+        }
+
+        Thread exitWatcher = new Thread(() -> {
+            try {
+                this.process.waitFor();
+            } catch (InterruptedException e) {
+                // fall through
+            }
+            this.latch.countDown();
+        }, "swarm-process-exit");
+        exitWatcher.setDaemon(true);
+        exitWatcher.start();
     }
 
     public Exception getError() {
@@ -62,9 +79,21 @@ public class SwarmProcess {
         if (this.stderr.getError() != null) {
             return this.stderr.getError();
         }
+        Readiness readiness = this.readiness;
+        if (readiness != null && readiness.isFailed()) {
+            return new Exception(readiness.getFailure());
+        }
         return null;
     }
 
+    /**
+     * @return what the process reported over its control channel once booted, or {@code null} if
+     * it has not reported (yet), or was launched without a control channel
+     */
+    public Readiness getReadiness() {
+        return this.readiness;
+    }
+
     public OutputStream getOutputStream() {
         return process.getOutputStream();
     }
@@ -103,16 +132,16 @@ public class SwarmProcess {
 
     public int stop(long timeout, TimeUnit timeUnit) throws InterruptedException {
 
-        if (this.processFile != null) {
+        // the shutdown request and the wait for the process to exit share one deadline
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        if (this.control != null && this.control.shutdown(timeout, timeUnit)) {
+            this.process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } else if (this.processFile != null) {
             this.processFile.delete();
-            long timeoutMillis = timeUnit.toMillis(timeout);
-            long initialTimeMillis = System.currentTimeMillis();
-            while (true) {
-                long currentTimeMillis = System.currentTimeMillis();
-                if (!process.isAlive() || (currentTimeMillis - initialTimeMillis) > timeoutMillis) {
-                    break;
-                }
-            }
+            this.process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        if (this.control != null) {
+            this.control.close();
         }
         if (!this.process.isAlive()) {
             return process.exitValue();
@@ -150,4 +179,8 @@ public class SwarmProcess {
     private final CountDownLatch latch;
 
     private File processFile;
+
+    private final ProcessControl control;
+
+    private volatile Readiness readiness;
 }
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.swarm.bootstrap.env.FractionManifest;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class DependencyAnalysisCacheTest {
+
+    private static MockArtifactResolver RESOLVER = new MockArtifactResolver();
+
+    private static ArtifactSpec SERVLET_SPEC = simple("org.jboss.spec.javax.servlet:jboss-servlet-api_3.1_spec:1.0.0.Final");
+
+    private static ArtifactSpec COMMON_DEP = simple("org.useful:utility:1.0");
+
+    private static ArtifactSpec UNDERTOW_FRACTION = fraction("org.wildfly.swarm:undertow:1.0", SERVLET_SPEC, COMMON_DEP);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHitAfterMiss() throws Exception {
+        Path dir = this.folder.getRoot().toPath();
+
+        DependencyAnalysisCache first = new DependencyAnalysisCache(dir);
+        DependencyManager analyzed = analyze(first);
+        assertThat(first.misses()).isEqualTo(1);
+        assertThat(first.hits()).isEqualTo(0);
+
+        DependencyAnalysisCache second = new DependencyAnalysisCache(dir);
+        DependencyManager cached = analyze(second);
+        assertThat(second.hits()).isEqualTo(1);
+        assertThat(second.misses()).isEqualTo(0);
+
+        assertThat(cached.getDependencies()).containsOnly(analyzed.getDependencies().toArray());
+        assertThat(cached.getRemovableDependencies()).containsOnly(analyzed.getRemovableDependencies().toArray());
+        assertThat(cached.getWildFlySwarmManifest().getDependencies())
+                .containsOnly(analyzed.getWildFlySwarmManifest().getDependencies().toArray());
+        assertThat(cached.getWildFlySwarmManifest().bootstrapModules()).containsOnly("org.wildfly.swarm.undertow");
+        assertThat(cached.getWildFlySwarmManifest().bootstrapArtifacts()).containsOnly(UNDERTOW_FRACTION.mavenGav());
+
+        for (ArtifactSpec each : cached.getDependencies()) {
+            assertThat(each.file).isNotNull();
+        }
+    }
+
+    @Test
+    public void testMissWhenArtifactChanges() throws Exception {
+        Path dir = this.folder.getRoot().toPath();
+        analyze(new DependencyAnalysisCache(dir));
+
+        File file = RESOLVER.resolve(copy(COMMON_DEP)).file;
+        assertThat(file.setLastModified(file.lastModified() - 10000)).isTrue();
+
+        DependencyAnalysisCache cache = new DependencyAnalysisCache(dir);
+        analyze(cache);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.lastResult()).contains(COMMON_DEP.mavenGav());
+
+        cache = new DependencyAnalysisCache(dir);
+        analyze(cache);
+        assertThat(cache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testVerify() throws Exception {
+        Path dir = this.folder.getRoot().toPath();
+        analyze(new DependencyAnalysisCache(dir));
+
+        DependencyAnalysisCache cache = new DependencyAnalysisCache(dir).verify(true);
+        analyze(cache);
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.mismatches()).isEmpty();
+
+        // tamper with the entry
+        Path entry = Files.list(dir).filter(e -> e.toString().endsWith(".analysis")).findFirst().get();
+        List<String> lines = Files.readAllLines(entry, StandardCharsets.UTF_8).stream()
+                .filter(e -> !e.startsWith("bootstrap-module"))
+                .collect(Collectors.toList());
+        Files.write(entry, lines, StandardCharsets.UTF_8);
+
+        cache = new DependencyAnalysisCache(dir).verify(true);
+        DependencyManager manager = analyze(cache);
+        assertThat(cache.mismatches()).containsOnly("bootstrap module only analyzed: org.wildfly.swarm.undertow");
+        assertThat(manager.getWildFlySwarmManifest().bootstrapModules()).containsOnly("org.wildfly.swarm.undertow");
+
+        // the fresh analysis replaced the entry
+        cache = new DependencyAnalysisCache(dir).verify(true);
+        analyze(cache);
+        assertThat(cache.mismatches()).isEmpty();
+    }
+
+    private static DependencyManager analyze(DependencyAnalysisCache cache) throws Exception {
+        DeclaredDependencies declaredDependencies = new DeclaredDependencies();
+        ArtifactSpec undertow = copy(UNDERTOW_FRACTION);
+        declaredDependencies.add(undertow, copy(SERVLET_SPEC));
+        declaredDependencies.add(undertow, copy(COMMON_DEP));
+        declaredDependencies.add(copy(COMMON_DEP));
+
+        DependencyManager manager = new DependencyManager(RESOLVER).analysisCache(cache);
+        manager.analyzeDependencies(false, declaredDependencies);
+        return manager;
+    }
+
+    private static ArtifactSpec copy(ArtifactSpec spec) {
+        return ArtifactSpec.fromMscGav(spec.mscGav());
+    }
+
+    private static ArtifactSpec simple(String gav) {
+        ArtifactSpec spec = ArtifactSpec.fromMscGav(gav);
+        RESOLVER.add(spec);
+        return spec;
+    }
+
+    private static ArtifactSpec fraction(String gav, ArtifactSpec... dependencies) {
+        ArtifactSpec spec = ArtifactSpec.fromMscGav(gav);
+
+        JavaArchive jar = ShrinkWrap.create(JavaArchive.class);
+        jar.add(new StringAsset("module: " + spec.groupId() + "." + spec.artifactId()), FractionManifest.CLASSPATH_LOCATION);
+
+        RESOLVER.add(spec, jar, (config) -> {
+            for (ArtifactSpec each : dependencies) {
+                config.addDependency(each);
+            }
+        });
+
+        return spec;
+    }
+}
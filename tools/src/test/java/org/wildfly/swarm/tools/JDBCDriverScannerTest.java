@@ -0,0 +1,176 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.env.JDBCDriverManifest;
+import org.wildfly.swarm.bootstrap.util.TempFileManager;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class JDBCDriverScannerTest {
+
+    private static final String DETECTABLE = "h2.driver-class=org.h2.Driver\n"
+            + "h2.xa-datasource-class=org.h2.jdbcx.JdbcDataSource\n"
+            + "mysql.driver-class=com.mysql.jdbc.Driver,com.mysql.cj.jdbc.Driver\n"
+            + "mysql.xa-datasource-class=com.mysql.jdbc.jdbc2.optional.MysqlXADataSource,com.mysql.cj.jdbc.MysqlXADataSource\n"
+            + "postgresql.driver-class=org.postgresql.Driver\n"
+            + "postgresql.xa-datasource-class=org.postgresql.xa.PGXADataSource\n"
+            + "postgresql.optional-class=org.postgis.DriverWrapper\n";
+
+    @Test
+    public void testScanArtifacts() throws Exception {
+        File datasources = jar("datasources", JDBCDriverManifest.DETECTABLE_LOCATION, "org/wildfly/swarm/datasources/DatasourcesFraction.class");
+        File h2 = jar("h2-driver", "org/h2/Driver.class", "org/h2/jdbcx/JdbcDataSource.class");
+        JDBCDriverScanner scanner = new JDBCDriverScanner()
+                .detectable(artifact("org.wildfly.swarm", "datasources", datasources))
+                .scan(artifact("com.h2database", "h2", h2))
+                .scan(new ArtifactSpec("compile", "org.example", "unresolved", "1.0", "jar", null, null));
+        JDBCDriverManifest manifest = scanner.manifest();
+
+        assertThat(manifest.drivers()).containsOnly("h2", "mysql", "postgresql");
+        assertThat(manifest.isPackaged("h2")).isTrue();
+        assertThat(manifest.driverClassName("h2")).isEqualTo("org.h2.Driver");
+        assertThat(manifest.xaDatasourceClassName("h2")).isEqualTo("org.h2.jdbcx.JdbcDataSource");
+        assertThat(manifest.artifact("h2")).isEqualTo("com.h2database:h2:1.0");
+        assertThat(manifest.optionalArtifacts("h2")).isEmpty();
+        assertThat(manifest.covers("mysql")).isTrue();
+        assertThat(manifest.isPackaged("mysql")).isFalse();
+        assertThat(manifest.isPackaged("postgresql")).isFalse();
+    }
+
+    @Test
+    public void testRecordsTheClassesFound() throws Exception {
+        JDBCDriverManifest manifest = new JDBCDriverScanner()
+                .detectable(stream(DETECTABLE))
+                .scan(artifact("mysql", "mysql-connector-java", jar("mysql", "com/mysql/cj/jdbc/Driver.class", "com/mysql/cj/jdbc/MysqlXADataSource.class")))
+                .scan(artifact("org.postgresql", "postgresql", jar("postgresql", "org/postgresql/Driver.class", "org/postgresql/xa/PGXADataSource.class")))
+                .scan(artifact("net.postgis", "postgis-jdbc", jar("postgis", "org/postgis/DriverWrapper.class")))
+                .manifest();
+
+        assertThat(manifest.driverClassName("mysql")).isEqualTo("com.mysql.cj.jdbc.Driver");
+        assertThat(manifest.xaDatasourceClassName("mysql")).isEqualTo("com.mysql.cj.jdbc.MysqlXADataSource");
+        assertThat(manifest.artifact("mysql")).isEqualTo("mysql:mysql-connector-java:1.0");
+        assertThat(manifest.artifact("postgresql")).isEqualTo("org.postgresql:postgresql:1.0");
+        assertThat(manifest.optionalArtifacts("postgresql")).containsOnly("net.postgis:postgis-jdbc:1.0");
+        assertThat(manifest.isPackaged("h2")).isFalse();
+    }
+
+    @Test
+    public void testScanApplication() throws Exception {
+        WebArchive app = ShrinkWrap.create(WebArchive.class, "app.war");
+        app.add(EmptyAsset.INSTANCE, "WEB-INF/classes/org/postgresql/Driver.class");
+        app.add(new ByteArrayAsset(jarBytes("org/h2/Driver.class")), "WEB-INF/lib/h2.jar");
+
+        JDBCDriverManifest manifest = new JDBCDriverScanner()
+                .detectable(stream(DETECTABLE))
+                .scan(app)
+                .manifest();
+
+        assertThat(manifest.driverClassName("h2")).isEqualTo("org.h2.Driver");
+        assertThat(manifest.artifact("h2")).isNull();
+        assertThat(manifest.xaDatasourceClassName("h2")).isNull();
+        assertThat(manifest.driverClassName("postgresql")).isEqualTo("org.postgresql.Driver");
+        assertThat(manifest.artifact("postgresql")).isNull();
+        assertThat(manifest.isPackaged("mysql")).isFalse();
+    }
+
+    @Test
+    public void testDependenciesWinOverTheApplication() throws Exception {
+        WebArchive app = ShrinkWrap.create(WebArchive.class, "app.war");
+        app.add(new ByteArrayAsset(jarBytes("org/h2/Driver.class")), "WEB-INF/lib/h2.jar");
+
+        JDBCDriverManifest manifest = new JDBCDriverScanner()
+                .detectable(stream(DETECTABLE))
+                .scan(artifact("com.h2database", "h2", jar("h2-driver", "org/h2/Driver.class")))
+                .scan(app)
+                .manifest();
+
+        assertThat(manifest.artifact("h2")).isEqualTo("com.h2database:h2:1.0");
+    }
+
+    @Test
+    public void testStableOutput() throws Exception {
+        byte[] bytes = new JDBCDriverScanner()
+                .detectable(stream(DETECTABLE))
+                .scan(artifact("org.postgresql", "postgresql", jar("postgresql", "org/postgresql/Driver.class")))
+                .manifest()
+                .toBytes();
+
+        assertThat(new String(bytes, StandardCharsets.ISO_8859_1)).isEqualTo(
+                "h2.driver-class=\n"
+                        + "mysql.driver-class=\n"
+                        + "postgresql.artifact=org.postgresql:postgresql:1.0\n"
+                        + "postgresql.driver-class=org.postgresql.Driver\n");
+
+        JDBCDriverManifest read = new JDBCDriverManifest(new ByteArrayInputStream(bytes));
+        assertThat(read.covers("h2")).isTrue();
+        assertThat(read.isPackaged("h2")).isFalse();
+        assertThat(read.driverClassName("postgresql")).isEqualTo("org.postgresql.Driver");
+        assertThat(read.artifact("postgresql")).isEqualTo("org.postgresql:postgresql:1.0");
+    }
+
+    @Test
+    public void testEmptyWithoutDetectableDrivers() throws Exception {
+        JDBCDriverScanner scanner = new JDBCDriverScanner()
+                .detectable(artifact("com.h2database", "h2", jar("h2-driver", "org/h2/Driver.class")));
+        assertThat(scanner.isEmpty()).isTrue();
+        assertThat(scanner.manifest().drivers()).isEmpty();
+    }
+
+    private static ArtifactSpec artifact(String groupId, String artifactId, File file) {
+        return new ArtifactSpec("compile", groupId, artifactId, "1.0", "jar", null, file);
+    }
+
+    private static File jar(String name, String... entries) throws IOException {
+        File jar = TempFileManager.INSTANCE.newTempFile(name, ".jar");
+        try (FileOutputStream out = new FileOutputStream(jar)) {
+            out.write(jarBytes(entries));
+        }
+        return jar;
+    }
+
+    private static byte[] jarBytes(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new JarOutputStream(bytes)) {
+            for (String each : entries) {
+                out.putNextEntry(new ZipEntry(each));
+                if (each.equals(JDBCDriverManifest.DETECTABLE_LOCATION)) {
+                    out.write(DETECTABLE.getBytes(StandardCharsets.ISO_8859_1));
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
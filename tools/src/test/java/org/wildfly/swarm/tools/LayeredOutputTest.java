@@ -0,0 +1,180 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.jboss.modules.maven.ArtifactCoordinates;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.Main;
+import org.wildfly.swarm.bootstrap.modules.UberJarMavenResolver;
+import org.wildfly.swarm.bootstrap.util.BootstrapProperties;
+import org.wildfly.swarm.bootstrap.util.TempFileManager;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class LayeredOutputTest {
+
+    @Test
+    public void testLayers() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        archive.add(new StringAsset("Manifest-Version: 1.0\nMain-Class: org.wildfly.swarm.bootstrap.Main\n"), "META-INF/MANIFEST.MF");
+        archive.add(new StringAsset("bootstrap"), "org/wildfly/swarm/bootstrap/Main.class");
+        archive.add(new StringAsset("dependency"), "m2repo/org/example/example/1.0/example-1.0.jar");
+        archive.add(new StringAsset("module"), "modules/org/example/main/module.xml");
+        archive.add(new StringAsset("manifest"), "META-INF/wildfly-swarm-manifest.yaml");
+        archive.add(new StringAsset("application"), "_bootstrap/example.war");
+
+        File dir = TempFileManager.INSTANCE.newTempDirectory("layered", null);
+        LayeredOutput output = new LayeredOutput(Collections.singleton("org/wildfly/swarm/bootstrap/Main.class"));
+        output.write(archive, dir);
+
+        File lib = new File(dir, LayeredOutput.DEPENDENCIES);
+        File app = new File(dir, LayeredOutput.APPLICATION);
+        assertThat(new File(lib, "m2repo/org/example/example/1.0/example-1.0.jar").isFile()).isTrue();
+        assertThat(new File(lib, "modules/org/example/main/module.xml").isFile()).isTrue();
+        assertThat(new File(app, "_bootstrap/example.war").isFile()).isTrue();
+        assertThat(new File(app, "META-INF/wildfly-swarm-manifest.yaml").isFile()).isTrue();
+        assertThat(new File(lib, "m2repo/org/example/example/1.0/example-1.0.jar").lastModified()).isEqualTo(LayeredOutput.TIMESTAMP);
+
+        File bootstrap = new File(dir, LayeredOutput.BOOTSTRAP);
+        try (JarFile jar = new JarFile(bootstrap)) {
+            Attributes attributes = jar.getManifest().getMainAttributes();
+            assertThat(attributes.getValue(Attributes.Name.CLASS_PATH)).isEqualTo("lib/ app/");
+            assertThat(attributes.getValue(Attributes.Name.MAIN_CLASS)).isEqualTo("org.wildfly.swarm.bootstrap.Main");
+            assertThat(jar.getEntry("org/wildfly/swarm/bootstrap/Main.class")).isNotNull();
+            assertThat(jar.getEntry("_bootstrap/example.war")).isNull();
+        }
+
+        // an unchanged bootstrap layer is identical from one build to the next
+        byte[] first = Files.readAllBytes(bootstrap.toPath());
+        archive.add(new StringAsset("changed application"), "_bootstrap/example.war");
+        output.write(archive, dir);
+        assertThat(Files.readAllBytes(bootstrap.toPath())).isEqualTo(first);
+        assertThat(new String(Files.readAllBytes(new File(app, "_bootstrap/example.war").toPath()), "UTF-8"))
+                .isEqualTo("changed application");
+    }
+
+    @Test
+    public void testTimestamp() {
+        assertThat(Instant.ofEpochMilli(LayeredOutput.TIMESTAMP).toString()).isEqualTo("1980-02-01T00:00:00Z");
+    }
+
+    @Test
+    public void testBootstrapResolvesDependenciesInPlace() throws Exception {
+        // the real bootstrap, which includes jboss-modules, expanded as BuildTool does for the uberjar
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        Set<String> bootstrapEntries = expandBootstrap(archive);
+        archive.add(new StringAsset("Manifest-Version: 1.0\nMain-Class: " + Main.class.getName() + "\n"), "META-INF/MANIFEST.MF");
+        archive.add(new StringAsset("dependency"), EXAMPLE_JAR);
+
+        File dir = TempFileManager.INSTANCE.newTempDirectory("layered", null);
+        new LayeredOutput(bootstrapEntries).write(archive, dir);
+        File dependency = new File(new File(dir, LayeredOutput.DEPENDENCIES), EXAMPLE_JAR).getCanonicalFile();
+
+        // loaded the way java -jar loads it, from bootstrap.jar and the layers on its Class-Path
+        URL bootstrap = new File(dir, LayeredOutput.BOOTSTRAP).toURI().toURL();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{bootstrap}, ClassLoader.getSystemClassLoader().getParent())) {
+            Class<?> main = loader.loadClass(Main.class.getName());
+            assertThat(main.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(bootstrap);
+
+            // BuildTool sets the flag through the swarm manifest of layered output
+            System.setProperty(BootstrapProperties.IS_LAYERED, Boolean.TRUE.toString());
+            assertThat(resolve(loader).getCanonicalFile()).isEqualTo(dependency);
+
+            // otherwise artifacts are copied out, as from an uberjar
+            System.clearProperty(BootstrapProperties.IS_LAYERED);
+            File copied = resolve(loader);
+            assertThat(copied.getCanonicalFile()).isNotEqualTo(dependency);
+            assertThat(new String(Files.readAllBytes(copied.toPath()), "UTF-8")).isEqualTo("dependency");
+        } finally {
+            System.clearProperty(BootstrapProperties.IS_LAYERED);
+        }
+    }
+
+    private static File resolve(ClassLoader loader) throws Exception {
+        Class<?> coordinatesType = loader.loadClass(ArtifactCoordinates.class.getName());
+        Object coordinates = coordinatesType.getConstructor(String.class, String.class, String.class)
+                .newInstance("org.example", "example", "1.0");
+        Object resolver = loader.loadClass(UberJarMavenResolver.class.getName()).newInstance();
+        Method resolve = resolver.getClass().getMethod("resolveArtifact", coordinatesType, String.class);
+        return (File) resolve.invoke(resolver, coordinates, "jar");
+    }
+
+    /**
+     * Skips META-INF like BuildTool does; an INDEX.LIST would hide the layers on the Class-Path.
+     */
+    private static Set<String> expandBootstrap(JavaArchive archive) throws Exception {
+        Set<String> entries = new HashSet<>();
+        Path location = Paths.get(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (Files.isDirectory(location)) {
+            try (Stream<Path> files = Files.walk(location)) {
+                for (Path each : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    String name = location.relativize(each).toString().replace(File.separatorChar, '/');
+                    if (!name.startsWith("META-INF")) {
+                        archive.add(new FileAsset(each.toFile()), name);
+                        entries.add(name);
+                    }
+                }
+            }
+            return entries;
+        }
+        try (JarFile jar = new JarFile(location.toFile())) {
+            for (JarEntry each : Collections.list(jar.entries())) {
+                if (!each.isDirectory() && !each.getName().startsWith("META-INF")) {
+                    archive.add(new ByteArrayAsset(readAll(jar, each)), each.getName());
+                    entries.add(each.getName());
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] readAll(JarFile jar, JarEntry entry) throws Exception {
+        try (InputStream in = jar.getInputStream(entry)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static final String EXAMPLE_JAR = "m2repo/org/example/example/1.0/example-1.0.jar";
+}
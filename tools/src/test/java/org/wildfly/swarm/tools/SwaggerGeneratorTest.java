@@ -0,0 +1,56 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class SwaggerGeneratorTest {
+
+    @Test
+    public void testModuleArtifactsLeaveOutSwarmArtifacts() throws Exception {
+        File fraction = this.folder.newFile("swagger.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(fraction))) {
+            out.putNextEntry(new ZipEntry("modules/io/swagger/main/module.xml"));
+            out.write(module("io.swagger:swagger-core:1.5.16", "org.wildfly.swarm:swagger:2018.1.0").getBytes(StandardCharsets.UTF_8));
+            out.putNextEntry(new ZipEntry("META-INF/module.xml"));
+            out.write(module("org.example:ignored:1.0").getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(SwaggerGenerator.moduleArtifacts(fraction))
+                .containsOnly(ArtifactSpec.fromMscGav("io.swagger:swagger-core:1.5.16"));
+    }
+
+    private static String module(String... artifacts) {
+        StringBuilder xml = new StringBuilder("<module xmlns=\"urn:jboss:module:1.3\" name=\"io.swagger\"><resources>");
+        for (String each : artifacts) {
+            xml.append("<artifact name=\"").append(each).append("\"/>");
+        }
+        return xml.append("</resources></module>").toString();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+}
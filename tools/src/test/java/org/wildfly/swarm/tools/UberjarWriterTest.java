@@ -0,0 +1,166 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.ByteArrayAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.junit.Test;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class UberjarWriterTest {
+
+    @Test
+    public void testReusesUnchangedEntries() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        for (int i = 0; i < 50; ++i) {
+            archive.add(new StringAsset("content of entry " + i), "entries/entry-" + i + ".txt");
+        }
+        archive.add(new StringAsset("Manifest-Version: 1.0\n"), "META-INF/MANIFEST.MF");
+
+        File out = File.createTempFile("uberjar-writer", "-swarm.jar");
+        out.deleteOnExit();
+
+        UberjarWriter writer = new UberjarWriter();
+        writer.write(archive, null, out);
+        assertThat(writer.reusedEntries()).isEqualTo(0);
+
+        archive.add(new StringAsset("changed"), "entries/entry-7.txt");
+        writer = new UberjarWriter().previous(out);
+        writer.write(archive, new ByteArrayInputStream("#!/bin/sh\n".getBytes(StandardCharsets.UTF_8)), out);
+        assertThat(writer.reusedEntries()).isEqualTo(50);
+
+        try (ZipFile zip = new ZipFile(out)) {
+            assertThat(read(zip, "entries/entry-7.txt")).isEqualTo("changed");
+            assertThat(read(zip, "entries/entry-8.txt")).isEqualTo("content of entry 8");
+            assertThat(zip.entries().nextElement().getName()).startsWith("META-INF/");
+        }
+
+        // the launch script in front of the previous uberjar does not get in the way
+        writer = new UberjarWriter().previous(out);
+        writer.write(archive, null, out);
+        assertThat(writer.reusedEntries()).isEqualTo(51);
+    }
+
+    @Test
+    public void testUnchangedEntriesAreReadOnce() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        Asset counted = () -> {
+            opened.incrementAndGet();
+            return new ByteArrayInputStream("counted".getBytes(StandardCharsets.UTF_8));
+        };
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        archive.add(counted, "counted.txt");
+
+        File out = File.createTempFile("uberjar-writer", "-swarm.jar");
+        out.deleteOnExit();
+
+        new UberjarWriter().write(archive, null, out);
+        assertThat(opened.get()).isEqualTo(1);
+
+        // only checksummed, never compressed again
+        UberjarWriter writer = new UberjarWriter().previous(out);
+        writer.write(archive, null, out);
+        assertThat(writer.reusedEntries()).isEqualTo(1);
+        assertThat(opened.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testStoreCompressedEntries() throws Exception {
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        archive.add(new StringAsset("not really a jar"), "m2repo/org/example/example.jar");
+        archive.add(new StringAsset("text"), "example.txt");
+
+        File out = File.createTempFile("uberjar-writer", "-swarm.jar");
+        out.deleteOnExit();
+
+        new UberjarWriter().storeCompressedEntries(true).write(archive, null, out);
+
+        try (ZipFile zip = new ZipFile(out)) {
+            assertThat(zip.getEntry("m2repo/org/example/example.jar").getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(zip.getEntry("example.txt").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(read(zip, "m2repo/org/example/example.jar")).isEqualTo("not really a jar");
+        }
+
+        // switching the mode means the jar has to be written again
+        UberjarWriter writer = new UberjarWriter().previous(out);
+        writer.write(archive, null, out);
+        try (ZipFile zip = new ZipFile(out)) {
+            assertThat(zip.getEntry("m2repo/org/example/example.jar").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        }
+    }
+
+    @Test
+    public void testLargeEntriesRoundTrip() throws Exception {
+        // beyond the in-memory threshold, and barely compressible
+        byte[] content = new byte[3 * 1024 * 1024];
+        new Random(42).nextBytes(content);
+
+        JavaArchive archive = ShrinkWrap.create(JavaArchive.class);
+        archive.add(new ByteArrayAsset(content), "m2repo/org/example/large.jar");
+        archive.add(new ByteArrayAsset(content), "large.bin");
+
+        File out = File.createTempFile("uberjar-writer", "-swarm.jar");
+        out.deleteOnExit();
+
+        new UberjarWriter().storeCompressedEntries(true).write(archive, null, out);
+        try (ZipFile zip = new ZipFile(out)) {
+            assertThat(readBytes(zip, "m2repo/org/example/large.jar")).isEqualTo(content);
+            assertThat(readBytes(zip, "large.bin")).isEqualTo(content);
+        }
+
+        UberjarWriter writer = new UberjarWriter().previous(out).storeCompressedEntries(true);
+        writer.write(archive, null, out);
+        assertThat(writer.reusedEntries()).isEqualTo(2);
+        try (ZipFile zip = new ZipFile(out)) {
+            assertThat(readBytes(zip, "large.bin")).isEqualTo(content);
+        }
+    }
+
+    private static byte[] readBytes(ZipFile zip, String name) throws Exception {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static String read(ZipFile zip, String name) throws Exception {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name));
+             Scanner scanner = new Scanner(in, "UTF-8").useDelimiter("\\A")) {
+            return scanner.hasNext() ? scanner.next() : "";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2015-2017 Red Hat, Inc, and individual contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.swarm.tools.exec;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.wildfly.swarm.bootstrap.util.ControlChannel;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+public class ProcessControlTest {
+
+    @Test
+    public void testReadyAndShutdown() throws Exception {
+        try (ProcessControl control = new ProcessControl()) {
+            CountDownLatch connected = new CountDownLatch(1);
+            AtomicReference<Readiness> readiness = new AtomicReference<>();
+            CountDownLatch ready = new CountDownLatch(1);
+            control.start(connected::countDown, r -> {
+                readiness.set(r);
+                ready.countDown();
+            });
+
+            assertThat(control.shutdown(1, TimeUnit.SECONDS)).isFalse();
+
+            try (Socket process = new Socket(InetAddress.getLoopbackAddress(), control.port())) {
+                Writer out = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+                BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+
+                assertThat(connected.await(5, TimeUnit.SECONDS)).isTrue();
+                out.write("READY boot=1234 ports=http:8080,management-http:9990 deployments=my%20app.war:OK\n");
+                out.flush();
+                assertThat(ready.await(5, TimeUnit.SECONDS)).isTrue();
+
+                Readiness r = readiness.get();
+                assertThat(r.isFailed()).isFalse();
+                assertThat(r.getBootTime()).isEqualTo(1234);
+                assertThat(r.getPorts().get("http")).isEqualTo(8080);
+                assertThat(r.getPorts().get("management-http")).isEqualTo(9990);
+                assertThat(r.getDeployments().get("my app.war")).isEqualTo("OK");
+                assertThat(r.isDeploymentsOk()).isTrue();
+
+                Thread stopper = new Thread(() -> {
+                    try {
+                        if (ControlChannel.SHUTDOWN.equals(in.readLine())) {
+                            out.write(ControlChannel.STOPPED + "\n");
+                            out.flush();
+                        }
+                    } catch (Exception e) {
+                        // test fails on the timing below
+                    }
+                });
+                stopper.start();
+
+                long start = System.nanoTime();
+                assertThat(control.shutdown(5, TimeUnit.SECONDS)).isTrue();
+                assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(5);
+                stopper.join();
+            }
+        }
+    }
+
+    @Test
+    public void testOutputScannedForFailuresUntilReported() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        IOBridge bridge = new IOBridge(latch, new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), null);
+
+        // connected: readiness comes over the channel, failures still show up in the log
+        bridge.stopScanningForReadiness();
+        bridge.processLine("WFSWARM99999: WildFly Swarm is Ready");
+        assertThat(latch.getCount()).isEqualTo(2);
+        bridge.processLine("MSC000001: Failed to start service jboss.deployment.unit.\"app.war\".POST_MODULE");
+        assertThat(latch.getCount()).isEqualTo(1);
+
+        // reported over the channel: the log no longer matters
+        bridge.stopScanning();
+        bridge.processLine("MSC000001: Failed to start service jboss.deployment.unit.\"app.war\".POST_MODULE");
+        assertThat(latch.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailure() {
+        Readiness r = Readiness.parse("FAILED message=Deployment+of+app.war+failed");
+        assertThat(r.isFailed()).isTrue();
+        assertThat(r.getFailure()).isEqualTo("Deployment of app.war failed");
+        assertThat(r.getPorts()).isEmpty();
+    }
+}